@@ -52,6 +52,9 @@ public class CommonClientConfigs {
     public static final String RECONNECT_BACKOFF_MS_CONFIG = "reconnect.backoff.ms";
     public static final String RECONNECT_BACKOFF_MS_DOC = "The amount of time to wait before attempting to reconnect to a given host. This avoids repeatedly connecting to a host in a tight loop. This backoff applies to all requests sent by the consumer to the broker.";
 
+    public static final String CONNECTIONS_PREWARM_ENABLE_CONFIG = "connections.prewarm.enable";
+    public static final String CONNECTIONS_PREWARM_ENABLE_DOC = "If true, the client connects to the brokers leading the partitions it uses as soon as it receives their metadata, rather than on the first request to each broker. The API versions negotiated with a broker are also reused when reconnecting to it, and verified again in the background.";
+
     public static final String RETRY_BACKOFF_MS_CONFIG = "retry.backoff.ms";
     public static final String RETRY_BACKOFF_MS_DOC = "The amount of time to wait before attempting to retry a failed request to a given topic partition. This avoids repeatedly sending requests in a tight loop under some failure scenarios.";
 
@@ -26,14 +26,13 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A class encapsulating some of the logic around metadata.
@@ -46,6 +45,11 @@ import java.util.Set;
  * If topic expiry is enabled for the metadata, any topic that has not been used within the expiry interval
  * is removed from the metadata refresh set after an update. Consumers disable topic expiry since they explicitly
  * manage topics while producers rely on topic expiry to limit the refresh set.
+ * <p>
+ * The cluster is an immutable snapshot which is read without locking. If topic subset updates are enabled, a topic
+ * which is added between two full refreshes only causes a metadata request for the new topics, and the response is
+ * merged into the current snapshot. Full refreshes still happen when the metadata expires or when an update is
+ * explicitly requested.
  */
 public final class Metadata {
 
@@ -56,17 +60,21 @@ public final class Metadata {
 
     private final long refreshBackoffMs;
     private final long metadataExpireMs;
-    private int version;
+    private volatile int version;
     private long lastRefreshMs;
     private long lastSuccessfulRefreshMs;
-    private Cluster cluster;
+    private volatile Cluster cluster;
     private boolean needUpdate;
-    /* Topics with expiry time */
-    private final Map<String, Long> topics;
+    private boolean needFullUpdate;
+    /* Topics with expiry time, updated without the lock when a known topic is added */
+    private final ConcurrentMap<String, Long> topics;
+    /* Topics added since the last update */
+    private final Set<String> newTopics;
     private final List<Listener> listeners;
     private final ClusterResourceListeners clusterResourceListeners;
     private boolean needMetadataForAllTopics;
     private final boolean topicExpiryEnabled;
+    private final boolean topicSubsetUpdatesEnabled;
 
     /**
      * Create a metadata instance with reasonable defaults
@@ -88,15 +96,33 @@ public final class Metadata {
      * @param clusterResourceListeners List of ClusterResourceListeners which will receive metadata updates.
      */
     public Metadata(long refreshBackoffMs, long metadataExpireMs, boolean topicExpiryEnabled, ClusterResourceListeners clusterResourceListeners) {
+        this(refreshBackoffMs, metadataExpireMs, topicExpiryEnabled, false, clusterResourceListeners);
+    }
+
+    /**
+     * Create a new Metadata instance
+     * @param refreshBackoffMs The minimum amount of time that must expire between metadata refreshes to avoid busy
+     *        polling
+     * @param metadataExpireMs The maximum amount of time that metadata can be retained without refresh
+     * @param topicExpiryEnabled If true, enable expiry of unused topics
+     * @param topicSubsetUpdatesEnabled If true, only fetch the metadata of new topics between full refreshes
+     * @param clusterResourceListeners List of ClusterResourceListeners which will receive metadata updates.
+     */
+    public Metadata(long refreshBackoffMs, long metadataExpireMs, boolean topicExpiryEnabled,
+                    boolean topicSubsetUpdatesEnabled, ClusterResourceListeners clusterResourceListeners) {
         this.refreshBackoffMs = refreshBackoffMs;
         this.metadataExpireMs = metadataExpireMs;
         this.topicExpiryEnabled = topicExpiryEnabled;
+        this.topicSubsetUpdatesEnabled = topicSubsetUpdatesEnabled;
         this.lastRefreshMs = 0L;
         this.lastSuccessfulRefreshMs = 0L;
         this.version = 0;
         this.cluster = Cluster.empty();
         this.needUpdate = false;
-        this.topics = new HashMap<>();
+        // the first update fetches all the topics
+        this.needFullUpdate = true;
+        this.topics = new ConcurrentHashMap<>();
+        this.newTopics = new HashSet<>();
         this.listeners = new ArrayList<>();
         this.clusterResourceListeners = clusterResourceListeners;
         this.needMetadataForAllTopics = false;
@@ -105,7 +131,7 @@ public final class Metadata {
     /**
      * Get the current cluster info without blocking
      */
-    public synchronized Cluster fetch() {
+    public Cluster fetch() {
         return this.cluster;
     }
 
@@ -113,9 +139,16 @@ public final class Metadata {
      * Add the topic to maintain in the metadata. If topic expiry is enabled, expiry time
      * will be reset on the next update.
      */
-    public synchronized void add(String topic) {
+    public void add(String topic) {
+        // this is called for every record sent, so a topic whose expiry is already due for reset is not written again
+        Long expireMs = topics.get(topic);
+        if (expireMs != null && expireMs == TOPIC_EXPIRY_NEEDS_UPDATE)
+            return;
         if (topics.put(topic, TOPIC_EXPIRY_NEEDS_UPDATE) == null) {
-            requestUpdateForNewTopics();
+            synchronized (this) {
+                newTopics.add(topic);
+                requestUpdateForNewTopics();
+            }
         }
     }
 
@@ -134,10 +167,39 @@ public final class Metadata {
      * Request an update of the current cluster metadata info, return the current version before the update
      */
     public synchronized int requestUpdate() {
+        this.needUpdate = true;
+        this.needFullUpdate = true;
+        return this.version;
+    }
+
+    /**
+     * Request an update of the metadata of the given topic, which is added to the topics we are maintaining metadata
+     * for if needed. If topic subset updates are enabled and no full refresh is due, only the metadata of the topics
+     * added since the last update is fetched. Return the current version before the update.
+     */
+    public synchronized int requestUpdateForTopic(String topic) {
+        add(topic);
+        this.newTopics.add(topic);
         this.needUpdate = true;
         return this.version;
     }
 
+    /**
+     * Check whether the next update only needs to fetch the metadata of the topics added since the last update,
+     * see {@link #newTopics()}.
+     */
+    public synchronized boolean topicSubsetUpdateDue(long nowMs) {
+        return topicSubsetUpdatesEnabled && !needFullUpdate && !needMetadataForAllTopics && !newTopics.isEmpty()
+                && this.lastSuccessfulRefreshMs + this.metadataExpireMs > nowMs;
+    }
+
+    /**
+     * Get the topics added since the last update
+     */
+    public synchronized Set<String> newTopics() {
+        return new HashSet<>(this.newTopics);
+    }
+
     /**
      * Check whether an update has been explicitly requested.
      * @return true if an update was requested, false otherwise
@@ -173,6 +235,7 @@ public final class Metadata {
      */
     public synchronized void setTopics(Collection<String> topics) {
         if (!this.topics.keySet().containsAll(topics)) {
+            this.needFullUpdate = true;
             requestUpdateForNewTopics();
         }
         this.topics.clear();
@@ -183,7 +246,7 @@ public final class Metadata {
     /**
      * Get the list of topics we are currently maintaining metadata for
      */
-    public synchronized Set<String> topics() {
+    public Set<String> topics() {
         return new HashSet<>(this.topics.keySet());
     }
 
@@ -192,7 +255,7 @@ public final class Metadata {
      * @param topic topic to check
      * @return true if the topic exists, false otherwise
      */
-    public synchronized boolean containsTopic(String topic) {
+    public boolean containsTopic(String topic) {
         return this.topics.containsKey(topic);
     }
 
@@ -209,21 +272,21 @@ public final class Metadata {
         Objects.requireNonNull(cluster, "cluster should not be null");
 
         this.needUpdate = false;
+        this.needFullUpdate = false;
+        this.newTopics.clear();
         this.lastRefreshMs = now;
         this.lastSuccessfulRefreshMs = now;
-        this.version += 1;
 
         if (topicExpiryEnabled) {
-            // Handle expiry of topics from the metadata refresh set.
-            for (Iterator<Map.Entry<String, Long>> it = topics.entrySet().iterator(); it.hasNext(); ) {
-                Map.Entry<String, Long> entry = it.next();
-                long expireMs = entry.getValue();
+            // Handle expiry of topics from the metadata refresh set. The entries are only replaced or removed if
+            // they were not concurrently reset by `add`.
+            for (Map.Entry<String, Long> entry : topics.entrySet()) {
+                String topic = entry.getKey();
+                Long expireMs = entry.getValue();
                 if (expireMs == TOPIC_EXPIRY_NEEDS_UPDATE)
-                    entry.setValue(now + TOPIC_EXPIRY_MS);
-                else if (expireMs <= now) {
-                    it.remove();
-                    log.debug("Removing unused topic {} from the metadata list, expiryMs {} now {}", entry.getKey(), expireMs, now);
-                }
+                    topics.replace(topic, expireMs, now + TOPIC_EXPIRY_MS);
+                else if (expireMs <= now && topics.remove(topic, expireMs))
+                    log.debug("Removing unused topic {} from the metadata list, expiryMs {} now {}", topic, expireMs, now);
             }
         }
 
@@ -236,10 +299,11 @@ public final class Metadata {
             // the listener may change the interested topics, which could cause another metadata refresh.
             // If we have already fetched all topics, however, another fetch should be unnecessary.
             this.needUpdate = false;
-            this.cluster = getClusterForCurrentTopics(cluster);
+            this.cluster = cluster.retainTopics(this.topics.keySet());
         } else {
             this.cluster = cluster;
         }
+        this.version += 1;
 
         // The bootstrap cluster is guaranteed not to have any useful information
         if (!cluster.isBootstrapConfigured()) {
@@ -253,6 +317,41 @@ public final class Metadata {
         log.debug("Updated cluster metadata version {} to {}", this.version, this.cluster);
     }
 
+    /**
+     * Merges the metadata of a subset of the topics into the current cluster, see {@link #topicSubsetUpdateDue(long)}.
+     * This does not count as a refresh of the metadata of the other topics, so the time of the next full refresh is
+     * not changed. Unused topics are only removed by full refreshes.
+     *
+     * @param cluster the cluster containing metadata for the requested topics with valid metadata
+     * @param topics the topics whose metadata was requested
+     * @param unavailableTopics topics which are non-existent or have one or more partitions whose
+     *        leader is not known
+     * @param now current time in milliseconds
+     */
+    public synchronized void updateTopics(Cluster cluster, Collection<String> topics, Set<String> unavailableTopics, long now) {
+        Objects.requireNonNull(cluster, "cluster should not be null");
+
+        this.newTopics.removeAll(topics);
+        if (!this.needFullUpdate && this.newTopics.isEmpty())
+            this.needUpdate = false;
+        this.lastRefreshMs = now;
+
+        if (topicExpiryEnabled) {
+            for (String topic : topics)
+                this.topics.replace(topic, TOPIC_EXPIRY_NEEDS_UPDATE, now + TOPIC_EXPIRY_MS);
+        }
+
+        this.cluster = this.cluster.withTopicsUpdatedFrom(cluster, topics);
+        this.version += 1;
+
+        for (Listener listener: listeners)
+            listener.onMetadataUpdate(this.cluster, unavailableTopics);
+        clusterResourceListeners.onUpdate(this.cluster.clusterResource());
+
+        notifyAll();
+        log.debug("Updated cluster metadata version {} with topics {} to {}", this.version, topics, this.cluster);
+    }
+
     /**
      * Record an attempt to update the metadata that failed. We need to keep track of this
      * to avoid retrying immediately.
@@ -264,7 +363,7 @@ public final class Metadata {
     /**
      * @return The current metadata version
      */
-    public synchronized int version() {
+    public int version() {
         return this.version;
     }
 
@@ -324,31 +423,6 @@ public final class Metadata {
     private synchronized void requestUpdateForNewTopics() {
         // Override the timestamp of last refresh to let immediate update.
         this.lastRefreshMs = 0;
-        requestUpdate();
-    }
-
-    private Cluster getClusterForCurrentTopics(Cluster cluster) {
-        Set<String> unauthorizedTopics = new HashSet<>();
-        Collection<PartitionInfo> partitionInfos = new ArrayList<>();
-        List<Node> nodes = Collections.emptyList();
-        Set<String> internalTopics = Collections.emptySet();
-        Node controller = null;
-        String clusterId = null;
-        if (cluster != null) {
-            clusterId = cluster.clusterResource().clusterId();
-            internalTopics = cluster.internalTopics();
-            unauthorizedTopics.addAll(cluster.unauthorizedTopics());
-            unauthorizedTopics.retainAll(this.topics.keySet());
-
-            for (String topic : this.topics.keySet()) {
-                List<PartitionInfo> partitionInfoList = cluster.partitionsForTopic(topic);
-                if (!partitionInfoList.isEmpty()) {
-                    partitionInfos.addAll(partitionInfoList);
-                }
-            }
-            nodes = cluster.nodes();
-            controller  = cluster.controller();
-        }
-        return new Cluster(clusterId, nodes, partitionInfos, unauthorizedTopics, internalTopics, controller);
+        this.needUpdate = true;
     }
 }
@@ -25,7 +25,6 @@ import org.apache.kafka.common.network.Selectable;
 import org.apache.kafka.common.network.Send;
 import org.apache.kafka.common.protocol.ApiKeys;
 import org.apache.kafka.common.protocol.Errors;
-import org.apache.kafka.common.protocol.types.Struct;
 import org.apache.kafka.common.requests.AbstractRequest;
 import org.apache.kafka.common.requests.AbstractResponse;
 import org.apache.kafka.common.requests.ApiVersionsRequest;
@@ -44,11 +43,13 @@ import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.Set;
 
 /**
  * A network client for asynchronous request/response network i/o. This is an internal class used to implement the
@@ -102,6 +103,18 @@ public class NetworkClient implements KafkaClient {
 
     private final Map<String, ApiVersionsRequest.Builder> nodesNeedingApiVersionsFetch = new HashMap<>();
 
+    /**
+     * True if we should connect to the leaders of the partitions in the metadata as soon as it is updated, and reuse
+     * the API versions of a node when reconnecting to it.
+     */
+    private final boolean prewarmConnections;
+
+    /* the API versions last received from each node, kept across reconnects if connections are prewarmed */
+    private final Map<String, NodeApiVersions> nodeApiVersionsCache = new HashMap<>();
+
+    /* the nodes using cached API versions which have not been confirmed on their current connection yet */
+    private final Set<String> nodesWithUnverifiedApiVersions = new HashSet<>();
+
     private final List<ClientResponse> abortedSends = new LinkedList<>();
 
     public NetworkClient(Selectable selector,
@@ -115,8 +128,25 @@ public class NetworkClient implements KafkaClient {
                          Time time,
                          boolean discoverBrokerVersions,
                          ApiVersions apiVersions) {
+        this(selector, metadata, clientId, maxInFlightRequestsPerConnection, reconnectBackoffMs, socketSendBuffer,
+                socketReceiveBuffer, requestTimeoutMs, time, discoverBrokerVersions, apiVersions, false);
+    }
+
+    public NetworkClient(Selectable selector,
+                         Metadata metadata,
+                         String clientId,
+                         int maxInFlightRequestsPerConnection,
+                         long reconnectBackoffMs,
+                         int socketSendBuffer,
+                         int socketReceiveBuffer,
+                         int requestTimeoutMs,
+                         Time time,
+                         boolean discoverBrokerVersions,
+                         ApiVersions apiVersions,
+                         boolean prewarmConnections) {
         this(null, metadata, selector, clientId, maxInFlightRequestsPerConnection, reconnectBackoffMs,
-                socketSendBuffer, socketReceiveBuffer, requestTimeoutMs, time, discoverBrokerVersions, apiVersions);
+                socketSendBuffer, socketReceiveBuffer, requestTimeoutMs, time, discoverBrokerVersions, apiVersions,
+                prewarmConnections);
     }
 
     public NetworkClient(Selectable selector,
@@ -131,7 +161,7 @@ public class NetworkClient implements KafkaClient {
                          boolean discoverBrokerVersions,
                          ApiVersions apiVersions) {
         this(metadataUpdater, null, selector, clientId, maxInFlightRequestsPerConnection, reconnectBackoffMs,
-                socketSendBuffer, socketReceiveBuffer, requestTimeoutMs, time, discoverBrokerVersions, apiVersions);
+                socketSendBuffer, socketReceiveBuffer, requestTimeoutMs, time, discoverBrokerVersions, apiVersions, false);
     }
 
     private NetworkClient(MetadataUpdater metadataUpdater,
@@ -145,7 +175,8 @@ public class NetworkClient implements KafkaClient {
                           int requestTimeoutMs,
                           Time time,
                           boolean discoverBrokerVersions,
-                          ApiVersions apiVersions) {
+                          ApiVersions apiVersions,
+                          boolean prewarmConnections) {
         /* It would be better if we could pass `DefaultMetadataUpdater` from the public constructor, but it's not
          * possible because `DefaultMetadataUpdater` is an inner class and it can only be instantiated after the
          * super constructor is invoked.
@@ -170,6 +201,7 @@ public class NetworkClient implements KafkaClient {
         this.time = time;
         this.discoverBrokerVersions = discoverBrokerVersions;
         this.apiVersions = apiVersions;
+        this.prewarmConnections = prewarmConnections;
     }
 
     /**
@@ -206,6 +238,8 @@ public class NetworkClient implements KafkaClient {
             if (request.isInternalRequest && request.header.apiKey() == ApiKeys.METADATA.id)
                 metadataUpdater.handleDisconnection(request.destination);
         connectionStates.remove(nodeId);
+        if (nodesWithUnverifiedApiVersions.remove(nodeId))
+            nodeApiVersionsCache.remove(nodeId);
     }
 
     /**
@@ -471,9 +505,9 @@ public class NetworkClient implements KafkaClient {
         ResponseHeader responseHeader = ResponseHeader.parse(responseBuffer);
         // Always expect the response version id to be the same as the request version id
         ApiKeys apiKey = ApiKeys.forId(requestHeader.apiKey());
-        Struct responseBody = apiKey.parseResponse(requestHeader.apiVersion(), responseBuffer);
+        AbstractResponse response = AbstractResponse.parseResponse(apiKey, responseBuffer, requestHeader.apiVersion());
         correlate(requestHeader, responseHeader);
-        return AbstractResponse.getResponse(apiKey, responseBody);
+        return response;
     }
 
     /**
@@ -487,6 +521,9 @@ public class NetworkClient implements KafkaClient {
         connectionStates.disconnected(nodeId, now);
         apiVersions.remove(nodeId);
         nodesNeedingApiVersionsFetch.remove(nodeId);
+        // the cached versions may be the reason of the disconnection, e.g. if the broker was downgraded
+        if (nodesWithUnverifiedApiVersions.remove(nodeId))
+            nodeApiVersionsCache.remove(nodeId);
         switch (disconnectState) {
             case AUTHENTICATE:
                 log.warn("Connection to node {} terminated during authentication. This may indicate " +
@@ -587,6 +624,9 @@ public class NetworkClient implements KafkaClient {
         }
         NodeApiVersions nodeVersionInfo = new NodeApiVersions(apiVersionsResponse.apiVersions());
         apiVersions.update(node, nodeVersionInfo);
+        nodesWithUnverifiedApiVersions.remove(node);
+        if (prewarmConnections)
+            nodeApiVersionsCache.put(node, nodeVersionInfo);
         this.connectionStates.ready(node);
         if (log.isDebugEnabled()) {
             log.debug("Recorded API versions for node {}: {}", node, nodeVersionInfo);
@@ -619,7 +659,15 @@ public class NetworkClient implements KafkaClient {
             // if SSL is enabled, the SSL handshake happens after the connection is established.
             // Therefore, it is still necessary to check isChannelReady before attempting to send on this
             // connection.
-            if (discoverBrokerVersions) {
+            NodeApiVersions cachedVersions = nodeApiVersionsCache.get(node);
+            if (discoverBrokerVersions && cachedVersions != null) {
+                // use the versions of the previous connection right away and verify them in the background
+                this.connectionStates.ready(node);
+                apiVersions.update(node, cachedVersions);
+                nodesWithUnverifiedApiVersions.add(node);
+                nodesNeedingApiVersionsFetch.put(node, new ApiVersionsRequest.Builder());
+                log.debug("Completed connection to node {}.  Ready with cached API versions.", node);
+            } else if (discoverBrokerVersions) {
                 this.connectionStates.checkingApiVersions(node);
                 nodesNeedingApiVersionsFetch.put(node, new ApiVersionsRequest.Builder());
                 log.debug("Completed connection to node {}.  Fetching API versions.", node);
@@ -683,6 +731,9 @@ public class NetworkClient implements KafkaClient {
         /* true iff there is a metadata request that has been sent and for which we have not yet received a response */
         private boolean metadataFetchInProgress;
 
+        /* the topics of the metadata request in progress if it only fetches a subset of the topics, null otherwise */
+        private Set<String> metadataFetchTopicSubset;
+
         DefaultMetadataUpdater(Metadata metadata) {
             this.metadata = metadata;
             this.metadataFetchInProgress = false;
@@ -748,8 +799,15 @@ public class NetworkClient implements KafkaClient {
 
             // don't update the cluster if there are no valid nodes...the topic we want may still be in the process of being
             // created which means we will get errors and no nodes until it exists
+            Set<String> topicSubset = this.metadataFetchTopicSubset;
+            this.metadataFetchTopicSubset = null;
             if (cluster.nodes().size() > 0) {
-                this.metadata.update(cluster, response.unavailableTopics(), now);
+                if (topicSubset != null)
+                    this.metadata.updateTopics(cluster, topicSubset, response.unavailableTopics(), now);
+                else
+                    this.metadata.update(cluster, response.unavailableTopics(), now);
+                if (prewarmConnections)
+                    connectToLeaders(now);
             } else {
                 log.trace("Ignoring empty metadata response with correlation id {}.", requestHeader.correlationId());
                 this.metadata.failedUpdate(now);
@@ -761,6 +819,20 @@ public class NetworkClient implements KafkaClient {
             this.metadata.requestUpdate();
         }
 
+        /**
+         * Start connecting to the nodes leading partitions in the metadata which we are not connected to, so that the
+         * connection and API versions handshakes are done before the first request to these nodes.
+         */
+        private void connectToLeaders(long now) {
+            Cluster cluster = metadata.fetch();
+            for (Node node : cluster.nodes()) {
+                if (!cluster.partitionsForNode(node.id()).isEmpty() && connectionStates.canConnect(node.idString(), now)) {
+                    log.debug("Initialize connection to leader node {} ahead of the first request", node.id());
+                    initiateConnect(node, now);
+                }
+            }
+        }
+
         /**
          * Return true if there's at least one connection establishment is currently underway
          */
@@ -782,11 +854,15 @@ public class NetworkClient implements KafkaClient {
             if (canSendRequest(nodeConnectionId)) {
                 this.metadataFetchInProgress = true;
                 MetadataRequest.Builder metadataRequest;
-                if (metadata.needMetadataForAllTopics())
+                this.metadataFetchTopicSubset = null;
+                if (metadata.needMetadataForAllTopics()) {
                     metadataRequest = MetadataRequest.Builder.allTopics();
-                else
+                } else if (metadata.topicSubsetUpdateDue(now)) {
+                    this.metadataFetchTopicSubset = metadata.newTopics();
+                    metadataRequest = new MetadataRequest.Builder(new ArrayList<>(this.metadataFetchTopicSubset));
+                } else {
                     metadataRequest = new MetadataRequest.Builder(new ArrayList<>(metadata.topics()));
-
+                }
 
                 log.debug("Sending metadata request {} to node {}", metadataRequest, node.id());
                 sendInternalMetadataRequest(metadataRequest, nodeConnectionId, now);
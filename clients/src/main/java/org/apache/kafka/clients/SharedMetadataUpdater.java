@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.clients;
+
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.requests.MetadataResponse;
+import org.apache.kafka.common.requests.RequestHeader;
+
+import java.util.List;
+
+/**
+ * A `MetadataUpdater` for a client that shares a `Metadata` instance kept up to date by another client. The nodes
+ * are those of the shared metadata and the updates requested by this client are delegated to the client sending the
+ * metadata requests.
+ *
+ * This is used by the producer when several I/O threads, each with its own client, send to disjoint sets of brokers.
+ */
+public class SharedMetadataUpdater implements MetadataUpdater {
+
+    private final Metadata metadata;
+    private final KafkaClient updatingClient;
+
+    public SharedMetadataUpdater(Metadata metadata, KafkaClient updatingClient) {
+        this.metadata = metadata;
+        this.updatingClient = updatingClient;
+    }
+
+    @Override
+    public List<Node> fetchNodes() {
+        return metadata.fetch().nodes();
+    }
+
+    @Override
+    public boolean isUpdateDue(long now) {
+        return false;
+    }
+
+    @Override
+    public long maybeUpdate(long now) {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public void handleDisconnection(String destination) {
+        // Do nothing
+    }
+
+    @Override
+    public void handleCompletedMetadataResponse(RequestHeader requestHeader, long now, MetadataResponse response) {
+        // Do nothing, metadata requests are only sent by the updating client
+    }
+
+    @Override
+    public void requestUpdate() {
+        metadata.requestUpdate();
+        updatingClient.wakeup();
+    }
+}
@@ -166,6 +166,11 @@ public class ConsumerConfig extends AbstractConfig {
      */
     public static final String RECONNECT_BACKOFF_MS_CONFIG = CommonClientConfigs.RECONNECT_BACKOFF_MS_CONFIG;
 
+    /**
+     * <code>connections.prewarm.enable</code>
+     */
+    public static final String CONNECTIONS_PREWARM_ENABLE_CONFIG = CommonClientConfigs.CONNECTIONS_PREWARM_ENABLE_CONFIG;
+
     /**
      * <code>retry.backoff.ms</code>
      */
@@ -333,6 +338,11 @@ public class ConsumerConfig extends AbstractConfig {
                                         atLeast(0L),
                                         Importance.LOW,
                                         CommonClientConfigs.RECONNECT_BACKOFF_MS_DOC)
+                                .define(CONNECTIONS_PREWARM_ENABLE_CONFIG,
+                                        Type.BOOLEAN,
+                                        false,
+                                        Importance.LOW,
+                                        CommonClientConfigs.CONNECTIONS_PREWARM_ENABLE_DOC)
                                 .define(RETRY_BACKOFF_MS_CONFIG,
                                         Type.LONG,
                                         100L,
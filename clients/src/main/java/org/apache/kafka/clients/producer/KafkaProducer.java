@@ -20,6 +20,7 @@ import org.apache.kafka.clients.ApiVersions;
 import org.apache.kafka.clients.ClientUtils;
 import org.apache.kafka.clients.Metadata;
 import org.apache.kafka.clients.NetworkClient;
+import org.apache.kafka.clients.SharedMetadataUpdater;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.clients.producer.internals.ProducerInterceptors;
 import org.apache.kafka.clients.producer.internals.RecordAccumulator;
@@ -50,6 +51,7 @@ import org.apache.kafka.common.metrics.Metrics;
 import org.apache.kafka.common.metrics.MetricsReporter;
 import org.apache.kafka.common.metrics.Sensor;
 import org.apache.kafka.common.network.ChannelBuilder;
+import org.apache.kafka.common.network.NetworkReceive;
 import org.apache.kafka.common.network.Selector;
 import org.apache.kafka.common.record.AbstractRecords;
 import org.apache.kafka.common.record.CompressionType;
@@ -63,6 +65,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -157,6 +160,7 @@ public class KafkaProducer<K, V> implements Producer<K, V> {
     private final RecordAccumulator accumulator;
     private final Sender sender;
     private final Thread ioThread;
+    private final List<Thread> secondaryIoThreads;
     private final CompressionType compressionType;
     private final Sensor errors;
     private final Time time;
@@ -265,7 +269,8 @@ public class KafkaProducer<K, V> implements Producer<K, V> {
                     ProducerInterceptor.class);
             this.interceptors = interceptorList.isEmpty() ? null : new ProducerInterceptors<>(interceptorList);
             ClusterResourceListeners clusterResourceListeners = configureClusterResourceListeners(keySerializer, valueSerializer, interceptorList, reporters);
-            this.metadata = new Metadata(retryBackoffMs, config.getLong(ProducerConfig.METADATA_MAX_AGE_CONFIG), true, clusterResourceListeners);
+            this.metadata = new Metadata(retryBackoffMs, config.getLong(ProducerConfig.METADATA_MAX_AGE_CONFIG),
+                    true, true, clusterResourceListeners);
             this.maxRequestSize = config.getInt(ProducerConfig.MAX_REQUEST_SIZE_CONFIG);
             this.totalMemorySize = config.getLong(ProducerConfig.BUFFER_MEMORY_CONFIG);
             this.compressionType = CompressionType.forName(config.getString(ProducerConfig.COMPRESSION_TYPE_CONFIG));
@@ -276,6 +281,7 @@ public class KafkaProducer<K, V> implements Producer<K, V> {
             int retries = configureRetries(config, transactionManager != null);
             int maxInflightRequests = configureInflightRequests(config, transactionManager != null);
             short acks = configureAcks(config, transactionManager != null);
+            int networkThreads = configureNetworkThreads(config, transactionManager);
 
             this.apiVersions = new ApiVersions();
             this.accumulator = new RecordAccumulator(config.getInt(ProducerConfig.BATCH_SIZE_CONFIG),
@@ -302,7 +308,8 @@ public class KafkaProducer<K, V> implements Producer<K, V> {
                     this.requestTimeoutMs,
                     time,
                     true,
-                    apiVersions);
+                    apiVersions,
+                    config.getBoolean(ProducerConfig.CONNECTIONS_PREWARM_ENABLE_CONFIG));
             this.sender = new Sender(client,
                     this.metadata,
                     this.accumulator,
@@ -315,10 +322,39 @@ public class KafkaProducer<K, V> implements Producer<K, V> {
                     this.requestTimeoutMs,
                     config.getLong(ProducerConfig.RETRY_BACKOFF_MS_CONFIG),
                     this.transactionManager,
-                    apiVersions);
+                    apiVersions,
+                    networkThreads);
             String ioThreadName = "kafka-producer-network-thread" + (clientId.length() > 0 ? " | " + clientId : "");
             this.ioThread = new KafkaThread(ioThreadName, this.sender, true);
+            this.secondaryIoThreads = new ArrayList<>(networkThreads - 1);
+            for (int i = 1; i < networkThreads; i++) {
+                // the secondary clients have their own connections, API versions and metric tags, their metadata is
+                // kept up to date by the client of the first thread. The API versions are not shared since a client
+                // removes those of a node it disconnects from, which another client may still be connected to. The
+                // accumulator only knows the versions of the nodes connected to the first client, but each sender
+                // down-converts the batches it sends to the magic usable by the nodes it is connected to
+                ApiVersions secondaryApiVersions = new ApiVersions();
+                Map<String, String> selectorMetricTags = Collections.singletonMap("network-thread", String.valueOf(i));
+                NetworkClient secondaryClient = new NetworkClient(
+                        new Selector(NetworkReceive.UNLIMITED, config.getLong(ProducerConfig.CONNECTIONS_MAX_IDLE_MS_CONFIG),
+                                this.metrics, time, "producer", selectorMetricTags, true, ClientUtils.createChannelBuilder(config)),
+                        new SharedMetadataUpdater(this.metadata, client),
+                        clientId,
+                        maxInflightRequests,
+                        config.getLong(ProducerConfig.RECONNECT_BACKOFF_MS_CONFIG),
+                        config.getInt(ProducerConfig.SEND_BUFFER_CONFIG),
+                        config.getInt(ProducerConfig.RECEIVE_BUFFER_CONFIG),
+                        this.requestTimeoutMs,
+                        time,
+                        true,
+                        secondaryApiVersions);
+                Sender secondarySender = new Sender(secondaryClient, secondaryApiVersions, this.sender, i);
+                String secondaryIoThreadName = "kafka-producer-network-thread-" + i + (clientId.length() > 0 ? " | " + clientId : "");
+                this.secondaryIoThreads.add(new KafkaThread(secondaryIoThreadName, secondarySender, true));
+            }
             this.ioThread.start();
+            for (Thread secondaryIoThread : this.secondaryIoThreads)
+                secondaryIoThread.start();
             this.errors = this.metrics.sensor("errors");
             config.logUnused();
             AppInfoParser.registerAppInfo(JMX_PREFIX, clientId);
@@ -368,6 +404,15 @@ public class KafkaProducer<K, V> implements Producer<K, V> {
         return transactionManager;
     }
 
+    private static int configureNetworkThreads(ProducerConfig config, TransactionManager transactionManager) {
+        int networkThreads = config.getInt(ProducerConfig.NETWORK_THREADS_CONFIG);
+        if (networkThreads > 1 && transactionManager != null && transactionManager.isTransactional()) {
+            throw new ConfigException("Must set " + ProducerConfig.NETWORK_THREADS_CONFIG + " to 1 in order to use the " +
+                    "transactional producer, since the produce requests are ordered after the transactional requests.");
+        }
+        return networkThreads;
+    }
+
     private static int configureRetries(ProducerConfig config, boolean idempotenceEnabled) {
         boolean userConfiguredRetries = false;
         if (config.originals().containsKey(ProducerConfig.RETRIES_CONFIG)) {
@@ -738,11 +783,11 @@ public class KafkaProducer<K, V> implements Producer<K, V> {
         // Issue metadata requests until we have metadata for the topic or maxWaitTimeMs is exceeded.
         // In case we already have cached metadata for the topic, but the requested partition is greater
         // than expected, issue an update request only once. This is necessary in case the metadata
-        // is stale and the number of partitions for this topic has increased in the meantime.
+        // is stale and the number of partitions for this topic has increased in the meantime. Between the
+        // periodic full refreshes, only the metadata of the topics we are waiting on is fetched.
         do {
             log.trace("Requesting metadata update for topic {}.", topic);
-            metadata.add(topic);
-            int version = metadata.requestUpdate();
+            int version = metadata.requestUpdateForTopic(topic);
             sender.wakeup();
             try {
                 metadata.awaitUpdate(version, remainingWaitMs);
@@ -889,7 +934,8 @@ public class KafkaProducer<K, V> implements Producer<K, V> {
         log.info("Closing the Kafka producer with timeoutMillis = {} ms.", timeUnit.toMillis(timeout));
         // this will keep track of the first encountered exception
         AtomicReference<Throwable> firstException = new AtomicReference<>();
-        boolean invokedFromCallback = Thread.currentThread() == this.ioThread;
+        boolean invokedFromCallback = Thread.currentThread() == this.ioThread ||
+                (this.secondaryIoThreads != null && this.secondaryIoThreads.contains(Thread.currentThread()));
         if (timeout > 0) {
             if (invokedFromCallback) {
                 log.warn("Overriding close timeout {} ms to 0 ms in order to prevent useless blocking due to self-join. " +
@@ -923,6 +969,17 @@ public class KafkaProducer<K, V> implements Producer<K, V> {
             }
         }
 
+        // the sender of the first thread only stops once the other senders have, so their threads are about to exit
+        if (this.secondaryIoThreads != null && !invokedFromCallback) {
+            for (Thread secondaryIoThread : this.secondaryIoThreads) {
+                try {
+                    secondaryIoThread.join();
+                } catch (InterruptedException e) {
+                    firstException.compareAndSet(null, e);
+                }
+            }
+        }
+
         ClientUtils.closeQuietly(interceptors, "producer interceptors", firstException);
         ClientUtils.closeQuietly(metrics, "producer metrics", firstException);
         ClientUtils.closeQuietly(keySerializer, "producer keySerializer", firstException);
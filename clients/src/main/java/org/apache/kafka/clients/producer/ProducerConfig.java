@@ -116,6 +116,9 @@ public class ProducerConfig extends AbstractConfig {
     /** <code>reconnect.backoff.ms</code> */
     public static final String RECONNECT_BACKOFF_MS_CONFIG = CommonClientConfigs.RECONNECT_BACKOFF_MS_CONFIG;
 
+    /** <code>connections.prewarm.enable</code> */
+    public static final String CONNECTIONS_PREWARM_ENABLE_CONFIG = CommonClientConfigs.CONNECTIONS_PREWARM_ENABLE_CONFIG;
+
     /** <code>max.block.ms</code> */
     public static final String MAX_BLOCK_MS_CONFIG = "max.block.ms";
     private static final String MAX_BLOCK_MS_DOC = "The configuration controls how long <code>KafkaProducer.send()</code> and <code>KafkaProducer.partitionsFor()</code> will block."
@@ -160,6 +163,13 @@ public class ProducerConfig extends AbstractConfig {
                                                                             + " Note that if this setting is set to be greater than 1 and there are failed sends, there is a risk of"
                                                                             + " message re-ordering due to retries (i.e., if retries are enabled).";
 
+    /** <code>network.threads</code> */
+    public static final String NETWORK_THREADS_CONFIG = "network.threads";
+    private static final String NETWORK_THREADS_DOC = "The number of I/O threads sending the produce requests. The brokers are split between the threads, "
+                                                      + "each with its own connections, which share the buffered records. Using several threads may help a producer "
+                                                      + "writing to many brokers. The metadata and transactional requests are sent by the first thread, so this "
+                                                      + "must be 1 for a transactional producer.";
+
     /** <code>retries</code> */
     public static final String RETRIES_CONFIG = "retries";
     private static final String RETRIES_DOC = "Setting a value greater than zero will cause the client to resend any record whose send fails with a potentially transient error."
@@ -238,6 +248,7 @@ public class ProducerConfig extends AbstractConfig {
                                         Importance.MEDIUM,
                                         MAX_REQUEST_SIZE_DOC)
                                 .define(RECONNECT_BACKOFF_MS_CONFIG, Type.LONG, 50L, atLeast(0L), Importance.LOW, CommonClientConfigs.RECONNECT_BACKOFF_MS_DOC)
+                                .define(CONNECTIONS_PREWARM_ENABLE_CONFIG, Type.BOOLEAN, false, Importance.LOW, CommonClientConfigs.CONNECTIONS_PREWARM_ENABLE_DOC)
                                 .define(RETRY_BACKOFF_MS_CONFIG, Type.LONG, 100L, atLeast(0L), Importance.LOW, CommonClientConfigs.RETRY_BACKOFF_MS_DOC)
                                 .define(MAX_BLOCK_MS_CONFIG,
                                         Type.LONG,
@@ -276,6 +287,7 @@ public class ProducerConfig extends AbstractConfig {
                                         atLeast(1),
                                         Importance.LOW,
                                         MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION_DOC)
+                                .define(NETWORK_THREADS_CONFIG, Type.INT, 1, atLeast(1), Importance.LOW, NETWORK_THREADS_DOC)
                                 .define(KEY_SERIALIZER_CLASS_CONFIG,
                                         Type.CLASS,
                                         Importance.HIGH,
@@ -54,6 +54,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -80,9 +81,10 @@ public final class RecordAccumulator {
     private final ApiVersions apiVersions;
     private final ConcurrentMap<TopicPartition, Deque<ProducerBatch>> batches;
     private final IncompleteBatches incomplete;
-    // The following variables are only accessed by the sender thread, so we don't need to protect them.
+    // The following variables are accessed by the sender threads only. With several of them, a partition is drained
+    // by the sender of its leader, but the set of muted partitions is shared and the drain index is only a hint.
     private final Set<TopicPartition> muted;
-    private int drainIndex;
+    private volatile int drainIndex;
     private final TransactionManager transactionManager;
 
     /**
@@ -123,7 +125,7 @@ public final class RecordAccumulator {
         String metricGrpName = "producer-metrics";
         this.free = new BufferPool(totalSize, batchSize, metrics, time, metricGrpName);
         this.incomplete = new IncompleteBatches();
-        this.muted = new HashSet<>();
+        this.muted = Collections.newSetFromMap(new ConcurrentHashMap<TopicPartition, Boolean>());
         this.time = time;
         this.apiVersions = apiVersions;
         this.transactionManager = transactionManager;
@@ -424,9 +426,10 @@ public final class RecordAccumulator {
             List<PartitionInfo> parts = cluster.partitionsForNode(node.id());
             List<ProducerBatch> ready = new ArrayList<>();
             /* to make starvation less likely this loop doesn't start at 0 */
-            int start = drainIndex = drainIndex % parts.size();
+            int index = drainIndex % parts.size();
+            int start = index;
             do {
-                PartitionInfo part = parts.get(drainIndex);
+                PartitionInfo part = parts.get(index);
                 TopicPartition tp = new TopicPartition(part.topic(), part.partition());
                 // Only proceed if the partition has no in-flight batches.
                 if (!muted.contains(tp)) {
@@ -475,8 +478,9 @@ public final class RecordAccumulator {
                         }
                     }
                 }
-                this.drainIndex = (this.drainIndex + 1) % parts.size();
-            } while (start != drainIndex);
+                index = (index + 1) % parts.size();
+            } while (start != index);
+            this.drainIndex = index;
             batches.put(node.id(), ready);
         }
         return batches;
@@ -57,10 +57,18 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * The background thread that handles the sending of produce requests to the Kafka cluster. This thread makes metadata
  * requests to renew its view of the cluster and then sends produce requests to the appropriate nodes.
+ * <p>
+ * The nodes may be sharded across several senders, each with its own client and thread, sharing the accumulator and
+ * the metadata. The primary sender keeps the metadata up to date, sends the transactional requests and expires the
+ * batches of all the shards, while the secondary senders only send produce requests. A node, and so a partition at a
+ * given time, is owned by a single sender, and the partitions muted to guarantee the ordering are tracked by the
+ * shared accumulator.
  */
 public class Sender implements Runnable {
 
@@ -111,6 +119,19 @@ public class Sender implements Runnable {
     /* all the state related to transactions, in particular the producer id, producer epoch, and sequence numbers */
     private final TransactionManager transactionManager;
 
+    /* the sender maintaining the metadata and sending the transactional requests, null if this is the one */
+    private final Sender primary;
+
+    /* the senders sharing the accumulator of this primary sender */
+    private final List<Sender> secondaries = new CopyOnWriteArrayList<>();
+
+    /* this sender only sends produce requests to the nodes whose id modulo `numShards` is `shard` */
+    private final int shard;
+    private final int numShards;
+
+    /* counted down when the run loop of this sender has exited */
+    private final CountDownLatch shutdownLatch = new CountDownLatch(1);
+
     public Sender(KafkaClient client,
                   Metadata metadata,
                   RecordAccumulator accumulator,
@@ -124,6 +145,28 @@ public class Sender implements Runnable {
                   long retryBackoffMs,
                   TransactionManager transactionManager,
                   ApiVersions apiVersions) {
+        this(client, metadata, accumulator, guaranteeMessageOrder, maxRequestSize, acks, retries, metrics, time,
+                requestTimeout, retryBackoffMs, transactionManager, apiVersions, 1);
+    }
+
+    /**
+     * Create the primary sender of `numShards` senders, which sends to the nodes whose id modulo `numShards` is 0.
+     * The other senders are created with {@link #Sender(KafkaClient, ApiVersions, Sender, int)}.
+     */
+    public Sender(KafkaClient client,
+                  Metadata metadata,
+                  RecordAccumulator accumulator,
+                  boolean guaranteeMessageOrder,
+                  int maxRequestSize,
+                  short acks,
+                  int retries,
+                  Metrics metrics,
+                  Time time,
+                  int requestTimeout,
+                  long retryBackoffMs,
+                  TransactionManager transactionManager,
+                  ApiVersions apiVersions,
+                  int numShards) {
         this.client = client;
         this.accumulator = accumulator;
         this.metadata = metadata;
@@ -138,12 +181,58 @@ public class Sender implements Runnable {
         this.retryBackoffMs = retryBackoffMs;
         this.apiVersions = apiVersions;
         this.transactionManager = transactionManager;
+        this.primary = null;
+        this.shard = 0;
+        this.numShards = numShards;
+    }
+
+    /**
+     * Create a secondary sender, which shares the accumulator, metadata, settings and metrics of `primary` and only
+     * sends produce requests to the nodes whose id modulo the number of shards is `shard`.
+     * @param client The client used to send to the nodes of the shard, its metadata updates are done by the primary
+     * @param apiVersions The API versions of the nodes `client` is connected to, which the produce requests of this
+     *                    sender are down-converted for
+     * @param primary The primary sender
+     * @param shard The shard of this sender, between 1 and the number of shards (exclusive)
+     */
+    public Sender(KafkaClient client, ApiVersions apiVersions, Sender primary, int shard) {
+        if (shard <= 0 || shard >= primary.numShards)
+            throw new IllegalArgumentException("Invalid shard " + shard + " for " + primary.numShards + " shards");
+        this.client = client;
+        this.accumulator = primary.accumulator;
+        this.metadata = primary.metadata;
+        this.guaranteeMessageOrder = primary.guaranteeMessageOrder;
+        this.maxRequestSize = primary.maxRequestSize;
+        this.running = true;
+        this.acks = primary.acks;
+        this.retries = primary.retries;
+        this.time = primary.time;
+        this.sensors = primary.sensors;
+        this.requestTimeout = primary.requestTimeout;
+        this.retryBackoffMs = primary.retryBackoffMs;
+        this.apiVersions = apiVersions;
+        this.transactionManager = primary.transactionManager;
+        this.primary = primary;
+        this.shard = shard;
+        this.numShards = primary.numShards;
+        primary.secondaries.add(this);
     }
 
     /**
      * The main run loop for the sender thread
      */
     public void run() {
+        try {
+            doRun();
+        } finally {
+            shutdownLatch.countDown();
+            // the primary waits for the secondaries before completing its shutdown
+            if (primary != null)
+                primary.client.wakeup();
+        }
+    }
+
+    private void doRun() {
         log.debug("Starting Kafka producer I/O thread.");
 
         // main loop, runs until close is called
@@ -160,16 +249,17 @@ public class Sender implements Runnable {
         // okay we stopped accepting requests but there may still be
         // requests in the accumulator or waiting for acknowledgment,
         // wait until these are completed.
-        while (!forceClose && (this.accumulator.hasUnsent() || this.client.inFlightRequestCount() > 0)) {
+        while (!forceClose && (this.accumulator.hasUnsent() || this.client.inFlightRequestCount() > 0 || secondariesRunning())) {
             try {
                 run(time.milliseconds());
             } catch (Exception e) {
                 log.error("Uncaught error in kafka producer I/O thread: ", e);
             }
         }
-        if (forceClose) {
+        if (forceClose && primary == null) {
             // We need to fail all the incomplete batches and wake up the threads waiting on
-            // the futures.
+            // the futures. The batches of the secondary senders are failed once they have stopped.
+            awaitSecondaries();
             this.accumulator.abortIncompleteBatches();
         }
         try {
@@ -188,22 +278,55 @@ public class Sender implements Runnable {
      */
     void run(long now) {
         long pollTimeout = 0;
-        if (!maybeSendTransactionalRequest(now))
+        if (primary != null || !maybeSendTransactionalRequest(now))
             pollTimeout = sendProducerData(now);
 
+        // when closing, the senders are not woken up once the batches of the other shards are sent, so they check
+        // the accumulator regularly
+        if (!running && numShards > 1)
+            pollTimeout = Math.min(pollTimeout, retryBackoffMs);
+
         this.client.poll(pollTimeout, now);
     }
 
+    private boolean ownsNode(Node node) {
+        return numShards == 1 || Utils.toPositive(node.id()) % numShards == shard;
+    }
+
+    private boolean secondariesRunning() {
+        for (Sender secondary : secondaries) {
+            if (secondary.shutdownLatch.getCount() > 0)
+                return true;
+        }
+        return false;
+    }
+
+    private void awaitSecondaries() {
+        try {
+            for (Sender secondary : secondaries)
+                secondary.shutdownLatch.await();
+        } catch (InterruptedException e) {
+            log.error("Interrupted while waiting for the other producer I/O threads to stop", e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void requestMetadataUpdate() {
+        this.metadata.requestUpdate();
+        if (primary != null)
+            primary.client.wakeup();
+    }
 
     private long sendProducerData(long now) {
         Cluster cluster = metadata.fetch();
-        maybeWaitForProducerId();
+        if (primary == null)
+            maybeWaitForProducerId();
 
         // get the list of partitions with data ready to send
         RecordAccumulator.ReadyCheckResult result = this.accumulator.ready(cluster, now);
 
         // if there are any partitions whose leaders are not known yet, force metadata update
-        if (!result.unknownLeaderTopics.isEmpty()) {
+        if (primary == null && !result.unknownLeaderTopics.isEmpty()) {
             // The set of topics with unknown leader contains topics with leader election pending as well as
             // topics which may have expired. Add the topic again to metadata to ensure it is included
             // and request metadata update, since there are messages to send to the topic.
@@ -212,12 +335,14 @@ public class Sender implements Runnable {
             this.metadata.requestUpdate();
         }
 
-        // remove any nodes we aren't ready to send to
+        // remove any nodes we aren't ready to send to, or which are sent to by another sender
         Iterator<Node> iter = result.readyNodes.iterator();
         long notReadyTimeout = Long.MAX_VALUE;
         while (iter.hasNext()) {
             Node node = iter.next();
-            if (!this.client.ready(node, now)) {
+            if (!ownsNode(node)) {
+                iter.remove();
+            } else if (!this.client.ready(node, now)) {
                 iter.remove();
                 notReadyTimeout = Math.min(notReadyTimeout, this.client.connectionDelay(node, now));
             }
@@ -234,7 +359,9 @@ public class Sender implements Runnable {
             }
         }
 
-        List<ProducerBatch> expiredBatches = this.accumulator.abortExpiredBatches(this.requestTimeout, now);
+        // the primary sender expires the batches of all the shards
+        List<ProducerBatch> expiredBatches = primary == null ? this.accumulator.abortExpiredBatches(this.requestTimeout, now)
+                : Collections.<ProducerBatch>emptyList();
 
         boolean needsTransactionStateReset = false;
         // Reset the producer id if an expired batch has previously been sent to the broker. Also update the metrics
@@ -344,6 +471,8 @@ public class Sender implements Runnable {
         // breaking from the sender loop. Otherwise, we may miss some callbacks when shutting down.
         this.accumulator.close();
         this.running = false;
+        for (Sender secondary : secondaries)
+            secondary.initiateClose();
         this.wakeup();
     }
 
@@ -352,6 +481,8 @@ public class Sender implements Runnable {
      */
     public void forceClose() {
         this.forceClose = true;
+        for (Sender secondary : secondaries)
+            secondary.forceClose = true;
         initiateClose();
     }
 
@@ -489,7 +620,7 @@ public class Sender implements Runnable {
                 if (error.exception() instanceof UnknownTopicOrPartitionException)
                     log.warn("Received unknown topic or partition error in produce request on partition {}. The " +
                             "topic/partition may not exist or the user may not have Describe access to it", batch.topicPartition);
-                metadata.requestUpdate();
+                requestMetadataUpdate();
             }
 
         } else {
@@ -598,10 +729,12 @@ public class Sender implements Runnable {
     }
 
     /**
-     * Wake up the selector associated with this send thread
+     * Wake up the selector associated with this send thread, and those of the secondary senders
      */
     public void wakeup() {
         this.client.wakeup();
+        for (Sender secondary : secondaries)
+            secondary.client.wakeup();
     }
 
     /**
@@ -675,7 +808,10 @@ public class Sender implements Runnable {
             m = metrics.metricName("requests-in-flight", metricGrpName, "The current number of in-flight requests awaiting a response.");
             this.metrics.addMetric(m, new Measurable() {
                 public double measure(MetricConfig config, long now) {
-                    return client.inFlightRequestCount();
+                    int inFlightRequestCount = client.inFlightRequestCount();
+                    for (Sender secondary : secondaries)
+                        inFlightRequestCount += secondary.client.inFlightRequestCount();
+                    return inFlightRequestCount;
                 }
             });
             m = metrics.metricName("metadata-age", metricGrpName, "The age in seconds of the current producer metadata being used.");
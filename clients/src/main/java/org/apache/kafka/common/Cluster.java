@@ -135,6 +135,33 @@ public final class Cluster {
         this.controller = controller;
     }
 
+    /**
+     * Create a cluster from already built indexes. The per-topic partition lists are expected to be unmodifiable as
+     * they are shared between the snapshots derived from one another.
+     */
+    private Cluster(ClusterResource clusterResource,
+                    boolean isBootstrapConfigured,
+                    List<Node> nodes,
+                    Map<Integer, Node> nodesById,
+                    Map<String, List<PartitionInfo>> partitionsByTopic,
+                    Map<String, List<PartitionInfo>> availablePartitionsByTopic,
+                    Map<TopicPartition, PartitionInfo> partitionsByTopicPartition,
+                    Set<String> unauthorizedTopics,
+                    Set<String> internalTopics,
+                    Node controller) {
+        this.clusterResource = clusterResource;
+        this.isBootstrapConfigured = isBootstrapConfigured;
+        this.nodes = nodes;
+        this.nodesById = nodesById;
+        this.partitionsByTopic = partitionsByTopic;
+        this.availablePartitionsByTopic = availablePartitionsByTopic;
+        this.partitionsByTopicPartition = partitionsByTopicPartition;
+        this.partitionsByNode = partitionsByNode(nodes, partitionsByTopic.values());
+        this.unauthorizedTopics = Collections.unmodifiableSet(unauthorizedTopics);
+        this.internalTopics = Collections.unmodifiableSet(internalTopics);
+        this.controller = controller;
+    }
+
     /**
      * Create an empty cluster instance with no nodes and no topic-partitions.
      */
@@ -166,6 +193,91 @@ public final class Cluster {
                 new HashSet<>(this.unauthorizedTopics), new HashSet<>(this.internalTopics), this.controller);
     }
 
+    /**
+     * Return a copy of this cluster in which the metadata of `topics` is replaced by the one in `update`, typically
+     * the response to a metadata request for these topics only. The nodes, controller and cluster id are taken from
+     * `update`, while the partition lists of the other topics are shared with this cluster rather than rebuilt.
+     * @param update A cluster with the current metadata of `topics`
+     * @param topics The topics whose metadata was fetched, they are removed if `update` has no partitions for them
+     * @return The combined cluster
+     */
+    public Cluster withTopicsUpdatedFrom(Cluster update, Collection<String> topics) {
+        Map<String, List<PartitionInfo>> partsForTopic = new HashMap<>(this.partitionsByTopic);
+        Map<String, List<PartitionInfo>> availablePartsForTopic = new HashMap<>(this.availablePartitionsByTopic);
+        Map<TopicPartition, PartitionInfo> partsForTopicPartition = new HashMap<>(this.partitionsByTopicPartition);
+        Set<String> unauthorized = new HashSet<>(this.unauthorizedTopics);
+        Set<String> internal = new HashSet<>(this.internalTopics);
+        for (String topic : topics) {
+            List<PartitionInfo> previous = partsForTopic.remove(topic);
+            if (previous != null) {
+                for (PartitionInfo p : previous)
+                    partsForTopicPartition.remove(new TopicPartition(p.topic(), p.partition()));
+            }
+            availablePartsForTopic.remove(topic);
+            unauthorized.remove(topic);
+            internal.remove(topic);
+        }
+        partsForTopic.putAll(update.partitionsByTopic);
+        availablePartsForTopic.putAll(update.availablePartitionsByTopic);
+        partsForTopicPartition.putAll(update.partitionsByTopicPartition);
+        unauthorized.addAll(update.unauthorizedTopics);
+        internal.addAll(update.internalTopics);
+        return new Cluster(update.clusterResource, false, update.nodes, update.nodesById, partsForTopic,
+                availablePartsForTopic, partsForTopicPartition, unauthorized, internal, update.controller);
+    }
+
+    /**
+     * Return a copy of this cluster restricted to the partitions and unauthorized topics of `topics`, the internal
+     * topics are retained as is. The partition lists of the retained topics are shared with this cluster.
+     * @param topics The topics to retain
+     * @return This cluster if it has no other topics, else the restricted copy
+     */
+    public Cluster retainTopics(Set<String> topics) {
+        if (topics.containsAll(this.partitionsByTopic.keySet()) && topics.containsAll(this.unauthorizedTopics))
+            return this;
+
+        Map<String, List<PartitionInfo>> partsForTopic = new HashMap<>();
+        Map<String, List<PartitionInfo>> availablePartsForTopic = new HashMap<>();
+        Map<TopicPartition, PartitionInfo> partsForTopicPartition = new HashMap<>();
+        for (String topic : topics) {
+            List<PartitionInfo> partitions = this.partitionsByTopic.get(topic);
+            if (partitions != null) {
+                partsForTopic.put(topic, partitions);
+                availablePartsForTopic.put(topic, this.availablePartitionsByTopic.get(topic));
+                for (PartitionInfo p : partitions)
+                    partsForTopicPartition.put(new TopicPartition(p.topic(), p.partition()), p);
+            }
+        }
+        Set<String> unauthorized = new HashSet<>(this.unauthorizedTopics);
+        unauthorized.retainAll(topics);
+        return new Cluster(this.clusterResource, this.isBootstrapConfigured, this.nodes, this.nodesById, partsForTopic,
+                availablePartsForTopic, partsForTopicPartition, unauthorized, new HashSet<>(this.internalTopics),
+                this.controller);
+    }
+
+    /**
+     * Index the partitions by their leader. Leaders which are not among `nodes` are left out, they can only be
+     * referenced by topics whose metadata was not part of the latest update.
+     */
+    private static Map<Integer, List<PartitionInfo>> partitionsByNode(List<Node> nodes,
+                                                                      Collection<List<PartitionInfo>> partitionLists) {
+        Map<Integer, List<PartitionInfo>> partsForNode = new HashMap<>(nodes.size());
+        for (Node n : nodes)
+            partsForNode.put(n.id(), new ArrayList<PartitionInfo>());
+        for (List<PartitionInfo> partitions : partitionLists) {
+            for (PartitionInfo p : partitions) {
+                if (p.leader() != null) {
+                    List<PartitionInfo> psNode = partsForNode.get(p.leader().id());
+                    if (psNode != null)
+                        psNode.add(p);
+                }
+            }
+        }
+        for (Map.Entry<Integer, List<PartitionInfo>> entry : partsForNode.entrySet())
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        return partsForNode;
+    }
+
     /**
      * @return The known set of nodes
      */
@@ -21,18 +21,21 @@ import org.apache.kafka.common.metrics.CompoundStat.NamedMeasurable;
 import org.apache.kafka.common.utils.Time;
 import org.apache.kafka.common.utils.Utils;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
 /**
  * A sensor applies a continuous sequence of numerical values to a set of associated metrics. For example a sensor on
  * message size would record a sequence of message sizes using the {@link #record(double)} api and would maintain a set
  * of metrics about request sizes such as the average or max.
+ * <p>
+ * If all the stats of a sensor support concurrent recording (see {@link ConcurrentStat}), values are recorded without
+ * locking the sensor, so that a sensor shared by many threads does not become a point of contention.
  */
 public final class Sensor {
 
@@ -44,6 +47,7 @@ public final class Sensor {
     private final MetricConfig config;
     private final Time time;
     private volatile long lastRecordTime;
+    private volatile boolean lockFree = true;
     private final long inactiveSensorExpirationTimeMs;
 
     public enum RecordingLevel {
@@ -107,8 +111,8 @@ public final class Sensor {
         this.registry = registry;
         this.name = Utils.notNull(name);
         this.parents = parents == null ? new Sensor[0] : parents;
-        this.metrics = new ArrayList<>();
-        this.stats = new ArrayList<>();
+        this.metrics = new CopyOnWriteArrayList<>();
+        this.stats = new CopyOnWriteArrayList<>();
         this.config = config;
         this.time = time;
         this.inactiveSensorExpirationTimeMs = TimeUnit.MILLISECONDS.convert(inactiveSensorExpirationTimeSeconds, TimeUnit.SECONDS);
@@ -173,19 +177,29 @@ public final class Sensor {
 
     public void record(double value, long timeMs, boolean checkQuotas) {
         if (shouldRecord()) {
-            this.lastRecordTime = timeMs;
-            synchronized (this) {
-                // increment all the stats
-                for (Stat stat : this.stats)
-                    stat.record(config, value, timeMs);
-                if (checkQuotas)
-                    checkQuotas(timeMs);
+            // avoid writing to the shared field on every record, the time changes far less often
+            if (this.lastRecordTime != timeMs)
+                this.lastRecordTime = timeMs;
+            if (lockFree) {
+                recordStats(value, timeMs, checkQuotas);
+            } else {
+                synchronized (this) {
+                    recordStats(value, timeMs, checkQuotas);
+                }
             }
             for (Sensor parent : parents)
                 parent.record(value, timeMs, checkQuotas);
         }
     }
 
+    private void recordStats(double value, long timeMs, boolean checkQuotas) {
+        // increment all the stats
+        for (Stat stat : this.stats)
+            stat.record(config, value, timeMs);
+        if (checkQuotas)
+            checkQuotas(timeMs);
+    }
+
     /**
      * Check if we have violated our quota for any metric that has a configured quota
      */
@@ -223,7 +237,8 @@ public final class Sensor {
      *        sensor.
      */
     public synchronized void add(CompoundStat stat, MetricConfig config) {
-        this.stats.add(Utils.notNull(stat));
+        updateLockFree(Utils.notNull(stat));
+        this.stats.add(stat);
         for (NamedMeasurable m : stat.stats()) {
             KafkaMetric metric = new KafkaMetric(this, m.name(), m.stat(), config == null ? this.config : config, time);
             this.registry.registerMetric(metric);
@@ -254,9 +269,15 @@ public final class Sensor {
                                              time);
         this.registry.registerMetric(metric);
         this.metrics.add(metric);
+        updateLockFree(stat);
         this.stats.add(stat);
     }
 
+    private void updateLockFree(Stat stat) {
+        if (!(stat instanceof ConcurrentStat) || !((ConcurrentStat) stat).supportsConcurrentRecording())
+            this.lockFree = false;
+    }
+
     /**
      * Return true if the Sensor is eligible for removal due to inactivity.
      *        false otherwise
@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.common.metrics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.common.config.ConfigDef.Importance;
+import org.apache.kafka.common.config.ConfigDef.Type;
+import org.apache.kafka.common.utils.KafkaThread;
+import org.apache.kafka.common.utils.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A reporter which keeps a snapshot of all metrics and writes it in bulk in the Prometheus text exposition format,
+ * one line per metric: <code>group_name{tag="value",...} value</code>. Unlike the {@link JmxReporter}, reading all
+ * metrics does not go through a per metric lookup: the name of each line is rendered once when the metric is added,
+ * and a snapshot only reads the current values.
+ * <p>
+ * The snapshot can be written to any {@link Writer} with {@link #writeSnapshot(Writer)}, or periodically dumped to a
+ * file by setting <code>metrics.snapshot.file</code>. The file is replaced atomically, so it can be scraped at any time.
+ * <p>
+ * Metric names are sanitized when rendered, so two metrics may render to the same line name. Only the one added last
+ * is part of the snapshot.
+ */
+public class SnapshotReporter implements MetricsReporter {
+
+    public static final String SNAPSHOT_FILE_CONFIG = "metrics.snapshot.file";
+    public static final String SNAPSHOT_INTERVAL_MS_CONFIG = "metrics.snapshot.interval.ms";
+    public static final long DEFAULT_SNAPSHOT_INTERVAL_MS = 30000L;
+
+    private static final ConfigDef CONFIG = new ConfigDef()
+            .define(SNAPSHOT_FILE_CONFIG,
+                    Type.STRING,
+                    "",
+                    Importance.LOW,
+                    "The file to which a snapshot of all metrics is periodically written. No file is written if empty.")
+            .define(SNAPSHOT_INTERVAL_MS_CONFIG,
+                    Type.LONG,
+                    DEFAULT_SNAPSHOT_INTERVAL_MS,
+                    ConfigDef.Range.atLeast(1),
+                    Importance.LOW,
+                    "The interval at which the snapshot of all metrics is written to <code>" + SNAPSHOT_FILE_CONFIG + "</code>.");
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotReporter.class);
+
+    // sorted by the rendered name, so that the lines of a metric with different tags are next to each other
+    private final ConcurrentSkipListMap<String, KafkaMetric> metrics = new ConcurrentSkipListMap<>();
+    private final Object dumpLock = new Object();
+    private Path snapshotFile;
+    private long snapshotIntervalMs = DEFAULT_SNAPSHOT_INTERVAL_MS;
+    private KafkaThread dumpThread;
+    private boolean closed = false;
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        Map<String, Object> parsed = CONFIG.parse(configs);
+        String file = (String) parsed.get(SNAPSHOT_FILE_CONFIG);
+        if (!file.isEmpty())
+            this.snapshotFile = Paths.get(file);
+        this.snapshotIntervalMs = (Long) parsed.get(SNAPSHOT_INTERVAL_MS_CONFIG);
+    }
+
+    @Override
+    public void init(List<KafkaMetric> metrics) {
+        for (KafkaMetric metric : metrics)
+            metricChange(metric);
+
+        if (snapshotFile != null) {
+            dumpThread = new KafkaThread("kafka-metrics-snapshot", new Runnable() {
+                @Override
+                public void run() {
+                    dumpPeriodically();
+                }
+            }, true);
+            dumpThread.start();
+        }
+    }
+
+    @Override
+    public void metricChange(KafkaMetric metric) {
+        metrics.put(render(metric.metricName()), metric);
+    }
+
+    @Override
+    public void metricRemoval(KafkaMetric metric) {
+        // another metric may have replaced this one under the same rendered name
+        metrics.remove(render(metric.metricName()), metric);
+    }
+
+    /**
+     * Write the current value of all metrics to the given writer. The writer is not flushed or closed.
+     */
+    public void writeSnapshot(Writer writer) throws IOException {
+        for (Map.Entry<String, KafkaMetric> entry : metrics.entrySet()) {
+            writer.write(entry.getKey());
+            writer.write(' ');
+            writer.write(format(entry.getValue().value()));
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * Write the snapshot to a temporary file next to the snapshot file, and move it in place.
+     */
+    void writeSnapshotFile() throws IOException {
+        Path tmp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(tmp), StandardCharsets.UTF_8))) {
+            writeSnapshot(writer);
+        }
+        Utils.atomicMoveWithFallback(tmp, snapshotFile);
+    }
+
+    private void dumpPeriodically() {
+        while (true) {
+            synchronized (dumpLock) {
+                try {
+                    if (!closed)
+                        dumpLock.wait(snapshotIntervalMs);
+                } catch (InterruptedException e) {
+                    // fall through and write the last snapshot
+                }
+            }
+            try {
+                writeSnapshotFile();
+            } catch (IOException e) {
+                log.warn("Error writing metrics snapshot to {}", snapshotFile, e);
+            }
+            synchronized (dumpLock) {
+                if (closed)
+                    return;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        KafkaThread thread;
+        synchronized (dumpLock) {
+            closed = true;
+            dumpLock.notifyAll();
+            thread = dumpThread;
+        }
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    static String render(MetricName metricName) {
+        StringBuilder builder = new StringBuilder();
+        appendName(builder, metricName.group(), true);
+        builder.append('_');
+        appendName(builder, metricName.name(), false);
+        builder.append('{');
+        boolean first = true;
+        for (Map.Entry<String, String> tag : new TreeMap<>(metricName.tags()).entrySet()) {
+            if (!first)
+                builder.append(',');
+            first = false;
+            appendName(builder, tag.getKey(), true);
+            builder.append("=\"");
+            appendLabelValue(builder, tag.getValue());
+            builder.append('"');
+        }
+        return builder.append('}').toString();
+    }
+
+    /**
+     * Append the given name with its invalid characters replaced by underscores. If it starts a metric or tag name,
+     * an underscore is prepended when it is empty or starts with a digit, since names cannot.
+     */
+    private static void appendName(StringBuilder builder, String name, boolean leading) {
+        if (leading && (name.isEmpty() || (name.charAt(0) >= '0' && name.charAt(0) <= '9')))
+            builder.append('_');
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || (c >= '0' && c <= '9');
+            builder.append(valid ? c : '_');
+        }
+    }
+
+    private static void appendLabelValue(StringBuilder builder, String value) {
+        if (value == null)
+            return;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"')
+                builder.append('\\').append(c);
+            else if (c == '\n')
+                builder.append("\\n");
+            else
+                builder.append(c);
+        }
+    }
+
+    private static String format(double value) {
+        if (Double.isNaN(value))
+            return "NaN";
+        if (Double.isInfinite(value))
+            return value > 0 ? "+Inf" : "-Inf";
+        return Double.toString(value);
+    }
+
+}
@@ -31,7 +31,7 @@ public class Avg extends SampledStat {
 
     @Override
     protected void update(Sample sample, MetricConfig config, double value, long now) {
-        sample.value += value;
+        sample.record(value);
     }
 
     @Override
@@ -39,10 +39,15 @@ public class Avg extends SampledStat {
         double total = 0.0;
         long count = 0;
         for (Sample s : samples) {
-            total += s.value;
-            count += s.eventCount;
+            total += s.value();
+            count += s.eventCount();
         }
         return count == 0 ? 0 : total / count;
     }
 
+    @Override
+    public boolean supportsConcurrentRecording() {
+        return true;
+    }
+
 }
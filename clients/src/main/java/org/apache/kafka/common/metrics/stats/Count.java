@@ -31,15 +31,20 @@ public class Count extends SampledStat {
 
     @Override
     protected void update(Sample sample, MetricConfig config, double value, long now) {
-        sample.value += 1.0;
+        sample.record(1.0);
     }
 
     @Override
     public double combine(List<Sample> samples, MetricConfig config, long now) {
         double total = 0.0;
         for (Sample sample : samples)
-            total += sample.value;
+            total += sample.value();
         return total;
     }
 
+    @Override
+    public boolean supportsConcurrentRecording() {
+        return true;
+    }
+
 }
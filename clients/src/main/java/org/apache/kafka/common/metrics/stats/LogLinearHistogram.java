@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.common.metrics.stats;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A histogram with log-linear buckets, in the style of HdrHistogram: every power of two gets the same number of
+ * linearly spaced buckets, so the relative error of a value read back from the histogram is bounded by the number of
+ * significant bits kept, no matter how large the value is. This means that no range has to be configured up front.
+ * <p>
+ * The bucket of a value is computed directly from the exponent and the leading bits of the mantissa of the double.
+ * Values below 2^{@value #MIN_EXPONENT} (including zero and negative values) are counted in a bucket of their own
+ * which reads back as zero, values of 2^({@value #MAX_EXPONENT} + 1) and above are counted in the last bucket.
+ * <p>
+ * The buckets of a power of two are only allocated once the first value in that range is recorded, so the memory
+ * used depends on the range of values actually seen. After that, recording does not allocate and may be done from
+ * several threads at once. Histograms with the same precision can be merged.
+ */
+public class LogLinearHistogram {
+
+    static final int MIN_EXPONENT = -32;
+    static final int MAX_EXPONENT = 63;
+    private static final int NUM_EXPONENTS = MAX_EXPONENT - MIN_EXPONENT + 1;
+    private static final double MIN_VALUE = Math.scalb(1.0, MIN_EXPONENT);
+    private static final int MANTISSA_BITS = 52;
+
+    private final int significantBits;
+    private final int subBuckets;
+    private final AtomicLong zeroCount;
+    private final AtomicReferenceArray<AtomicLongArray> counts;
+
+    /**
+     * @param significantBits The number of leading bits of a value that are kept, between 1 and 16. The relative
+     *                        error of the values read back is at most 2^-(significantBits + 1).
+     */
+    public LogLinearHistogram(int significantBits) {
+        validateSignificantBits(significantBits);
+        this.significantBits = significantBits;
+        this.subBuckets = 1 << significantBits;
+        this.zeroCount = new AtomicLong();
+        this.counts = new AtomicReferenceArray<>(NUM_EXPONENTS);
+    }
+
+    static void validateSignificantBits(int significantBits) {
+        if (significantBits < 1 || significantBits > 16)
+            throw new IllegalArgumentException("The number of significant bits must be between 1 and 16, but was " + significantBits);
+    }
+
+    public void record(double value) {
+        // this also counts NaN as zero
+        if (!(value >= MIN_VALUE)) {
+            zeroCount.incrementAndGet();
+            return;
+        }
+
+        int exponent = Math.getExponent(value);
+        int subBucket;
+        if (exponent > MAX_EXPONENT) {
+            exponent = MAX_EXPONENT;
+            subBucket = subBuckets - 1;
+        } else {
+            subBucket = (int) (Double.doubleToRawLongBits(value) >>> (MANTISSA_BITS - significantBits)) & (subBuckets - 1);
+        }
+        countsOf(exponent).incrementAndGet(subBucket);
+    }
+
+    private AtomicLongArray countsOf(int exponent) {
+        int index = exponent - MIN_EXPONENT;
+        AtomicLongArray exponentCounts = counts.get(index);
+        if (exponentCounts == null) {
+            counts.compareAndSet(index, null, new AtomicLongArray(subBuckets));
+            exponentCounts = counts.get(index);
+        }
+        return exponentCounts;
+    }
+
+    /**
+     * The number of significant bits kept of every value
+     */
+    public int significantBits() {
+        return significantBits;
+    }
+
+    /**
+     * The total number of buckets, each bucket has an index between 0 and this number (exclusive). The buckets are
+     * ordered by the values they hold.
+     */
+    public int buckets() {
+        return 1 + NUM_EXPONENTS * subBuckets;
+    }
+
+    /**
+     * The number of values recorded in the bucket with the given index
+     */
+    public long count(int bucket) {
+        if (bucket == 0)
+            return zeroCount.get();
+        AtomicLongArray exponentCounts = counts.get((bucket - 1) / subBuckets);
+        return exponentCounts == null ? 0 : exponentCounts.get((bucket - 1) % subBuckets);
+    }
+
+    /**
+     * The value reported for the bucket with the given index, which is the middle of the range of values it holds
+     */
+    public double value(int bucket) {
+        if (bucket == 0)
+            return 0.0;
+        int exponent = (bucket - 1) / subBuckets + MIN_EXPONENT;
+        int subBucket = (bucket - 1) % subBuckets;
+        return Math.scalb(1.0 + (subBucket + 0.5) / subBuckets, exponent);
+    }
+
+    /**
+     * The total number of values recorded
+     */
+    public long count() {
+        long count = zeroCount.get();
+        for (int i = 0; i < NUM_EXPONENTS; i++) {
+            AtomicLongArray exponentCounts = counts.get(i);
+            if (exponentCounts != null) {
+                for (int j = 0; j < subBuckets; j++)
+                    count += exponentCounts.get(j);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The value below which the given fraction of the recorded values fall, or NaN if there are no values.
+     */
+    public double value(double quantile) {
+        long count = count();
+        if (count == 0)
+            return Double.NaN;
+        long sum = 0;
+        int lastNonEmpty = 0;
+        for (int bucket = 0; bucket < buckets(); bucket++) {
+            long bucketCount = count(bucket);
+            if (bucketCount == 0)
+                continue;
+            sum += bucketCount;
+            lastNonEmpty = bucket;
+            if ((double) sum / count > quantile)
+                return value(bucket);
+        }
+        // the quantile is 1.0 or above
+        return value(lastNonEmpty);
+    }
+
+    /**
+     * Add the counts of another histogram with the same number of significant bits to this one
+     */
+    public void merge(LogLinearHistogram other) {
+        if (other.significantBits != significantBits)
+            throw new IllegalArgumentException("Cannot merge a histogram with " + other.significantBits +
+                " significant bits into one with " + significantBits);
+        zeroCount.addAndGet(other.zeroCount.get());
+        for (int i = 0; i < NUM_EXPONENTS; i++) {
+            AtomicLongArray otherCounts = other.counts.get(i);
+            if (otherCounts != null) {
+                AtomicLongArray exponentCounts = countsOf(i + MIN_EXPONENT);
+                for (int j = 0; j < subBuckets; j++) {
+                    long count = otherCounts.get(j);
+                    if (count != 0)
+                        exponentCounts.addAndGet(j, count);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reset all the counts to zero, keeping the buckets which have been allocated
+     */
+    public void clear() {
+        zeroCount.set(0);
+        for (int i = 0; i < NUM_EXPONENTS; i++) {
+            AtomicLongArray exponentCounts = counts.get(i);
+            if (exponentCounts != null) {
+                for (int j = 0; j < subBuckets; j++)
+                    exponentCounts.set(j, 0);
+            }
+        }
+    }
+
+}
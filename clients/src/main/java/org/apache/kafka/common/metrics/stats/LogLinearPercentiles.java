@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.common.metrics.stats;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.kafka.common.metrics.CompoundStat;
+import org.apache.kafka.common.metrics.Measurable;
+import org.apache.kafka.common.metrics.MetricConfig;
+
+/**
+ * A compound stat that reports one or more percentiles using a {@link LogLinearHistogram} per sample. Unlike
+ * {@link Percentiles}, it needs no range up front and the relative error of the reported values is bounded by the
+ * number of significant bits kept, which makes it suitable for latencies. The histograms of the samples are merged
+ * to compute a percentile.
+ */
+public class LogLinearPercentiles extends SampledStat implements CompoundStat {
+
+    private final int significantBits;
+    private final Percentile[] percentiles;
+
+    /**
+     * @param significantBits The number of leading bits kept of every value, see {@link LogLinearHistogram}
+     * @param percentiles The percentiles to report
+     */
+    public LogLinearPercentiles(int significantBits, Percentile... percentiles) {
+        super(0.0);
+        LogLinearHistogram.validateSignificantBits(significantBits);
+        this.significantBits = significantBits;
+        this.percentiles = percentiles;
+    }
+
+    @Override
+    public List<NamedMeasurable> stats() {
+        List<NamedMeasurable> ms = new ArrayList<NamedMeasurable>(this.percentiles.length);
+        for (Percentile percentile : this.percentiles) {
+            final double pct = percentile.percentile();
+            ms.add(new NamedMeasurable(percentile.name(), new Measurable() {
+                public double measure(MetricConfig config, long now) {
+                    return value(config, now, pct / 100.0);
+                }
+            }));
+        }
+        return ms;
+    }
+
+    public double value(MetricConfig config, long now, double quantile) {
+        purgeObsoleteSamples(config, now);
+        LogLinearHistogram merged = new LogLinearHistogram(significantBits);
+        for (Sample sample : this.samples)
+            merged.merge(((HistogramSample) sample).histogram);
+        return merged.value(quantile);
+    }
+
+    public double combine(List<Sample> samples, MetricConfig config, long now) {
+        return value(config, now, 0.5);
+    }
+
+    @Override
+    public boolean supportsConcurrentRecording() {
+        return true;
+    }
+
+    @Override
+    protected HistogramSample newSample(long timeMs) {
+        return new HistogramSample(significantBits, timeMs);
+    }
+
+    @Override
+    protected void update(Sample sample, MetricConfig config, double value, long timeMs) {
+        ((HistogramSample) sample).histogram.record(value);
+    }
+
+    private static class HistogramSample extends SampledStat.Sample {
+        private final LogLinearHistogram histogram;
+
+        private HistogramSample(int significantBits, long now) {
+            // the histogram is thread safe, and the event count is kept in an accumulator
+            super(0.0, now, StripedAccumulator.Operation.SUM, true);
+            this.histogram = new LogLinearHistogram(significantBits);
+        }
+
+        @Override
+        public void reset(long now) {
+            super.reset(now);
+            this.histogram.clear();
+        }
+    }
+
+}
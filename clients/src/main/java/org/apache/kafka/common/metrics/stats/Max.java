@@ -26,20 +26,25 @@ import org.apache.kafka.common.metrics.MetricConfig;
 public final class Max extends SampledStat {
 
     public Max() {
-        super(Double.NEGATIVE_INFINITY);
+        super(Double.NEGATIVE_INFINITY, StripedAccumulator.Operation.MAX);
     }
 
     @Override
     protected void update(Sample sample, MetricConfig config, double value, long now) {
-        sample.value = Math.max(sample.value, value);
+        sample.record(value);
     }
 
     @Override
     public double combine(List<Sample> samples, MetricConfig config, long now) {
         double max = Double.NEGATIVE_INFINITY;
         for (Sample sample : samples)
-            max = Math.max(max, sample.value);
+            max = Math.max(max, sample.value());
         return max;
     }
 
+    @Override
+    public boolean supportsConcurrentRecording() {
+        return true;
+    }
+
 }
@@ -26,20 +26,25 @@ import org.apache.kafka.common.metrics.MetricConfig;
 public class Min extends SampledStat {
 
     public Min() {
-        super(Double.MAX_VALUE);
+        super(Double.MAX_VALUE, StripedAccumulator.Operation.MIN);
     }
 
     @Override
     protected void update(Sample sample, MetricConfig config, double value, long now) {
-        sample.value = Math.min(sample.value, value);
+        sample.record(value);
     }
 
     @Override
     public double combine(List<Sample> samples, MetricConfig config, long now) {
         double min = Double.MAX_VALUE;
         for (Sample sample : samples)
-            min = Math.min(min, sample.value);
+            min = Math.min(min, sample.value());
         return min;
     }
 
+    @Override
+    public boolean supportsConcurrentRecording() {
+        return true;
+    }
+
 }
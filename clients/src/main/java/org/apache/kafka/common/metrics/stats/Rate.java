@@ -20,6 +20,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.kafka.common.metrics.ConcurrentStat;
 import org.apache.kafka.common.metrics.MeasurableStat;
 import org.apache.kafka.common.metrics.MetricConfig;
 
@@ -30,7 +31,7 @@ import org.apache.kafka.common.metrics.MetricConfig;
  * however, to record the rate of occurrences (e.g. the count of values measured over the time interval) or other such
  * values.
  */
-public class Rate implements MeasurableStat {
+public class Rate implements MeasurableStat, ConcurrentStat {
 
     protected final TimeUnit unit;
     protected final SampledStat stat;
@@ -56,6 +57,11 @@ public class Rate implements MeasurableStat {
         return unit.name().substring(0, unit.name().length() - 2).toLowerCase(Locale.ROOT);
     }
 
+    @Override
+    public boolean supportsConcurrentRecording() {
+        return stat.supportsConcurrentRecording();
+    }
+
     @Override
     public void record(MetricConfig config, double value, long timeMs) {
         this.stat.record(config, value, timeMs);
@@ -123,16 +129,21 @@ public class Rate implements MeasurableStat {
 
         @Override
         protected void update(Sample sample, MetricConfig config, double value, long timeMs) {
-            sample.value += value;
+            sample.record(value);
         }
 
         @Override
         public double combine(List<Sample> samples, MetricConfig config, long now) {
             double total = 0.0;
             for (Sample sample : samples)
-                total += sample.value;
+                total += sample.value();
             return total;
         }
 
+        @Override
+        public boolean supportsConcurrentRecording() {
+            return true;
+        }
+
     }
 }
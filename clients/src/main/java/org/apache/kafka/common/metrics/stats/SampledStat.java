@@ -16,11 +16,13 @@
  */
 package org.apache.kafka.common.metrics.stats;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import org.apache.kafka.common.metrics.ConcurrentStat;
 import org.apache.kafka.common.metrics.MeasurableStat;
 import org.apache.kafka.common.metrics.MetricConfig;
+import org.apache.kafka.common.metrics.stats.StripedAccumulator.Operation;
 
 /**
  * A SampledStat records a single scalar value measured over one or more samples. Each sample is recorded over a
@@ -29,18 +31,35 @@ import org.apache.kafka.common.metrics.MetricConfig;
  * <p>
  * All the samples are combined to produce the measurement. When a window is complete the oldest sample is cleared and
  * recycled to begin recording the next sample.
+ * <p>
+ * A subclass which {@link #supportsConcurrentRecording() supports concurrent recording} keeps the value and event count
+ * of its samples in {@link StripedAccumulator}s, so that values can be recorded from several threads at once without
+ * locking. It then has to record values through {@link Sample#record(double)} and read them through
+ * {@link Sample#value()} and {@link Sample#eventCount()}. Only moving on to the next sample and purging obsolete
+ * samples lock the stat. A thread which loses a race with the completion of a window may record its value in the
+ * previous sample, which is still part of the measurement.
  * 
  * Subclasses of this class define different statistics measured using this basic pattern.
  */
-public abstract class SampledStat implements MeasurableStat {
+public abstract class SampledStat implements MeasurableStat, ConcurrentStat {
 
     private double initialValue;
-    private int current = 0;
+    private final Operation operation;
+    private volatile int current = 0;
     protected List<Sample> samples;
 
     public SampledStat(double initialValue) {
+        this(initialValue, Operation.SUM);
+    }
+
+    /**
+     * @param initialValue The value of an empty sample
+     * @param operation How the values recorded in a sample are combined into its value
+     */
+    protected SampledStat(double initialValue, Operation operation) {
         this.initialValue = initialValue;
-        this.samples = new ArrayList<Sample>(2);
+        this.operation = operation;
+        this.samples = new CopyOnWriteArrayList<>();
     }
 
     @Override
@@ -49,24 +68,29 @@ public abstract class SampledStat implements MeasurableStat {
         if (sample.isComplete(timeMs, config))
             sample = advance(config, timeMs);
         update(sample, config, value, timeMs);
-        sample.eventCount += 1;
+        sample.recordEvent();
     }
 
-    private Sample advance(MetricConfig config, long timeMs) {
-        this.current = (this.current + 1) % config.samples();
-        if (this.current >= samples.size()) {
-            Sample sample = newSample(timeMs);
-            this.samples.add(sample);
+    private synchronized Sample advance(MetricConfig config, long timeMs) {
+        // another thread may have moved on to the next sample already
+        Sample sample = current(timeMs);
+        if (!sample.isComplete(timeMs, config))
             return sample;
+
+        int next = (this.current + 1) % config.samples();
+        if (next >= samples.size()) {
+            sample = newSample(timeMs);
+            this.samples.add(sample);
         } else {
-            Sample sample = current(timeMs);
+            sample = this.samples.get(next);
             sample.reset(timeMs);
-            return sample;
         }
+        this.current = next;
+        return sample;
     }
 
     protected Sample newSample(long timeMs) {
-        return new Sample(this.initialValue, timeMs);
+        return new Sample(this.initialValue, timeMs, this.operation, supportsConcurrentRecording());
     }
 
     @Override
@@ -75,15 +99,24 @@ public abstract class SampledStat implements MeasurableStat {
         return combine(this.samples, config, now);
     }
 
+    /**
+     * Subclasses which only access their samples through {@link Sample#record(double)}, {@link Sample#value()} and
+     * {@link Sample#eventCount()}, and whose samples are otherwise thread safe, may override this to return true.
+     */
+    @Override
+    public boolean supportsConcurrentRecording() {
+        return false;
+    }
+
     public Sample current(long timeMs) {
         if (samples.size() == 0)
-            this.samples.add(newSample(timeMs));
+            initialize(timeMs);
         return this.samples.get(this.current);
     }
 
     public Sample oldest(long now) {
         if (samples.size() == 0)
-            this.samples.add(newSample(now));
+            initialize(now);
         Sample oldest = this.samples.get(0);
         for (int i = 1; i < this.samples.size(); i++) {
             Sample curr = this.samples.get(i);
@@ -93,12 +126,17 @@ public abstract class SampledStat implements MeasurableStat {
         return oldest;
     }
 
+    private synchronized void initialize(long timeMs) {
+        if (samples.size() == 0)
+            this.samples.add(newSample(timeMs));
+    }
+
     protected abstract void update(Sample sample, MetricConfig config, double value, long timeMs);
 
     public abstract double combine(List<Sample> samples, MetricConfig config, long now);
 
     /* Timeout any windows that have expired in the absence of any events */
-    protected void purgeObsoleteSamples(MetricConfig config, long now) {
+    protected synchronized void purgeObsoleteSamples(MetricConfig config, long now) {
         long expireAge = config.samples() * config.timeWindowMs();
         for (Sample sample : samples) {
             if (now - sample.lastWindowMs >= expireAge)
@@ -108,25 +146,72 @@ public abstract class SampledStat implements MeasurableStat {
 
     protected static class Sample {
         public double initialValue;
+        // only used if the sample is not concurrent, otherwise the accumulators hold the event count and value
         public long eventCount;
-        public long lastWindowMs;
+        public volatile long lastWindowMs;
         public double value;
+        private final Operation operation;
+        private final StripedAccumulator concurrentValue;
+        private final StripedAccumulator concurrentEventCount;
 
         public Sample(double initialValue, long now) {
+            this(initialValue, now, Operation.SUM, false);
+        }
+
+        /**
+         * @param operation How the values recorded through {@link #record(double)} are combined into the value
+         * @param concurrent Whether values may be recorded from several threads at once
+         */
+        public Sample(double initialValue, long now, Operation operation, boolean concurrent) {
             this.initialValue = initialValue;
             this.eventCount = 0;
             this.lastWindowMs = now;
             this.value = initialValue;
+            this.operation = operation;
+            this.concurrentValue = concurrent ? new StripedAccumulator(operation, initialValue) : null;
+            this.concurrentEventCount = concurrent ? new StripedAccumulator(Operation.SUM, 0.0) : null;
         }
 
         public void reset(long now) {
+            if (concurrentValue != null) {
+                this.concurrentEventCount.reset();
+                this.concurrentValue.reset();
+            }
             this.eventCount = 0;
             this.lastWindowMs = now;
             this.value = initialValue;
         }
 
+        /**
+         * Combine the given value into the value of this sample
+         */
+        public void record(double value) {
+            if (concurrentValue != null)
+                this.concurrentValue.update(value);
+            else
+                this.value = operation.apply(this.value, value);
+        }
+
+        void recordEvent() {
+            if (concurrentEventCount != null)
+                this.concurrentEventCount.update(1.0);
+            else
+                this.eventCount += 1;
+        }
+
+        public double value() {
+            return concurrentValue != null ? concurrentValue.value() : value;
+        }
+
+        public long eventCount() {
+            return concurrentEventCount != null ? (long) concurrentEventCount.value() : eventCount;
+        }
+
         public boolean isComplete(long timeMs, MetricConfig config) {
-            return timeMs - lastWindowMs >= config.timeWindowMs() || eventCount >= config.eventWindow();
+            if (timeMs - lastWindowMs >= config.timeWindowMs())
+                return true;
+            // summing up the event count is only worth it if there is an event window
+            return config.eventWindow() != Long.MAX_VALUE && eventCount() >= config.eventWindow();
         }
     }
 
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.common.metrics.stats;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * A double which can be updated from several threads without locking, in the manner of the JDK's LongAdder: updates
+ * go to a single base value until two threads collide on it, after which each thread updates one of a set of cells
+ * picked by its id. Reading the value combines the base with all the cells, so it is more expensive than an update.
+ * <p>
+ * The accumulator either sums its updates, or keeps their maximum or minimum.
+ */
+public final class StripedAccumulator {
+
+    public enum Operation {
+        SUM(0.0), MAX(Double.NEGATIVE_INFINITY), MIN(Double.POSITIVE_INFINITY);
+
+        private final double identity;
+
+        Operation(double identity) {
+            this.identity = identity;
+        }
+
+        double apply(double x, double y) {
+            switch (this) {
+                case SUM:
+                    return x + y;
+                case MAX:
+                    return Math.max(x, y);
+                default:
+                    return Math.min(x, y);
+            }
+        }
+    }
+
+    // cells are spaced this many longs apart so that no two of them share a cache line
+    private static final int PADDING = 8;
+    private static final int NUM_CELLS = nextPowerOfTwo(Runtime.getRuntime().availableProcessors());
+
+    private static final AtomicLongFieldUpdater<StripedAccumulator> BASE_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(StripedAccumulator.class, "base");
+
+    private final Operation operation;
+    private final double initialValue;
+    private volatile long base;
+    private volatile AtomicLongArray cells;
+
+    public StripedAccumulator(Operation operation, double initialValue) {
+        this.operation = operation;
+        this.initialValue = initialValue;
+        this.base = Double.doubleToRawLongBits(initialValue);
+    }
+
+    public void update(double value) {
+        AtomicLongArray cells = this.cells;
+        if (cells == null) {
+            if (casValue(value))
+                return;
+            cells = createCells();
+        }
+
+        int mask = NUM_CELLS - 1;
+        int cell = hash(Thread.currentThread().getId()) & mask;
+        while (true) {
+            int index = cell * PADDING;
+            long current = cells.get(index);
+            long updated = Double.doubleToRawLongBits(operation.apply(Double.longBitsToDouble(current), value));
+            if (current == updated || cells.compareAndSet(index, current, updated))
+                return;
+            // another thread uses the same cell, move on to the next one
+            cell = (cell + 1) & mask;
+        }
+    }
+
+    public double value() {
+        double value = Double.longBitsToDouble(base);
+        AtomicLongArray cells = this.cells;
+        if (cells != null) {
+            for (int i = 0; i < cells.length(); i += PADDING)
+                value = operation.apply(value, Double.longBitsToDouble(cells.get(i)));
+        }
+        return value;
+    }
+
+    /**
+     * Reset the value to the initial value. Updates made concurrently with the reset may or may not be retained.
+     */
+    public void reset() {
+        AtomicLongArray cells = this.cells;
+        if (cells != null) {
+            long identity = Double.doubleToRawLongBits(operation.identity);
+            for (int i = 0; i < cells.length(); i += PADDING)
+                cells.set(i, identity);
+        }
+        this.base = Double.doubleToRawLongBits(initialValue);
+    }
+
+    private boolean casValue(double value) {
+        long current = this.base;
+        long updated = Double.doubleToRawLongBits(operation.apply(Double.longBitsToDouble(current), value));
+        return current == updated || BASE_UPDATER.compareAndSet(this, current, updated);
+    }
+
+    private synchronized AtomicLongArray createCells() {
+        if (this.cells == null) {
+            AtomicLongArray cells = new AtomicLongArray(NUM_CELLS * PADDING);
+            long identity = Double.doubleToRawLongBits(operation.identity);
+            for (int i = 0; i < cells.length(); i += PADDING)
+                cells.set(i, identity);
+            this.cells = cells;
+        }
+        return this.cells;
+    }
+
+    private static int hash(long threadId) {
+        long h = threadId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int nextPowerOfTwo(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+}
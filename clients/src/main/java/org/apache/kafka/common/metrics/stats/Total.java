@@ -16,32 +16,38 @@
  */
 package org.apache.kafka.common.metrics.stats;
 
+import org.apache.kafka.common.metrics.ConcurrentStat;
 import org.apache.kafka.common.metrics.MeasurableStat;
 import org.apache.kafka.common.metrics.MetricConfig;
 
 /**
  * An un-windowed cumulative total maintained over all time.
  */
-public class Total implements MeasurableStat {
+public class Total implements MeasurableStat, ConcurrentStat {
 
-    private double total;
+    private final StripedAccumulator total;
 
     public Total() {
-        this.total = 0.0;
+        this(0.0);
     }
 
     public Total(double value) {
-        this.total = value;
+        this.total = new StripedAccumulator(StripedAccumulator.Operation.SUM, value);
     }
 
     @Override
     public void record(MetricConfig config, double value, long now) {
-        this.total += value;
+        this.total.update(value);
     }
 
     @Override
     public double measure(MetricConfig config, long now) {
-        return this.total;
+        return this.total.value();
+    }
+
+    @Override
+    public boolean supportsConcurrentRecording() {
+        return true;
     }
 
 }
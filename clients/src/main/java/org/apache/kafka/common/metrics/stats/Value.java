@@ -16,14 +16,15 @@
  */
 package org.apache.kafka.common.metrics.stats;
 
+import org.apache.kafka.common.metrics.ConcurrentStat;
 import org.apache.kafka.common.metrics.MeasurableStat;
 import org.apache.kafka.common.metrics.MetricConfig;
 
 /**
  * An instantaneous value.
  */
-public class Value implements MeasurableStat {
-    private double value = 0;
+public class Value implements MeasurableStat, ConcurrentStat {
+    private volatile double value = 0;
 
     @Override
     public double measure(MetricConfig config, long now) {
@@ -34,4 +35,9 @@ public class Value implements MeasurableStat {
     public void record(MetricConfig config, double value, long timeMs) {
         this.value = value;
     }
+
+    @Override
+    public boolean supportsConcurrentRecording() {
+        return true;
+    }
 }
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.common.protocol.types;
+
+import org.apache.kafka.common.record.MemoryRecords;
+import org.apache.kafka.common.record.Records;
+import org.apache.kafka.common.utils.Utils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Helpers for requests and responses which read and write their fields directly from and to a buffer, rather than
+ * through a {@link Struct}. Primitive fields are simply read and written with the buffer's own methods, these cover
+ * the variable length types with the same encoding and validation as the corresponding {@link Type}.
+ */
+public final class RawTypes {
+
+    private RawTypes() {}
+
+    public static int sizeOf(String string) {
+        return 2 + Utils.utf8Length(string);
+    }
+
+    public static int sizeOfNullable(String string) {
+        return string == null ? 2 : sizeOf(string);
+    }
+
+    public static void writeString(ByteBuffer buffer, String string) {
+        int length = Utils.utf8Length(string);
+        if (length > Short.MAX_VALUE)
+            throw new SchemaException("String length " + length + " is larger than the maximum string length.");
+        buffer.putShort((short) length);
+        if (length == string.length()) {
+            // every character is encoded in a single byte, which is the common case for topics and client ids
+            for (int i = 0; i < length; i++)
+                buffer.put((byte) string.charAt(i));
+        } else {
+            buffer.put(Utils.utf8(string));
+        }
+    }
+
+    public static void writeNullableString(ByteBuffer buffer, String string) {
+        if (string == null)
+            buffer.putShort((short) -1);
+        else
+            writeString(buffer, string);
+    }
+
+    public static String readString(ByteBuffer buffer) {
+        return (String) Type.STRING.read(buffer);
+    }
+
+    public static String readNullableString(ByteBuffer buffer) {
+        return (String) Type.NULLABLE_STRING.read(buffer);
+    }
+
+    /**
+     * Read the size of a non-nullable array, checking that it is not obviously larger than the rest of the buffer.
+     */
+    public static int readArraySize(ByteBuffer buffer) {
+        int size = buffer.getInt();
+        if (size < 0)
+            throw new SchemaException("Array size " + size + " cannot be negative");
+        if (size > buffer.remaining())
+            throw new SchemaException("Error reading array of size " + size + ", only " + buffer.remaining() + " bytes available");
+        return size;
+    }
+
+    public static int sizeOf(MemoryRecords records) {
+        return 4 + records.sizeInBytes();
+    }
+
+    public static void writeRecords(ByteBuffer buffer, MemoryRecords records) {
+        buffer.putInt(records.sizeInBytes());
+        buffer.put(records.buffer().duplicate());
+    }
+
+    public static Records readRecords(ByteBuffer buffer) {
+        return (Records) Type.RECORDS.read(buffer);
+    }
+
+}
@@ -254,9 +254,9 @@ public class DefaultRecord implements Record {
     /**
      * Compute the checksum of the record from the timestamp, key and value payloads
      */
-    private static long computeChecksum(long timestamp,
-                                        ByteBuffer key,
-                                        ByteBuffer value) {
+    static long computeChecksum(long timestamp,
+                                ByteBuffer key,
+                                ByteBuffer value) {
         Checksum crc = Crc32C.create();
         Checksums.updateLong(crc, timestamp);
 
@@ -18,7 +18,6 @@ package org.apache.kafka.common.record;
 
 import org.apache.kafka.common.KafkaException;
 import org.apache.kafka.common.header.Header;
-import org.apache.kafka.common.utils.ByteBufferInputStream;
 import org.apache.kafka.common.utils.ByteUtils;
 import org.apache.kafka.common.utils.CloseableIterator;
 import org.apache.kafka.common.utils.Crc32C;
@@ -123,7 +122,7 @@ public class DefaultRecordBatch extends AbstractRecordBatch implements MutableRe
                     + ", computed crc = " + computeChecksum() + ")");
     }
 
-    private long baseTimestamp() {
+    long baseTimestamp() {
         return buffer.getLong(BASE_TIMESTAMP_OFFSET);
     }
 
@@ -184,10 +183,19 @@ public class DefaultRecordBatch extends AbstractRecordBatch implements MutableRe
         return LOG_OVERHEAD + buffer.getInt(LENGTH_OFFSET);
     }
 
-    private int count() {
+    int count() {
         return buffer.getInt(RECORDS_COUNT_OFFSET);
     }
 
+    /**
+     * Get a view of the records of the batch, which is positioned at the first record.
+     */
+    ByteBuffer recordsBuffer() {
+        ByteBuffer buffer = this.buffer.duplicate();
+        buffer.position(RECORDS_OFFSET);
+        return buffer;
+    }
+
     @Override
     public Integer countOrNull() {
         return count();
@@ -213,11 +221,9 @@ public class DefaultRecordBatch extends AbstractRecordBatch implements MutableRe
         return buffer.getInt(PARTITION_LEADER_EPOCH_OFFSET);
     }
 
-    private CloseableIterator<Record> compressedIterator() {
-        ByteBuffer buffer = this.buffer.duplicate();
-        buffer.position(RECORDS_OFFSET);
-        final DataInputStream stream = new DataInputStream(compressionType().wrapForInput(
-                new ByteBufferInputStream(buffer), magic()));
+    private CloseableIterator<Record> compressedIterator(BufferSupplier bufferSupplier) {
+        ByteBuffer buffer = recordsBuffer();
+        final DataInputStream stream = new DataInputStream(compressionType().wrapForInput(buffer, magic(), bufferSupplier));
 
         return new RecordIterator() {
             @Override
@@ -241,8 +247,7 @@ public class DefaultRecordBatch extends AbstractRecordBatch implements MutableRe
     }
 
     private CloseableIterator<Record> uncompressedIterator() {
-        final ByteBuffer buffer = this.buffer.duplicate();
-        buffer.position(RECORDS_OFFSET);
+        final ByteBuffer buffer = recordsBuffer();
         return new RecordIterator() {
             @Override
             protected Record readNext(long baseOffset, long baseTimestamp, int baseSequence, Long logAppendTime) {
@@ -261,7 +266,7 @@ public class DefaultRecordBatch extends AbstractRecordBatch implements MutableRe
         // for a normal iterator, we cannot ensure that the underlying compression stream is closed,
         // so we decompress the full record set here. Use cases which call for a lower memory footprint
         // can use `streamingIterator` at the cost of additional complexity
-        try (CloseableIterator<Record> iterator = compressedIterator()) {
+        try (CloseableIterator<Record> iterator = compressedIterator(BufferSupplier.NO_CACHING)) {
             List<Record> records = new ArrayList<>(count());
             while (iterator.hasNext())
                 records.add(iterator.next());
@@ -271,9 +276,9 @@ public class DefaultRecordBatch extends AbstractRecordBatch implements MutableRe
 
 
     @Override
-    public CloseableIterator<Record> streamingIterator() {
+    public CloseableIterator<Record> streamingIterator(BufferSupplier bufferSupplier) {
         if (isCompressed())
-            return compressedIterator();
+            return compressedIterator(bufferSupplier);
         else
             return uncompressedIterator();
     }
@@ -0,0 +1,417 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.common.record;
+
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.utils.ByteUtils;
+import org.apache.kafka.common.utils.Utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A decoder which parses all the records of a {@link DefaultRecordBatch} in a single pass into primitive arrays, one
+ * per record field, rather than creating a {@link DefaultRecord} with key and value slices for every record.
+ *
+ * The fields of the records are read by index. {@link #record(int)} and {@link #iterator()} expose them as a
+ * {@link Record}, through a single flyweight instance which is repositioned on every call: the returned record is
+ * only valid until the next call, and must be copied if it needs to be retained. Only the key, value and headers
+ * accessors of the flyweight allocate.
+ *
+ * An instance reuses its arrays (and, for compressed batches, its decompression buffer) for every batch it decodes,
+ * so a single instance should be used to scan many batches. It is not thread safe.
+ */
+public final class DefaultRecordBatchColumns implements Iterable<Record> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final RecordView view = new RecordView();
+    private final BufferSupplier decompressionBufferSupplier;
+
+    private ByteBuffer buffer;
+    private byte[] decompressed = new byte[0];
+    private int numRecords;
+    private long baseOffset;
+    private int baseSequence;
+
+    private int[] sizes = new int[INITIAL_CAPACITY];
+    private byte[] attributes = new byte[INITIAL_CAPACITY];
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private int[] offsetDeltas = new int[INITIAL_CAPACITY];
+    private int[] keyPositions = new int[INITIAL_CAPACITY];
+    private int[] keySizes = new int[INITIAL_CAPACITY];
+    private int[] valuePositions = new int[INITIAL_CAPACITY];
+    private int[] valueSizes = new int[INITIAL_CAPACITY];
+    private int[] headersPositions = new int[INITIAL_CAPACITY];
+    private int[] numHeaders = new int[INITIAL_CAPACITY];
+
+    public DefaultRecordBatchColumns() {
+        this(BufferSupplier.NO_CACHING);
+    }
+
+    /**
+     * @param decompressionBufferSupplier The supplier of the internal buffers of the decompression streams
+     */
+    public DefaultRecordBatchColumns(BufferSupplier decompressionBufferSupplier) {
+        this.decompressionBufferSupplier = decompressionBufferSupplier;
+    }
+
+    /**
+     * Decode the records of the given batch, replacing those of the previously decoded batch.
+     *
+     * @throws InvalidRecordException if the batch contains a malformed record, or more bytes than its records
+     */
+    public void decode(DefaultRecordBatch batch) {
+        int count = batch.count();
+        if (count < 0)
+            throw new InvalidRecordException("Found invalid record count " + count + " in magic v" + batch.magic() + " batch");
+
+        ByteBuffer buffer = batch.isCompressed() ? decompress(batch) : batch.recordsBuffer();
+        ensureCapacity(count);
+
+        this.buffer = buffer;
+        this.numRecords = 0;
+        this.baseOffset = batch.baseOffset();
+        this.baseSequence = batch.baseSequence();
+        long baseTimestamp = batch.baseTimestamp();
+        boolean logAppendTime = batch.timestampType() == TimestampType.LOG_APPEND_TIME;
+        long maxTimestamp = batch.maxTimestamp();
+
+        try {
+            for (int i = 0; i < count; i++) {
+                int sizeOfBodyInBytes = ByteUtils.readVarint(buffer);
+                if (sizeOfBodyInBytes < 0 || sizeOfBodyInBytes > buffer.remaining())
+                    throw new InvalidRecordException("Found invalid record size " + sizeOfBodyInBytes + " with only " +
+                            buffer.remaining() + " bytes remaining in the batch");
+                int end = buffer.position() + sizeOfBodyInBytes;
+                sizes[i] = ByteUtils.sizeOfVarint(sizeOfBodyInBytes) + sizeOfBodyInBytes;
+
+                attributes[i] = buffer.get();
+                long timestampDelta = ByteUtils.readVarlong(buffer);
+                timestamps[i] = logAppendTime ? maxTimestamp : baseTimestamp + timestampDelta;
+                offsetDeltas[i] = ByteUtils.readVarint(buffer);
+
+                keySizes[i] = ByteUtils.readVarint(buffer);
+                keyPositions[i] = buffer.position();
+                skip(buffer, keySizes[i]);
+
+                valueSizes[i] = ByteUtils.readVarint(buffer);
+                valuePositions[i] = buffer.position();
+                skip(buffer, valueSizes[i]);
+
+                int headers = ByteUtils.readVarint(buffer);
+                if (headers < 0)
+                    throw new InvalidRecordException("Found invalid number of record headers " + headers);
+                numHeaders[i] = headers;
+                headersPositions[i] = buffer.position();
+                for (int j = 0; j < headers; j++) {
+                    int headerKeySize = ByteUtils.readVarint(buffer);
+                    if (headerKeySize < 0)
+                        throw new InvalidRecordException("Invalid negative header key size " + headerKeySize);
+                    skip(buffer, headerKeySize);
+                    skip(buffer, ByteUtils.readVarint(buffer));
+                }
+
+                if (buffer.position() != end)
+                    throw new InvalidRecordException("Invalid record size: expected to read " + sizeOfBodyInBytes +
+                            " bytes in record payload, but instead read " + (buffer.position() - end + sizeOfBodyInBytes));
+                numRecords++;
+            }
+            if (buffer.hasRemaining())
+                throw new InvalidRecordException("Found " + buffer.remaining() + " bytes remaining in the batch after " +
+                        "reading the " + count + " records of its record count");
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new InvalidRecordException("Found invalid record structure: " + e);
+        }
+    }
+
+    private static void skip(ByteBuffer buffer, int size) {
+        // a negative size denotes a null field
+        if (size > 0) {
+            if (size > buffer.remaining())
+                throw new InvalidRecordException("Found invalid field size " + size + " with only " +
+                        buffer.remaining() + " bytes remaining in the record");
+            buffer.position(buffer.position() + size);
+        }
+    }
+
+    private ByteBuffer decompress(DefaultRecordBatch batch) {
+        int size = 0;
+        try (InputStream input = batch.compressionType().wrapForInput(batch.recordsBuffer(), batch.magic(),
+                decompressionBufferSupplier)) {
+            if (decompressed.length == 0)
+                decompressed = new byte[Math.max(batch.sizeInBytes() * 2, 1024)];
+            while (true) {
+                if (size == decompressed.length)
+                    decompressed = Arrays.copyOf(decompressed, decompressed.length * 2);
+                int read = input.read(decompressed, size, decompressed.length - size);
+                if (read < 0)
+                    break;
+                size += read;
+            }
+        } catch (IOException e) {
+            throw new KafkaException("Failed to decompress record stream", e);
+        }
+        return ByteBuffer.wrap(decompressed, 0, size);
+    }
+
+    private void ensureCapacity(int count) {
+        if (count <= sizes.length)
+            return;
+        int capacity = Math.max(count, sizes.length * 2);
+        sizes = Arrays.copyOf(sizes, capacity);
+        attributes = Arrays.copyOf(attributes, capacity);
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        offsetDeltas = Arrays.copyOf(offsetDeltas, capacity);
+        keyPositions = Arrays.copyOf(keyPositions, capacity);
+        keySizes = Arrays.copyOf(keySizes, capacity);
+        valuePositions = Arrays.copyOf(valuePositions, capacity);
+        valueSizes = Arrays.copyOf(valueSizes, capacity);
+        headersPositions = Arrays.copyOf(headersPositions, capacity);
+        numHeaders = Arrays.copyOf(numHeaders, capacity);
+    }
+
+    /**
+     * The number of records in the last decoded batch.
+     */
+    public int numRecords() {
+        return numRecords;
+    }
+
+    public long offset(int index) {
+        return baseOffset + offsetDeltas[checkIndex(index)];
+    }
+
+    public int offsetDelta(int index) {
+        return offsetDeltas[checkIndex(index)];
+    }
+
+    public long timestamp(int index) {
+        return timestamps[checkIndex(index)];
+    }
+
+    public int sequence(int index) {
+        return baseSequence >= 0 ? baseSequence + offsetDeltas[checkIndex(index)] : RecordBatch.NO_SEQUENCE;
+    }
+
+    public byte attributes(int index) {
+        return attributes[checkIndex(index)];
+    }
+
+    public int sizeInBytes(int index) {
+        return sizes[checkIndex(index)];
+    }
+
+    public int keySize(int index) {
+        return keySizes[checkIndex(index)];
+    }
+
+    public ByteBuffer key(int index) {
+        return slice(keyPositions[checkIndex(index)], keySizes[index]);
+    }
+
+    public int valueSize(int index) {
+        return valueSizes[checkIndex(index)];
+    }
+
+    public ByteBuffer value(int index) {
+        return slice(valuePositions[checkIndex(index)], valueSizes[index]);
+    }
+
+    public int numHeaders(int index) {
+        return numHeaders[checkIndex(index)];
+    }
+
+    public Header[] headers(int index) {
+        int count = numHeaders[checkIndex(index)];
+        if (count == 0)
+            return Record.EMPTY_HEADERS;
+
+        ByteBuffer buffer = this.buffer.duplicate();
+        buffer.position(headersPositions[index]);
+        Header[] headers = new Header[count];
+        for (int i = 0; i < count; i++) {
+            int headerKeySize = ByteUtils.readVarint(buffer);
+            String headerKey = Utils.utf8(buffer, headerKeySize);
+            buffer.position(buffer.position() + headerKeySize);
+
+            ByteBuffer headerValue = null;
+            int headerValueSize = ByteUtils.readVarint(buffer);
+            if (headerValueSize >= 0) {
+                headerValue = buffer.slice();
+                headerValue.limit(headerValueSize);
+                buffer.position(buffer.position() + headerValueSize);
+            }
+            headers[i] = new RecordHeader(headerKey, headerValue);
+        }
+        return headers;
+    }
+
+    /**
+     * Get the flyweight record positioned at the given index. The same instance is returned by every call.
+     */
+    public Record record(int index) {
+        view.index = checkIndex(index);
+        return view;
+    }
+
+    /**
+     * Iterate the records of the last decoded batch. Every call to {@code next()} returns the same flyweight instance,
+     * positioned at the next record.
+     */
+    @Override
+    public Iterator<Record> iterator() {
+        return new Iterator<Record>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < numRecords;
+            }
+
+            @Override
+            public Record next() {
+                if (index >= numRecords)
+                    throw new NoSuchElementException();
+                return record(index++);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private ByteBuffer slice(int position, int size) {
+        if (size < 0)
+            return null;
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(position);
+        slice.limit(position + size);
+        return slice.slice();
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= numRecords)
+            throw new IndexOutOfBoundsException("Record index " + index + " is out of bounds for a batch of " +
+                    numRecords + " records");
+        return index;
+    }
+
+    private class RecordView implements Record {
+        private int index;
+
+        @Override
+        public long offset() {
+            return DefaultRecordBatchColumns.this.offset(index);
+        }
+
+        @Override
+        public long sequence() {
+            return DefaultRecordBatchColumns.this.sequence(index);
+        }
+
+        @Override
+        public int sizeInBytes() {
+            return DefaultRecordBatchColumns.this.sizeInBytes(index);
+        }
+
+        @Override
+        public long timestamp() {
+            return DefaultRecordBatchColumns.this.timestamp(index);
+        }
+
+        @Override
+        public long checksum() {
+            return DefaultRecord.computeChecksum(timestamp(), key(), value());
+        }
+
+        @Override
+        public boolean isValid() {
+            // records of magic v2 and above are validated with the checksum of their batch
+            return true;
+        }
+
+        @Override
+        public void ensureValid() {}
+
+        @Override
+        public int keySize() {
+            return DefaultRecordBatchColumns.this.keySize(index);
+        }
+
+        @Override
+        public boolean hasKey() {
+            return keySize() >= 0;
+        }
+
+        @Override
+        public ByteBuffer key() {
+            return DefaultRecordBatchColumns.this.key(index);
+        }
+
+        @Override
+        public int valueSize() {
+            return DefaultRecordBatchColumns.this.valueSize(index);
+        }
+
+        @Override
+        public boolean hasValue() {
+            return valueSize() >= 0;
+        }
+
+        @Override
+        public ByteBuffer value() {
+            return DefaultRecordBatchColumns.this.value(index);
+        }
+
+        @Override
+        public boolean hasMagic(byte magic) {
+            return magic >= RecordBatch.MAGIC_VALUE_V2;
+        }
+
+        @Override
+        public boolean isCompressed() {
+            return false;
+        }
+
+        @Override
+        public boolean hasTimestampType(TimestampType timestampType) {
+            return false;
+        }
+
+        @Override
+        public Header[] headers() {
+            return DefaultRecordBatchColumns.this.headers(index);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("DefaultRecord(offset=%d, timestamp=%d, key=%d bytes, value=%d bytes)",
+                    offset(), timestamp(), Math.max(keySize(), 0), Math.max(valueSize(), 0));
+        }
+    }
+
+}
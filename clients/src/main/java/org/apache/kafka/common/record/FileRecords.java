@@ -30,7 +30,6 @@ import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.GatheringByteChannel;
 import java.util.Iterator;
-import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -231,8 +230,7 @@ public class FileRecords extends AbstractRecords implements Closeable {
 
     @Override
     public Records downConvert(byte toMagic) {
-        List<? extends RecordBatch> batches = Utils.toList(batches().iterator());
-        if (batches.isEmpty()) {
+        if (!batches().iterator().hasNext()) {
             // This indicates that the message is too large, which means that the buffer is not large
             // enough to hold a full record batch. We just return all the bytes in the file message set.
             // Even though the message set does not have the right format version, we expect old clients
@@ -242,7 +240,8 @@ public class FileRecords extends AbstractRecords implements Closeable {
             // one full message, even if it requires exceeding the max fetch size requested by the client.
             return this;
         } else {
-            return downConvert(batches, toMagic);
+            // convert the batches while they are written rather than reading them all into memory first
+            return new LazyDownConversionRecords(this, toMagic);
         }
     }
 
@@ -17,16 +17,16 @@
 package org.apache.kafka.common.record;
 
 import static org.apache.kafka.common.record.KafkaLZ4BlockOutputStream.LZ4_FRAME_INCOMPRESSIBLE_MASK;
-import static org.apache.kafka.common.record.KafkaLZ4BlockOutputStream.LZ4_MAX_HEADER_LENGTH;
 import static org.apache.kafka.common.record.KafkaLZ4BlockOutputStream.MAGIC;
 
-import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 import org.apache.kafka.common.record.KafkaLZ4BlockOutputStream.BD;
 import org.apache.kafka.common.record.KafkaLZ4BlockOutputStream.FLG;
-import org.apache.kafka.common.utils.ByteUtils;
 
 import net.jpountz.lz4.LZ4Exception;
 import net.jpountz.lz4.LZ4Factory;
@@ -37,55 +37,70 @@ import net.jpountz.xxhash.XXHashFactory;
 /**
  * A partial implementation of the v1.5.1 LZ4 Frame format.
  *
+ * The frame is read directly from a {@link ByteBuffer}, heap or direct: compressed blocks are decompressed from the
+ * buffer without being copied first, and uncompressed blocks are read in place.
+ *
  * @see <a href="http://cyan4973.github.io/lz4/lz4_Frame_format.html">LZ4 Frame Format</a>
  */
-public final class KafkaLZ4BlockInputStream extends FilterInputStream {
+public final class KafkaLZ4BlockInputStream extends InputStream {
 
     public static final String PREMATURE_EOS = "Stream ended prematurely";
     public static final String NOT_SUPPORTED = "Stream unsupported (invalid magic bytes)";
     public static final String BLOCK_HASH_MISMATCH = "Block checksum mismatch";
     public static final String DESCRIPTOR_HASH_MISMATCH = "Stream frame descriptor corrupted";
 
-    private final LZ4SafeDecompressor decompressor;
-    private final XXHash32 checksum;
-    private final byte[] buffer;
-    private final byte[] compressedBuffer;
+    private static final LZ4SafeDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().safeDecompressor();
+    private static final XXHash32 CHECKSUM = XXHashFactory.fastestInstance().hash32();
+
+    private final ByteBuffer in;
+    private final BufferSupplier bufferSupplier;
+    private final ByteBuffer decompressionBuffer;
+    // `decompressionBuffer` for compressed blocks, a view of `in` for uncompressed ones, null before the first block
+    private ByteBuffer decompressedBuffer;
     private final int maxBlockSize;
     private final boolean ignoreFlagDescriptorChecksum;
     private FLG flg;
     private BD bd;
-    private int bufferOffset;
-    private int bufferSize;
     private boolean finished;
+    private boolean closed;
 
     /**
-     * Create a new {@link InputStream} that will decompress data using the LZ4 algorithm.
+     * Create a new {@link InputStream} that will decompress data using the LZ4 algorithm. The decompression buffer is
+     * taken from the given supplier and returned to it when the stream is closed.
      *
-     * @param in The stream to decompress
+     * @param in The buffer to decompress, from its position to its limit. The buffer itself is not modified.
+     * @param bufferSupplier The supplier of the decompression buffer
      * @param ignoreFlagDescriptorChecksum for compatibility with old kafka clients, ignore incorrect HC byte
      * @throws IOException
      */
-    public KafkaLZ4BlockInputStream(InputStream in, boolean ignoreFlagDescriptorChecksum) throws IOException {
-        super(in);
-        decompressor = LZ4Factory.fastestInstance().safeDecompressor();
-        checksum = XXHashFactory.fastestInstance().hash32();
+    public KafkaLZ4BlockInputStream(ByteBuffer in, BufferSupplier bufferSupplier, boolean ignoreFlagDescriptorChecksum) throws IOException {
+        this.in = in.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        this.bufferSupplier = bufferSupplier;
         this.ignoreFlagDescriptorChecksum = ignoreFlagDescriptorChecksum;
         readHeader();
         maxBlockSize = bd.getBlockMaximumSize();
-        buffer = new byte[maxBlockSize];
-        compressedBuffer = new byte[maxBlockSize];
-        bufferOffset = 0;
-        bufferSize = 0;
+        decompressionBuffer = bufferSupplier.get(maxBlockSize);
         finished = false;
     }
 
     /**
      * Create a new {@link InputStream} that will decompress data using the LZ4 algorithm.
      *
-     * @param in The stream to decompress
+     * @param in The buffer to decompress
+     * @param ignoreFlagDescriptorChecksum for compatibility with old kafka clients, ignore incorrect HC byte
+     * @throws IOException
+     */
+    public KafkaLZ4BlockInputStream(ByteBuffer in, boolean ignoreFlagDescriptorChecksum) throws IOException {
+        this(in, BufferSupplier.NO_CACHING, ignoreFlagDescriptorChecksum);
+    }
+
+    /**
+     * Create a new {@link InputStream} that will decompress data using the LZ4 algorithm.
+     *
+     * @param in The buffer to decompress
      * @throws IOException
      */
-    public KafkaLZ4BlockInputStream(InputStream in) throws IOException {
+    public KafkaLZ4BlockInputStream(ByteBuffer in) throws IOException {
         this(in, false);
     }
 
@@ -99,92 +114,110 @@ public final class KafkaLZ4BlockInputStream extends FilterInputStream {
     }
 
     /**
-     * Reads the magic number and frame descriptor from the underlying {@link InputStream}.
+     * Reads the magic number and frame descriptor from the underlying buffer.
      *
      * @throws IOException
      */
     private void readHeader() throws IOException {
-        byte[] header = new byte[LZ4_MAX_HEADER_LENGTH];
-
-        // read first 6 bytes into buffer to check magic and FLG/BD descriptor flags
-        int headerOffset = 6;
-        if (in.read(header, 0, headerOffset) != headerOffset) {
+        // read first 6 bytes to check magic and FLG/BD descriptor flags
+        if (in.remaining() < 6)
             throw new IOException(PREMATURE_EOS);
-        }
 
-        if (MAGIC != ByteUtils.readUnsignedIntLE(header, headerOffset - 6)) {
+        if (MAGIC != in.getInt())
             throw new IOException(NOT_SUPPORTED);
-        }
-        flg = FLG.fromByte(header[headerOffset - 2]);
-        bd = BD.fromByte(header[headerOffset - 1]);
+        // the descriptor checksum starts after the magic bytes
+        int descriptorOffset = in.position();
+        flg = FLG.fromByte(in.get());
+        bd = BD.fromByte(in.get());
 
         if (flg.isContentSizeSet()) {
-            if (in.read(header, headerOffset, 8) != 8)
+            if (in.remaining() < 8)
                 throw new IOException(PREMATURE_EOS);
-            headerOffset += 8;
+            in.position(in.position() + 8);
         }
 
         // Final byte of Frame Descriptor is HC checksum
-        header[headerOffset++] = (byte) in.read();
+        if (!in.hasRemaining())
+            throw new IOException(PREMATURE_EOS);
+        int len = in.position() - descriptorOffset;
+        byte hc = in.get();
 
         // Old implementations produced incorrect HC checksums
         if (ignoreFlagDescriptorChecksum)
             return;
 
-        int offset = 4;
-        int len = headerOffset - offset - 1; // dont include magic bytes or HC
-        byte hash = (byte) ((checksum.hash(header, offset, len, 0) >> 8) & 0xFF);
-        if (hash != header[headerOffset - 1])
+        byte hash = (byte) ((hash(in, descriptorOffset, len) >> 8) & 0xFF);
+        if (hash != hc)
             throw new IOException(DESCRIPTOR_HASH_MISMATCH);
     }
 
     /**
-     * Decompresses (if necessary) buffered data, optionally computes and validates a XXHash32 checksum, and writes the
-     * result to a buffer.
+     * Decompresses (if necessary) the next block, optionally computes and validates a XXHash32 checksum, and makes
+     * the result available for reading.
      *
      * @throws IOException
      */
     private void readBlock() throws IOException {
-        int blockSize = ByteUtils.readUnsignedIntLE(in);
-
-        // Check for EndMark
-        if (blockSize == 0) {
-            finished = true;
-            if (flg.isContentChecksumSet())
-                ByteUtils.readUnsignedIntLE(in); // TODO: verify this content checksum
-            return;
-        } else if (blockSize > maxBlockSize) {
-            throw new IOException(String.format("Block size %s exceeded max: %s", blockSize, maxBlockSize));
-        }
+        try {
+            int blockSize = in.getInt();
+
+            // Check for EndMark
+            if (blockSize == 0) {
+                finished = true;
+                if (flg.isContentChecksumSet())
+                    in.getInt(); // TODO: verify this content checksum
+                return;
+            }
 
-        boolean compressed = (blockSize & LZ4_FRAME_INCOMPRESSIBLE_MASK) == 0;
-        byte[] bufferToRead;
-        if (compressed) {
-            bufferToRead = compressedBuffer;
-        } else {
+            boolean compressed = (blockSize & LZ4_FRAME_INCOMPRESSIBLE_MASK) == 0;
             blockSize &= ~LZ4_FRAME_INCOMPRESSIBLE_MASK;
-            bufferToRead = buffer;
-            bufferSize = blockSize;
-        }
-
-        if (in.read(bufferToRead, 0, blockSize) != blockSize) {
-            throw new IOException(PREMATURE_EOS);
-        }
+            if (blockSize > maxBlockSize)
+                throw new IOException(String.format("Block size %s exceeded max: %s", blockSize, maxBlockSize));
+            if (in.remaining() < blockSize)
+                throw new IOException(PREMATURE_EOS);
 
-        // verify checksum
-        if (flg.isBlockChecksumSet() && ByteUtils.readUnsignedIntLE(in) != checksum.hash(bufferToRead, 0, blockSize, 0)) {
-            throw new IOException(BLOCK_HASH_MISMATCH);
-        }
+            // verify checksum
+            int blockOffset = in.position();
+            if (flg.isBlockChecksumSet()) {
+                int hash = in.getInt(blockOffset + blockSize);
+                if (hash != hash(in, blockOffset, blockSize))
+                    throw new IOException(BLOCK_HASH_MISMATCH);
+            }
 
-        if (compressed) {
-            try {
-                bufferSize = decompressor.decompress(compressedBuffer, 0, blockSize, buffer, 0, maxBlockSize);
-            } catch (LZ4Exception e) {
-                throw new IOException(e);
+            if (compressed) {
+                try {
+                    int bufferSize = decompress(in, blockOffset, blockSize, decompressionBuffer, maxBlockSize);
+                    decompressionBuffer.position(0);
+                    decompressionBuffer.limit(bufferSize);
+                    decompressedBuffer = decompressionBuffer;
+                } catch (LZ4Exception e) {
+                    throw new IOException(e);
+                }
+            } else {
+                decompressedBuffer = in.slice();
+                decompressedBuffer.limit(blockSize);
             }
+
+            in.position(blockOffset + blockSize + (flg.isBlockChecksumSet() ? 4 : 0));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException(PREMATURE_EOS, e);
         }
+    }
 
-        bufferOffset = 0;
+    // lz4-java ignores the array offset of heap buffers passed to its ByteBuffer methods, so their arrays are used
+    // directly, which also avoids going through the ByteBuffer abstraction
+
+    private static int hash(ByteBuffer buffer, int offset, int length) {
+        if (buffer.hasArray())
+            return CHECKSUM.hash(buffer.array(), buffer.arrayOffset() + offset, length, 0);
+        return CHECKSUM.hash(buffer, offset, length, 0);
+    }
+
+    private static int decompress(ByteBuffer src, int srcOffset, int srcLength, ByteBuffer dest, int maxDestLength) {
+        if (src.hasArray() && dest.hasArray())
+            return DECOMPRESSOR.decompress(src.array(), src.arrayOffset() + srcOffset, srcLength, dest.array(),
+                    dest.arrayOffset(), maxDestLength);
+        return DECOMPRESSOR.decompress(src, srcOffset, srcLength, dest, 0, maxDestLength);
     }
 
     @Override
@@ -199,7 +232,7 @@ public final class KafkaLZ4BlockInputStream extends FilterInputStream {
             return -1;
         }
 
-        return buffer[bufferOffset++] & 0xFF;
+        return decompressedBuffer.get() & 0xFF;
     }
 
     @Override
@@ -215,8 +248,7 @@ public final class KafkaLZ4BlockInputStream extends FilterInputStream {
             return -1;
         }
         len = Math.min(len, available());
-        System.arraycopy(buffer, bufferOffset, b, off, len);
-        bufferOffset += len;
+        decompressedBuffer.get(b, off, len);
         return len;
     }
 
@@ -231,19 +263,22 @@ public final class KafkaLZ4BlockInputStream extends FilterInputStream {
         if (finished) {
             return 0;
         }
-        n = Math.min(n, available());
-        bufferOffset += n;
-        return n;
+        int skipped = (int) Math.min(n, available());
+        decompressedBuffer.position(decompressedBuffer.position() + skipped);
+        return skipped;
     }
 
     @Override
     public int available() throws IOException {
-        return bufferSize - bufferOffset;
+        return decompressedBuffer == null ? 0 : decompressedBuffer.remaining();
     }
 
     @Override
     public void close() throws IOException {
-        in.close();
+        if (!closed) {
+            closed = true;
+            bufferSupplier.release(decompressionBuffer);
+        }
     }
 
     @Override
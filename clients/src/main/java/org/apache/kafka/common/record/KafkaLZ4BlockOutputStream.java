@@ -19,7 +19,9 @@ package org.apache.kafka.common.record;
 import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
+import org.apache.kafka.common.utils.ByteBufferOutputStream;
 import org.apache.kafka.common.utils.ByteUtils;
 
 import net.jpountz.lz4.LZ4Compressor;
@@ -51,7 +53,9 @@ public final class KafkaLZ4BlockOutputStream extends FilterOutputStream {
     private final FLG flg;
     private final BD bd;
     private final byte[] buffer;
-    private final byte[] compressedBuffer;
+    private final ByteBuffer uncompressedBuffer;
+    // only used when the underlying stream is not a ByteBufferOutputStream, which blocks are compressed into directly
+    private byte[] compressedBuffer;
     private final int maxBlockSize;
     private int bufferOffset;
     private boolean finished;
@@ -78,7 +82,7 @@ public final class KafkaLZ4BlockOutputStream extends FilterOutputStream {
         bufferOffset = 0;
         maxBlockSize = bd.getBlockMaximumSize();
         buffer = new byte[maxBlockSize];
-        compressedBuffer = new byte[compressor.maxCompressedLength(maxBlockSize)];
+        uncompressedBuffer = ByteBuffer.wrap(buffer);
         finished = false;
         writeHeader();
     }
@@ -170,6 +174,15 @@ public final class KafkaLZ4BlockOutputStream extends FilterOutputStream {
             return;
         }
 
+        if (out instanceof ByteBufferOutputStream) {
+            writeBlock((ByteBufferOutputStream) out);
+            bufferOffset = 0;
+            return;
+        }
+
+        if (compressedBuffer == null)
+            compressedBuffer = new byte[compressor.maxCompressedLength(maxBlockSize)];
+
         int compressedLength = compressor.compress(buffer, 0, bufferOffset, compressedBuffer, 0);
         byte[] bufferToWrite = compressedBuffer;
         int compressMethod = 0;
@@ -193,6 +206,49 @@ public final class KafkaLZ4BlockOutputStream extends FilterOutputStream {
         bufferOffset = 0;
     }
 
+    /**
+     * Compresses buffered data directly into the buffer of the output stream, rather than compressing it into a
+     * separate array first and copying it.
+     */
+    private void writeBlock(ByteBufferOutputStream out) {
+        int maxCompressedLength = compressor.maxCompressedLength(bufferOffset);
+        // the block is preceded by its size and followed by its optional checksum
+        out.ensureRemaining(4 + maxCompressedLength + 4);
+        ByteBuffer dest = out.buffer();
+        int sizeOffset = dest.position();
+        int blockOffset = sizeOffset + 4;
+
+        // lz4-java ignores the array offset of heap buffers passed to its ByteBuffer methods, so use the array directly
+        int compressedLength;
+        if (dest.hasArray())
+            compressedLength = compressor.compress(buffer, 0, bufferOffset, dest.array(), dest.arrayOffset() + blockOffset,
+                    maxCompressedLength);
+        else
+            compressedLength = compressor.compress(uncompressedBuffer, 0, bufferOffset, dest, blockOffset, maxCompressedLength);
+        int compressMethod = 0;
+
+        // Store block uncompressed if compressed length is greater (incompressible)
+        if (compressedLength >= bufferOffset) {
+            ByteBuffer block = dest.duplicate();
+            block.position(blockOffset);
+            block.put(buffer, 0, bufferOffset);
+            compressedLength = bufferOffset;
+            compressMethod = LZ4_FRAME_INCOMPRESSIBLE_MASK;
+        }
+
+        ByteUtils.writeUnsignedIntLE(dest, sizeOffset, compressedLength | compressMethod);
+        int end = blockOffset + compressedLength;
+
+        // Calculate and write block checksum
+        if (flg.isBlockChecksumSet()) {
+            int hash = dest.hasArray() ? checksum.hash(dest.array(), dest.arrayOffset() + blockOffset, compressedLength, 0) :
+                    checksum.hash(dest, blockOffset, compressedLength, 0);
+            ByteUtils.writeUnsignedIntLE(dest, end, hash);
+            end += 4;
+        }
+        dest.position(end);
+    }
+
     /**
      * Similar to the {@link #writeBlock()} method. Writes a 0-length block (without block checksum) to signal the end
      * of the block stream.
@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.common.record;
+
+import org.apache.kafka.common.utils.AbstractIterator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A {@link Records} implementation which down-converts the batches of the underlying records one chunk at a time
+ * while they are written to the channel, rather than converting all of them up front. This bounds the memory used
+ * for the conversion to a single chunk, no matter how large the fetch is.
+ *
+ * Since the size of the converted records must be known before the first byte is written, the size is fixed at the
+ * size of the underlying records (or of the first converted batch, if that is larger, so that the consumer is always
+ * able to make progress). Converted batches which no longer fit are dropped, and the remaining space is filled with
+ * an overflow message: a message header whose size exceeds the remaining bytes. Old consumers treat it the same way
+ * as any other partial message at the end of a fetch response, and fetch the dropped batches with the next request.
+ *
+ * The records can only be written once, and must be written sequentially, which is what {@link
+ * org.apache.kafka.common.requests.RecordsSend} does. Iterating the batches converts them again without any limit
+ * on their size.
+ */
+public class LazyDownConversionRecords extends AbstractRecords {
+
+    // the number of bytes of the underlying records which are converted at a time
+    static final int DEFAULT_CHUNK_SIZE = 16 * 1024;
+
+    private static final ByteBuffer ZEROS = ByteBuffer.allocate(4096);
+
+    private final Records records;
+    private final byte toMagic;
+    private final int chunkSize;
+
+    private final Iterable<RecordBatch> batches = new Iterable<RecordBatch>() {
+        @Override
+        public Iterator<RecordBatch> iterator() {
+            return batchIterator();
+        }
+    };
+
+    private int sizeInBytes = -1;
+    private Iterator<MemoryRecords> chunks;
+    private ByteBuffer pending;
+    private boolean overflow = false;
+    private boolean overflowHeaderWritten = false;
+    private int written = 0;
+
+    public LazyDownConversionRecords(Records records, byte toMagic) {
+        this(records, toMagic, DEFAULT_CHUNK_SIZE);
+    }
+
+    LazyDownConversionRecords(Records records, byte toMagic, int chunkSize) {
+        this.records = records;
+        this.toMagic = toMagic;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public int sizeInBytes() {
+        if (sizeInBytes < 0) {
+            // convert the first chunk to make sure that its first batch fits, the chunk is kept for the write
+            chunks = new ChunkIterator();
+            if (chunks.hasNext()) {
+                MemoryRecords firstChunk = chunks.next();
+                int firstBatchSize = firstChunk.batches().iterator().next().sizeInBytes();
+                pending = firstChunk.buffer();
+                sizeInBytes = Math.max(records.sizeInBytes(), firstBatchSize);
+            } else {
+                sizeInBytes = 0;
+            }
+        }
+        return sizeInBytes;
+    }
+
+    @Override
+    public long writeTo(GatheringByteChannel channel, long position, int length) throws IOException {
+        int size = sizeInBytes();
+        if (position != written)
+            throw new IllegalArgumentException("Down-converted records must be written sequentially, expected position " +
+                    written + " but got " + position);
+
+        int limit = (int) Math.min(size, position + length);
+        int start = written;
+        while (written < limit) {
+            if (pending == null || !pending.hasRemaining())
+                pending = nextBuffer(size - written);
+
+            int toWrite = Math.min(pending.remaining(), limit - written);
+            ByteBuffer slice = pending.duplicate();
+            slice.limit(slice.position() + toWrite);
+            int bytesWritten = channel.write(slice);
+            pending.position(pending.position() + bytesWritten);
+            written += bytesWritten;
+            if (bytesWritten < toWrite)
+                break;
+        }
+        return written - start;
+    }
+
+    /**
+     * Get the next bytes to write: the next converted chunk if it fits in the remaining space, otherwise the batches
+     * of it which do, followed by the overflow message.
+     */
+    private ByteBuffer nextBuffer(int remaining) {
+        if (!overflow && chunks.hasNext()) {
+            ByteBuffer buffer = chunks.next().buffer();
+            if (buffer.remaining() <= remaining)
+                return buffer;
+
+            overflow = true;
+            buffer.limit(buffer.position() + sizeOfWholeBatches(buffer, remaining));
+            if (buffer.hasRemaining())
+                return buffer;
+        }
+
+        overflow = true;
+        if (!overflowHeaderWritten && remaining >= Records.LOG_OVERHEAD) {
+            overflowHeaderWritten = true;
+            ByteBuffer header = ByteBuffer.allocate(Records.LOG_OVERHEAD);
+            header.putLong(-1L);
+            header.putInt(Math.max(remaining - Records.LOG_OVERHEAD + 1, LegacyRecord.RECORD_OVERHEAD_V0));
+            header.flip();
+            return header;
+        }
+
+        ByteBuffer zeros = ZEROS.duplicate();
+        zeros.limit(Math.min(remaining, zeros.capacity()));
+        return zeros;
+    }
+
+    private static int sizeOfWholeBatches(ByteBuffer buffer, int maxSize) {
+        int size = 0;
+        for (RecordBatch batch : MemoryRecords.readableRecords(buffer.duplicate()).batches()) {
+            if (size + batch.sizeInBytes() > maxSize)
+                break;
+            size += batch.sizeInBytes();
+        }
+        return size;
+    }
+
+    @Override
+    public Iterable<RecordBatch> batches() {
+        return batches;
+    }
+
+    private Iterator<RecordBatch> batchIterator() {
+        return new AbstractIterator<RecordBatch>() {
+            private final Iterator<MemoryRecords> chunks = new ChunkIterator();
+            private Iterator<MutableRecordBatch> batches;
+
+            @Override
+            protected RecordBatch makeNext() {
+                if (batches != null && batches.hasNext())
+                    return batches.next();
+
+                if (chunks.hasNext()) {
+                    batches = chunks.next().batches().iterator();
+                    return makeNext();
+                }
+
+                return allDone();
+            }
+        };
+    }
+
+    @Override
+    public Records downConvert(byte toMagic) {
+        return new LazyDownConversionRecords(records, (byte) Math.min(this.toMagic, toMagic), chunkSize);
+    }
+
+    @Override
+    public String toString() {
+        return "LazyDownConversionRecords(records=" + records + ", toMagic=" + toMagic + ")";
+    }
+
+    /**
+     * Converts the underlying batches in chunks of roughly {@link #chunkSize} bytes, skipping chunks which are empty
+     * once converted (e.g. those containing only control batches).
+     */
+    private class ChunkIterator extends AbstractIterator<MemoryRecords> {
+        private final Iterator<? extends RecordBatch> batchIterator = records.batches().iterator();
+
+        @Override
+        protected MemoryRecords makeNext() {
+            while (batchIterator.hasNext()) {
+                List<RecordBatch> chunk = new ArrayList<>();
+                int chunkBytes = 0;
+                while (chunkBytes < chunkSize && batchIterator.hasNext()) {
+                    RecordBatch batch = batchIterator.next();
+                    chunk.add(batch);
+                    chunkBytes += batch.sizeInBytes();
+                }
+                MemoryRecords converted = downConvert(chunk, toMagic);
+                if (converted.sizeInBytes() > 0)
+                    return converted;
+            }
+            return allDone();
+        }
+    }
+
+}
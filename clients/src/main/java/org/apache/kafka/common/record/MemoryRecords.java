@@ -16,6 +16,8 @@
  */
 package org.apache.kafka.common.record;
 
+import org.apache.kafka.common.utils.CloseableIterator;
+
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.GatheringByteChannel;
@@ -115,11 +117,23 @@ public class MemoryRecords extends AbstractRecords {
      * @return A FilterResult with a summary of the output (for metrics)
      */
     public FilterResult filterTo(RecordFilter filter, ByteBuffer destinationBuffer) {
-        return filterTo(batches(), filter, destinationBuffer);
+        return filterTo(batches(), filter, destinationBuffer, BufferSupplier.NO_CACHING);
+    }
+
+    /**
+     * Filter the records into the provided ByteBuffer.
+     * @param filter The filter function
+     * @param destinationBuffer The byte buffer to write the filtered records to
+     * @param decompressionBufferSupplier The supplier of the buffers used to decompress the batches
+     * @return A FilterResult with a summary of the output (for metrics)
+     */
+    public FilterResult filterTo(RecordFilter filter, ByteBuffer destinationBuffer,
+                                 BufferSupplier decompressionBufferSupplier) {
+        return filterTo(batches(), filter, destinationBuffer, decompressionBufferSupplier);
     }
 
     private static FilterResult filterTo(Iterable<MutableRecordBatch> batches, RecordFilter filter,
-                                         ByteBuffer destinationBuffer) {
+                                         ByteBuffer destinationBuffer, BufferSupplier decompressionBufferSupplier) {
         long maxTimestamp = RecordBatch.NO_TIMESTAMP;
         long maxOffset = -1L;
         long shallowOffsetOfMaxTimestamp = -1L;
@@ -128,6 +142,12 @@ public class MemoryRecords extends AbstractRecords {
         int messagesRetained = 0;
         int bytesRetained = 0;
 
+        // batches of magic v2 and above are scanned through a flyweight record rather than allocating every record,
+        // the retained records are only visited again if the batch has to be rewritten
+        DefaultRecordBatchColumns columns = new DefaultRecordBatchColumns(decompressionBufferSupplier);
+        List<Record> legacyRecords = new ArrayList<>();
+        boolean[] retained = new boolean[0];
+
         for (MutableRecordBatch batch : batches) {
             bytesRead += batch.sizeInBytes();
 
@@ -142,15 +162,33 @@ public class MemoryRecords extends AbstractRecords {
             byte batchMagic = batch.magic();
             boolean writeOriginalEntry = true;
             long firstOffset = -1;
-            List<Record> retainedRecords = new ArrayList<>();
+            int numRetained = 0;
+
+            boolean useColumns = batch instanceof DefaultRecordBatch;
+            int numRecords;
+            if (useColumns) {
+                columns.decode((DefaultRecordBatch) batch);
+                numRecords = columns.numRecords();
+            } else {
+                legacyRecords.clear();
+                try (CloseableIterator<Record> iterator = batch.streamingIterator(decompressionBufferSupplier)) {
+                    while (iterator.hasNext())
+                        legacyRecords.add(iterator.next());
+                }
+                numRecords = legacyRecords.size();
+            }
+            if (retained.length < numRecords)
+                retained = new boolean[Math.max(numRecords, retained.length * 2)];
 
-            for (Record record : batch) {
+            for (int i = 0; i < numRecords; i++) {
+                Record record = useColumns ? columns.record(i) : legacyRecords.get(i);
                 if (firstOffset < 0)
                     firstOffset = record.offset();
 
                 messagesRead += 1;
 
-                if (filter.shouldRetain(batch, record)) {
+                retained[i] = filter.shouldRetain(batch, record);
+                if (retained[i]) {
                     // Check for log corruption due to KAFKA-4298. If we find it, make sure that we overwrite
                     // the corrupted batch with correct data.
                     if (!record.hasMagic(batchMagic))
@@ -159,7 +197,7 @@ public class MemoryRecords extends AbstractRecords {
                     if (record.offset() > maxOffset)
                         maxOffset = record.offset();
 
-                    retainedRecords.add(record);
+                    numRetained++;
                 } else {
                     writeOriginalEntry = false;
                 }
@@ -168,13 +206,13 @@ public class MemoryRecords extends AbstractRecords {
             if (writeOriginalEntry) {
                 // There are no messages compacted out and no message format conversion, write the original message set back
                 batch.writeTo(destinationBuffer);
-                messagesRetained += retainedRecords.size();
+                messagesRetained += numRetained;
                 bytesRetained += batch.sizeInBytes();
                 if (batch.maxTimestamp() > maxTimestamp) {
                     maxTimestamp = batch.maxTimestamp();
                     shallowOffsetOfMaxTimestamp = batch.lastOffset();
                 }
-            } else if (!retainedRecords.isEmpty()) {
+            } else if (numRetained > 0) {
                 ByteBuffer slice = destinationBuffer.slice();
                 TimestampType timestampType = batch.timestampType();
                 long logAppendTime = timestampType == TimestampType.LOG_APPEND_TIME ? batch.maxTimestamp() : RecordBatch.NO_TIMESTAMP;
@@ -182,8 +220,10 @@ public class MemoryRecords extends AbstractRecords {
                         firstOffset, logAppendTime, batch.producerId(), batch.producerEpoch(), batch.baseSequence(),
                         batch.isTransactional(), batch.partitionLeaderEpoch());
 
-                for (Record record : retainedRecords)
-                    builder.append(record);
+                for (int i = 0; i < numRecords; i++) {
+                    if (retained[i])
+                        builder.append(useColumns ? columns.record(i) : legacyRecords.get(i));
+                }
 
                 if (batch.magic() >= RecordBatch.MAGIC_VALUE_V2)
                     // we must preserve the last offset from the initial batch in order to ensure that the
@@ -193,7 +233,7 @@ public class MemoryRecords extends AbstractRecords {
 
                 MemoryRecords records = builder.build();
                 destinationBuffer.position(destinationBuffer.position() + slice.position());
-                messagesRetained += retainedRecords.size();
+                messagesRetained += numRetained;
                 bytesRetained += records.sizeInBytes();
 
                 MemoryRecordsBuilder.RecordsInfo info = builder.info();
@@ -109,15 +109,21 @@ public abstract class AbstractRequest extends AbstractRequestResponse {
      */
     public static RequestAndSize getRequest(int requestId, short version, ByteBuffer buffer) {
         ApiKeys apiKey = ApiKeys.forId(requestId);
-        Struct struct = apiKey.parseRequest(version, buffer);
-        AbstractRequest request;
+
+        // these requests are parsed directly from the buffer rather than through a struct
+        int position = buffer.position();
         switch (apiKey) {
             case PRODUCE:
-                request = new ProduceRequest(struct, version);
-                break;
+                return new RequestAndSize(ProduceRequest.parse(buffer, version), buffer.position() - position);
             case FETCH:
-                request = new FetchRequest(struct, version);
+                return new RequestAndSize(FetchRequest.parse(buffer, version), buffer.position() - position);
+            default:
                 break;
+        }
+
+        Struct struct = apiKey.parseRequest(version, buffer);
+        AbstractRequest request;
+        switch (apiKey) {
             case LIST_OFFSETS:
                 request = new ListOffsetRequest(struct, version);
                 break;
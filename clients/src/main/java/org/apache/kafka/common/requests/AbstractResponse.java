@@ -48,6 +48,19 @@ public abstract class AbstractResponse extends AbstractRequestResponse {
 
     protected abstract Struct toStruct(short version);
 
+    /**
+     * Parse a response of the given version from the buffer. Responses which can be parsed directly skip the
+     * intermediate struct.
+     */
+    public static AbstractResponse parseResponse(ApiKeys apiKey, ByteBuffer buffer, short version) {
+        switch (apiKey) {
+            case METADATA:
+                return MetadataResponse.parse(buffer, version);
+            default:
+                return getResponse(apiKey, apiKey.parseResponse(version, buffer));
+        }
+    }
+
     public static AbstractResponse getResponse(ApiKeys apiKey, Struct struct) {
         switch (apiKey) {
             case PRODUCE:
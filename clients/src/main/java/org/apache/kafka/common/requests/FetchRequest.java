@@ -19,9 +19,12 @@ package org.apache.kafka.common.requests;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.protocol.ApiKeys;
 import org.apache.kafka.common.protocol.Errors;
+import org.apache.kafka.common.protocol.types.RawTypes;
+import org.apache.kafka.common.protocol.types.SchemaException;
 import org.apache.kafka.common.protocol.types.Struct;
 import org.apache.kafka.common.record.MemoryRecords;
 
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
@@ -251,12 +254,114 @@ public class FetchRequest extends AbstractRequest {
         return isolationLevel;
     }
 
+    /**
+     * Parse the request directly from the buffer, which is equivalent to parsing it into a {@link Struct} and
+     * creating the request from that.
+     */
     public static FetchRequest parse(ByteBuffer buffer, short version) {
-        return new FetchRequest(ApiKeys.FETCH.parseRequest(version, buffer), version);
+        // fail on unknown versions in the same way as the schema lookup
+        ApiKeys.FETCH.requestSchema(version);
+        try {
+            int replicaId = buffer.getInt();
+            int maxWait = buffer.getInt();
+            int minBytes = buffer.getInt();
+            int maxBytes = version >= 3 ? buffer.getInt() : DEFAULT_RESPONSE_MAX_BYTES;
+            IsolationLevel isolationLevel = version >= 4 ? IsolationLevel.forId(buffer.get()) : IsolationLevel.READ_UNCOMMITTED;
+
+            LinkedHashMap<TopicPartition, PartitionData> fetchData = new LinkedHashMap<>();
+            int numTopics = RawTypes.readArraySize(buffer);
+            for (int i = 0; i < numTopics; i++) {
+                String topic = RawTypes.readString(buffer);
+                int numPartitions = RawTypes.readArraySize(buffer);
+                for (int j = 0; j < numPartitions; j++) {
+                    int partition = buffer.getInt();
+                    long offset = buffer.getLong();
+                    long logStartOffset = version >= 5 ? buffer.getLong() : INVALID_LOG_START_OFFSET;
+                    int partitionMaxBytes = buffer.getInt();
+                    fetchData.put(new TopicPartition(topic, partition), new PartitionData(offset, logStartOffset, partitionMaxBytes));
+                }
+            }
+            return new FetchRequest(version, replicaId, maxWait, minBytes, maxBytes, fetchData, isolationLevel);
+        } catch (BufferUnderflowException e) {
+            throw new SchemaException("Error reading fetch request: not enough bytes available");
+        }
+    }
+
+    /**
+     * Serialize the request without going through {@link #toStruct()}, the result is the same.
+     */
+    @Override
+    public ByteBuffer serialize(RequestHeader header) {
+        ByteBuffer buffer = ByteBuffer.allocate(header.sizeOf() + sizeOf());
+        header.writeTo(buffer);
+        writeTo(buffer);
+        buffer.rewind();
+        return buffer;
+    }
+
+    private int sizeOf() {
+        short version = version();
+        int size = 4 + 4 + 4 + (version >= 3 ? 4 : 0) + (version >= 4 ? 1 : 0) + 4;
+        int partitionSize = 4 + 8 + (version >= 5 ? 8 : 0) + 4;
+        String currentTopic = null;
+        for (TopicPartition topicPartition : fetchData.keySet()) {
+            // partitions are grouped by consecutive runs of the same topic, like in TopicAndPartitionData
+            if (!topicPartition.topic().equals(currentTopic)) {
+                currentTopic = topicPartition.topic();
+                size += RawTypes.sizeOf(currentTopic) + 4;
+            }
+            size += partitionSize;
+        }
+        return size;
+    }
+
+    private void writeTo(ByteBuffer buffer) {
+        short version = version();
+        buffer.putInt(replicaId);
+        buffer.putInt(maxWait);
+        buffer.putInt(minBytes);
+        if (version >= 3)
+            buffer.putInt(maxBytes);
+        if (version >= 4)
+            buffer.put(isolationLevel.id());
+
+        // the number of topics and of partitions per topic are filled in once they are known
+        int numTopicsPosition = buffer.position();
+        buffer.putInt(0);
+        int numTopics = 0;
+        int numPartitionsPosition = -1;
+        int numPartitions = 0;
+        String currentTopic = null;
+        for (Map.Entry<TopicPartition, PartitionData> entry : fetchData.entrySet()) {
+            TopicPartition topicPartition = entry.getKey();
+            if (!topicPartition.topic().equals(currentTopic)) {
+                if (numPartitionsPosition >= 0)
+                    buffer.putInt(numPartitionsPosition, numPartitions);
+                currentTopic = topicPartition.topic();
+                RawTypes.writeString(buffer, currentTopic);
+                numPartitionsPosition = buffer.position();
+                buffer.putInt(0);
+                numPartitions = 0;
+                numTopics++;
+            }
+            PartitionData partitionData = entry.getValue();
+            buffer.putInt(topicPartition.partition());
+            buffer.putLong(partitionData.fetchOffset);
+            if (version >= 5)
+                buffer.putLong(partitionData.logStartOffset);
+            buffer.putInt(partitionData.maxBytes);
+            numPartitions++;
+        }
+        if (numPartitionsPosition >= 0)
+            buffer.putInt(numPartitionsPosition, numPartitions);
+        buffer.putInt(numTopicsPosition, numTopics);
     }
 
+    /**
+     * Visible for testing.
+     */
     @Override
-    protected Struct toStruct() {
+    public Struct toStruct() {
         Struct struct = new Struct(ApiKeys.FETCH.requestSchema(version()));
         List<TopicAndPartitionData<PartitionData>> topicsData = TopicAndPartitionData.batchByTopic(fetchData);
 
@@ -22,8 +22,11 @@ import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.errors.InvalidMetadataException;
 import org.apache.kafka.common.protocol.ApiKeys;
 import org.apache.kafka.common.protocol.Errors;
+import org.apache.kafka.common.protocol.types.RawTypes;
+import org.apache.kafka.common.protocol.types.SchemaException;
 import org.apache.kafka.common.protocol.types.Struct;
 
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -296,8 +299,143 @@ public class MetadataResponse extends AbstractResponse {
         return this.clusterId;
     }
 
+    /**
+     * Parse the response directly from the buffer, which is equivalent to parsing it into a {@link Struct} and
+     * creating the response from that.
+     */
     public static MetadataResponse parse(ByteBuffer buffer, short version) {
-        return new MetadataResponse(ApiKeys.METADATA.parseResponse(version, buffer));
+        // fail on unknown versions in the same way as the schema lookup
+        ApiKeys.METADATA.responseSchema(version);
+        try {
+            int throttleTimeMs = version >= 3 ? buffer.getInt() : DEFAULT_THROTTLE_TIME;
+
+            Map<Integer, Node> brokers = new HashMap<>();
+            int numBrokers = RawTypes.readArraySize(buffer);
+            for (int i = 0; i < numBrokers; i++) {
+                int nodeId = buffer.getInt();
+                String host = RawTypes.readString(buffer);
+                int port = buffer.getInt();
+                String rack = version >= 1 ? RawTypes.readNullableString(buffer) : null;
+                brokers.put(nodeId, new Node(nodeId, host, port, rack));
+            }
+
+            String clusterId = version >= 2 ? RawTypes.readNullableString(buffer) : null;
+            int controllerId = version >= 1 ? buffer.getInt() : NO_CONTROLLER_ID;
+
+            int numTopics = RawTypes.readArraySize(buffer);
+            List<TopicMetadata> topicMetadata = new ArrayList<>(numTopics);
+            for (int i = 0; i < numTopics; i++) {
+                Errors topicError = Errors.forCode(buffer.getShort());
+                String topic = RawTypes.readString(buffer);
+                boolean isInternal = version >= 1 && buffer.get() != 0;
+
+                int numPartitions = RawTypes.readArraySize(buffer);
+                List<PartitionMetadata> partitionMetadata = new ArrayList<>(numPartitions);
+                for (int j = 0; j < numPartitions; j++) {
+                    Errors partitionError = Errors.forCode(buffer.getShort());
+                    int partition = buffer.getInt();
+                    int leader = buffer.getInt();
+                    Node leaderNode = leader == -1 ? null : brokers.get(leader);
+                    List<Node> replicaNodes = readNodes(buffer, brokers);
+                    List<Node> isrNodes = readNodes(buffer, brokers);
+                    partitionMetadata.add(new PartitionMetadata(partitionError, partition, leaderNode, replicaNodes, isrNodes));
+                }
+
+                topicMetadata.add(new TopicMetadata(topicError, topic, isInternal, partitionMetadata));
+            }
+
+            return new MetadataResponse(throttleTimeMs, new ArrayList<>(brokers.values()), clusterId, controllerId, topicMetadata);
+        } catch (BufferUnderflowException e) {
+            throw new SchemaException("Error reading metadata response: not enough bytes available");
+        }
+    }
+
+    private static List<Node> readNodes(ByteBuffer buffer, Map<Integer, Node> brokers) {
+        int size = RawTypes.readArraySize(buffer);
+        List<Node> nodes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int nodeId = buffer.getInt();
+            Node node = brokers.get(nodeId);
+            nodes.add(node != null ? node : new Node(nodeId, "", -1));
+        }
+        return nodes;
+    }
+
+    /**
+     * Serialize the response without going through {@link #toStruct(short)}, the result is the same.
+     */
+    @Override
+    public ByteBuffer serialize(short version, ResponseHeader responseHeader) {
+        // fail on unknown versions in the same way as the schema lookup
+        ApiKeys.METADATA.responseSchema(version);
+        ByteBuffer buffer = ByteBuffer.allocate(responseHeader.sizeOf() + sizeOf(version));
+        responseHeader.writeTo(buffer);
+        writeTo(buffer, version);
+        buffer.rewind();
+        return buffer;
+    }
+
+    private int sizeOf(short version) {
+        int size = version >= 3 ? 4 : 0;
+        size += 4;
+        for (Node node : brokers) {
+            size += 4 + RawTypes.sizeOf(node.host()) + 4;
+            if (version >= 1)
+                size += RawTypes.sizeOfNullable(node.rack());
+        }
+        if (version >= 2)
+            size += RawTypes.sizeOfNullable(clusterId);
+        if (version >= 1)
+            size += 4;
+
+        size += 4;
+        for (TopicMetadata metadata : topicMetadata) {
+            size += 2 + RawTypes.sizeOf(metadata.topic) + (version >= 1 ? 1 : 0) + 4;
+            for (PartitionMetadata partitionMetadata : metadata.partitionMetadata)
+                size += 2 + 4 + 4 + 4 + 4 * partitionMetadata.replicas.size() + 4 + 4 * partitionMetadata.isr.size();
+        }
+        return size;
+    }
+
+    private void writeTo(ByteBuffer buffer, short version) {
+        if (version >= 3)
+            buffer.putInt(throttleTimeMs);
+
+        buffer.putInt(brokers.size());
+        for (Node node : brokers) {
+            buffer.putInt(node.id());
+            RawTypes.writeString(buffer, node.host());
+            buffer.putInt(node.port());
+            if (version >= 1)
+                RawTypes.writeNullableString(buffer, node.rack());
+        }
+        if (version >= 2)
+            RawTypes.writeNullableString(buffer, clusterId);
+        if (version >= 1)
+            buffer.putInt(controller == null ? NO_CONTROLLER_ID : controller.id());
+
+        buffer.putInt(topicMetadata.size());
+        for (TopicMetadata metadata : topicMetadata) {
+            buffer.putShort(metadata.error.code());
+            RawTypes.writeString(buffer, metadata.topic);
+            if (version >= 1)
+                buffer.put((byte) (metadata.isInternal ? 1 : 0));
+
+            buffer.putInt(metadata.partitionMetadata.size());
+            for (PartitionMetadata partitionMetadata : metadata.partitionMetadata) {
+                buffer.putShort(partitionMetadata.error.code());
+                buffer.putInt(partitionMetadata.partition);
+                buffer.putInt(partitionMetadata.leader.id());
+                writeNodeIds(buffer, partitionMetadata.replicas);
+                writeNodeIds(buffer, partitionMetadata.isr);
+            }
+        }
+    }
+
+    private static void writeNodeIds(ByteBuffer buffer, List<Node> nodes) {
+        buffer.putInt(nodes.size());
+        for (Node node : nodes)
+            buffer.putInt(node.id());
     }
 
     public static class TopicMetadata {
@@ -375,8 +513,11 @@ public class MetadataResponse extends AbstractResponse {
 
     }
 
+    /**
+     * Visible for testing.
+     */
     @Override
-    protected Struct toStruct(short version) {
+    public Struct toStruct(short version) {
         Struct struct = new Struct(ApiKeys.METADATA.responseSchema(version));
         if (struct.hasField(THROTTLE_TIME_KEY_NAME))
             struct.set(THROTTLE_TIME_KEY_NAME, throttleTimeMs);
@@ -20,6 +20,8 @@ import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.errors.UnsupportedVersionException;
 import org.apache.kafka.common.protocol.ApiKeys;
 import org.apache.kafka.common.protocol.Errors;
+import org.apache.kafka.common.protocol.types.RawTypes;
+import org.apache.kafka.common.protocol.types.SchemaException;
 import org.apache.kafka.common.protocol.types.Struct;
 import org.apache.kafka.common.record.InvalidRecordException;
 import org.apache.kafka.common.record.MutableRecordBatch;
@@ -28,6 +30,7 @@ import org.apache.kafka.common.record.MemoryRecords;
 import org.apache.kafka.common.utils.CollectionUtils;
 import org.apache.kafka.common.utils.Utils;
 
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -207,6 +210,46 @@ public class ProduceRequest extends AbstractRequest {
         return struct;
     }
 
+    /**
+     * Serialize the request without going through {@link #toStruct()}, the result is the same.
+     */
+    @Override
+    public ByteBuffer serialize(RequestHeader header) {
+        Map<String, Map<Integer, MemoryRecords>> recordsByTopic = CollectionUtils.groupDataByTopic(partitionRecordsOrFail());
+        ByteBuffer buffer = ByteBuffer.allocate(header.sizeOf() + sizeOf(recordsByTopic));
+        header.writeTo(buffer);
+        writeTo(buffer, recordsByTopic);
+        buffer.rewind();
+        return buffer;
+    }
+
+    private int sizeOf(Map<String, Map<Integer, MemoryRecords>> recordsByTopic) {
+        int size = version() >= 3 ? RawTypes.sizeOfNullable(transactionalId) : 0;
+        size += 2 + 4 + 4;
+        for (Map.Entry<String, Map<Integer, MemoryRecords>> topicEntry : recordsByTopic.entrySet()) {
+            size += RawTypes.sizeOf(topicEntry.getKey()) + 4;
+            for (MemoryRecords records : topicEntry.getValue().values())
+                size += 4 + RawTypes.sizeOf(records);
+        }
+        return size;
+    }
+
+    private void writeTo(ByteBuffer buffer, Map<String, Map<Integer, MemoryRecords>> recordsByTopic) {
+        if (version() >= 3)
+            RawTypes.writeNullableString(buffer, transactionalId);
+        buffer.putShort(acks);
+        buffer.putInt(timeout);
+        buffer.putInt(recordsByTopic.size());
+        for (Map.Entry<String, Map<Integer, MemoryRecords>> topicEntry : recordsByTopic.entrySet()) {
+            RawTypes.writeString(buffer, topicEntry.getKey());
+            buffer.putInt(topicEntry.getValue().size());
+            for (Map.Entry<Integer, MemoryRecords> partitionEntry : topicEntry.getValue().entrySet()) {
+                buffer.putInt(partitionEntry.getKey());
+                RawTypes.writeRecords(buffer, partitionEntry.getValue());
+            }
+        }
+    }
+
     @Override
     public String toString(boolean verbose) {
         // Use the same format as `Struct.toString()`
@@ -280,8 +323,32 @@ public class ProduceRequest extends AbstractRequest {
         partitionRecords = null;
     }
 
+    /**
+     * Parse the request directly from the buffer, which is equivalent to parsing it into a {@link Struct} and
+     * creating the request from that.
+     */
     public static ProduceRequest parse(ByteBuffer buffer, short version) {
-        return new ProduceRequest(ApiKeys.PRODUCE.parseRequest(version, buffer), version);
+        // fail on unknown versions in the same way as the schema lookup
+        ApiKeys.PRODUCE.requestSchema(version);
+        try {
+            String transactionalId = version >= 3 ? RawTypes.readNullableString(buffer) : null;
+            short acks = buffer.getShort();
+            int timeout = buffer.getInt();
+            Map<TopicPartition, MemoryRecords> partitionRecords = new HashMap<>();
+            int numTopics = RawTypes.readArraySize(buffer);
+            for (int i = 0; i < numTopics; i++) {
+                String topic = RawTypes.readString(buffer);
+                int numPartitions = RawTypes.readArraySize(buffer);
+                for (int j = 0; j < numPartitions; j++) {
+                    int partition = buffer.getInt();
+                    MemoryRecords records = (MemoryRecords) RawTypes.readRecords(buffer);
+                    partitionRecords.put(new TopicPartition(topic, partition), records);
+                }
+            }
+            return new ProduceRequest(version, acks, timeout, partitionRecords, transactionalId);
+        } catch (BufferUnderflowException e) {
+            throw new SchemaException("Error reading produce request: not enough bytes available");
+        }
     }
 
     public static byte requiredMagicForVersion(short produceRequestVersion) {
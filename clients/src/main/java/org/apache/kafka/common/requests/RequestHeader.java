@@ -18,10 +18,13 @@ package org.apache.kafka.common.requests;
 
 import static org.apache.kafka.common.protocol.Protocol.REQUEST_HEADER;
 
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 
 import org.apache.kafka.common.protocol.Protocol;
 import org.apache.kafka.common.protocol.types.Field;
+import org.apache.kafka.common.protocol.types.RawTypes;
+import org.apache.kafka.common.protocol.types.SchemaException;
 import org.apache.kafka.common.protocol.types.Struct;
 
 /**
@@ -62,6 +65,28 @@ public class RequestHeader extends AbstractRequestResponse {
         return struct;
     }
 
+    /**
+     * The size of the header when written with {@link #writeTo(ByteBuffer)}.
+     */
+    public int sizeOf() {
+        return 2 + 2 + 4 + RawTypes.sizeOf(clientIdOrDefault());
+    }
+
+    /**
+     * Write the header to the buffer directly, which is equivalent to writing {@link #toStruct()}.
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putShort(apiKey);
+        buffer.putShort(apiVersion);
+        buffer.putInt(correlationId);
+        RawTypes.writeString(buffer, clientIdOrDefault());
+    }
+
+    private String clientIdOrDefault() {
+        // a missing client id is written as the default value of the field
+        return clientId == null ? "" : clientId;
+    }
+
     public short apiKey() {
         return apiKey;
     }
@@ -83,7 +108,16 @@ public class RequestHeader extends AbstractRequestResponse {
     }
 
     public static RequestHeader parse(ByteBuffer buffer) {
-        return new RequestHeader(Protocol.REQUEST_HEADER.read(buffer));
+        try {
+            short apiKey = buffer.getShort();
+            short apiVersion = buffer.getShort();
+            int correlationId = buffer.getInt();
+            String clientId = RawTypes.readNullableString(buffer);
+            // a null client id is read as the default value of the field
+            return new RequestHeader(apiKey, apiVersion, clientId == null ? "" : clientId, correlationId);
+        } catch (BufferUnderflowException e) {
+            throw new SchemaException("Error reading request header: not enough bytes available");
+        }
     }
 
     @Override
@@ -18,10 +18,12 @@ package org.apache.kafka.common.requests;
 
 import static org.apache.kafka.common.protocol.Protocol.RESPONSE_HEADER;
 
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 
 import org.apache.kafka.common.protocol.Protocol;
 import org.apache.kafka.common.protocol.types.Field;
+import org.apache.kafka.common.protocol.types.SchemaException;
 import org.apache.kafka.common.protocol.types.Struct;
 
 
@@ -43,7 +45,14 @@ public class ResponseHeader extends AbstractRequestResponse {
     }
 
     public int sizeOf() {
-        return toStruct().sizeOf();
+        return 4;
+    }
+
+    /**
+     * Write the header to the buffer directly, which is equivalent to writing {@link #toStruct()}.
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putInt(correlationId);
     }
 
     public Struct toStruct() {
@@ -57,7 +66,11 @@ public class ResponseHeader extends AbstractRequestResponse {
     }
 
     public static ResponseHeader parse(ByteBuffer buffer) {
-        return new ResponseHeader(Protocol.RESPONSE_HEADER.read(buffer));
+        try {
+            return new ResponseHeader(buffer.getInt());
+        } catch (BufferUnderflowException e) {
+            throw new SchemaException("Error reading response header: not enough bytes available");
+        }
     }
 
 }
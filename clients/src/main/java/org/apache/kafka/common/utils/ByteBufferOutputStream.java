@@ -48,6 +48,15 @@ public class ByteBufferOutputStream extends OutputStream {
         return buffer;
     }
 
+    /**
+     * Ensure there is enough space to write some number of bytes, expanding the underlying buffer if necessary.
+     * This allows writing directly to the buffer returned by {@link #buffer()} afterwards.
+     */
+    public void ensureRemaining(int remainingBytesRequired) {
+        if (buffer.remaining() < remainingBytesRequired)
+            expandBuffer(buffer.capacity() + remainingBytesRequired);
+    }
+
     private void expandBuffer(int size) {
         int expandSize = Math.max((int) (buffer.capacity() * REALLOCATION_FACTOR), size);
         ByteBuffer temp = ByteBuffer.allocate(expandSize);
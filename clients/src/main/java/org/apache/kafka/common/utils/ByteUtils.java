@@ -128,6 +128,21 @@ public final class ByteUtils {
         buffer[offset + 3]   = (byte) (value >>> 24);
     }
 
+    /**
+     * Write an unsigned integer in little-endian format to a byte buffer at a given index, regardless of the byte
+     * order of the buffer. The position of the buffer is not changed.
+     *
+     * @param buffer The buffer to write to
+     * @param index The index in the buffer to write to
+     * @param value The value to write
+     */
+    public static void writeUnsignedIntLE(ByteBuffer buffer, int index, int value) {
+        buffer.put(index, (byte) value);
+        buffer.put(index + 1, (byte) (value >>> 8));
+        buffer.put(index + 2, (byte) (value >>> 16));
+        buffer.put(index + 3, (byte) (value >>> 24));
+    }
+
     /**
      * Read an integer stored in variable-length format using zig-zag decoding from
      * <a href="http://code.google.com/apis/protocolbuffers/docs/encoding.html"> Google Protocol Buffers</a>.
@@ -17,6 +17,7 @@
 package org.apache.kafka.clients;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
@@ -29,6 +30,7 @@ import org.apache.kafka.common.internals.ClusterResourceListeners;
 import org.apache.kafka.common.Node;
 import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.utils.Utils;
 import org.apache.kafka.test.MockClusterResourceListener;
 import org.apache.kafka.test.TestUtils;
 import org.junit.After;
@@ -38,6 +40,7 @@ import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -409,6 +412,101 @@ public class MetadataTest {
         assertTrue("Unused topic expired when expiry disabled", metadata.containsTopic("topic4"));
     }
 
+    @Test
+    public void testTopicSubsetUpdate() {
+        metadata = new Metadata(refreshBackoffMs, metadataExpireMs, true, true, new ClusterResourceListeners());
+        Node node = new Node(0, "host1", 1000);
+
+        // the first update is a full refresh
+        long time = 0;
+        metadata.add("topic1");
+        assertFalse(metadata.topicSubsetUpdateDue(time));
+        metadata.update(cluster(node, "topic1", 2), Collections.<String>emptySet(), time);
+        Cluster previous = metadata.fetch();
+
+        time += refreshBackoffMs;
+        metadata.add("topic2");
+        assertEquals(0, metadata.timeToNextUpdate(time));
+        assertTrue(metadata.topicSubsetUpdateDue(time));
+        assertEquals(Collections.singleton("topic2"), metadata.newTopics());
+
+        int version = metadata.version();
+        metadata.updateTopics(cluster(node, "topic2", 3), metadata.newTopics(), Collections.<String>emptySet(), time);
+        assertEquals(version + 1, metadata.version());
+        assertFalse(metadata.updateRequested());
+        assertTrue(metadata.newTopics().isEmpty());
+
+        // the metadata of the other topics is retained, and the next full refresh is not delayed
+        Cluster cluster = metadata.fetch();
+        assertEquals(Utils.mkSet("topic1", "topic2"), cluster.topics());
+        assertSame(previous.partitionsForTopic("topic1"), cluster.partitionsForTopic("topic1"));
+        assertEquals(5, cluster.partitionsForNode(node.id()).size());
+        assertEquals(metadataExpireMs - refreshBackoffMs, metadata.timeToNextUpdate(time));
+        assertEquals(0, metadata.lastSuccessfulUpdate());
+
+        // once the metadata expired, new topics are fetched with a full refresh
+        metadata.add("topic3");
+        assertFalse(metadata.topicSubsetUpdateDue(metadataExpireMs));
+    }
+
+    @Test
+    public void testTopicSubsetUpdateWithFullUpdateRequested() {
+        metadata = new Metadata(refreshBackoffMs, metadataExpireMs, true, true, new ClusterResourceListeners());
+        Node node = new Node(0, "host1", 1000);
+        long time = 0;
+        metadata.add("topic1");
+        metadata.update(cluster(node, "topic1", 1), Collections.<String>emptySet(), time);
+
+        // an explicit request, e.g. after an error, requires a full refresh
+        metadata.add("topic2");
+        metadata.requestUpdate();
+        assertFalse(metadata.topicSubsetUpdateDue(time));
+
+        // a full refresh requested while a subset is fetched is still pending afterwards
+        metadata.update(cluster(node, "topic1", 1), Collections.<String>emptySet(), time);
+        int version = metadata.requestUpdateForTopic("topic2");
+        assertTrue(metadata.topicSubsetUpdateDue(time));
+        Set<String> subset = metadata.newTopics();
+        metadata.requestUpdate();
+        metadata.updateTopics(cluster(node, "topic2", 1), subset, Collections.<String>emptySet(), time);
+        assertTrue(metadata.version() > version);
+        assertTrue(metadata.updateRequested());
+        assertFalse(metadata.topicSubsetUpdateDue(time));
+    }
+
+    @Test
+    public void testTopicSubsetUpdateRemovesMissingTopic() {
+        metadata = new Metadata(refreshBackoffMs, metadataExpireMs, true, true, new ClusterResourceListeners());
+        Node node = new Node(0, "host1", 1000);
+        metadata.add("topic1");
+        metadata.update(cluster(node, "topic1", 1), Collections.<String>emptySet(), 0);
+
+        // the partition count is stale, and the topic is deleted in the meantime
+        metadata.requestUpdateForTopic("topic1");
+        Cluster update = new Cluster(null, Collections.singletonList(node), Collections.<PartitionInfo>emptyList(),
+                Collections.<String>emptySet(), Collections.<String>emptySet());
+        metadata.updateTopics(update, metadata.newTopics(), Collections.singleton("topic1"), 0);
+        assertNull(metadata.fetch().partitionCountForTopic("topic1"));
+        assertTrue(metadata.containsTopic("topic1"));
+    }
+
+    @Test
+    public void testTopicSubsetUpdateDisabled() {
+        metadata.add("topic1");
+        metadata.update(Cluster.empty(), Collections.<String>emptySet(), 0);
+        metadata.add("topic2");
+        assertTrue(metadata.updateRequested());
+        assertFalse(metadata.topicSubsetUpdateDue(0));
+    }
+
+    private static Cluster cluster(Node node, String topic, int partitions) {
+        List<PartitionInfo> partitionInfos = new ArrayList<>();
+        for (int i = 0; i < partitions; i++)
+            partitionInfos.add(new PartitionInfo(topic, i, node, new Node[] {node}, new Node[] {node}));
+        return new Cluster(null, Collections.singletonList(node), partitionInfos, Collections.<String>emptySet(),
+                Collections.<String>emptySet());
+    }
+
     private Thread asyncFetch(final String topic, final long maxWaitMs) {
         Thread thread = new Thread() {
             public void run() {
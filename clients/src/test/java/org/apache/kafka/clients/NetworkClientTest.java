@@ -21,11 +21,13 @@ import org.apache.kafka.common.Node;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.network.NetworkReceive;
 import org.apache.kafka.common.protocol.ApiKeys;
+import org.apache.kafka.common.protocol.Errors;
 import org.apache.kafka.common.protocol.types.Struct;
 import org.apache.kafka.common.record.RecordBatch;
 import org.apache.kafka.common.record.MemoryRecords;
 import org.apache.kafka.common.requests.ApiVersionsResponse;
 import org.apache.kafka.common.requests.MetadataRequest;
+import org.apache.kafka.common.requests.MetadataResponse;
 import org.apache.kafka.common.requests.ProduceRequest;
 import org.apache.kafka.common.requests.ResponseHeader;
 import org.apache.kafka.common.utils.MockTime;
@@ -71,6 +73,11 @@ public class NetworkClientTest {
                 time, true, new ApiVersions());
     }
 
+    private NetworkClient createNetworkClientWithPrewarmedConnections() {
+        return new NetworkClient(selector, metadata, "mock", Integer.MAX_VALUE, reconnectBackoffMsTest,
+                64 * 1024, 64 * 1024, requestTimeoutMs, time, true, new ApiVersions(), true);
+    }
+
     private NetworkClient createNetworkClientWithNoVersionDiscovery() {
         return new NetworkClient(selector, metadata, "mock", Integer.MAX_VALUE, reconnectBackoffMsTest,
                 64 * 1024, 64 * 1024, requestTimeoutMs, time, false, new ApiVersions());
@@ -264,6 +271,90 @@ public class NetworkClientTest {
         assertTrue(responses.iterator().next().wasDisconnected());
     }
     
+    @Test
+    public void testPrewarmConnectionsToLeaders() {
+        NetworkClient client = createNetworkClientWithPrewarmedConnections();
+        awaitReady(client, node);
+
+        Node leader = new Node(2, "localhost", 1970);
+        Node follower = new Node(3, "localhost", 1971);
+        List<Node> replicas = Arrays.asList(leader, follower);
+        MetadataResponse.PartitionMetadata partitionMetadata = new MetadataResponse.PartitionMetadata(Errors.NONE, 0,
+                leader, replicas, replicas);
+        MetadataResponse response = new MetadataResponse(Arrays.asList(node, leader, follower), null,
+                MetadataResponse.NO_CONTROLLER_ID, Collections.singletonList(new MetadataResponse.TopicMetadata(
+                        Errors.NONE, "test", false, Collections.singletonList(partitionMetadata))));
+        ByteBuffer buffer = response.serialize(ApiKeys.METADATA.latestVersion(), new ResponseHeader(1));
+        selector.delayedReceive(new DelayedReceive(node.idString(), new NetworkReceive(node.idString(), buffer)));
+
+        metadata.requestUpdate();
+        client.poll(1, time.milliseconds());
+        assertEquals(leader, metadata.fetch().leaderFor(new TopicPartition("test", 0)));
+
+        // only the leader is connected to before any request is sent to it
+        assertEquals(Long.MAX_VALUE, client.connectionDelay(leader, time.milliseconds()));
+        assertEquals(0, client.connectionDelay(follower, time.milliseconds()));
+    }
+
+    @Test
+    public void testCachedApiVersionsOnReconnect() {
+        NetworkClient client = createNetworkClientWithPrewarmedConnections();
+        awaitReady(client, node);
+        reconnect(client);
+
+        // the node is ready without waiting for its API versions, which are fetched again in the background
+        assertTrue(client.isReady(node, time.milliseconds()));
+        assertEquals(1, client.inFlightRequestCount(node.idString()));
+        selector.clear();
+        selector.completeReceive(new NetworkReceive(node.idString(), apiVersionsResponse(1)));
+        client.poll(1, time.milliseconds());
+        selector.clear();
+        assertEquals(0, client.inFlightRequestCount(node.idString()));
+        assertTrue(client.isReady(node, time.milliseconds()));
+
+        // once verified, the versions are still used after the next reconnect
+        reconnect(client);
+        assertTrue(client.isReady(node, time.milliseconds()));
+    }
+
+    @Test
+    public void testCachedApiVersionsDroppedOnDisconnectBeforeVerified() {
+        NetworkClient client = createNetworkClientWithPrewarmedConnections();
+        awaitReady(client, node);
+        reconnect(client);
+        assertTrue(client.isReady(node, time.milliseconds()));
+
+        // the cached versions may be the reason of the disconnection, so they are fetched before the node is ready
+        reconnect(client);
+        assertFalse(client.isReady(node, time.milliseconds()));
+    }
+
+    @Test
+    public void testApiVersionsNotCachedWithoutPrewarmedConnections() {
+        awaitReady(client, node);
+        reconnect(client);
+        assertFalse(client.isReady(node, time.milliseconds()));
+    }
+
+    private void reconnect(NetworkClient client) {
+        selector.close(node.idString());
+        client.poll(1, time.milliseconds());
+        selector.clear();
+        // the disconnection requests a metadata update, which would make the node unready. The update is recorded
+        // at time 0 like in `setup`, as later times would overflow the expiry of the metadata
+        metadata.update(cluster, Collections.<String>emptySet(), 0);
+        time.sleep(reconnectBackoffMsTest);
+        assertFalse(client.ready(node, time.milliseconds()));
+        // connect, then complete the send of the ApiVersions request
+        client.poll(1, time.milliseconds());
+        client.poll(1, time.milliseconds());
+    }
+
+    private ByteBuffer apiVersionsResponse(int correlationId) {
+        short apiVersionsResponseVersion = ApiVersionsResponse.API_VERSIONS_RESPONSE.apiVersion(ApiKeys.API_VERSIONS.id).maxVersion;
+        return ApiVersionsResponse.API_VERSIONS_RESPONSE.serialize(apiVersionsResponseVersion, new ResponseHeader(correlationId));
+    }
+
     private static class TestCallbackHandler implements RequestCompletionHandler {
         public boolean executed = false;
         public ClientResponse response;
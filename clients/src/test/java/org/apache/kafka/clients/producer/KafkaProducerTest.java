@@ -47,10 +47,12 @@ import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareOnlyThisForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
@@ -411,6 +413,42 @@ public class KafkaProducerTest {
 
     }
 
+    @Test
+    public void testCloseStopsAllNetworkThreads() throws Exception {
+        Properties props = new Properties();
+        props.setProperty(ProducerConfig.CLIENT_ID_CONFIG, "testCloseStopsAllNetworkThreads");
+        props.setProperty(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9000");
+        props.setProperty(ProducerConfig.NETWORK_THREADS_CONFIG, "3");
+        KafkaProducer<byte[], byte[]> producer = new KafkaProducer<>(props, new ByteArraySerializer(), new ByteArraySerializer());
+        assertEquals(3, networkThreads("testCloseStopsAllNetworkThreads").size());
+        producer.close();
+        assertTrue(networkThreads("testCloseStopsAllNetworkThreads").isEmpty());
+    }
+
+    @Test
+    public void testTransactionalProducerRequiresSingleNetworkThread() {
+        Properties props = new Properties();
+        props.setProperty(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9000");
+        props.setProperty(ProducerConfig.TRANSACTIONAL_ID_CONFIG, "transactionalId");
+        props.setProperty(ProducerConfig.NETWORK_THREADS_CONFIG, "2");
+        try {
+            new KafkaProducer<>(props, new ByteArraySerializer(), new ByteArraySerializer());
+            fail("Should have thrown an exception.");
+        } catch (KafkaException e) {
+            assertTrue(e.getCause() instanceof ConfigException);
+        }
+    }
+
+    private static List<Thread> networkThreads(String clientId) {
+        List<Thread> threads = new ArrayList<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && thread.getName().startsWith("kafka-producer-network-thread") &&
+                    thread.getName().endsWith(" | " + clientId))
+                threads.add(thread);
+        }
+        return threads;
+    }
+
     @Test
     public void closeShouldBeIdempotent() {
         Properties producerProps = new Properties();
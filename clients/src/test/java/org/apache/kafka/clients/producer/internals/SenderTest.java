@@ -24,6 +24,7 @@ import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.common.Cluster;
 import org.apache.kafka.common.MetricName;
 import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.internals.ClusterResourceListeners;
 import org.apache.kafka.common.metrics.KafkaMetric;
@@ -47,6 +48,7 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -54,6 +56,7 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -531,6 +534,169 @@ public class SenderTest {
         assertFalse("Expected transaction state to be reset upon receiving an OutOfOrderSequenceException", transactionManager.hasProducerId());
     }
 
+    @Test
+    public void testNodesShardedAcrossSenders() throws Exception {
+        metadata.update(TestUtils.clusterWith(2, "test", 2), Collections.<String>emptySet(), time.milliseconds());
+        Metrics m = new Metrics();
+        Sender primary = new Sender(client, metadata, accumulator, true, MAX_REQUEST_SIZE, ACKS_ALL, MAX_RETRIES,
+                m, time, REQUEST_TIMEOUT, 50, null, apiVersions, 2);
+        MockClient secondaryClient = new MockClient(time);
+        Sender secondary = new Sender(secondaryClient, new ApiVersions(), primary, 1);
+
+        // tp0 is led by node 0, sent to by the primary, and tp1 by node 1, sent to by the secondary
+        Future<RecordMetadata> future0 = accumulator.append(tp0, 0L, "key".getBytes(), "value".getBytes(), null, null, MAX_BLOCK_TIMEOUT).future;
+        Future<RecordMetadata> future1 = accumulator.append(tp1, 0L, "key".getBytes(), "value".getBytes(), null, null, MAX_BLOCK_TIMEOUT).future;
+        primary.run(time.milliseconds()); // connect
+        primary.run(time.milliseconds()); // send produce request
+        assertEquals(1, client.inFlightRequestCount());
+        assertEquals("0", client.requests().peek().destination());
+        assertTrue(accumulator.hasUnsent());
+
+        secondary.run(time.milliseconds()); // connect
+        secondary.run(time.milliseconds()); // send produce request
+        assertEquals(1, secondaryClient.inFlightRequestCount());
+        assertEquals("1", secondaryClient.requests().peek().destination());
+        assertFalse(accumulator.hasUnsent());
+
+        // the in-flight requests of all the senders are reported
+        MetricName inFlightMetric = m.metricName("requests-in-flight", METRIC_GROUP, "");
+        assertEquals(2, m.metrics().get(inFlightMetric).value(), EPS);
+
+        client.respond(produceResponse(tp0, 0, Errors.NONE, 0));
+        primary.run(time.milliseconds());
+        secondaryClient.respond(produceResponse(tp1, 0, Errors.NONE, 0));
+        secondary.run(time.milliseconds());
+        assertEquals(0, future0.get().offset());
+        assertEquals(0, future1.get().offset());
+        m.close();
+    }
+
+    @Test
+    public void testMutedPartitionNotSentByOtherSenderAfterLeaderMove() throws Exception {
+        Node node0 = new Node(0, "localhost", 1969);
+        Node node1 = new Node(1, "localhost", 1969);
+        metadata.update(TestUtils.clusterWith(2, "test", 2), Collections.<String>emptySet(), time.milliseconds());
+        Metrics m = new Metrics();
+        Sender primary = shardedSender(m, 2);
+        MockClient secondaryClient = new MockClient(time);
+        Sender secondary = new Sender(secondaryClient, new ApiVersions(), primary, 1);
+
+        // tp0 is muted while its batch is in flight to node 0
+        Future<RecordMetadata> future0 = accumulator.append(tp0, 0L, "key".getBytes(), "value".getBytes(), null, null, MAX_BLOCK_TIMEOUT).future;
+        primary.run(time.milliseconds());
+        primary.run(time.milliseconds());
+        assertEquals(1, client.inFlightRequestCount());
+
+        // the leader of tp0 moves to node 1, sent to by the secondary sender
+        Node[] nodes = {node0, node1};
+        metadata.update(new Cluster(null, Arrays.asList(nodes),
+                Arrays.asList(new PartitionInfo("test", 0, node1, nodes, nodes), new PartitionInfo("test", 1, node1, nodes, nodes)),
+                Collections.<String>emptySet(), Collections.<String>emptySet()), Collections.<String>emptySet(), time.milliseconds());
+        Future<RecordMetadata> future1 = accumulator.append(tp0, 0L, "key".getBytes(), "value".getBytes(), null, null, MAX_BLOCK_TIMEOUT).future;
+        secondary.run(time.milliseconds());
+        secondary.run(time.milliseconds());
+        assertEquals("The muted partition must not be sent by another sender", 0, secondaryClient.inFlightRequestCount());
+
+        client.respond(produceResponse(tp0, 0, Errors.NONE, 0));
+        primary.run(time.milliseconds());
+        assertEquals(0, future0.get().offset());
+        assertFalse(future1.isDone());
+
+        secondary.run(time.milliseconds());
+        secondary.run(time.milliseconds());
+        assertEquals(1, secondaryClient.inFlightRequestCount());
+        assertEquals("1", secondaryClient.requests().peek().destination());
+        secondaryClient.respond(produceResponse(tp0, 1, Errors.NONE, 0));
+        secondary.run(time.milliseconds());
+        assertEquals(1, future1.get().offset());
+        m.close();
+    }
+
+    @Test
+    public void testGracefulCloseWaitsForSecondarySenders() throws Exception {
+        metadata.update(TestUtils.clusterWith(2, "test", 2), Collections.<String>emptySet(), time.milliseconds());
+        Metrics m = new Metrics();
+        Sender primary = shardedSender(m, 2);
+        MockClient secondaryClient = new MockClient(time);
+        Sender secondary = new Sender(secondaryClient, new ApiVersions(), primary, 1);
+        Future<RecordMetadata> future0 = accumulator.append(tp0, 0L, "key".getBytes(), "value".getBytes(), null, null, MAX_BLOCK_TIMEOUT).future;
+        Future<RecordMetadata> future1 = accumulator.append(tp1, 0L, "key".getBytes(), "value".getBytes(), null, null, MAX_BLOCK_TIMEOUT).future;
+        client.prepareResponse(produceResponse(tp0, 0, Errors.NONE, 0));
+        secondaryClient.prepareResponse(produceResponse(tp1, 0, Errors.NONE, 0));
+
+        Thread primaryThread = new Thread(primary);
+        Thread secondaryThread = new Thread(secondary);
+        try {
+            primaryThread.start();
+            primary.initiateClose();
+            assertEquals(0, future0.get(MAX_BLOCK_TIMEOUT, TimeUnit.MILLISECONDS).offset());
+
+            // the primary sender keeps running until the secondary sender has stopped
+            primaryThread.join(100);
+            assertTrue(primaryThread.isAlive());
+            assertFalse(future1.isDone());
+
+            secondaryThread.start();
+            secondaryThread.join(MAX_BLOCK_TIMEOUT);
+            primaryThread.join(MAX_BLOCK_TIMEOUT);
+            assertFalse(secondaryThread.isAlive());
+            assertFalse(primaryThread.isAlive());
+            assertEquals(0, future1.get().offset());
+        } finally {
+            primary.forceClose();
+            primaryThread.join();
+            m.close();
+        }
+    }
+
+    @Test
+    public void testForceCloseAbortsBatchesOfSecondarySendersOnceStopped() throws Exception {
+        metadata.update(TestUtils.clusterWith(2, "test", 2), Collections.<String>emptySet(), time.milliseconds());
+        Metrics m = new Metrics();
+        Sender primary = shardedSender(m, 2);
+        MockClient secondaryClient = new MockClient(time);
+        Sender secondary = new Sender(secondaryClient, new ApiVersions(), primary, 1);
+        Future<RecordMetadata> future1 = accumulator.append(tp1, 0L, "key".getBytes(), "value".getBytes(), null, null, MAX_BLOCK_TIMEOUT).future;
+
+        // the batch is in flight to node 1 without any response
+        secondary.run(time.milliseconds());
+        secondary.run(time.milliseconds());
+        assertEquals(1, secondaryClient.inFlightRequestCount());
+
+        Thread primaryThread = new Thread(primary);
+        Thread secondaryThread = new Thread(secondary);
+        try {
+            primaryThread.start();
+            primary.forceClose();
+
+            // the incomplete batches are only aborted once the secondary sender has stopped
+            primaryThread.join(100);
+            assertTrue(primaryThread.isAlive());
+            assertFalse(future1.isDone());
+
+            secondaryThread.start();
+            secondaryThread.join(MAX_BLOCK_TIMEOUT);
+            primaryThread.join(MAX_BLOCK_TIMEOUT);
+            assertFalse(secondaryThread.isAlive());
+            assertFalse(primaryThread.isAlive());
+            assertTrue(future1.isDone());
+            try {
+                future1.get();
+                fail("Should have thrown an exception.");
+            } catch (ExecutionException e) {
+                assertEquals(IllegalStateException.class, e.getCause().getClass());
+            }
+        } finally {
+            secondaryThread.join(MAX_BLOCK_TIMEOUT);
+            m.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidShard() {
+        new Sender(new MockClient(time), new ApiVersions(), sender, 1);
+    }
+
     private void completedWithError(Future<RecordMetadata> future, Errors error) throws Exception {
         assertTrue("Request should be completed", future.isDone());
         try {
@@ -541,6 +707,11 @@ public class SenderTest {
         }
     }
 
+    private Sender shardedSender(Metrics m, int numShards) {
+        return new Sender(client, metadata, accumulator, true, MAX_REQUEST_SIZE, ACKS_ALL, MAX_RETRIES,
+                m, time, REQUEST_TIMEOUT, 50, null, apiVersions, numShards);
+    }
+
     private ProduceResponse produceResponse(TopicPartition tp, long offset, Errors error, int throttleTimeMs) {
         ProduceResponse.PartitionResponse resp = new ProduceResponse.PartitionResponse(error, offset, RecordBatch.NO_TIMESTAMP);
         Map<TopicPartition, ProduceResponse.PartitionResponse> partResp = Collections.singletonMap(tp, resp);
@@ -21,10 +21,15 @@ import org.junit.Test;
 
 import java.net.InetSocketAddress;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class ClusterTest {
 
@@ -43,4 +48,59 @@ public class ClusterTest {
         assertEquals(expectedHosts, actualHosts);
     }
 
+    @Test
+    public void testWithTopicsUpdatedFrom() {
+        Node node0 = new Node(0, "host0", 9092);
+        Node node1 = new Node(1, "host1", 9092);
+        Node node2 = new Node(2, "host2", 9092);
+        Cluster cluster = new Cluster("id", Arrays.asList(node0, node1),
+                Arrays.asList(new PartitionInfo("a", 0, node0, null, null),
+                        new PartitionInfo("a", 1, node1, null, null),
+                        new PartitionInfo("b", 0, node1, null, null),
+                        new PartitionInfo("c", 0, node0, null, null)),
+                Utils.mkSet("d"), Collections.<String>emptySet());
+        Cluster update = new Cluster("id", Arrays.asList(node1, node2),
+                Arrays.asList(new PartitionInfo("b", 0, node2, null, null),
+                        new PartitionInfo("b", 1, null, null, null),
+                        new PartitionInfo("__e", 0, node2, null, null)),
+                Collections.<String>emptySet(), Utils.mkSet("__e"));
+
+        Cluster merged = cluster.withTopicsUpdatedFrom(update, Arrays.asList("b", "c", "d", "__e"));
+        assertEquals(Utils.mkSet("a", "b", "__e"), merged.topics());
+        assertSame(cluster.partitionsForTopic("a"), merged.partitionsForTopic("a"));
+        assertEquals(update.partitionsForTopic("b"), merged.partitionsForTopic("b"));
+        assertEquals(1, merged.availablePartitionsForTopic("b").size());
+        assertNull(merged.partition(new TopicPartition("c", 0)));
+        assertEquals(node2, merged.leaderFor(new TopicPartition("b", 0)));
+        assertTrue(merged.unauthorizedTopics().isEmpty());
+        assertEquals(Utils.mkSet("__e"), merged.internalTopics());
+        assertEquals(update.nodes(), merged.nodes());
+        assertFalse(merged.isBootstrapConfigured());
+
+        // leaders which are not among the updated nodes are left out of the node index
+        assertEquals(1, merged.partitionsForNode(node1.id()).size());
+        assertEquals(2, merged.partitionsForNode(node2.id()).size());
+        assertTrue(merged.partitionsForNode(node0.id()).isEmpty());
+    }
+
+    @Test
+    public void testRetainTopics() {
+        Node node0 = new Node(0, "host0", 9092);
+        Cluster cluster = new Cluster("id", Collections.singletonList(node0),
+                Arrays.asList(new PartitionInfo("a", 0, node0, null, null),
+                        new PartitionInfo("b", 0, node0, null, null)),
+                Utils.mkSet("c", "d"), Utils.mkSet("b"));
+
+        assertSame(cluster, cluster.retainTopics(Utils.mkSet("a", "b", "c", "d", "e")));
+
+        Cluster retained = cluster.retainTopics(Utils.mkSet("a", "c"));
+        assertEquals(Utils.mkSet("a"), retained.topics());
+        assertSame(cluster.partitionsForTopic("a"), retained.partitionsForTopic("a"));
+        assertNull(retained.partition(new TopicPartition("b", 0)));
+        assertEquals(1, retained.partitionsForNode(node0.id()).size());
+        assertEquals(Utils.mkSet("c"), retained.unauthorizedTopics());
+        assertEquals(Utils.mkSet("b"), retained.internalTopics());
+        assertEquals("id", retained.clusterResource().clusterId());
+    }
+
 }
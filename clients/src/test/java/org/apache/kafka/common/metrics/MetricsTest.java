@@ -23,21 +23,29 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.kafka.common.Metric;
 import org.apache.kafka.common.MetricName;
 import org.apache.kafka.common.metrics.stats.Avg;
 import org.apache.kafka.common.metrics.stats.Count;
+import org.apache.kafka.common.metrics.stats.LogLinearPercentiles;
 import org.apache.kafka.common.metrics.stats.Max;
 import org.apache.kafka.common.metrics.stats.Min;
 import org.apache.kafka.common.metrics.stats.Percentile;
 import org.apache.kafka.common.metrics.stats.Percentiles;
 import org.apache.kafka.common.metrics.stats.Percentiles.BucketSizing;
 import org.apache.kafka.common.metrics.stats.Rate;
+import org.apache.kafka.common.metrics.stats.SampledStat;
 import org.apache.kafka.common.metrics.stats.Total;
 import org.apache.kafka.common.metrics.stats.SimpleRate;
 import org.apache.kafka.common.utils.MockTime;
@@ -353,6 +361,81 @@ public class MetricsTest {
         assertEquals(0.0, sampledTotal.measure(config, time.milliseconds()), EPS);
     }
 
+    @Test
+    public void testConcurrentRecording() throws Exception {
+        final Sensor parent = metrics.sensor("test.parent");
+        parent.add(metrics.metricName("parent.total", "grp1"), new Total());
+        final Sensor sensor = metrics.sensor("test.sensor", parent);
+        sensor.add(metrics.metricName("test.count", "grp1"), new Count());
+        sensor.add(metrics.metricName("test.total", "grp1"), new Total());
+        sensor.add(metrics.metricName("test.avg", "grp1"), new Avg());
+        sensor.add(metrics.metricName("test.max", "grp1"), new Max());
+        sensor.add(metrics.metricName("test.min", "grp1"), new Min());
+        sensor.add(metrics.metricName("test.rate", "grp1"), new Rate(TimeUnit.SECONDS));
+
+        final int threads = 8;
+        final int recordsPerThread = 10000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                final int thread = i;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        for (int j = 0; j < recordsPerThread; j++)
+                            sensor.record(thread);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        double total = (double) recordsPerThread * threads * (threads - 1) / 2;
+        assertEquals((double) threads * recordsPerThread, metricValue("test.count"), EPS);
+        assertEquals(total, metricValue("test.total"), EPS);
+        assertEquals(total, metricValue("parent.total"), EPS);
+        assertEquals(total / (threads * recordsPerThread), metricValue("test.avg"), EPS);
+        assertEquals(threads - 1, metricValue("test.max"), EPS);
+        assertEquals(0.0, metricValue("test.min"), EPS);
+    }
+
+    @Test
+    public void testSampledStatUpdatingSampleFields() {
+        // a stat written against the public fields of Sample, which does not opt in to concurrent recording
+        SampledStat sumOfSquares = new SampledStat(0.0) {
+            @Override
+            protected void update(Sample sample, MetricConfig config, double value, long timeMs) {
+                sample.value += value * value;
+            }
+
+            @Override
+            public double combine(List<Sample> samples, MetricConfig config, long now) {
+                double total = 0.0;
+                long count = 0;
+                for (Sample sample : samples) {
+                    total += sample.value;
+                    count += sample.eventCount;
+                }
+                return count == 0 ? Double.NaN : total;
+            }
+        };
+        assertFalse(sumOfSquares.supportsConcurrentRecording());
+        Sensor sensor = metrics.sensor("test.sensor");
+        sensor.add(metrics.metricName("test.sum.of.squares", "grp1"), sumOfSquares);
+        sensor.record(2.0);
+        sensor.record(3.0);
+        assertEquals(13.0, metricValue("test.sum.of.squares"), EPS);
+    }
+
+    private double metricValue(String name) {
+        return metrics.metrics().get(metrics.metricName(name, "grp1")).value();
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testDuplicateMetricName() {
         metrics.sensor("test").add(metrics.metricName("test", "grp1"), new Avg());
@@ -434,6 +517,35 @@ public class MetricsTest {
         assertEquals(75, p75.value(), 1.0);
     }
 
+    @Test
+    public void testLogLinearPercentiles() {
+        LogLinearPercentiles percs = new LogLinearPercentiles(7,
+                                                              new Percentile(metrics.metricName("test.p25", "grp1"), 25),
+                                                              new Percentile(metrics.metricName("test.p50", "grp1"), 50),
+                                                              new Percentile(metrics.metricName("test.p99", "grp1"), 99));
+        MetricConfig config = new MetricConfig().eventWindow(500).samples(2);
+        Sensor sensor = metrics.sensor("test", config);
+        sensor.add(percs);
+        Metric p25 = this.metrics.metrics().get(metrics.metricName("test.p25", "grp1"));
+        Metric p50 = this.metrics.metrics().get(metrics.metricName("test.p50", "grp1"));
+        Metric p99 = this.metrics.metrics().get(metrics.metricName("test.p99", "grp1"));
+
+        // record two windows worth of sequential values, no range has to be given up front
+        for (int i = 1; i <= 1000; i++)
+            sensor.record(i * 1000.0);
+
+        assertEquals(250000, p25.value(), 250000 * 0.01);
+        assertEquals(500000, p50.value(), 500000 * 0.01);
+        assertEquals(990000, p99.value(), 990000 * 0.01);
+
+        for (int i = 0; i < 1000; i++)
+            sensor.record(0.0);
+
+        assertEquals(0.0, p25.value(), 0.0);
+        assertEquals(0.0, p50.value(), 0.0);
+        assertEquals(0.0, p99.value(), 0.0);
+    }
+
     @Test
     public void testRateWindowing() throws Exception {
         // Use the default time window. Set 3 samples
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.common.metrics;
+
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.metrics.stats.Total;
+import org.apache.kafka.common.utils.MockTime;
+import org.apache.kafka.test.TestUtils;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class SnapshotReporterTest {
+
+    @Test
+    public void testSnapshot() throws Exception {
+        SnapshotReporter reporter = new SnapshotReporter();
+        Metrics metrics = new Metrics(new MetricConfig(), Collections.<MetricsReporter>singletonList(reporter), new MockTime());
+        try {
+            Map<String, String> tags = new LinkedHashMap<>();
+            tags.put("topic", "my-topic");
+            tags.put("client-id", "client\"1");
+            Sensor sensor = metrics.sensor("bytes");
+            sensor.add(metrics.metricName("bytes-total", "producer-metrics", "", tags), new Total());
+            sensor.add(metrics.metricName("bytes-total", "producer-metrics", "", Collections.singletonMap("client-id", "c2")), new Total());
+            sensor.record(5);
+
+            String snapshot = snapshot(reporter);
+            assertEquals(
+                    "kafka_metrics_count_count{} 3.0\n" +
+                    "producer_metrics_bytes_total{client_id=\"c2\"} 5.0\n" +
+                    "producer_metrics_bytes_total{client_id=\"client\\\"1\",topic=\"my-topic\"} 5.0\n",
+                    snapshot);
+
+            metrics.removeSensor("bytes");
+            assertEquals("kafka_metrics_count_count{} 1.0\n", snapshot(reporter));
+        } finally {
+            metrics.close();
+        }
+    }
+
+    @Test
+    public void testRemoveMetricReplacedUnderSameRenderedName() throws Exception {
+        SnapshotReporter reporter = new SnapshotReporter();
+        Metrics metrics = new Metrics(new MetricConfig(), Collections.<MetricsReporter>singletonList(reporter), new MockTime());
+        try {
+            MetricName dotted = metrics.metricName("a.b", "grp");
+            metrics.addMetric(dotted, constant(1.0));
+            metrics.addMetric(metrics.metricName("a_b", "grp"), constant(2.0));
+            assertEquals("grp_a_b{} 2.0\n" + "kafka_metrics_count_count{} 3.0\n", snapshot(reporter));
+
+            metrics.removeMetric(dotted);
+            assertEquals("grp_a_b{} 2.0\n" + "kafka_metrics_count_count{} 2.0\n", snapshot(reporter));
+        } finally {
+            metrics.close();
+        }
+    }
+
+    @Test(expected = ConfigException.class)
+    public void testInvalidSnapshotInterval() {
+        new SnapshotReporter().configure(Collections.singletonMap(SnapshotReporter.SNAPSHOT_INTERVAL_MS_CONFIG, "0"));
+    }
+
+    @Test
+    public void testNonFiniteValues() throws Exception {
+        SnapshotReporter reporter = new SnapshotReporter();
+        Metrics metrics = new Metrics(new MetricConfig(), Collections.<MetricsReporter>singletonList(reporter), new MockTime());
+        try {
+            metrics.addMetric(metrics.metricName("nan", "grp"), constant(Double.NaN));
+            metrics.addMetric(metrics.metricName("inf", "grp"), constant(Double.NEGATIVE_INFINITY));
+            String snapshot = snapshot(reporter);
+            assertEquals(
+                    "grp_inf{} -Inf\n" +
+                    "grp_nan{} NaN\n" +
+                    "kafka_metrics_count_count{} 3.0\n",
+                    snapshot);
+        } finally {
+            metrics.close();
+        }
+    }
+
+    @Test
+    public void testSnapshotFile() throws Exception {
+        File file = new File(TestUtils.tempDirectory(), "metrics.prom");
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(SnapshotReporter.SNAPSHOT_FILE_CONFIG, file.getPath());
+        configs.put(SnapshotReporter.SNAPSHOT_INTERVAL_MS_CONFIG, "3600000");
+        SnapshotReporter reporter = new SnapshotReporter();
+        reporter.configure(configs);
+
+        Metrics metrics = new Metrics(new MetricConfig(), Collections.<MetricsReporter>singletonList(reporter), new MockTime());
+        metrics.addMetric(metrics.metricName("value", "grp"), constant(1.0));
+        reporter.writeSnapshotFile();
+        assertEquals(snapshot(reporter), new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+
+        // closing writes a final snapshot
+        metrics.addMetric(metrics.metricName("other", "grp"), constant(2.0));
+        String expected = snapshot(reporter);
+        metrics.close();
+        assertEquals(expected, new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testRender() {
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("b", "x\ny");
+        tags.put("a.b", "z\\");
+        assertEquals("group_0_name{a_b=\"z\\\\\",b=\"x\\ny\"}",
+                SnapshotReporter.render(new MetricName("0.name", "group", "", tags)));
+    }
+
+    @Test
+    public void testRenderNamesStartingWithDigit() {
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("0a", "x");
+        tags.put("", "y");
+        assertEquals("_9group_name{_=\"y\",_0a=\"x\"}",
+                SnapshotReporter.render(new MetricName("name", "9group", "", tags)));
+    }
+
+    private static String snapshot(SnapshotReporter reporter) throws Exception {
+        StringWriter writer = new StringWriter();
+        reporter.writeSnapshot(writer);
+        return writer.toString();
+    }
+
+    private static Measurable constant(final double value) {
+        return new Measurable() {
+            @Override
+            public double measure(MetricConfig config, long now) {
+                return value;
+            }
+        };
+    }
+}
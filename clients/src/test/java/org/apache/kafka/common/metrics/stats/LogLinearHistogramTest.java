@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.common.metrics.stats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LogLinearHistogramTest {
+
+    @Test
+    public void testRelativeErrorIsBounded() {
+        int bits = 5;
+        double maxError = Math.scalb(1.0, -(bits + 1));
+        Random random = new Random(1);
+        for (int i = 0; i < 10000; i++) {
+            // values across many orders of magnitude
+            double value = Math.pow(10, random.nextDouble() * 12 - 3);
+            LogLinearHistogram hist = new LogLinearHistogram(bits);
+            hist.record(value);
+            double reported = hist.value(0.5);
+            assertTrue("Value " + value + " was reported as " + reported, Math.abs(reported - value) / value <= maxError);
+        }
+    }
+
+    @Test
+    public void testQuantiles() {
+        LogLinearHistogram hist = new LogLinearHistogram(7);
+        double[] values = new double[10000];
+        Random random = new Random(1);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextDouble() * 1000;
+            hist.record(values[i]);
+        }
+        Arrays.sort(values);
+        assertEquals(values.length, hist.count());
+        for (double quantile : new double[] {0.25, 0.5, 0.75, 0.99}) {
+            double expected = values[(int) (quantile * values.length)];
+            assertEquals(expected, hist.value(quantile), expected * 0.01);
+        }
+        assertEquals(values[values.length - 1], hist.value(1.0), values[values.length - 1] * 0.01);
+    }
+
+    @Test
+    public void testValuesOutsideTheRange() {
+        LogLinearHistogram hist = new LogLinearHistogram(3);
+        hist.record(0.0);
+        hist.record(-1.0);
+        hist.record(Double.NaN);
+        hist.record(Double.POSITIVE_INFINITY);
+        assertEquals(4, hist.count());
+        assertEquals(0.0, hist.value(0.5), 0.0);
+        assertEquals(hist.value(hist.buckets() - 1), hist.value(1.0), 0.0);
+    }
+
+    @Test
+    public void testMergeAndClear() {
+        LogLinearHistogram first = new LogLinearHistogram(4);
+        LogLinearHistogram second = new LogLinearHistogram(4);
+        for (int i = 1; i <= 100; i++) {
+            first.record(i);
+            second.record(i * 1000);
+        }
+        first.merge(second);
+        assertEquals(200, first.count());
+        assertEquals(100.0, first.value(0.49), 100.0 / 32);
+        assertEquals(1000.0, first.value(0.5), 1000.0 / 32);
+
+        first.clear();
+        assertEquals(0, first.count());
+        assertTrue(Double.isNaN(first.value(0.5)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeRequiresSamePrecision() {
+        new LogLinearHistogram(4).merge(new LogLinearHistogram(5));
+    }
+
+}
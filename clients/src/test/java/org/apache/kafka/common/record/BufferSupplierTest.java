@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.common.record;
+
+import org.apache.kafka.common.utils.CloseableIterator;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class BufferSupplierTest {
+
+    @Test
+    public void testReleasedBufferIsReused() {
+        BufferSupplier supplier = BufferSupplier.create();
+        ByteBuffer first = supplier.get(1024);
+        first.put((byte) 1);
+        supplier.release(first);
+
+        ByteBuffer second = supplier.get(1024);
+        assertSame(first, second);
+        assertEquals(0, second.position());
+        assertEquals(1024, second.limit());
+
+        // buffers of a different size are not shared
+        assertNotSame(first, supplier.get(2048));
+        // nor is a buffer which has not been released
+        assertNotSame(second, supplier.get(1024));
+    }
+
+    @Test
+    public void testClose() {
+        BufferSupplier supplier = BufferSupplier.create();
+        ByteBuffer buffer = supplier.get(1024);
+        supplier.release(buffer);
+        supplier.close();
+        assertNotSame(buffer, supplier.get(1024));
+    }
+
+    @Test
+    public void testNoCaching() {
+        ByteBuffer buffer = BufferSupplier.NO_CACHING.get(1024);
+        BufferSupplier.NO_CACHING.release(buffer);
+        assertNotSame(buffer, BufferSupplier.NO_CACHING.get(1024));
+    }
+
+    @Test
+    public void testStreamingIteratorReleasesLz4Buffers() {
+        MemoryRecords records = MemoryRecords.withRecords(RecordBatch.MAGIC_VALUE_V2, 0L, CompressionType.LZ4,
+                TimestampType.CREATE_TIME, new SimpleRecord(1L, "a".getBytes(), "1".getBytes()),
+                new SimpleRecord(2L, "b".getBytes(), "2".getBytes()));
+        RecordingSupplier supplier = new RecordingSupplier();
+
+        for (int i = 0; i < 3; i++) {
+            for (MutableRecordBatch batch : records.batches()) {
+                try (CloseableIterator<Record> iterator = batch.streamingIterator(supplier)) {
+                    int count = 0;
+                    while (iterator.hasNext()) {
+                        iterator.next();
+                        count++;
+                    }
+                    assertEquals(2, count);
+                }
+            }
+        }
+
+        // the decompression buffer of the first stream is reused by the next ones
+        assertEquals(3, supplier.gets);
+        assertEquals(3, supplier.releases);
+        assertEquals(1, supplier.distinctBuffers.size());
+    }
+
+    private static class RecordingSupplier extends BufferSupplier {
+        private final BufferSupplier underlying = BufferSupplier.create();
+        private final Set<ByteBuffer> distinctBuffers = Collections.newSetFromMap(new IdentityHashMap<ByteBuffer, Boolean>());
+        private int gets = 0;
+        private int releases = 0;
+
+        @Override
+        public ByteBuffer get(int capacity) {
+            gets++;
+            ByteBuffer buffer = underlying.get(capacity);
+            distinctBuffers.add(buffer);
+            return buffer;
+        }
+
+        @Override
+        public void release(ByteBuffer buffer) {
+            releases++;
+            underlying.release(buffer);
+        }
+
+        @Override
+        public void close() {
+            underlying.close();
+        }
+    }
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.common.record;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DefaultRecordBatchColumnsTest {
+
+    @Test
+    public void testDecodeUncompressed() {
+        assertMatchesIteration(CompressionType.NONE, TimestampType.CREATE_TIME);
+    }
+
+    @Test
+    public void testDecodeCompressed() {
+        for (CompressionType compressionType : CompressionType.values())
+            assertMatchesIteration(compressionType, TimestampType.CREATE_TIME);
+    }
+
+    @Test
+    public void testDecodeLogAppendTime() {
+        assertMatchesIteration(CompressionType.NONE, TimestampType.LOG_APPEND_TIME);
+        assertMatchesIteration(CompressionType.GZIP, TimestampType.LOG_APPEND_TIME);
+    }
+
+    @Test
+    public void testReuseForLargerBatch() {
+        DefaultRecordBatchColumns columns = new DefaultRecordBatchColumns();
+        columns.decode(batch(buildRecords(CompressionType.NONE, TimestampType.CREATE_TIME, 3)));
+        assertEquals(3, columns.numRecords());
+
+        DefaultRecordBatch batch = batch(buildRecords(CompressionType.LZ4, TimestampType.CREATE_TIME, 100));
+        columns.decode(batch);
+        assertEquals(100, columns.numRecords());
+        assertEquals(batch.lastOffset(), columns.offset(99));
+    }
+
+    @Test
+    public void testFlyweightIsReused() {
+        DefaultRecordBatchColumns columns = new DefaultRecordBatchColumns();
+        columns.decode(batch(buildRecords(CompressionType.NONE, TimestampType.CREATE_TIME, 3)));
+        Iterator<Record> iterator = columns.iterator();
+        Record first = iterator.next();
+        assertEquals(10L, first.offset());
+        Record second = iterator.next();
+        assertSame(first, second);
+        assertEquals(11L, first.offset());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testIndexOutOfBounds() {
+        DefaultRecordBatchColumns columns = new DefaultRecordBatchColumns();
+        columns.decode(batch(buildRecords(CompressionType.NONE, TimestampType.CREATE_TIME, 3)));
+        columns.offset(3);
+    }
+
+    @Test(expected = InvalidRecordException.class)
+    public void testInvalidRecordSize() {
+        MemoryRecords records = buildRecords(CompressionType.NONE, TimestampType.CREATE_TIME, 3);
+        ByteBuffer buffer = records.buffer();
+        // the first record length follows directly the batch header, make it larger than the rest of the batch
+        buffer.put(DefaultRecordBatch.RECORD_BATCH_OVERHEAD, (byte) 0x7e);
+        new DefaultRecordBatchColumns().decode(batch(records));
+    }
+
+    @Test(expected = InvalidRecordException.class)
+    public void testInvalidRecordCount() {
+        MemoryRecords records = buildRecords(CompressionType.NONE, TimestampType.CREATE_TIME, 3);
+        ByteBuffer buffer = records.buffer();
+        buffer.putInt(DefaultRecordBatch.RECORDS_COUNT_OFFSET, 4);
+        new DefaultRecordBatchColumns().decode(batch(records));
+    }
+
+    @Test(expected = InvalidRecordException.class)
+    public void testTrailingBytesAfterRecordCount() {
+        MemoryRecords records = buildRecords(CompressionType.NONE, TimestampType.CREATE_TIME, 3);
+        ByteBuffer buffer = records.buffer();
+        buffer.putInt(DefaultRecordBatch.RECORDS_COUNT_OFFSET, 2);
+        new DefaultRecordBatchColumns().decode(batch(records));
+    }
+
+    @Test(expected = InvalidRecordException.class)
+    public void testTrailingBytesAfterRecordCountCompressed() {
+        MemoryRecords records = buildRecords(CompressionType.GZIP, TimestampType.CREATE_TIME, 3);
+        ByteBuffer buffer = records.buffer();
+        buffer.putInt(DefaultRecordBatch.RECORDS_COUNT_OFFSET, 2);
+        new DefaultRecordBatchColumns().decode(batch(records));
+    }
+
+    private static void assertMatchesIteration(CompressionType compressionType, TimestampType timestampType) {
+        DefaultRecordBatch batch = batch(buildRecords(compressionType, timestampType, 5));
+        List<Record> expected = new ArrayList<>();
+        for (Record record : batch)
+            expected.add(record);
+
+        DefaultRecordBatchColumns columns = new DefaultRecordBatchColumns();
+        columns.decode(batch);
+        assertEquals(expected.size(), columns.numRecords());
+
+        int i = 0;
+        for (Record record : columns) {
+            Record expectedRecord = expected.get(i);
+            assertEquals(expectedRecord.offset(), record.offset());
+            assertEquals(expectedRecord.offset(), columns.offset(i));
+            assertEquals(expectedRecord.sequence(), record.sequence());
+            assertEquals(expectedRecord.timestamp(), record.timestamp());
+            assertEquals(expectedRecord.sizeInBytes(), record.sizeInBytes());
+            assertEquals(expectedRecord.checksum(), record.checksum());
+            assertEquals(expectedRecord.hasKey(), record.hasKey());
+            assertEquals(expectedRecord.keySize(), record.keySize());
+            assertEquals(expectedRecord.key(), record.key());
+            assertEquals(expectedRecord.hasValue(), record.hasValue());
+            assertEquals(expectedRecord.valueSize(), record.valueSize());
+            assertEquals(expectedRecord.value(), record.value());
+            assertArrayEquals(expectedRecord.headers(), record.headers());
+            assertTrue(record.hasMagic(RecordBatch.MAGIC_VALUE_V2));
+            assertFalse(record.hasMagic(RecordBatch.MAGIC_VALUE_V1));
+            i++;
+        }
+        assertEquals(expected.size(), i);
+    }
+
+    private static MemoryRecords buildRecords(CompressionType compressionType, TimestampType timestampType, int numRecords) {
+        ByteBuffer buffer = ByteBuffer.allocate(16384);
+        long logAppendTime = timestampType == TimestampType.LOG_APPEND_TIME ? 9999L : RecordBatch.NO_TIMESTAMP;
+        MemoryRecordsBuilder builder = MemoryRecords.builder(buffer, RecordBatch.MAGIC_VALUE_V2, compressionType,
+                timestampType, 10L, logAppendTime, 5L, (short) 1, 20);
+        for (int i = 0; i < numRecords; i++) {
+            byte[] key = i % 3 == 1 ? null : ("key-" + i).getBytes();
+            byte[] value = i % 4 == 2 ? null : ("value-" + i).getBytes();
+            Header[] headers = i % 2 == 0 ? Record.EMPTY_HEADERS : new Header[] {
+                new RecordHeader("h1", ("v" + i).getBytes()),
+                new RecordHeader("h2", (byte[]) null)
+            };
+            builder.appendWithOffset(10L + i, 1000L + i, key, value, headers);
+        }
+        return builder.build();
+    }
+
+    private static DefaultRecordBatch batch(MemoryRecords records) {
+        return new DefaultRecordBatch(records.buffer());
+    }
+
+}
@@ -20,16 +20,19 @@ import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Random;
 
 import net.jpountz.xxhash.XXHashFactory;
 
+import org.apache.kafka.common.utils.ByteBufferOutputStream;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
@@ -139,7 +142,7 @@ public class KafkaLZ4Test {
             assertEquals(0, compressed[offset++]);
         }
 
-        ByteArrayInputStream input = new ByteArrayInputStream(compressed);
+        ByteBuffer input = ByteBuffer.wrap(compressed);
         try {
             KafkaLZ4BlockInputStream decompressed = new KafkaLZ4BlockInputStream(input, this.ignoreFlagDescriptorChecksum);
             byte[] testPayload = new byte[this.payload.length];
@@ -150,4 +153,50 @@ public class KafkaLZ4Test {
             assertTrue(this.useBrokenFlagDescriptorChecksum && !this.ignoreFlagDescriptorChecksum);
         }
     }
+
+    @Test
+    public void testDirectAndOffsetBuffers() throws IOException {
+        // several blocks, a compressible one and an incompressible one
+        byte[] payload = new byte[3 * 64 * 1024 + 100];
+        Arrays.fill(payload, 0, 64 * 1024, (byte) 1);
+        Random random = new Random(0);
+        for (int i = 64 * 1024; i < payload.length; i++)
+            payload[i] = (byte) random.nextInt();
+
+        for (boolean direct : Arrays.asList(false, true)) {
+            ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(payload.length * 2) : ByteBuffer.allocate(payload.length * 2);
+            buffer.position(7);
+            ByteBuffer slice = buffer.slice();
+            KafkaLZ4BlockOutputStream lz4 = new KafkaLZ4BlockOutputStream(new ByteBufferOutputStream(slice),
+                    KafkaLZ4BlockOutputStream.BLOCKSIZE_64KB, true, this.useBrokenFlagDescriptorChecksum);
+            lz4.write(payload, 0, payload.length);
+            lz4.close();
+            slice.flip();
+
+            // compressed into the buffer directly, so the result must match going through a plain stream
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            KafkaLZ4BlockOutputStream expected = new KafkaLZ4BlockOutputStream(output,
+                    KafkaLZ4BlockOutputStream.BLOCKSIZE_64KB, true, this.useBrokenFlagDescriptorChecksum);
+            expected.write(payload, 0, payload.length);
+            expected.close();
+            assertEquals(ByteBuffer.wrap(output.toByteArray()), slice);
+
+            try {
+                KafkaLZ4BlockInputStream decompressed = new KafkaLZ4BlockInputStream(slice, this.ignoreFlagDescriptorChecksum);
+                byte[] testPayload = new byte[payload.length];
+                int read = 0;
+                while (read < payload.length) {
+                    int n = decompressed.read(testPayload, read, payload.length - read);
+                    assertTrue(n > 0);
+                    read += n;
+                }
+                assertEquals(-1, decompressed.read());
+                assertArrayEquals(payload, testPayload);
+                // the buffer itself is not consumed
+                assertEquals(0, slice.position());
+            } catch (IOException e) {
+                assertTrue(this.useBrokenFlagDescriptorChecksum && !this.ignoreFlagDescriptorChecksum);
+            }
+        }
+    }
 }
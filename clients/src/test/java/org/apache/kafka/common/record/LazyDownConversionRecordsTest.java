@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.common.record;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.kafka.test.TestUtils.tempFile;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LazyDownConversionRecordsTest {
+
+    @Test
+    public void testFileRecordsAreConvertedLazily() throws IOException {
+        MemoryRecords records = createRecords(10, 1, 100);
+        try (FileRecords fileRecords = FileRecords.open(tempFile())) {
+            fileRecords.append(records);
+            fileRecords.flush();
+
+            Records converted = fileRecords.downConvert(RecordBatch.MAGIC_VALUE_V1);
+            assertTrue(converted instanceof LazyDownConversionRecords);
+            assertEquals(records.sizeInBytes(), converted.sizeInBytes());
+
+            ByteBuffer written = writeFully(converted, 7);
+            assertEquals(offsets(records.downConvert(RecordBatch.MAGIC_VALUE_V1)), offsets(MemoryRecords.readableRecords(written)));
+        }
+    }
+
+    @Test
+    public void testConversionAcrossChunks() throws IOException {
+        MemoryRecords records = createRecords(50, 1, 100);
+        LazyDownConversionRecords converted = new LazyDownConversionRecords(records, RecordBatch.MAGIC_VALUE_V0, 256);
+
+        ByteBuffer written = writeFully(converted, 100);
+        assertEquals(converted.sizeInBytes(), written.remaining());
+
+        MemoryRecords readable = MemoryRecords.readableRecords(written);
+        for (RecordBatch batch : readable.batches())
+            assertEquals(RecordBatch.MAGIC_VALUE_V0, batch.magic());
+        assertEquals(offsets(records), offsets(readable));
+        assertEquals(offsets(records), offsets(converted));
+    }
+
+    @Test
+    public void testBatchesWhichDoNotFitAreDropped() throws IOException {
+        // many small records per batch grow considerably when converted to the old format
+        MemoryRecords records = createRecords(10, 20, 1);
+        LazyDownConversionRecords converted = new LazyDownConversionRecords(records, RecordBatch.MAGIC_VALUE_V1, 512);
+        assertTrue(records.downConvert(RecordBatch.MAGIC_VALUE_V1).sizeInBytes() > records.sizeInBytes());
+        assertEquals(records.sizeInBytes(), converted.sizeInBytes());
+
+        ByteBuffer written = writeFully(converted, 64);
+        assertEquals(converted.sizeInBytes(), written.remaining());
+
+        // the overflow message at the end is skipped like any partial message
+        List<Long> offsets = offsets(MemoryRecords.readableRecords(written));
+        assertFalse(offsets.isEmpty());
+        assertTrue(offsets.size() < 200);
+        assertEquals(offsets(records).subList(0, offsets.size()), offsets);
+    }
+
+    @Test
+    public void testFirstBatchAlwaysFits() throws IOException {
+        // a compressed batch is converted to a single wrapper message, which is larger than the original batch
+        MemoryRecords records = createRecords(1, 50, 1, CompressionType.GZIP);
+        LazyDownConversionRecords converted = new LazyDownConversionRecords(records, RecordBatch.MAGIC_VALUE_V1);
+        assertTrue(converted.sizeInBytes() > records.sizeInBytes());
+
+        ByteBuffer written = writeFully(converted, 1024);
+        assertEquals(offsets(records), offsets(MemoryRecords.readableRecords(written)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWriteMustBeSequential() throws IOException {
+        MemoryRecords records = createRecords(2, 1, 10);
+        LazyDownConversionRecords converted = new LazyDownConversionRecords(records, RecordBatch.MAGIC_VALUE_V1);
+        converted.writeTo(new LimitedByteBufferChannel(converted.sizeInBytes(), Integer.MAX_VALUE), 1, 10);
+    }
+
+    private static MemoryRecords createRecords(int numBatches, int recordsPerBatch, int valueSize) {
+        return createRecords(numBatches, recordsPerBatch, valueSize, CompressionType.NONE);
+    }
+
+    private static MemoryRecords createRecords(int numBatches, int recordsPerBatch, int valueSize,
+                                               CompressionType compressionType) {
+        ByteBuffer buffer = ByteBuffer.allocate(numBatches * recordsPerBatch * (valueSize + 100));
+        long offset = 0L;
+        for (int i = 0; i < numBatches; i++) {
+            MemoryRecordsBuilder builder = MemoryRecords.builder(buffer, RecordBatch.MAGIC_VALUE_V2, compressionType,
+                    TimestampType.CREATE_TIME, offset);
+            for (int j = 0; j < recordsPerBatch; j++)
+                builder.appendWithOffset(offset++, 1000L + offset, ("key" + offset).getBytes(), new byte[valueSize]);
+            builder.close();
+        }
+        buffer.flip();
+        return MemoryRecords.readableRecords(buffer);
+    }
+
+    private static List<Long> offsets(Records records) {
+        List<Long> offsets = new ArrayList<>();
+        for (Record record : records.records())
+            offsets.add(record.offset());
+        return offsets;
+    }
+
+    private static ByteBuffer writeFully(Records records, int maxBytesPerWrite) throws IOException {
+        int size = records.sizeInBytes();
+        LimitedByteBufferChannel channel = new LimitedByteBufferChannel(size, maxBytesPerWrite);
+        long written = 0;
+        while (written < size)
+            written += records.writeTo(channel, written, (int) (size - written));
+        channel.buffer.flip();
+        return channel.buffer;
+    }
+
+    /**
+     * A channel which accepts at most a given number of bytes per write, like a socket with a full send buffer.
+     */
+    private static class LimitedByteBufferChannel implements GatheringByteChannel {
+        private final ByteBuffer buffer;
+        private final int maxBytesPerWrite;
+
+        private LimitedByteBufferChannel(int size, int maxBytesPerWrite) {
+            this.buffer = ByteBuffer.allocate(size);
+            this.maxBytesPerWrite = maxBytesPerWrite;
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            int length = Math.min(src.remaining(), maxBytesPerWrite);
+            ByteBuffer slice = src.duplicate();
+            slice.limit(slice.position() + length);
+            buffer.put(slice);
+            src.position(src.position() + length);
+            return length;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) {
+            long written = 0;
+            for (int i = offset; i < offset + length; i++)
+                written += write(srcs[i]);
+            return written;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs) {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+}
@@ -27,6 +27,7 @@ import org.apache.kafka.common.network.Send;
 import org.apache.kafka.common.protocol.ApiKeys;
 import org.apache.kafka.common.protocol.Errors;
 import org.apache.kafka.common.protocol.SecurityProtocol;
+import org.apache.kafka.common.protocol.types.SchemaException;
 import org.apache.kafka.common.protocol.types.Struct;
 import org.apache.kafka.common.record.CompressionType;
 import org.apache.kafka.common.record.InvalidRecordException;
@@ -486,6 +487,78 @@ public class RequestResponseTest {
         assertEquals("", deserialized.clientId()); // null is defaulted to ""
     }
 
+    @Test
+    public void testDirectSerializationMatchesStruct() {
+        RequestHeader header = new RequestHeader((short) 0, (short) 3, "client-\u00e9", 17);
+        ResponseHeader responseHeader = new ResponseHeader(17);
+        ByteBuffer headerBuffer = ByteBuffer.allocate(header.sizeOf());
+        header.writeTo(headerBuffer);
+        assertEquals(toBuffer(header.toStruct()), (ByteBuffer) headerBuffer.rewind());
+
+        for (short version = 2; version <= ApiKeys.PRODUCE.latestVersion(); version++) {
+            ProduceRequest request = createProduceRequest(version);
+            assertEquals(AbstractRequestResponse.serialize(header.toStruct(), request.toStruct()), request.serialize(header));
+        }
+
+        LinkedHashMap<TopicPartition, FetchRequest.PartitionData> fetchData = new LinkedHashMap<>();
+        fetchData.put(new TopicPartition("test1", 0), new FetchRequest.PartitionData(100, 5L, 1000000));
+        fetchData.put(new TopicPartition("test1", 1), new FetchRequest.PartitionData(150, 5L, 1000000));
+        fetchData.put(new TopicPartition("test2", 0), new FetchRequest.PartitionData(200, 0L, 1000000));
+        fetchData.put(new TopicPartition("test1", 2), new FetchRequest.PartitionData(300, 0L, 1000000));
+        for (short version = 0; version <= ApiKeys.FETCH.latestVersion(); version++) {
+            FetchRequest request = FetchRequest.Builder.forConsumer(100, 100000, fetchData, IsolationLevel.READ_COMMITTED)
+                    .setMaxBytes(1000).build(version);
+            assertEquals(AbstractRequestResponse.serialize(header.toStruct(), request.toStruct()), request.serialize(header));
+        }
+        FetchRequest emptyFetch = FetchRequest.Builder.forConsumer(100, 100000,
+                new LinkedHashMap<TopicPartition, FetchRequest.PartitionData>()).build((short) 4);
+        assertEquals(AbstractRequestResponse.serialize(header.toStruct(), emptyFetch.toStruct()), emptyFetch.serialize(header));
+
+        Node node1 = new Node(1, "host1", 1001, "rack1");
+        Node node2 = new Node(2, "host2", 1002);
+        List<MetadataResponse.TopicMetadata> topicMetadata = asList(
+                new MetadataResponse.TopicMetadata(Errors.NONE, "t\u00f6pic", false, asList(
+                        new MetadataResponse.PartitionMetadata(Errors.NONE, 0, node1, asList(node1, node2), asList(node1)),
+                        new MetadataResponse.PartitionMetadata(Errors.LEADER_NOT_AVAILABLE, 1, Node.noNode(),
+                                asList(node2), Collections.<Node>emptyList()))),
+                new MetadataResponse.TopicMetadata(Errors.UNKNOWN_TOPIC_OR_PARTITION, "missing", false,
+                        Collections.<MetadataResponse.PartitionMetadata>emptyList()));
+        MetadataResponse metadataResponse = new MetadataResponse(100, asList(node1, node2), "cluster", 2, topicMetadata);
+        for (short version = 0; version <= ApiKeys.METADATA.latestVersion(); version++) {
+            assertEquals(AbstractRequestResponse.serialize(responseHeader.toStruct(), metadataResponse.toStruct(version)),
+                    metadataResponse.serialize(version, responseHeader));
+        }
+    }
+
+    @Test
+    public void testDirectParsing() {
+        RequestHeader header = new RequestHeader(ApiKeys.FETCH.id, (short) 5, "client", 17);
+        ByteBuffer buffer = createFetchRequest(5).serialize(header);
+        RequestHeader parsedHeader = RequestHeader.parse(buffer);
+        assertEquals(header.clientId(), parsedHeader.clientId());
+        assertEquals(header.correlationId(), parsedHeader.correlationId());
+        RequestAndSize requestAndSize = AbstractRequest.getRequest(parsedHeader.apiKey(), parsedHeader.apiVersion(), buffer);
+        assertEquals(createFetchRequest(5).toStruct().sizeOf(), requestAndSize.size);
+        assertFalse(buffer.hasRemaining());
+        assertEquals(createFetchRequest(5).fetchData().keySet(), ((FetchRequest) requestAndSize.request).fetchData().keySet());
+
+        MetadataResponse response = createMetadataResponse();
+        ByteBuffer responseBuffer = response.serialize((short) 2, new ResponseHeader(17));
+        ResponseHeader.parse(responseBuffer);
+        MetadataResponse parsed = (MetadataResponse) AbstractResponse.parseResponse(ApiKeys.METADATA, responseBuffer, (short) 2);
+        assertEquals(response.cluster().topics(), parsed.cluster().topics());
+        assertEquals(response.cluster().internalTopics(), parsed.cluster().internalTopics());
+        assertEquals(response.errors(), parsed.errors());
+    }
+
+    @Test(expected = SchemaException.class)
+    public void testDirectParsingOfTruncatedRequest() {
+        ByteBuffer buffer = createProduceRequest(3).serialize(new RequestHeader(ApiKeys.PRODUCE.id, (short) 3, "client", 17));
+        RequestHeader.parse(buffer);
+        buffer.limit(buffer.limit() - 1);
+        AbstractRequest.getRequest(ApiKeys.PRODUCE.id, (short) 3, buffer);
+    }
+
     @Test(expected = UnsupportedVersionException.class)
     public void testCreateTopicRequestV0FailsIfValidateOnly() {
         createCreateTopicRequest(0, true);
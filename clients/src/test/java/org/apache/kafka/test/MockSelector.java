@@ -18,6 +18,8 @@ package org.apache.kafka.test;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -36,6 +38,8 @@ import org.apache.kafka.common.utils.Time;
  */
 public class MockSelector implements Selectable {
 
+    private static final GatheringByteChannel DISCARDING_CHANNEL = new DiscardingChannel();
+
     private final Time time;
     private final List<Send> initiatedSends = new ArrayList<Send>();
     private final List<Send> completedSends = new ArrayList<Send>();
@@ -86,6 +90,11 @@ public class MockSelector implements Selectable {
 
     @Override
     public void poll(long timeout) throws IOException {
+        // write the sends out so that they are completed, as the in-flight requests are checked for completion
+        for (Send send : this.initiatedSends) {
+            while (!send.completed())
+                send.writeTo(DISCARDING_CHANNEL);
+        }
         this.completedSends.addAll(this.initiatedSends);
         this.initiatedSends.clear();
         for (Send completedSend : completedSends) {
@@ -155,4 +164,36 @@ public class MockSelector implements Selectable {
     public boolean isChannelReady(String id) {
         return true;
     }
+
+    private static class DiscardingChannel implements GatheringByteChannel {
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) {
+            long written = 0;
+            for (int i = offset; i < offset + length; i++) {
+                written += srcs[i].remaining();
+                srcs[i].position(srcs[i].limit());
+            }
+            return written;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs) {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            int written = src.remaining();
+            src.position(src.limit());
+            return written;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {}
+    }
 }
@@ -21,6 +21,7 @@ package kafka.log
  * Configuration parameters for the log cleaner
  * 
  * @param numThreads The number of cleaner threads to run
+ * @param numThreadsPerLog The number of threads each cleaner thread uses to clean a single log
  * @param dedupeBufferSize The total memory used for log deduplication
  * @param dedupeBufferLoadFactor The maximum percent full for the deduplication buffer
  * @param maxMessageSize The maximum size of a message that can appear in the log
@@ -30,6 +31,7 @@ package kafka.log
  * @param hashAlgorithm The hash algorithm to use in key comparison.
  */
 case class CleanerConfig(numThreads: Int = 1,
+                         numThreadsPerLog: Int = 1,
                          dedupeBufferSize: Long = 4*1024*1024L,
                          dedupeBufferLoadFactor: Double = 0.9d,
                          ioBufferSize: Int = 1024*1024,
@@ -21,7 +21,7 @@ import java.io.{File, IOException}
 import java.nio.file.Files
 import java.text.NumberFormat
 import java.util.concurrent.atomic._
-import java.util.concurrent.{ConcurrentNavigableMap, ConcurrentSkipListMap, TimeUnit}
+import java.util.concurrent.{Callable, ConcurrentNavigableMap, ConcurrentSkipListMap, ExecutionException, Executor, FutureTask, TimeUnit}
 
 import kafka.api.KAFKA_0_10_0_IV0
 import kafka.common._
@@ -117,6 +117,8 @@ case class CompletedTxn(producerId: Long, firstOffset: Long, lastOffset: Long, i
  * @param time The time instance used for checking the clock
  * @param maxProducerIdExpirationMs The maximum amount of time to wait before a producer id is considered expired
  * @param producerIdExpirationCheckIntervalMs How often to check for producer ids which need to be expired
+ * @param recoveryExecutor Optionally an executor used to recover the unflushed segments of the log concurrently
+ *                         after an unclean shutdown
  */
 @threadsafe
 class Log(@volatile var dir: File,
@@ -127,7 +129,8 @@ class Log(@volatile var dir: File,
           brokerTopicStats: BrokerTopicStats,
           time: Time = Time.SYSTEM,
           val maxProducerIdExpirationMs: Int = 60 * 60 * 1000,
-          val producerIdExpirationCheckIntervalMs: Int = 10 * 60 * 1000) extends Logging with KafkaMetricsGroup {
+          val producerIdExpirationCheckIntervalMs: Int = 10 * 60 * 1000,
+          recoveryExecutor: Option[Executor] = None) extends Logging with KafkaMetricsGroup {
 
   import kafka.log.Log._
 
@@ -395,26 +398,77 @@ class Log(@volatile var dir: File,
       return
     }
 
-    // okay we need to actually recovery this log
-    val unflushed = logSegments(this.recoveryPoint, Long.MaxValue).iterator
-    while(unflushed.hasNext) {
-      val segment = unflushed.next
-      info("Recovering unflushed segment %d in log %s.".format(segment.baseOffset, name))
-      val truncatedBytes =
-        try {
-          recoverSegment(segment, Some(leaderEpochCache))
-        } catch {
-          case _: InvalidOffsetException =>
-            val startOffset = segment.baseOffset
-            warn("Found invalid offset during recovery for log " + dir.getName +". Deleting the corrupt segment and " +
-                 "creating an empty one with starting offset " + startOffset)
-            segment.truncateTo(startOffset)
-        }
-      if(truncatedBytes > 0) {
-        // we had an invalid message, delete all remaining log
-        warn("Corruption found in segment %d of log %s, truncating to offset %d.".format(segment.baseOffset, name,
-          segment.nextOffset()))
-        unflushed.foreach(deleteSegment)
+    // okay we need to actually recovery this log. Validating the batches and rebuilding the indexes is done for
+    // every unflushed segment at once, only the producer state has to be replayed one segment after the other.
+    val unflushed = logSegments(this.recoveryPoint, Long.MaxValue).toBuffer
+    val truncatedBytes = rebuildIndexes(unflushed)
+    val firstCorrupted = truncatedBytes.indexWhere(_ > 0)
+    val recovered = if (firstCorrupted < 0) unflushed else unflushed.take(firstCorrupted + 1)
+    if (firstCorrupted >= 0) {
+      // we had an invalid message, delete all remaining log
+      val segment = unflushed(firstCorrupted)
+      warn("Corruption found in segment %d of log %s, truncating to offset %d.".format(segment.baseOffset, name,
+        segment.nextOffset()))
+      unflushed.drop(firstCorrupted + 1).foreach(deleteSegment)
+    }
+    recoverProducerState(recovered)
+  }
+
+  /**
+   * Rebuild the indexes of the given segments, handing them to the recovery executor if there is one. The calling
+   * thread works through the segments as well, so that the recovery makes progress even if every thread of the
+   * executor is busy loading some other log.
+   *
+   * @return The number of bytes truncated from each of the segments
+   */
+  private def rebuildIndexes(segments: Seq[LogSegment]): Seq[Int] = {
+    val tasks = segments.map { segment =>
+      new FutureTask[Int](new Callable[Int] {
+        def call(): Int = rebuildSegmentIndexes(segment)
+      })
+    }
+    recoveryExecutor.foreach(executor => tasks.drop(1).foreach(executor.execute))
+    // running a task which has already been started by the executor is a no-op
+    tasks.foreach(_.run())
+    tasks.map { task =>
+      try task.get
+      catch {
+        case e: ExecutionException => throw e.getCause
+      }
+    }
+  }
+
+  private def rebuildSegmentIndexes(segment: LogSegment): Int = {
+    info("Recovering unflushed segment %d in log %s.".format(segment.baseOffset, name))
+    try {
+      segment.rebuildIndexes(config.maxMessageSize)
+    } catch {
+      case _: InvalidOffsetException =>
+        val startOffset = segment.baseOffset
+        warn("Found invalid offset during recovery for log " + dir.getName +". Deleting the corrupt segment and " +
+             "creating an empty one with starting offset " + startOffset)
+        segment.truncateTo(startOffset)
+    }
+  }
+
+  /**
+   * Replay the producer state of the given consecutive segments with a single producer state manager, taking a
+   * snapshot after each segment so that the state does not have to be rebuilt from the log again.
+   */
+  private def recoverProducerState(segments: Seq[LogSegment]): Unit = lock synchronized {
+    segments.headOption.foreach { firstSegment =>
+      val stateManager = new ProducerStateManager(topicPartition, dir, maxProducerIdExpirationMs)
+      stateManager.truncateAndReload(logStartOffset, firstSegment.baseOffset, time.milliseconds)
+      logSegments(stateManager.mapEndOffset, firstSegment.baseOffset).foreach { segment =>
+        val startOffset = math.max(segment.baseOffset, stateManager.mapEndOffset)
+        val fetchDataInfo = segment.read(startOffset, None, Int.MaxValue)
+        if (fetchDataInfo != null)
+          loadProducersFromLog(stateManager, fetchDataInfo.records)
+      }
+      segments.foreach { segment =>
+        stateManager.updateMapEndOffset(segment.baseOffset)
+        segment.recoverProducerState(stateManager, Some(leaderEpochCache))
+        stateManager.takeSnapshot()
       }
     }
   }
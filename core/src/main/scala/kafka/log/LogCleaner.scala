@@ -20,14 +20,15 @@ package kafka.log
 import java.io.File
 import java.nio._
 import java.util.Date
-import java.util.concurrent.{CountDownLatch, TimeUnit}
+import java.util.concurrent._
+import java.util.concurrent.atomic.{AtomicBoolean, AtomicInteger, AtomicLong}
 
 import com.yammer.metrics.core.Gauge
 import kafka.common._
 import kafka.metrics.KafkaMetricsGroup
 import kafka.utils._
 import org.apache.kafka.common.record._
-import org.apache.kafka.common.utils.Time
+import org.apache.kafka.common.utils.{KafkaThread, Time}
 import org.apache.kafka.common.TopicPartition
 import org.apache.kafka.common.record.MemoryRecords.RecordFilter
 
@@ -57,6 +58,10 @@ import scala.collection.JavaConverters._
  * 
  * Cleaned segments are swapped into the log as they become available.
  * 
+ * A cleaner thread can use additional helper threads to clean a single log. Both the offset map and the segment groups are then
+ * processed by all of them at once: the dirty segments are handed out in order and mapped into the shared offset map, which keeps the
+ * largest offset of every key, and the segment groups are recopied and swapped in independently of each other.
+ * 
  * One nuance that the cleaner must handle is log truncation. If a log is truncated while it is being cleaned the cleaning of that log is aborted.
  * 
  * Messages with null payload are treated as deletes for the purpose of log compaction. This means that they receive special treatment by the cleaner. 
@@ -197,12 +202,13 @@ class LogCleaner(val config: CleanerConfig,
     val cleaner = new Cleaner(id = threadId,
                               offsetMap = new SkimpyOffsetMap(memory = math.min(config.dedupeBufferSize / config.numThreads, Int.MaxValue).toInt, 
                                                               hashAlgorithm = config.hashAlgorithm),
-                              ioBufferSize = config.ioBufferSize / config.numThreads / 2,
+                              ioBufferSize = config.ioBufferSize / config.numThreads / config.numThreadsPerLog / 2,
                               maxIoBufferSize = config.maxMessageSize,
                               dupBufferLoadFactor = config.dedupeBufferLoadFactor,
                               throttler = throttler,
                               time = time,
-                              checkDone = checkDone)
+                              checkDone = checkDone,
+                              numThreads = config.numThreadsPerLog)
     
     @volatile var lastStats: CleanerStats = new CleanerStats()
     private val backOffWaitLatch = new CountDownLatch(1)
@@ -224,6 +230,7 @@ class LogCleaner(val config: CleanerConfig,
     	 initiateShutdown()
     	 backOffWaitLatch.countDown()
     	 awaitShutdown()
+    	 cleaner.shutdown()
      }
      
     /**
@@ -302,6 +309,8 @@ class LogCleaner(val config: CleanerConfig,
  * @param throttler The throttler instance to use for limiting I/O rate.
  * @param time The time instance
  * @param checkDone Check if the cleaning for a partition is finished or aborted.
+ * @param numThreads The number of threads cleaning a single log, including the thread calling this cleaner. Concurrent cleaning
+ *                   requires a SkimpyOffsetMap, other maps are always used by a single thread.
  */
 private[log] class Cleaner(val id: Int,
                            val offsetMap: OffsetMap,
@@ -310,7 +319,8 @@ private[log] class Cleaner(val id: Int,
                            dupBufferLoadFactor: Double,
                            throttler: Throttler,
                            time: Time,
-                           checkDone: (TopicPartition) => Unit) extends Logging {
+                           checkDone: (TopicPartition) => Unit,
+                           numThreads: Int = 1) extends Logging {
   
   override val loggerName = classOf[LogCleaner].getName
 
@@ -322,7 +332,33 @@ private[log] class Cleaner(val id: Int,
   /* buffer used for write i/o */
   private var writeBuffer = ByteBuffer.allocate(ioBufferSize)
 
+  /* decompression buffers reused across the batches read by this cleaner */
+  private val decompressionBufferSupplier = BufferSupplier.create()
+
   require(offsetMap.slots * dupBufferLoadFactor > 1, "offset map is too small to fit in even a single message, so log cleaning will never make progress. You can increase log.cleaner.dedupe.buffer.size or decrease log.cleaner.threads")
+  require(numThreads >= 1, "a log must be cleaned by at least one thread")
+
+  /* cleaners sharing the offset map and throttler of this one, each with its own i/o buffers, which clean parts of the same log */
+  private val helpers = (1 until numThreads).map { _ =>
+    new Cleaner(id, offsetMap, ioBufferSize, maxIoBufferSize, dupBufferLoadFactor, throttler, time, checkDone)
+  }
+
+  /* the threads the helpers run on, these are only busy while this cleaner is cleaning a log */
+  private val helperExecutor = if (helpers.isEmpty) None else Some(Executors.newFixedThreadPool(helpers.size, new ThreadFactory {
+    private val threadCount = new AtomicInteger(0)
+    override def newThread(runnable: Runnable): Thread =
+      new KafkaThread("kafka-log-cleaner-thread-" + id + "-helper-" + threadCount.incrementAndGet(), runnable, true)
+  }))
+
+  /**
+   * Stop the helper threads of this cleaner
+   */
+  def shutdown() {
+    helperExecutor.foreach { executor =>
+      executor.shutdown()
+      executor.awaitTermination(1, TimeUnit.MINUTES)
+    }
+  }
 
   /**
    * Clean the given log
@@ -362,8 +398,18 @@ private[log] class Cleaner(val id: Int,
 
     // group the segments and clean the groups
     info("Cleaning log %s (cleaning prior to %s, discarding tombstones prior to %s)...".format(log.name, new Date(cleanableHorizonMs), new Date(deleteHorizonMs)))
-    for (group <- groupSegmentsBySize(log.logSegments(0, endOffset), log.config.segmentSize, log.config.maxIndexSize))
-      cleanSegments(log, group, offsetMap, deleteHorizonMs, stats)
+    val groups = groupSegmentsBySize(log.logSegments(0, endOffset), log.config.segmentSize, log.config.maxIndexSize)
+    offsetMap match {
+      case map: SkimpyOffsetMap if helpers.nonEmpty && groups.size > 1 =>
+        // the groups are disjoint, so they can be recopied and swapped in by all the threads in any order
+        runConcurrently(groups.toIndexedSeq, stats) { (cleaner, group, cleanerStats) =>
+          cleaner.cleanSegments(log, group, new SkimpyOffsetMapReader(map), deleteHorizonMs, cleanerStats)
+          true
+        }
+      case _ =>
+        for (group <- groups)
+          cleanSegments(log, group, offsetMap, deleteHorizonMs, stats)
+    }
 
     // record buffer utilization
     stats.bufferUtilization = offsetMap.utilization
@@ -516,7 +562,7 @@ private[log] class Cleaner(val id: Int,
       source.log.readInto(readBuffer, position)
       val records = MemoryRecords.readableRecords(readBuffer)
       throttler.maybeThrottle(records.sizeInBytes)
-      val result = records.filterTo(logCleanerFilter, writeBuffer)
+      val result = records.filterTo(logCleanerFilter, writeBuffer, decompressionBufferSupplier)
       stats.readMessages(result.messagesRead, result.bytesRead)
       stats.recopyMessages(result.messagesRetained, result.bytesRetained)
 
@@ -655,6 +701,26 @@ private[log] class Cleaner(val id: Int,
     val dirty = log.logSegments(start, end).toBuffer
     info("Building offset map for log %s for %d segments in offset range [%d, %d).".format(log.name, dirty.size, start, end))
 
+    map match {
+      case skimpyMap: SkimpyOffsetMap if helpers.nonEmpty && dirty.size > 1 =>
+        if (!buildOffsetMapConcurrently(log, dirty, start, end, skimpyMap, stats)) {
+          // the other threads filled the map before anything could be added for the start of the dirty section
+          debug("Offset map for log %s filled up without making progress, rebuilding it on a single thread".format(log.name))
+          map.clear()
+          buildOffsetMapSequentially(log, dirty, start, end, map, stats)
+        }
+      case _ =>
+        buildOffsetMapSequentially(log, dirty, start, end, map, stats)
+    }
+    info("Offset map for log %s complete.".format(log.name))
+  }
+
+  private def buildOffsetMapSequentially(log: Log,
+                                         dirty: Seq[LogSegment],
+                                         start: Long,
+                                         end: Long,
+                                         map: OffsetMap,
+                                         stats: CleanerStats) {
     val abortedTransactions = log.collectAbortedTransactions(start, end)
     val transactionMetadata = CleanedTransactionMetadata(abortedTransactions)
 
@@ -669,7 +735,108 @@ private[log] class Cleaner(val id: Int,
       if (full)
         debug("Offset map is full, %d segments fully mapped, segment with base offset %d is partially mapped".format(dirty.indexOf(segment), segment.baseOffset))
     }
-    info("Offset map for log %s complete.".format(log.name))
+  }
+
+  /**
+   * Build the offset map using this cleaner and all of its helpers. The dirty segments are handed out in offset order and
+   * every thread adds the keys it reads to the shared map, which keeps the largest offset of each key. Once the map is full
+   * its latest offset is set just below the first offset that no thread could add, so the map covers a prefix of the dirty
+   * section as it would have when built sequentially. Entries for later offsets may also be present, which is safe since
+   * those records remain in the log.
+   *
+   * @return false if the map filled up before any part of the dirty section could be covered
+   */
+  private def buildOffsetMapConcurrently(log: Log,
+                                         dirty: Seq[LogSegment],
+                                         start: Long,
+                                         end: Long,
+                                         map: SkimpyOffsetMap,
+                                         stats: CleanerStats): Boolean = {
+    val segments = dirty.toIndexedSeq
+    val firstUnmappedOffset = new AtomicLong(Long.MaxValue)
+    def recordUnmappedOffset(unmappedOffset: Long) {
+      var current = firstUnmappedOffset.get
+      while (unmappedOffset < current && !firstUnmappedOffset.compareAndSet(current, unmappedOffset))
+        current = firstUnmappedOffset.get
+    }
+    // a segment handed out to a thread which then stopped since the map is full was not mapped at all, and it may come
+    // before the segment which filled up the map
+    def recordSkippedSegment(index: Int) {
+      recordUnmappedOffset(segments(index).baseOffset)
+    }
+    runConcurrently(segments.indices, stats, recordSkippedSegment) { (cleaner, index, cleanerStats) =>
+      val segment = segments(index)
+      val upperBoundOffset = if (index + 1 < segments.size) segments(index + 1).baseOffset else end
+      // each segment is read on its own, so it needs only the aborted transactions overlapping it
+      val abortedTransactions = log.collectAbortedTransactions(math.max(segment.baseOffset, start), upperBoundOffset)
+      val unmappedOffset = cleaner.buildOffsetMapForSegmentConcurrently(log.topicPartition, segment, map, start,
+        log.config.maxMessageSize, CleanedTransactionMetadata(abortedTransactions), cleanerStats)
+      if (unmappedOffset >= 0) {
+        recordUnmappedOffset(unmappedOffset)
+        debug("Offset map is full, segment with base offset %d is mapped up to offset %d".format(segment.baseOffset, unmappedOffset))
+        false
+      } else {
+        true
+      }
+    }
+
+    val unmappedOffset = firstUnmappedOffset.get
+    if (unmappedOffset != Long.MaxValue)
+      map.updateLatestOffset(unmappedOffset - 1)
+    unmappedOffset > start
+  }
+
+  /**
+   * Run the given function for the items on this cleaner and all of its helpers at once, handing out the items in order.
+   * No more items are handed out once the function returns false or throws for one of them. An item that was handed out to
+   * a thread which then found that the other threads are done is passed to `skipped` instead, whether it comes before or
+   * after the item that stopped them. Each thread collects its own statistics which are added to the given ones when all
+   * threads are done. The first error raised by any of the threads is rethrown.
+   */
+  private def runConcurrently[T](items: IndexedSeq[T], stats: CleanerStats, skipped: T => Unit = (_: T) => ())
+                                (process: (Cleaner, T, CleanerStats) => Boolean) {
+    val nextItem = new AtomicInteger(0)
+    val done = new AtomicBoolean(false)
+    def processItems(cleaner: Cleaner, cleanerStats: CleanerStats) {
+      try {
+        var index = nextItem.getAndIncrement()
+        while (index < items.size && !done.get) {
+          if (process(cleaner, items(index), cleanerStats)) {
+            index = nextItem.getAndIncrement()
+          } else {
+            done.set(true)
+            index = items.size
+          }
+        }
+        if (index < items.size)
+          skipped(items(index))
+      } catch {
+        case e: Throwable =>
+          done.set(true)
+          throw e
+      }
+    }
+
+    val helperStats = helpers.map(_ => new CleanerStats(time))
+    val futures = helpers.zip(helperStats).map { case (helper, helperStat) =>
+      helperExecutor.get.submit(new Callable[Unit] {
+        override def call(): Unit = processItems(helper, helperStat)
+      })
+    }
+    var error: Throwable = null
+    try processItems(this, stats)
+    catch {
+      case e: Throwable => error = e
+    }
+    for (future <- futures) {
+      try future.get()
+      catch {
+        case e: ExecutionException => if (error == null) error = e.getCause
+      }
+    }
+    helperStats.foreach(stats.add)
+    if (error != null)
+      throw error
   }
 
   /**
@@ -708,15 +875,18 @@ private[log] class Cleaner(val id: Int,
             // abort markers are supported in v2 and above, which means count is defined
             stats.indexMessagesRead(batch.countOrNull)
           } else {
-            for (record <- batch.asScala) {
-              if (record.hasKey && record.offset >= startOffset) {
-                if (map.size < maxDesiredMapSize)
-                  map.put(record.key, record.offset)
-                else
-                  return true
+            val recordsIterator = batch.streamingIterator(decompressionBufferSupplier)
+            try {
+              for (record <- recordsIterator.asScala) {
+                if (record.hasKey && record.offset >= startOffset) {
+                  if (map.size < maxDesiredMapSize)
+                    map.put(record.key, record.offset)
+                  else
+                    return true
+                }
+                stats.indexMessagesRead(1)
               }
-              stats.indexMessagesRead(1)
-            }
+            } finally recordsIterator.close()
           }
         }
 
@@ -734,6 +904,93 @@ private[log] class Cleaner(val id: Int,
     restoreBuffers()
     false
   }
+
+  /* key hashes and offsets of the batch being added to a shared offset map */
+  private var batchKeyHashes = new Array[Byte](0)
+  private var batchKeyOffsets = new Array[Long](0)
+
+  /**
+   * Add the messages in the given segment to an offset map which other threads are adding to at the same time. Keys are
+   * hashed without holding the lock of the map and each batch is then added at once.
+   *
+   * @param segment The segment to index
+   * @param map The map in which to store the key=>offset mapping
+   * @param stats Collector for cleaning statistics
+   *
+   * @return The offset of the first batch which could not be added since the map was full, or -1 if the whole segment was added
+   */
+  private def buildOffsetMapForSegmentConcurrently(topicPartition: TopicPartition,
+                                                   segment: LogSegment,
+                                                   map: SkimpyOffsetMap,
+                                                   startOffset: Long,
+                                                   maxLogMessageSize: Int,
+                                                   transactionMetadata: CleanedTransactionMetadata,
+                                                   stats: CleanerStats): Long = {
+    val digest = map.newDigest()
+    val hashSize = map.keyHashSize
+    var position = segment.index.lookup(startOffset).position
+    val maxDesiredMapSize = (map.slots * this.dupBufferLoadFactor).toInt
+    while (position < segment.log.sizeInBytes) {
+      checkDone(topicPartition)
+      readBuffer.clear()
+      segment.log.readInto(readBuffer, position)
+      val records = MemoryRecords.readableRecords(readBuffer)
+      throttler.maybeThrottle(records.sizeInBytes)
+
+      val startPosition = position
+      for (batch <- records.batches.asScala) {
+        var numKeys = 0
+        if (batch.isControlBatch) {
+          transactionMetadata.onControlBatchRead(batch)
+          stats.indexMessagesRead(1)
+        } else {
+          val isAborted = transactionMetadata.onBatchRead(batch)
+          if (isAborted) {
+            // abort markers are supported in v2 and above, which means count is defined
+            stats.indexMessagesRead(batch.countOrNull)
+          } else {
+            val recordsIterator = batch.streamingIterator(decompressionBufferSupplier)
+            try {
+              for (record <- recordsIterator.asScala) {
+                if (record.hasKey && record.offset >= startOffset) {
+                  if (numKeys == batchKeyOffsets.length) {
+                    val capacity = math.max(64, numKeys * 2)
+                    batchKeyHashes = java.util.Arrays.copyOf(batchKeyHashes, capacity * hashSize)
+                    batchKeyOffsets = java.util.Arrays.copyOf(batchKeyOffsets, capacity)
+                  }
+                  SkimpyOffsetMap.hashInto(digest, record.key, batchKeyHashes, numKeys * hashSize)
+                  batchKeyOffsets(numKeys) = record.offset
+                  numKeys += 1
+                }
+                stats.indexMessagesRead(1)
+              }
+            } finally recordsIterator.close()
+          }
+        }
+
+        map synchronized {
+          var i = 0
+          while (i < numKeys) {
+            if (map.size >= maxDesiredMapSize)
+              return math.max(batch.baseOffset, startOffset)
+            map.putIfGreater(batchKeyHashes, i * hashSize, batchKeyOffsets(i))
+            i += 1
+          }
+          if (batch.lastOffset >= startOffset)
+            map.updateLatestOffset(math.max(map.latestOffset, batch.lastOffset))
+        }
+      }
+      val bytesRead = records.validBytes
+      position += bytesRead
+      stats.indexBytesRead(bytesRead)
+
+      // if we didn't read even one complete message, our read buffer may be too small
+      if(position == startPosition)
+        growBuffers(maxLogMessageSize)
+    }
+    restoreBuffers()
+    -1L
+  }
 }
 
 /**
@@ -774,6 +1031,16 @@ private class CleanerStats(time: Time = Time.SYSTEM) {
     mapBytesRead += size
   }
 
+  def add(that: CleanerStats) {
+    bytesRead += that.bytesRead
+    bytesWritten += that.bytesWritten
+    mapBytesRead += that.mapBytesRead
+    mapMessagesRead += that.mapMessagesRead
+    messagesRead += that.messagesRead
+    invalidMessagesRead += that.invalidMessagesRead
+    messagesWritten += that.messagesWritten
+  }
+
   def indexDone() {
     mapCompleteTime = time.milliseconds
   }
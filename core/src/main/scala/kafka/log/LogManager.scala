@@ -177,7 +177,8 @@ class LogManager(val logDirs: Array[File],
             maxProducerIdExpirationMs = maxPidExpirationMs,
             scheduler = scheduler,
             time = time,
-            brokerTopicStats = brokerTopicStats)
+            brokerTopicStats = brokerTopicStats,
+            recoveryExecutor = Some(pool))
           if (logDir.getName.endsWith(Log.DeleteDirSuffix)) {
             this.logsToBeDeleted.add(current)
           } else {
@@ -586,6 +587,7 @@ object LogManager {
 
     // read the log configurations from zookeeper
     val cleanerConfig = CleanerConfig(numThreads = config.logCleanerThreads,
+      numThreadsPerLog = config.logCleanerThreadsPerLog,
       dedupeBufferSize = config.logCleanerDedupeBufferSize,
       dedupeBufferLoadFactor = config.logCleanerDedupeBufferLoadFactor,
       ioBufferSize = config.logCleanerIoBufferSize,
@@ -256,11 +256,26 @@ class LogSegment(val log: FileRecords,
   def recover(maxMessageSize: Int,
               producerStateManager: ProducerStateManager,
               leaderEpochCache: Option[LeaderEpochCache] = None): Int = {
+    val truncated = rebuildIndexes(maxMessageSize)
+    recoverProducerState(producerStateManager, leaderEpochCache)
+    truncated
+  }
+
+  /**
+   * The first half of `recover`: validate the batches of the log file, rebuild the offset and time indexes and lop
+   * off any invalid bytes from the end of the log and index. This does not depend on any other segment, so the
+   * segments of a log can be handled concurrently.
+   *
+   * @param maxMessageSize A bound the memory allocation in the case of a corrupt message size--we will assume any message larger than this
+   * is corrupt.
+   * @return The number of bytes truncated from the log
+   */
+  @nonthreadsafe
+  def rebuildIndexes(maxMessageSize: Int): Int = {
     index.truncate()
     index.resize(index.maxIndexSize)
     timeIndex.truncate()
     timeIndex.resize(timeIndex.maxIndexSize)
-    txnIndex.truncate()
     var validBytes = 0
     var lastIndexEntry = 0
     maxTimestampSoFar = RecordBatch.NO_TIMESTAMP
@@ -282,14 +297,6 @@ class LogSegment(val log: FileRecords,
           lastIndexEntry = validBytes
         }
         validBytes += batch.sizeInBytes()
-
-        if (batch.magic >= RecordBatch.MAGIC_VALUE_V2) {
-          leaderEpochCache.foreach { cache =>
-            if (batch.partitionLeaderEpoch > cache.latestEpoch()) // this is to avoid unnecessary warning in cache.assign()
-              cache.assign(batch.partitionLeaderEpoch, batch.baseOffset)
-          }
-          updateProducerState(producerStateManager, batch)
-        }
       }
     } catch {
       case e: CorruptRecordException =>
@@ -305,6 +312,30 @@ class LogSegment(val log: FileRecords,
     truncated
   }
 
+  /**
+   * The second half of `recover`: replay the batches of the segment into the producer state and the leader epoch
+   * cache and rebuild the transaction index. The batches are expected to have been validated by `rebuildIndexes`,
+   * and since the producer state of a segment depends on the segments before it, the segments of a log must be
+   * handled in order.
+   *
+   * @param producerStateManager Producer state corresponding to the segment's base offset.
+   * @param leaderEpochCache Optionally a cache for updating the leader epoch during recovery.
+   */
+  @nonthreadsafe
+  def recoverProducerState(producerStateManager: ProducerStateManager,
+                           leaderEpochCache: Option[LeaderEpochCache] = None): Unit = {
+    txnIndex.truncate()
+    for (batch <- log.batches.asScala) {
+      if (batch.magic >= RecordBatch.MAGIC_VALUE_V2) {
+        leaderEpochCache.foreach { cache =>
+          if (batch.partitionLeaderEpoch > cache.latestEpoch()) // this is to avoid unnecessary warning in cache.assign()
+            cache.assign(batch.partitionLeaderEpoch, batch.baseOffset)
+        }
+        updateProducerState(producerStateManager, batch)
+      }
+    }
+  }
+
   private def loadLargestTimestamp() {
     // Get the last time index entry. If the time index is empty, it will return (-1, baseOffset)
     val lastTimeIndexEntry = timeIndex.lastEntry
@@ -29,6 +29,11 @@ import scala.collection.JavaConverters._
 
 private[kafka] object LogValidator extends Logging {
 
+  // validation runs on the request handler threads, each of which reuses its own decompression buffers
+  private val decompressionBufferSupplier = new ThreadLocal[BufferSupplier] {
+    override def initialValue(): BufferSupplier = BufferSupplier.create()
+  }
+
   /**
    * Update the offsets for this message set and do further validation on messages including:
    * 1. Messages for compacted topics must have keys
@@ -231,26 +236,29 @@ private[kafka] object LogValidator extends Logging {
         if (sourceCodec == NoCompressionCodec && batch.isControlBatch)
           inPlaceAssignment = true
 
-        for (record <- batch.asScala) {
-          validateRecord(batch, record, now, timestampType, timestampDiffMaxMs, compactedTopic)
-          if (sourceCodec != NoCompressionCodec && record.isCompressed)
-            throw new InvalidRecordException("Compressed outer record should not have an inner record with a " +
-              s"compression attribute set: $record")
-          if (batch.magic > RecordBatch.MAGIC_VALUE_V0 && magic > RecordBatch.MAGIC_VALUE_V0) {
-            // Check if we need to overwrite offset
-            // No in place assignment situation 3
-            if (record.offset != expectedInnerOffset.getAndIncrement())
+        val recordsIterator = batch.streamingIterator(decompressionBufferSupplier.get)
+        try {
+          for (record <- recordsIterator.asScala) {
+            validateRecord(batch, record, now, timestampType, timestampDiffMaxMs, compactedTopic)
+            if (sourceCodec != NoCompressionCodec && record.isCompressed)
+              throw new InvalidRecordException("Compressed outer record should not have an inner record with a " +
+                s"compression attribute set: $record")
+            if (batch.magic > RecordBatch.MAGIC_VALUE_V0 && magic > RecordBatch.MAGIC_VALUE_V0) {
+              // Check if we need to overwrite offset
+              // No in place assignment situation 3
+              if (record.offset != expectedInnerOffset.getAndIncrement())
+                inPlaceAssignment = false
+              if (record.timestamp > maxTimestamp)
+                maxTimestamp = record.timestamp
+            }
+
+            // No in place assignment situation 4
+            if (!record.hasMagic(magic))
               inPlaceAssignment = false
-            if (record.timestamp > maxTimestamp)
-              maxTimestamp = record.timestamp
-          }
 
-          // No in place assignment situation 4
-          if (!record.hasMagic(magic))
-            inPlaceAssignment = false
-
-          validatedRecords += record
-        }
+            validatedRecords += record
+          }
+        } finally recordsIterator.close()
       }
 
       if (!inPlaceAssignment) {
@@ -107,6 +107,39 @@ class SkimpyOffsetMap(val memory: Int, val hashAlgorithm: String = "MD5") extend
     lastOffset = offset
     entries += 1
   }
+
+  /**
+   * Associate this offset to the given key hash unless the key is already mapped to a larger offset. This is used
+   * when several threads load the map at once and therefore do not add offsets in increasing order. Callers must
+   * hold the lock of this map while calling it.
+   * @param hashes The buffer holding the hash of the key, as computed by a digest from newDigest()
+   * @param hashOffset The position of the hash in the buffer
+   * @param offset The offset
+   */
+  private[log] def putIfGreater(hashes: Array[Byte], hashOffset: Int, offset: Long) {
+    require(entries < slots, "Attempt to add a new entry to a full offset map.")
+    lookups += 1
+    System.arraycopy(hashes, hashOffset, hash1, 0, hashSize)
+    var attempt = 0
+    var pos = positionOf(hash1, attempt)
+    while(!isEmpty(pos)) {
+      bytes.position(pos)
+      bytes.get(hash2)
+      if(Arrays.equals(hash1, hash2)) {
+        if(bytes.getLong(pos + hashSize) < offset)
+          bytes.putLong(pos + hashSize, offset)
+        lastOffset = math.max(lastOffset, offset)
+        return
+      }
+      attempt += 1
+      pos = positionOf(hash1, attempt)
+    }
+    bytes.position(pos)
+    bytes.put(hash1)
+    bytes.putLong(offset)
+    lastOffset = math.max(lastOffset, offset)
+    entries += 1
+  }
   
   /**
    * Check that there is no entry at the given position
@@ -140,6 +173,39 @@ class SkimpyOffsetMap(val memory: Int, val hashAlgorithm: String = "MD5") extend
     } while(!Arrays.equals(hash1, hash2))
     bytes.getLong()
   }
+
+  /**
+   * Get the offset associated with the given key hash. Unlike get() this does not modify any state of the map, so
+   * any number of threads can call it at once as long as no thread is adding entries at the same time.
+   * @param hash The hash of the key, as computed by a digest from newDigest()
+   * @param scratch A buffer of the hash size owned by the calling thread
+   * @return The offset associated with this key or -1 if the key is not found
+   */
+  private[log] def getByHash(hash: Array[Byte], scratch: Array[Byte]): Long = {
+    var attempt = 0
+    var pos = 0
+    val maxAttempts = slots + hashSize - 4
+    do {
+      if(attempt >= maxAttempts)
+        return -1L
+      pos = probePosition(hash, attempt)
+      if(isEmpty(pos))
+        return -1L
+      System.arraycopy(bytes.array, bytes.arrayOffset + pos, scratch, 0, hashSize)
+      attempt += 1
+    } while(!Arrays.equals(hash, scratch))
+    bytes.getLong(pos + hashSize)
+  }
+
+  /**
+   * Create a digest for the hash algorithm of this map, for threads which hash keys themselves
+   */
+  private[log] def newDigest(): MessageDigest = MessageDigest.getInstance(hashAlgorithm)
+
+  /**
+   * The number of bytes in the hash of a key
+   */
+  private[log] def keyHashSize: Int = hashSize
   
   /**
    * Change the salt used for key hashing making all existing keys unfindable.
@@ -180,9 +246,13 @@ class SkimpyOffsetMap(val memory: Int, val hashAlgorithm: String = "MD5") extend
    * @return The byte offset in the buffer at which the ith probing for the given hash would reside
    */
   private def positionOf(hash: Array[Byte], attempt: Int): Int = {
+    this.probes += 1
+    probePosition(hash, attempt)
+  }
+
+  private def probePosition(hash: Array[Byte], attempt: Int): Int = {
     val probe = CoreUtils.readInt(hash, math.min(attempt, hashSize - 4)) + math.max(0, attempt - hashSize + 4)
     val slot = Utils.abs(probe) % slots
-    this.probes += 1
     slot * bytesPerEntry
   }
   
@@ -192,10 +262,50 @@ class SkimpyOffsetMap(val memory: Int, val hashAlgorithm: String = "MD5") extend
    * @param buffer The buffer to store the hash into
    */
   private def hashInto(key: ByteBuffer, buffer: Array[Byte]) {
+    SkimpyOffsetMap.hashInto(digest, key, buffer, 0)
+  }
+  
+}
+
+object SkimpyOffsetMap {
+
+  /**
+   * Hash the given key into the buffer at the given position without changing the position of the key
+   */
+  private[log] def hashInto(digest: MessageDigest, key: ByteBuffer, buffer: Array[Byte], position: Int) {
     key.mark()
     digest.update(key)
     key.reset()
-    digest.digest(buffer, 0, hashSize)
+    digest.digest(buffer, position, digest.getDigestLength)
   }
-  
+
+}
+
+/**
+ * A read-only view of a SkimpyOffsetMap which has been fully built. Each view hashes keys with its own digest and
+ * buffers, so every thread looking up keys concurrently needs a view of its own.
+ * @param map The underlying map
+ */
+@nonthreadsafe
+private[log] class SkimpyOffsetMapReader(map: SkimpyOffsetMap) extends OffsetMap {
+  private val digest = map.newDigest()
+  private val hash = new Array[Byte](map.keyHashSize)
+  private val scratch = new Array[Byte](map.keyHashSize)
+
+  override def slots: Int = map.slots
+
+  override def put(key: ByteBuffer, offset: Long): Unit = throw new UnsupportedOperationException("The offset map view is read-only")
+
+  override def get(key: ByteBuffer): Long = {
+    SkimpyOffsetMap.hashInto(digest, key, hash, 0)
+    map.getByHash(hash, scratch)
+  }
+
+  override def updateLatestOffset(offset: Long): Unit = throw new UnsupportedOperationException("The offset map view is read-only")
+
+  override def clear(): Unit = throw new UnsupportedOperationException("The offset map view is read-only")
+
+  override def size: Int = map.size
+
+  override def latestOffset: Long = map.latestOffset
 }
@@ -19,11 +19,11 @@ package kafka.server
 
 import java.util.concurrent._
 import java.util.concurrent.atomic._
-import java.util.concurrent.locks.ReentrantReadWriteLock
+import java.util.concurrent.locks.ReentrantLock
 
 import com.yammer.metrics.core.Gauge
 import kafka.metrics.KafkaMetricsGroup
-import kafka.utils.CoreUtils.{inReadLock, inWriteLock}
+import kafka.utils.CoreUtils.inLock
 import kafka.utils._
 import kafka.utils.timer._
 
@@ -47,6 +47,11 @@ abstract class DelayedOperation(override val delayMs: Long) extends TimerTask wi
 
   private val completed = new AtomicBoolean(false)
 
+  // the keys the operation is watched on and the purgatory to tell once it completes, so that only the watcher lists of
+  // these keys are purged of it
+  @volatile private[server] var watchKeys: Seq[Any] = Nil
+  @volatile private[server] var completionListener: DelayedOperation => Unit = null
+
   /*
    * Force completing the delayed operation, if not already completed.
    * This function can be triggered when
@@ -63,6 +68,9 @@ abstract class DelayedOperation(override val delayMs: Long) extends TimerTask wi
     if (completed.compareAndSet(false, true)) {
       // cancel the timeout timer
       cancel()
+      val listener = completionListener
+      if (listener != null)
+        listener(this)
       onComplete()
       true
     } else {
@@ -116,6 +124,8 @@ abstract class DelayedOperation(override val delayMs: Long) extends TimerTask wi
 
 object DelayedOperationPurgatory {
 
+  private val Shards = 512 // Shard the watcher list to reduce lock contention
+
   def apply[T <: DelayedOperation](purgatoryName: String,
                                    brokerId: Int = 0,
                                    purgeInterval: Int = 1000,
@@ -137,12 +147,29 @@ final class DelayedOperationPurgatory[T <: DelayedOperation](purgatoryName: Stri
         extends Logging with KafkaMetricsGroup {
 
   /* a list of operation watching keys */
-  private val watchersForKey = new Pool[Any, Watchers](Some((key: Any) => new Watchers(key)))
+  private class WatcherList {
+    val watchersByKey = new Pool[Any, Watchers](Some((key: Any) => new Watchers(key)))
+
+    val watchersLock = new ReentrantLock()
 
-  private val removeWatchersLock = new ReentrantReadWriteLock()
+    /*
+     * Return all the current watcher lists,
+     * note that the returned watchers may be removed from the list by other threads
+     */
+    def allWatchers = {
+      watchersByKey.values
+    }
+  }
 
-  // the number of estimated total operations in the purgatory
-  private[this] val estimatedTotalOperations = new AtomicInteger(0)
+  private val watcherLists = Array.fill[WatcherList](DelayedOperationPurgatory.Shards)(new WatcherList)
+  private def watcherList(key: Any): WatcherList = {
+    watcherLists(math.abs(key.hashCode % watcherLists.length))
+  }
+
+  // the operations which completed after being watched, whose keys have to be purged of them
+  private[this] val completedWatchedOperations = new ConcurrentLinkedQueue[DelayedOperation]()
+  private[this] val numCompletedWatchedOperations = new AtomicInteger(0)
+  private[this] val completionListener = (operation: DelayedOperation) => markCompletedWatched(operation)
 
   /* background thread expiring operations that have timed out */
   private val expirationReaper = new ExpiredOperationReaper()
@@ -165,6 +192,10 @@ final class DelayedOperationPurgatory[T <: DelayedOperation](purgatoryName: Stri
     metricsTags
   )
 
+  // uniform histograms are updated without locking, unlike the biased ones
+  private val tryCompleteElseWatchTimeHist = newHistogram("TryCompleteElseWatchTimeNs", biased = false, metricsTags)
+  private val checkAndCompleteTimeHist = newHistogram("CheckAndCompleteTimeNs", biased = false, metricsTags)
+
   if (reaperEnabled)
     expirationReaper.start()
 
@@ -184,6 +215,13 @@ final class DelayedOperationPurgatory[T <: DelayedOperation](purgatoryName: Stri
   def tryCompleteElseWatch(operation: T, watchKeys: Seq[Any]): Boolean = {
     assert(watchKeys.nonEmpty, "The watch key list can't be empty")
 
+    val startNs = System.nanoTime
+    try doTryCompleteElseWatch(operation, watchKeys)
+    finally tryCompleteElseWatchTimeHist.update(System.nanoTime - startNs)
+  }
+
+  private def doTryCompleteElseWatch(operation: T, watchKeys: Seq[Any]): Boolean = {
+
     // The cost of tryComplete() is typically proportional to the number of keys. Calling
     // tryComplete() for each key is going to be expensive if there are many keys. Instead,
     // we do the check in the following way. Call tryComplete(). If the operation is not completed,
@@ -198,17 +236,16 @@ final class DelayedOperationPurgatory[T <: DelayedOperation](purgatoryName: Stri
     if (isCompletedByMe)
       return true
 
-    var watchCreated = false
+    operation.watchKeys = watchKeys
+    operation.completionListener = completionListener
     for(key <- watchKeys) {
-      // If the operation is already completed, stop adding it to the rest of the watcher list.
-      if (operation.isCompleted)
+      // If the operation is already completed, stop adding it to the rest of the watcher list. It may have completed
+      // before it was added to the previous key, so its keys are purged once more.
+      if (operation.isCompleted) {
+        markCompletedWatched(operation)
         return false
-      watchForOperation(key, operation)
-
-      if (!watchCreated) {
-        watchCreated = true
-        estimatedTotalOperations.incrementAndGet()
       }
+      watchForOperation(key, operation)
     }
 
     isCompletedByMe = operation.safeTryComplete()
@@ -222,11 +259,19 @@ final class DelayedOperationPurgatory[T <: DelayedOperation](purgatoryName: Stri
         // cancel the timer task
         operation.cancel()
       }
+    } else {
+      // completed by another thread, possibly before it was added to the last key
+      markCompletedWatched(operation)
     }
 
     false
   }
 
+  private def markCompletedWatched(operation: DelayedOperation) {
+    completedWatchedOperations.add(operation)
+    numCompletedWatchedOperations.incrementAndGet()
+  }
+
   /**
    * Check if some delayed operations can be completed with the given watch key,
    * and if yes complete them.
@@ -234,11 +279,16 @@ final class DelayedOperationPurgatory[T <: DelayedOperation](purgatoryName: Stri
    * @return the number of completed operations during this process
    */
   def checkAndComplete(key: Any): Int = {
-    val watchers = inReadLock(removeWatchersLock) { watchersForKey.get(key) }
+    // the lookup does not need the lock of the watcher list: a list is only removed once it is empty and operations
+    // are never added to a removed list, so at worst we find a list which has no operations to complete
+    val watchers = watcherList(key).watchersByKey.get(key)
     if(watchers == null)
       0
-    else
-      watchers.tryCompleteWatched()
+    else {
+      val startNs = System.nanoTime
+      try watchers.tryCompleteWatched()
+      finally checkAndCompleteTimeHist.update(System.nanoTime - startNs)
+    }
   }
 
   /**
@@ -254,27 +304,30 @@ final class DelayedOperationPurgatory[T <: DelayedOperation](purgatoryName: Stri
   def delayed: Int = timeoutTimer.size
 
   def cancelForKey(key: Any): List[T] = {
-    inWriteLock(removeWatchersLock) {
-      val watchers = watchersForKey.remove(key)
+    val wl = watcherList(key)
+    inLock(wl.watchersLock) {
+      val watchers = wl.watchersByKey.remove(key)
       if (watchers != null)
         watchers.cancel()
       else
         Nil
     }
   }
+
   /*
    * Return all the current watcher lists,
    * note that the returned watchers may be removed from the list by other threads
    */
-  private def allWatchers = inReadLock(removeWatchersLock) { watchersForKey.values }
+  private def allWatchers = watcherLists.iterator.flatMap(_.allWatchers)
 
   /*
    * Return the watch list of the given key, note that we need to
-   * grab the removeWatchersLock to avoid the operation being added to a removed watcher list
+   * grab the lock of its watcher list to avoid the operation being added to a removed watcher list
    */
   private def watchForOperation(key: Any, operation: T) {
-    inReadLock(removeWatchersLock) {
-      val watcher = watchersForKey.getAndMaybePut(key)
+    val wl = watcherList(key)
+    inLock(wl.watchersLock) {
+      val watcher = wl.watchersByKey.getAndMaybePut(key)
       watcher.watch(operation)
     }
   }
@@ -283,13 +336,14 @@ final class DelayedOperationPurgatory[T <: DelayedOperation](purgatoryName: Stri
    * Remove the key from watcher lists if its list is empty
    */
   private def removeKeyIfEmpty(key: Any, watchers: Watchers) {
-    inWriteLock(removeWatchersLock) {
+    val wl = watcherList(key)
+    inLock(wl.watchersLock) {
       // if the current key is no longer correlated to the watchers to remove, skip
-      if (watchersForKey.get(key) != watchers)
+      if (wl.watchersByKey.get(key) != watchers)
         return
 
       if (watchers != null && watchers.isEmpty) {
-        watchersForKey.remove(key)
+        wl.watchersByKey.remove(key)
       }
     }
   }
@@ -376,16 +430,21 @@ final class DelayedOperationPurgatory[T <: DelayedOperation](purgatoryName: Stri
   def advanceClock(timeoutMs: Long) {
     timeoutTimer.advanceClock(timeoutMs)
 
-    // Trigger a purge if the number of completed but still being watched operations is larger than
-    // the purge threshold. That number is computed by the difference btw the estimated total number of
-    // operations and the number of pending delayed operations.
-    if (estimatedTotalOperations.get - delayed > purgeInterval) {
-      // now set estimatedTotalOperations to delayed (the number of pending operations) since we are going to
-      // clean up watchers. Note that, if more operations are completed during the clean up, we may end up with
-      // a little overestimated total number of operations.
-      estimatedTotalOperations.getAndSet(delayed)
-      debug("Begin purging watch lists")
-      val purged = allWatchers.map(_.purgeCompleted()).sum
+    // Trigger a purge if the number of completed but possibly still watched operations is larger than
+    // the purge threshold. Only the watcher lists of the keys of these operations are purged, rather than all of them.
+    if (numCompletedWatchedOperations.get > purgeInterval) {
+      val keys = mutable.Set[Any]()
+      var operation = completedWatchedOperations.poll()
+      while (operation != null) {
+        numCompletedWatchedOperations.decrementAndGet()
+        keys ++= operation.watchKeys
+        operation = completedWatchedOperations.poll()
+      }
+      debug("Begin purging watch lists of %d keys".format(keys.size))
+      val purged = keys.iterator.map { key =>
+        val watchers = watcherList(key).watchersByKey.get(key)
+        if (watchers == null) 0 else watchers.purgeCompleted()
+      }.sum
       debug("Purged %d elements from watch lists.".format(purged))
     }
   }
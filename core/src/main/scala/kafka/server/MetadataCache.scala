@@ -17,7 +17,7 @@
 
 package kafka.server
 
-import java.util.concurrent.locks.ReentrantReadWriteLock
+import java.util.concurrent.ConcurrentHashMap
 
 import scala.collection.{Seq, Set, mutable}
 import scala.collection.JavaConverters._
@@ -25,7 +25,6 @@ import kafka.cluster.{Broker, EndPoint}
 import kafka.api._
 import kafka.common.{BrokerEndPointNotAvailableException, TopicAndPartition}
 import kafka.controller.{KafkaController, LeaderIsrAndControllerEpoch}
-import kafka.utils.CoreUtils._
 import kafka.utils.Logging
 import org.apache.kafka.common.internals.Topic
 import org.apache.kafka.common.{Node, TopicPartition}
@@ -36,24 +35,27 @@ import org.apache.kafka.common.requests.{MetadataResponse, PartitionState, Updat
 /**
  *  A cache for the state (e.g., current leader) of each partition. This cache is updated through
  *  UpdateMetadataRequest from the controller. Every broker maintains the same cache, asynchronously.
+ *
+ *  The state is held in an immutable MetadataSnapshot. An update builds a new snapshot from the current one and
+ *  publishes it atomically, so readers never take a lock and each read sees a consistent view of the metadata.
  */
 class MetadataCache(brokerId: Int) extends Logging {
   private val stateChangeLogger = KafkaController.stateChangeLogger
-  private val cache = mutable.Map[String, mutable.Map[Int, PartitionStateInfo]]()
-  private var controllerId: Option[Int] = None
-  private val aliveBrokers = mutable.Map[Int, Broker]()
-  private val aliveNodes = mutable.Map[Int, collection.Map[ListenerName, Node]]()
-  private val partitionMetadataLock = new ReentrantReadWriteLock()
+  // updates are serialized by this lock, reads only dereference the current snapshot
+  private val updateLock = new Object
+  @volatile private var metadataSnapshot = new MetadataSnapshot(partitionStates = Map.empty, controllerId = None,
+    aliveBrokers = Map.empty, aliveNodes = Map.empty)
 
   this.logIdent = s"[Kafka Metadata Cache on broker $brokerId] "
 
   // This method is the main hotspot when it comes to the performance of metadata requests,
   // we should be careful about adding additional logic here.
   // filterUnavailableEndpoints exists to support v0 MetadataResponses
-  private def getEndpoints(brokers: Iterable[Int], listenerName: ListenerName, filterUnavailableEndpoints: Boolean): Seq[Node] = {
-    val result = new mutable.ArrayBuffer[Node](math.min(aliveBrokers.size, brokers.size))
+  private def getEndpoints(snapshot: MetadataSnapshot, brokers: Iterable[Int], listenerName: ListenerName,
+                           filterUnavailableEndpoints: Boolean): Seq[Node] = {
+    val result = new mutable.ArrayBuffer[Node](math.min(snapshot.aliveBrokers.size, brokers.size))
     brokers.foreach { brokerId =>
-      val endpoint = getAliveEndpoint(brokerId, listenerName) match {
+      val endpoint = getAliveEndpoint(snapshot, brokerId, listenerName) match {
         case None => if (!filterUnavailableEndpoints) Some(new Node(brokerId, "", -1)) else None
         case Some(node) => Some(node)
       }
@@ -63,16 +65,17 @@ class MetadataCache(brokerId: Int) extends Logging {
   }
 
   // errorUnavailableEndpoints exists to support v0 MetadataResponses
-  private def getPartitionMetadata(topic: String, listenerName: ListenerName, errorUnavailableEndpoints: Boolean): Option[Iterable[MetadataResponse.PartitionMetadata]] = {
-    cache.get(topic).map { partitions =>
+  private def getPartitionMetadata(snapshot: MetadataSnapshot, topic: String, listenerName: ListenerName,
+                                   errorUnavailableEndpoints: Boolean): Option[Iterable[MetadataResponse.PartitionMetadata]] = {
+    snapshot.partitionStates.get(topic).map { partitions =>
       partitions.map { case (partitionId, partitionState) =>
         val topicPartition = TopicAndPartition(topic, partitionId)
 
         val leaderAndIsr = partitionState.leaderIsrAndControllerEpoch.leaderAndIsr
-        val maybeLeader = getAliveEndpoint(leaderAndIsr.leader, listenerName)
+        val maybeLeader = getAliveEndpoint(snapshot, leaderAndIsr.leader, listenerName)
 
         val replicas = partitionState.allReplicas
-        val replicaInfo = getEndpoints(replicas, listenerName, errorUnavailableEndpoints)
+        val replicaInfo = getEndpoints(snapshot, replicas, listenerName, errorUnavailableEndpoints)
 
         maybeLeader match {
           case None =>
@@ -82,7 +85,7 @@ class MetadataCache(brokerId: Int) extends Logging {
 
           case Some(leader) =>
             val isr = leaderAndIsr.isr
-            val isrInfo = getEndpoints(isr, listenerName, errorUnavailableEndpoints)
+            val isrInfo = getEndpoints(snapshot, isr, listenerName, errorUnavailableEndpoints)
 
             if (replicaInfo.size < replicas.size) {
               debug(s"Error while fetching metadata for $topicPartition: replica information not available for " +
@@ -105,90 +108,75 @@ class MetadataCache(brokerId: Int) extends Logging {
   }
 
   def getAliveEndpoint(brokerId: Int, listenerName: ListenerName): Option[Node] =
-    aliveNodes.get(brokerId).map { nodeMap =>
+    getAliveEndpoint(metadataSnapshot, brokerId, listenerName)
+
+  private def getAliveEndpoint(snapshot: MetadataSnapshot, brokerId: Int, listenerName: ListenerName): Option[Node] =
+    snapshot.aliveNodes.get(brokerId).map { nodeMap =>
       nodeMap.getOrElse(listenerName,
         throw new BrokerEndPointNotAvailableException(s"Broker `$brokerId` does not have listener with name `$listenerName`"))
     }
 
   // errorUnavailableEndpoints exists to support v0 MetadataResponses
   def getTopicMetadata(topics: Set[String], listenerName: ListenerName, errorUnavailableEndpoints: Boolean = false): Seq[MetadataResponse.TopicMetadata] = {
-    inReadLock(partitionMetadataLock) {
-      topics.toSeq.flatMap { topic =>
-        getPartitionMetadata(topic, listenerName, errorUnavailableEndpoints).map { partitionMetadata =>
-          new MetadataResponse.TopicMetadata(Errors.NONE, topic, Topic.isInternal(topic), partitionMetadata.toBuffer.asJava)
+    val snapshot = metadataSnapshot
+    val topicMetadataCache = snapshot.topicMetadataCache(listenerName, errorUnavailableEndpoints)
+    topics.toSeq.flatMap { topic =>
+      val cachedTopicMetadata = topicMetadataCache.get(topic)
+      if (cachedTopicMetadata != null)
+        Some(cachedTopicMetadata)
+      else
+        getPartitionMetadata(snapshot, topic, listenerName, errorUnavailableEndpoints).map { partitionMetadata =>
+          val topicMetadata = new MetadataResponse.TopicMetadata(Errors.NONE, topic, Topic.isInternal(topic),
+            partitionMetadata.toBuffer.asJava)
+          topicMetadataCache.putIfAbsent(topic, topicMetadata)
+          topicMetadata
         }
-      }
     }
   }
 
-  def getAllTopics(): Set[String] = {
-    inReadLock(partitionMetadataLock) {
-      cache.keySet.toSet
-    }
-  }
+  def getAllTopics(): Set[String] = metadataSnapshot.partitionStates.keySet
 
   def getNonExistingTopics(topics: Set[String]): Set[String] = {
-    inReadLock(partitionMetadataLock) {
-      topics -- cache.keySet
-    }
+    val partitionStates = metadataSnapshot.partitionStates
+    topics.filterNot(partitionStates.contains)
   }
 
-  def isBrokerAlive(brokerId: Int): Boolean = {
-    inReadLock(partitionMetadataLock) {
-      aliveBrokers.contains(brokerId)
-    }
-  }
+  def isBrokerAlive(brokerId: Int): Boolean = metadataSnapshot.aliveBrokers.contains(brokerId)
 
-  def getAliveBrokers: Seq[Broker] = {
-    inReadLock(partitionMetadataLock) {
-      aliveBrokers.values.toBuffer
-    }
-  }
+  def getAliveBrokers: Seq[Broker] = metadataSnapshot.aliveBrokers.values.toBuffer
 
-  private def addOrUpdatePartitionInfo(topic: String,
-                                       partitionId: Int,
-                                       stateInfo: PartitionStateInfo) {
-    inWriteLock(partitionMetadataLock) {
-      val infos = cache.getOrElseUpdate(topic, mutable.Map())
-      infos(partitionId) = stateInfo
-    }
-  }
-
-  def getPartitionInfo(topic: String, partitionId: Int): Option[PartitionStateInfo] = {
-    inReadLock(partitionMetadataLock) {
-      cache.get(topic).flatMap(_.get(partitionId))
-    }
-  }
+  def getPartitionInfo(topic: String, partitionId: Int): Option[PartitionStateInfo] =
+    metadataSnapshot.partitionStates.get(topic).flatMap(_.get(partitionId))
 
   def getPartitionLeaderEndpoint(topic: String, partitionId: Int, listenerName: ListenerName): Option[Node] = {
-    inReadLock(partitionMetadataLock) {
-      cache.get(topic).flatMap(_.get(partitionId)) match {
-        case Some(partitionInfo) =>
-          val leaderId = partitionInfo.leaderIsrAndControllerEpoch.leaderAndIsr.leader
-          try {
-            getAliveEndpoint(leaderId, listenerName)
-          } catch {
-            case e: BrokerEndPointNotAvailableException =>
-              None
-          }
-
-        case None =>
-          None
-      }
+    val snapshot = metadataSnapshot
+    snapshot.partitionStates.get(topic).flatMap(_.get(partitionId)) match {
+      case Some(partitionInfo) =>
+        val leaderId = partitionInfo.leaderIsrAndControllerEpoch.leaderAndIsr.leader
+        try {
+          getAliveEndpoint(snapshot, leaderId, listenerName)
+        } catch {
+          case e: BrokerEndPointNotAvailableException =>
+            None
+        }
+
+      case None =>
+        None
     }
   }
 
-  def getControllerId: Option[Int] = controllerId
+  def getControllerId: Option[Int] = metadataSnapshot.controllerId
 
   // This method returns the deleted TopicPartitions received from UpdateMetadataRequest
   def updateCache(correlationId: Int, updateMetadataRequest: UpdateMetadataRequest): Seq[TopicPartition] = {
-    inWriteLock(partitionMetadataLock) {
-      controllerId = updateMetadataRequest.controllerId match {
+    updateLock synchronized {
+      val snapshot = metadataSnapshot
+      val controllerId = updateMetadataRequest.controllerId match {
           case id if id < 0 => None
           case id => Some(id)
         }
-      aliveNodes.clear()
-      aliveBrokers.clear()
+      val aliveBrokers = Map.newBuilder[Int, Broker]
+      val aliveNodes = Map.newBuilder[Int, collection.Map[ListenerName, Node]]
       updateMetadataRequest.liveBrokers.asScala.foreach { broker =>
         // `aliveNodes` is a hot path for metadata requests for large clusters, so we use java.util.HashMap which
         // is a bit faster than scala.collection.mutable.HashMap. When we drop support for Scala 2.10, we could
@@ -199,26 +187,39 @@ class MetadataCache(brokerId: Int) extends Logging {
           endPoints += EndPoint(ep.host, ep.port, ep.listenerName, ep.securityProtocol)
           nodes.put(ep.listenerName, new Node(broker.id, ep.host, ep.port))
         }
-        aliveBrokers(broker.id) = Broker(broker.id, endPoints, Option(broker.rack))
-        aliveNodes(broker.id) = nodes.asScala
+        aliveBrokers += broker.id -> Broker(broker.id, endPoints, Option(broker.rack))
+        aliveNodes += broker.id -> nodes.asScala
       }
 
+      // the partition states of the topics touched by this request, the states of all other topics are shared
+      // with the previous snapshot
+      val updatedTopics = mutable.Map[String, Map[Int, PartitionStateInfo]]()
+      def partitionStatesOf(topic: String): Map[Int, PartitionStateInfo] =
+        updatedTopics.getOrElse(topic, snapshot.partitionStates.getOrElse(topic, Map.empty))
+
       val deletedPartitions = new mutable.ArrayBuffer[TopicPartition]
       updateMetadataRequest.partitionStates.asScala.foreach { case (tp, info) =>
         val controllerId = updateMetadataRequest.controllerId
         val controllerEpoch = updateMetadataRequest.controllerEpoch
         if (info.leader == LeaderAndIsr.LeaderDuringDelete) {
-          removePartitionInfo(tp.topic, tp.partition)
+          updatedTopics(tp.topic) = partitionStatesOf(tp.topic) - tp.partition
           stateChangeLogger.trace(s"Broker $brokerId deleted partition $tp from metadata cache in response to UpdateMetadata " +
             s"request sent by controller $controllerId epoch $controllerEpoch with correlation id $correlationId")
           deletedPartitions += tp
         } else {
           val partitionInfo = partitionStateToPartitionStateInfo(info)
-          addOrUpdatePartitionInfo(tp.topic, tp.partition, partitionInfo)
+          updatedTopics(tp.topic) = partitionStatesOf(tp.topic).updated(tp.partition, partitionInfo)
           stateChangeLogger.trace(s"Broker $brokerId cached leader info $partitionInfo for partition $tp in response to " +
             s"UpdateMetadata request sent by controller $controllerId epoch $controllerEpoch with correlation id $correlationId")
         }
       }
+
+      val (deletedTopics, remainingTopics) = updatedTopics.partition { case (_, partitionStates) => partitionStates.isEmpty }
+      metadataSnapshot = new MetadataSnapshot(
+        partitionStates = snapshot.partitionStates -- deletedTopics.keys ++ remainingTopics,
+        controllerId = controllerId,
+        aliveBrokers = aliveBrokers.result(),
+        aliveNodes = aliveNodes.result())
       deletedPartitions
     }
   }
@@ -229,18 +230,31 @@ class MetadataCache(brokerId: Int) extends Logging {
     PartitionStateInfo(leaderInfo, partitionState.replicas.asScala.map(_.toInt))
   }
 
-  def contains(topic: String): Boolean = {
-    inReadLock(partitionMetadataLock) {
-      cache.contains(topic)
-    }
-  }
+  def contains(topic: String): Boolean = metadataSnapshot.partitionStates.contains(topic)
 
-  private def removePartitionInfo(topic: String, partitionId: Int): Boolean = {
-    cache.get(topic).map { infos =>
-      infos.remove(partitionId)
-      if (infos.isEmpty) cache.remove(topic)
-      true
-    }.getOrElse(false)
-  }
+}
+
+/**
+ * An immutable view of the metadata cache. The topic metadata served to each listener is built at most once per
+ * snapshot and then shared by all the metadata requests answered from it.
+ */
+private[server] class MetadataSnapshot(val partitionStates: Map[String, Map[Int, PartitionStateInfo]],
+                                       val controllerId: Option[Int],
+                                       val aliveBrokers: Map[Int, Broker],
+                                       val aliveNodes: Map[Int, collection.Map[ListenerName, Node]]) {
 
+  private val topicMetadataByListener = new ConcurrentHashMap[ListenerName, ConcurrentHashMap[String, MetadataResponse.TopicMetadata]]()
+  // v0 metadata requests report unavailable endpoints as errors, so they cannot share the topic metadata of newer versions
+  private val topicMetadataWithErrorsByListener = new ConcurrentHashMap[ListenerName, ConcurrentHashMap[String, MetadataResponse.TopicMetadata]]()
+
+  def topicMetadataCache(listenerName: ListenerName, errorUnavailableEndpoints: Boolean): ConcurrentHashMap[String, MetadataResponse.TopicMetadata] = {
+    val byListener = if (errorUnavailableEndpoints) topicMetadataWithErrorsByListener else topicMetadataByListener
+    val topicMetadata = byListener.get(listenerName)
+    if (topicMetadata != null)
+      topicMetadata
+    else {
+      byListener.putIfAbsent(listenerName, new ConcurrentHashMap[String, MetadataResponse.TopicMetadata]())
+      byListener.get(listenerName)
+    }
+  }
 }
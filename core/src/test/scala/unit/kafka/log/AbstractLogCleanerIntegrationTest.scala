@@ -73,6 +73,7 @@ abstract class AbstractLogCleanerIntegrationTest {
   def makeCleaner(partitions: Iterable[TopicPartition],
                   minCleanableDirtyRatio: Float = defaultMinCleanableDirtyRatio,
                   numThreads: Int = 1,
+                  numThreadsPerLog: Int = 1,
                   backOffMs: Long = 15000L,
                   maxMessageSize: Int = defaultMaxMessageSize,
                   compactionLag: Long = defaultCompactionLag,
@@ -104,6 +105,7 @@ abstract class AbstractLogCleanerIntegrationTest {
 
     val cleanerConfig = CleanerConfig(
       numThreads = numThreads,
+      numThreadsPerLog = numThreadsPerLog,
       ioBufferSize = maxMessageSize / 2,
       maxMessageSize = maxMessageSize,
       backOffMs = backOffMs)
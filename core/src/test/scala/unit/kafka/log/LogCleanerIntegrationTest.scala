@@ -87,6 +87,20 @@ class LogCleanerIntegrationTest(compressionCodec: String) extends AbstractLogCle
     assertFalse(checkpoints.contains(topicPartitions(0)))
   }
 
+  @Test
+  def testCleanerWithThreadsPerLog(): Unit = {
+    cleaner = makeCleaner(partitions = topicPartitions.take(1), numThreadsPerLog = 3)
+    val log = cleaner.logs.get(topicPartitions(0))
+
+    val appends = writeDups(numKeys = 100, numDups = 3, log = log, codec = codec)
+    val startSize = log.size
+    cleaner.startup()
+
+    val firstDirty = log.activeSegment.baseOffset
+    checkLastCleaned("log", 0, firstDirty)
+    checkLogAfterAppendingDups(log, startSize, appends)
+  }
+
   @Test
   def testCleansCombinedCompactAndDeleteTopic(): Unit = {
     val logProps  = new Properties()
@@ -299,6 +299,82 @@ class LogCleanerTest extends JUnitSuite {
                (0 until leo.toInt by 2).forall(!keys.contains(_)))
   }
 
+  /**
+   * Test cleaning a log using several threads
+   */
+  @Test
+  def testConcurrentCleaning(): Unit = {
+    val cleaner = makeConcurrentCleaner(numThreads = 3)
+    try {
+      val log = makeLog()
+
+      // append the same keys over and over again so that the log spans many segments
+      while(log.numberOfSegments < 10)
+        log.appendAsLeader(record(log.logEndOffset.toInt % 20, log.logEndOffset.toInt), leaderEpoch = 0)
+      val expectedOffsets = latestOffsetsByKey(log, log.activeSegment.baseOffset)
+
+      val (endOffset, stats) = cleaner.clean(LogToClean(new TopicPartition("test", 0), log, 0, log.activeSegment.baseOffset))
+      assertEquals(log.activeSegment.baseOffset, endOffset)
+      assertEquals("Only the latest record of every key should remain", expectedOffsets.size, stats.messagesWritten)
+      assertEquals(expectedOffsets, latestOffsetsByKey(log, endOffset))
+      assertEquals(expectedOffsets.size, log.logSegments(0, endOffset).map(_.log.records.asScala.size).sum)
+    } finally {
+      cleaner.shutdown()
+    }
+  }
+
+  /**
+   * Test that an offset map built by several threads covers a prefix of the dirty section when it fills up
+   */
+  @Test
+  def testConcurrentPartialOffsetMap(): Unit = {
+    // room for 40 entries, of which 30 can be used with a load factor of 0.75
+    val cleaner = makeConcurrentCleaner(numThreads = 3, offsetMapMemory = 40 * 24)
+    try {
+      val log = makeLog()
+      while(log.numberOfSegments < 10)
+        log.appendAsLeader(record(log.logEndOffset.toInt, log.logEndOffset.toInt), leaderEpoch = 0)
+
+      val map = cleaner.offsetMap
+      cleaner.buildOffsetMap(log, 0, log.activeSegment.baseOffset, map, new CleanerStats())
+      val endOffset = map.latestOffset + 1
+      assertTrue("The map should cover part of the dirty section", endOffset > 0 && endOffset < log.activeSegment.baseOffset)
+      assertTrue(map.size <= 30)
+      for (offset <- offsetsInLog(log) if offset < endOffset)
+        assertEquals("Every key below the end offset should be mapped", offset, map.get(key(offset.toInt)))
+    } finally {
+      cleaner.shutdown()
+    }
+  }
+
+  /**
+   * Test that an offset map filled up by many threads at once never claims to cover a segment that a thread was handed
+   * but skipped once another thread filled up the map
+   */
+  @Test
+  def testConcurrentPartialOffsetMapWithManyThreads(): Unit = {
+    // room for 40 entries, of which 30 can be used with a load factor of 0.75
+    val cleaner = makeConcurrentCleaner(numThreads = 8, offsetMapMemory = 40 * 24)
+    try {
+      val logProps = new Properties()
+      logProps.put(LogConfig.SegmentBytesProp, 256: java.lang.Integer)
+      val log = makeLog(config = LogConfig.fromProps(logConfig.originals, logProps))
+      while(log.numberOfSegments < 40)
+        log.appendAsLeader(record(log.logEndOffset.toInt, log.logEndOffset.toInt), leaderEpoch = 0)
+
+      val map = cleaner.offsetMap
+      for (_ <- 0 until 50) {
+        cleaner.buildOffsetMap(log, 0, log.activeSegment.baseOffset, map, new CleanerStats())
+        val endOffset = map.latestOffset + 1
+        assertTrue("The map should cover part of the dirty section", endOffset > 0 && endOffset < log.activeSegment.baseOffset)
+        for (offset <- offsetsInLog(log) if offset < endOffset)
+          assertEquals("Every key below the end offset should be mapped", offset, map.get(key(offset.toInt)))
+      }
+    } finally {
+      cleaner.shutdown()
+    }
+  }
+
   def testLogCleanerStats(): Unit = {
     // because loadFactor is 0.75, this means we can fit 2 messages in the map
     val cleaner = makeCleaner(2)
@@ -532,6 +608,13 @@ class LogCleanerTest extends JUnitSuite {
   def offsetsInLog(log: Log): Iterable[Long] =
     log.logSegments.flatMap(s => s.log.records.asScala.filter(_.hasValue).filter(_.hasKey).map(m => m.offset))
 
+  /* extract the largest offset of every key below the given offset from a log */
+  def latestOffsetsByKey(log: Log, endOffset: Long): Map[Int, Long] = {
+    val records = for (segment <- log.logSegments(0, endOffset); record <- segment.log.records.asScala if record.offset < endOffset)
+      yield TestUtils.readString(record.key).toInt -> record.offset
+    records.groupBy(_._1).map { case (key, offsets) => key -> offsets.map(_._2).max }
+  }
+
   def unkeyedMessageCountInLog(log: Log) =
     log.logSegments.map(s => s.log.records.asScala.filter(_.hasValue).count(m => !m.hasKey)).sum
 
@@ -990,6 +1073,17 @@ class LogCleanerTest extends JUnitSuite {
                 time = time,
                 checkDone = checkDone)
 
+  private def makeConcurrentCleaner(numThreads: Int, offsetMapMemory: Int = 64*1024, maxMessageSize: Int = 64*1024) =
+    new Cleaner(id = 0,
+                offsetMap = new SkimpyOffsetMap(offsetMapMemory),
+                ioBufferSize = maxMessageSize,
+                maxIoBufferSize = maxMessageSize,
+                dupBufferLoadFactor = 0.75,
+                throttler = throttler,
+                time = time,
+                checkDone = noOpCheckDone,
+                numThreads = numThreads)
+
   private def writeToLog(log: Log, seq: Iterable[(Int, Int)]): Iterable[Long] = {
     for((key, value) <- seq)
       yield log.appendAsLeader(record(key, value), leaderEpoch = 0).firstOffset
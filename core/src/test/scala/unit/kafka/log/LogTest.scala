@@ -20,6 +20,7 @@ package kafka.log
 import java.io._
 import java.nio.ByteBuffer
 import java.util.Properties
+import java.util.concurrent.{Executor, Executors}
 
 import org.apache.kafka.common.errors._
 import kafka.api.ApiVersion
@@ -2318,6 +2319,69 @@ class LogTest {
     assertEquals(List(new AbortedTxn(pid1, 0L, 29L, 8L), new AbortedTxn(pid2, 8L, 74L, 36L)), abortedTransactions)
   }
 
+  @Test
+  def testRecoverTransactionIndexConcurrently(): Unit = {
+    val log = createLog(128)
+    val epoch = 0.toShort
+
+    val pid1 = 1L
+    val pid2 = 2L
+
+    val appendPid1 = appendTransactionalAsLeader(log, pid1, epoch)
+    val appendPid2 = appendTransactionalAsLeader(log, pid2, epoch)
+
+    appendPid1(5) // nextOffset: 5
+    appendNonTransactionalAsLeader(log, 3) // 8
+    appendPid2(2) // 10
+    appendPid1(4) // 14
+    appendEndTxnMarkerAsLeader(log, pid1, epoch, ControlRecordType.ABORT) // 15
+    appendPid2(6) // 21
+    appendNonTransactionalAsLeader(log, 10) // 31
+    appendEndTxnMarkerAsLeader(log, pid2, epoch, ControlRecordType.ABORT) // 32
+    appendNonTransactionalAsLeader(log, 10) // 42
+
+    // delete all the offset and transaction index files to force recovery
+    log.logSegments.foreach { segment =>
+      segment.index.delete()
+      segment.txnIndex.delete()
+    }
+    log.close()
+
+    val executor = Executors.newFixedThreadPool(4)
+    try {
+      val reloadedLog = createLog(1024, recoveryExecutor = Some(executor))
+      assertEquals(42L, reloadedLog.logEndOffset)
+      val abortedTransactions = allAbortedTransactions(reloadedLog)
+      assertEquals(List(new AbortedTxn(pid1, 0L, 14L, 8L), new AbortedTxn(pid2, 8L, 31L, 32L)), abortedTransactions)
+    } finally {
+      executor.shutdown()
+    }
+  }
+
+  @Test
+  def testConcurrentRecoveryTruncatesAfterCorruptedSegment(): Unit = {
+    val log = createLog(128)
+    for (_ <- 0 until 40)
+      log.appendAsLeader(TestUtils.singletonRecords(value = "test".getBytes, timestamp = time.milliseconds), leaderEpoch = 0)
+    assertTrue("Should have several segments", log.numberOfSegments > 3)
+    val corruptedSegment = log.logSegments.toSeq(1)
+    val expectedEndOffset = corruptedSegment.nextOffset()
+    log.close()
+
+    // corrupt the second segment by appending random bytes, the rest of the log must be dropped on recovery
+    TestUtils.appendNonsenseToFile(corruptedSegment.log.file, TestUtils.random.nextInt(1024) + 1)
+    logDir.listFiles.filter(_.getName.endsWith(Log.PidSnapshotFileSuffix)).foreach(_.delete())
+
+    val executor = Executors.newFixedThreadPool(4)
+    try {
+      val reloadedLog = createLog(128, recoveryExecutor = Some(executor))
+      assertEquals(expectedEndOffset, reloadedLog.logEndOffset)
+      assertEquals(2, reloadedLog.numberOfSegments)
+    } finally {
+      executor.shutdown()
+    }
+  }
+
   @Test
   def testRecoverOnlyLastSegment(): Unit = {
     val log = createLog(128)
@@ -2578,7 +2642,7 @@ class LogTest {
   private def createLog(messageSizeInBytes: Int, retentionMs: Int = -1, retentionBytes: Int = -1,
                         cleanupPolicy: String = "delete", messagesPerSegment: Int = 5,
                         maxPidExpirationMs: Int = 300000, pidExpirationCheckIntervalMs: Int = 30000,
-                        recoveryPoint: Long = 0L): Log = {
+                        recoveryPoint: Long = 0L, recoveryExecutor: Option[Executor] = None): Log = {
     val logProps = new Properties()
     logProps.put(LogConfig.SegmentBytesProp, messageSizeInBytes * messagesPerSegment: Integer)
     logProps.put(LogConfig.RetentionMsProp, retentionMs: Integer)
@@ -2594,7 +2658,8 @@ class LogTest {
       brokerTopicStats = brokerTopicStats,
       time = time,
       maxProducerIdExpirationMs = maxPidExpirationMs,
-      producerIdExpirationCheckIntervalMs = pidExpirationCheckIntervalMs)
+      producerIdExpirationCheckIntervalMs = pidExpirationCheckIntervalMs,
+      recoveryExecutor = recoveryExecutor)
   }
 
   private def allAbortedTransactions(log: Log) = log.logSegments.flatMap(_.txnIndex.allAbortedTxns)
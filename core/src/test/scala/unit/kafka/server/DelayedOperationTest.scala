@@ -17,6 +17,9 @@
 
 package kafka.server
 
+import java.util.concurrent.{Callable, Executors}
+
+import kafka.utils.timer.SystemTimer
 import org.apache.kafka.common.utils.Time
 import org.junit.{After, Before, Test}
 import org.junit.Assert._
@@ -99,6 +102,35 @@ class DelayedOperationTest {
     assertEquals("Purgatory should have 1 watched elements instead of " + purgatory.watched, 1, purgatory.watched)
   }
 
+  @Test
+  def testPurgeOnlyWatchListsOfCompletedOperations() {
+    val purgingPurgatory = new DelayedOperationPurgatory[MockDelayedOperation]("purging", new SystemTimer("purging"),
+      purgeInterval = 1, reaperEnabled = false)
+    try {
+      val r1 = new MockDelayedOperation(100000L)
+      val r2 = new MockDelayedOperation(100000L)
+      val r3 = new MockDelayedOperation(100000L)
+      purgingPurgatory.tryCompleteElseWatch(r1, Array("test1", "test2"))
+      purgingPurgatory.tryCompleteElseWatch(r2, Array("test2", "test3"))
+      purgingPurgatory.tryCompleteElseWatch(r3, Array("test3"))
+      assertEquals(5, purgingPurgatory.watched)
+
+      // completing a single operation does not reach the purge interval yet
+      r1.completable = true
+      r1.tryComplete()
+      purgingPurgatory.advanceClock(0L)
+      assertEquals(5, purgingPurgatory.watched)
+
+      r2.completable = true
+      r2.tryComplete()
+      purgingPurgatory.advanceClock(0L)
+      assertEquals("Only r3 should remain watched", 1, purgingPurgatory.watched)
+      assertEquals(1, purgingPurgatory.delayed)
+    } finally {
+      purgingPurgatory.shutdown()
+    }
+  }
+
   @Test
   def shouldCancelForKeyReturningCancelledOperations() {
     purgatory.tryCompleteElseWatch(new MockDelayedOperation(10000L), Seq("key"))
@@ -117,6 +149,42 @@ class DelayedOperationTest {
     assertEquals(Nil, cancelledOperations)
   }
 
+  @Test
+  def testConcurrentWatchAndComplete() {
+    val numThreads = 4
+    val numKeys = 1000
+    val operations = (0 until numKeys).map(_ => new MockDelayedOperation(100000L))
+    val executor = Executors.newFixedThreadPool(numThreads)
+    try {
+      // watch every operation on its own key and a key shared with other operations, from several threads at once
+      val watches = (0 until numThreads).map { thread =>
+        executor.submit(new Runnable {
+          override def run(): Unit = {
+            for (i <- thread until numKeys by numThreads)
+              purgatory.tryCompleteElseWatch(operations(i), Seq(s"key$i", s"shared${i % 10}"))
+          }
+        })
+      }
+      watches.foreach(_.get)
+      assertEquals(numKeys, purgatory.delayed)
+      assertEquals(2 * numKeys, purgatory.watched)
+
+      operations.foreach(_.completable = true)
+      val completions = (0 until numThreads).map { thread =>
+        executor.submit(new Callable[Int] {
+          override def call(): Int = (thread until numKeys by numThreads).map(i => purgatory.checkAndComplete(s"key$i")).sum
+        })
+      }
+      assertEquals(numKeys, completions.map(_.get).sum)
+      assertEquals(0, purgatory.delayed)
+      assertEquals("Nothing should be left to complete on the shared keys", 0,
+        (0 until 10).map(i => purgatory.checkAndComplete(s"shared$i")).sum)
+      assertEquals(0, purgatory.watched)
+    } finally {
+      executor.shutdownNow()
+    }
+  }
+
 
 
   class MockDelayedOperation(delayMs: Long) extends DelayedOperation(delayMs) {
@@ -19,6 +19,7 @@ package kafka.server
 import java.util
 import util.Arrays.asList
 
+import kafka.api.LeaderAndIsr
 import kafka.common.BrokerEndPointNotAvailableException
 import org.apache.kafka.common.TopicPartition
 import org.apache.kafka.common.network.ListenerName
@@ -324,4 +325,62 @@ class MetadataCacheTest {
     assertEquals(initialBrokerIds, aliveBrokersFromCache.map(_.id).toSet)
   }
 
+  @Test
+  def getTopicMetadataShouldBeReusedUntilUpdateCache() {
+    val topic = "topic"
+    val cache = new MetadataCache(1)
+    val securityProtocol = SecurityProtocol.PLAINTEXT
+    val listenerName = ListenerName.forSecurityProtocol(securityProtocol)
+
+    def updateCache(leader: Int) {
+      val brokers = Set(new Broker(0, Seq(new EndPoint("foo", 9092, securityProtocol, listenerName)).asJava, null))
+      val partitionStates = Map(
+        new TopicPartition(topic, 0) -> new PartitionState(1, leader, 0, asList(0), 3, asSet(0)))
+      val version = ApiKeys.UPDATE_METADATA_KEY.latestVersion
+      val updateMetadataRequest = new UpdateMetadataRequest.Builder(version, 2, 1, partitionStates.asJava,
+        brokers.asJava).build()
+      cache.updateCache(15, updateMetadataRequest)
+    }
+
+    updateCache(leader = 0)
+    val topicMetadata = cache.getTopicMetadata(Set(topic), listenerName).head
+    assertSame(topicMetadata, cache.getTopicMetadata(Set(topic), listenerName).head)
+    assertNotSame(topicMetadata, cache.getTopicMetadata(Set(topic), listenerName, errorUnavailableEndpoints = true).head)
+    assertEquals(Errors.NONE, topicMetadata.partitionMetadata.get(0).error)
+
+    updateCache(leader = 1)
+    val updatedTopicMetadata = cache.getTopicMetadata(Set(topic), listenerName).head
+    assertNotSame(topicMetadata, updatedTopicMetadata)
+    assertEquals(Errors.LEADER_NOT_AVAILABLE, updatedTopicMetadata.partitionMetadata.get(0).error)
+  }
+
+  @Test
+  def updateCacheShouldRemoveDeletedPartitions() {
+    val topic = "topic"
+    val cache = new MetadataCache(1)
+    val securityProtocol = SecurityProtocol.PLAINTEXT
+    val listenerName = ListenerName.forSecurityProtocol(securityProtocol)
+    val brokers = Set(new Broker(0, Seq(new EndPoint("foo", 9092, securityProtocol, listenerName)).asJava, null))
+    val version = ApiKeys.UPDATE_METADATA_KEY.latestVersion
+
+    def updateCache(partitionStates: Map[TopicPartition, PartitionState]) {
+      val updateMetadataRequest = new UpdateMetadataRequest.Builder(version, 2, 1, partitionStates.asJava,
+        brokers.asJava).build()
+      cache.updateCache(15, updateMetadataRequest)
+    }
+
+    updateCache(Map(
+      new TopicPartition(topic, 0) -> new PartitionState(1, 0, 0, asList(0), 3, asSet(0)),
+      new TopicPartition(topic, 1) -> new PartitionState(1, 0, 0, asList(0), 3, asSet(0))))
+    assertEquals(Set(topic), cache.getAllTopics())
+
+    updateCache(Map(new TopicPartition(topic, 0) -> new PartitionState(1, LeaderAndIsr.LeaderDuringDelete, 0, asList(0), 3, asSet(0))))
+    assertTrue(cache.getPartitionInfo(topic, 0).isEmpty)
+    assertTrue(cache.getPartitionInfo(topic, 1).isDefined)
+
+    updateCache(Map(new TopicPartition(topic, 1) -> new PartitionState(1, LeaderAndIsr.LeaderDuringDelete, 0, asList(0), 3, asSet(0))))
+    assertFalse(cache.contains(topic))
+    assertEquals(Set(topic), cache.getNonExistingTopics(Set(topic)))
+  }
+
 }
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kafka.jmh.metrics;
+
+import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.common.metrics.Sensor;
+import org.apache.kafka.common.metrics.stats.Avg;
+import org.apache.kafka.common.metrics.stats.Count;
+import org.apache.kafka.common.metrics.stats.Max;
+import org.apache.kafka.common.metrics.stats.Percentile;
+import org.apache.kafka.common.metrics.stats.Percentiles;
+import org.apache.kafka.common.metrics.stats.Rate;
+import org.apache.kafka.common.metrics.stats.Total;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures recording into a sensor which is shared by several threads, together with its parent sensor, as is the
+ * case for the producer's per-topic sensors or the broker's request metrics.
+ *
+ * With only the common stats the sensor is recorded without locking, adding percentiles makes every record take
+ * the sensor's lock.
+ */
+@State(Scope.Benchmark)
+@Threads(4)
+public class SensorBenchmark {
+
+    @Param({"false", "true"})
+    public boolean withPercentiles;
+
+    private Metrics metrics;
+    private Sensor sensor;
+    private double value;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        metrics = new Metrics();
+        Sensor parent = metrics.sensor("parent");
+        parent.add(metrics.metricName("parent-rate", "benchmark"), new Rate());
+        parent.add(metrics.metricName("parent-total", "benchmark"), new Total());
+
+        sensor = metrics.sensor("child", parent);
+        sensor.add(metrics.metricName("child-avg", "benchmark"), new Avg());
+        sensor.add(metrics.metricName("child-max", "benchmark"), new Max());
+        sensor.add(metrics.metricName("child-count", "benchmark"), new Count());
+        sensor.add(metrics.metricName("child-rate", "benchmark"), new Rate());
+        if (withPercentiles)
+            sensor.add(new Percentiles(4000, 1000.0, Percentiles.BucketSizing.CONSTANT,
+                new Percentile(metrics.metricName("child-p99", "benchmark"), 99.0)));
+        value = 42.0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        metrics.close();
+    }
+
+    @Benchmark
+    public void record() {
+        sensor.record(value);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(SensorBenchmark.class.getSimpleName())
+                .forks(2)
+                .build();
+
+        new Runner(opt).run();
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.jmh.record;
+
+import org.apache.kafka.common.record.BufferSupplier;
+import org.apache.kafka.common.record.CompressionType;
+import org.apache.kafka.common.record.MemoryRecords;
+import org.apache.kafka.common.record.MemoryRecordsBuilder;
+import org.apache.kafka.common.record.MutableRecordBatch;
+import org.apache.kafka.common.record.Record;
+import org.apache.kafka.common.record.RecordBatch;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.utils.CloseableIterator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Compresses a batch of records as the producer does, and reads it back as the consumer does.
+ */
+@State(Scope.Benchmark)
+public class RecordBatchCompressionBenchmark {
+
+    @Param({"LZ4"})
+    public CompressionType compressionType;
+
+    @Param({"10", "1000"})
+    public int recordsPerBatch;
+
+    private final byte[][] values = new byte[16][];
+    private final BufferSupplier bufferSupplier = BufferSupplier.create();
+    private ByteBuffer batchBuffer;
+    private MemoryRecords records;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(0);
+        for (int i = 0; i < values.length; i++) {
+            // half random, half repeated bytes, so that the records compress somewhat
+            values[i] = new byte[100];
+            for (int j = 0; j < 50; j++)
+                values[i][j] = (byte) random.nextInt();
+        }
+        batchBuffer = ByteBuffer.allocate(recordsPerBatch * 200 + 1024);
+        records = compress();
+    }
+
+    @Benchmark
+    public MemoryRecords compress() {
+        batchBuffer.clear();
+        MemoryRecordsBuilder builder = MemoryRecords.builder(batchBuffer, RecordBatch.MAGIC_VALUE_V2, compressionType,
+                TimestampType.CREATE_TIME, 0L);
+        for (int i = 0; i < recordsPerBatch; i++)
+            builder.append(1000L + i, null, values[i % values.length]);
+        return builder.build();
+    }
+
+    @Benchmark
+    public void decompress(Blackhole bh) {
+        for (MutableRecordBatch batch : records.batches()) {
+            try (CloseableIterator<Record> iterator = batch.streamingIterator(bufferSupplier)) {
+                while (iterator.hasNext())
+                    bh.consume(iterator.next());
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(RecordBatchCompressionBenchmark.class.getSimpleName())
+                .forks(2)
+                .build();
+
+        new Runner(opt).run();
+    }
+
+}
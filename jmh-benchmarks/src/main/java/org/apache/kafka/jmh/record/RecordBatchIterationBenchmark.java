@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.jmh.record;
+
+import org.apache.kafka.common.record.BufferSupplier;
+import org.apache.kafka.common.record.CompressionType;
+import org.apache.kafka.common.record.MemoryRecords;
+import org.apache.kafka.common.record.MemoryRecordsBuilder;
+import org.apache.kafka.common.record.MutableRecordBatch;
+import org.apache.kafka.common.record.Record;
+import org.apache.kafka.common.record.RecordBatch;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.utils.CloseableIterator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Iterates many small compressed batches, with and without reusing the decompression buffers. The allocation rate
+ * is reported by running with the GC profiler, e.g. <code>-prof gc</code>.
+ */
+@State(Scope.Benchmark)
+public class RecordBatchIterationBenchmark {
+
+    private static final int BATCH_COUNT = 100;
+
+    @Param({"LZ4", "GZIP", "SNAPPY"})
+    public CompressionType compressionType;
+
+    @Param({"NO_CACHING", "CREATE"})
+    public String bufferSupplierStr;
+
+    @Param({"1", "10"})
+    public int recordsPerBatch;
+
+    private MemoryRecords records;
+    private BufferSupplier bufferSupplier;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(0);
+        ByteBuffer buffer = ByteBuffer.allocate(BATCH_COUNT * recordsPerBatch * 200);
+        long offset = 0;
+        for (int i = 0; i < BATCH_COUNT; i++) {
+            MemoryRecordsBuilder builder = MemoryRecords.builder(buffer, RecordBatch.MAGIC_VALUE_V2, compressionType,
+                    TimestampType.CREATE_TIME, offset);
+            for (int j = 0; j < recordsPerBatch; j++) {
+                byte[] value = new byte[100];
+                random.nextBytes(value);
+                builder.append(System.currentTimeMillis(), null, value);
+                offset++;
+            }
+            builder.close();
+        }
+        buffer.flip();
+        records = MemoryRecords.readableRecords(buffer);
+
+        if (bufferSupplierStr.equals("NO_CACHING"))
+            bufferSupplier = BufferSupplier.NO_CACHING;
+        else if (bufferSupplierStr.equals("CREATE"))
+            bufferSupplier = BufferSupplier.create();
+        else
+            throw new IllegalArgumentException("Unsupported buffer supplier " + bufferSupplierStr);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        bufferSupplier.close();
+    }
+
+    @Benchmark
+    public void streamingIteratorOverBatches(Blackhole bh) {
+        for (MutableRecordBatch batch : records.batches()) {
+            try (CloseableIterator<Record> iterator = batch.streamingIterator(bufferSupplier)) {
+                while (iterator.hasNext())
+                    bh.consume(iterator.next());
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(RecordBatchIterationBenchmark.class.getSimpleName())
+                .forks(2)
+                .build();
+
+        new Runner(opt).run();
+    }
+
+}
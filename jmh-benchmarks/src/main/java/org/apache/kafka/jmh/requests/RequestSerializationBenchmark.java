@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.jmh.requests;
+
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.protocol.ApiKeys;
+import org.apache.kafka.common.protocol.Errors;
+import org.apache.kafka.common.record.CompressionType;
+import org.apache.kafka.common.record.MemoryRecords;
+import org.apache.kafka.common.record.RecordBatch;
+import org.apache.kafka.common.record.SimpleRecord;
+import org.apache.kafka.common.requests.AbstractRequestResponse;
+import org.apache.kafka.common.requests.FetchRequest;
+import org.apache.kafka.common.requests.MetadataResponse;
+import org.apache.kafka.common.requests.ProduceRequest;
+import org.apache.kafka.common.requests.RequestHeader;
+import org.apache.kafka.common.requests.ResponseHeader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares reading and writing produce and fetch requests and metadata responses directly from and to a buffer with
+ * going through the generic {@link org.apache.kafka.common.protocol.types.Struct} based path.
+ */
+@State(Scope.Benchmark)
+public class RequestSerializationBenchmark {
+
+    private static final int PARTITIONS_PER_TOPIC = 10;
+
+    @Param({"10", "500"})
+    public int numTopics;
+
+    private final RequestHeader produceHeader = new RequestHeader(ApiKeys.PRODUCE.id, (short) 3, "benchmark", 1);
+    private final RequestHeader fetchHeader = new RequestHeader(ApiKeys.FETCH.id, (short) 5, "benchmark", 1);
+    private final ResponseHeader responseHeader = new ResponseHeader(1);
+    private final short metadataVersion = ApiKeys.METADATA.latestVersion();
+
+    private ProduceRequest produceRequest;
+    private FetchRequest fetchRequest;
+    private MetadataResponse metadataResponse;
+    private ByteBuffer produceBuffer;
+    private ByteBuffer fetchBuffer;
+    private ByteBuffer metadataBuffer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Map<TopicPartition, MemoryRecords> produceData = new HashMap<>();
+        LinkedHashMap<TopicPartition, FetchRequest.PartitionData> fetchData = new LinkedHashMap<>();
+        List<Node> brokers = new ArrayList<>();
+        for (int i = 0; i < 5; i++)
+            brokers.add(new Node(i, "broker-" + i + ".example.com", 9092, "rack-" + i % 3));
+        List<MetadataResponse.TopicMetadata> topicMetadata = new ArrayList<>();
+
+        for (int topic = 0; topic < numTopics; topic++) {
+            String topicName = "benchmark-topic-" + topic;
+            List<MetadataResponse.PartitionMetadata> partitionMetadata = new ArrayList<>();
+            for (int partition = 0; partition < PARTITIONS_PER_TOPIC; partition++) {
+                TopicPartition topicPartition = new TopicPartition(topicName, partition);
+                produceData.put(topicPartition, MemoryRecords.withRecords(RecordBatch.MAGIC_VALUE_V2, CompressionType.NONE,
+                        new SimpleRecord(new byte[100])));
+                fetchData.put(topicPartition, new FetchRequest.PartitionData(1000L * partition, 0L, 1024 * 1024));
+                List<Node> replicas = Arrays.asList(brokers.get(partition % 5), brokers.get((partition + 1) % 5),
+                        brokers.get((partition + 2) % 5));
+                partitionMetadata.add(new MetadataResponse.PartitionMetadata(Errors.NONE, partition, replicas.get(0),
+                        replicas, replicas));
+            }
+            topicMetadata.add(new MetadataResponse.TopicMetadata(Errors.NONE, topicName, false, partitionMetadata));
+        }
+
+        produceRequest = new ProduceRequest.Builder(RecordBatch.MAGIC_VALUE_V2, (short) -1, 30000, produceData)
+                .build(produceHeader.apiVersion());
+        fetchRequest = FetchRequest.Builder.forReplica(fetchHeader.apiVersion(), 1, 500, 1, fetchData)
+                .build(fetchHeader.apiVersion());
+        metadataResponse = new MetadataResponse(0, brokers, "benchmark-cluster", 0, topicMetadata);
+
+        produceBuffer = skipHeader(produceRequest.serialize(produceHeader));
+        fetchBuffer = skipHeader(fetchRequest.serialize(fetchHeader));
+        metadataBuffer = metadataResponse.serialize(metadataVersion, responseHeader);
+        metadataBuffer.position(responseHeader.sizeOf());
+    }
+
+    private static ByteBuffer skipHeader(ByteBuffer buffer) {
+        RequestHeader.parse(buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public ByteBuffer produceRequestSerializeStruct() {
+        return AbstractRequestResponse.serialize(produceHeader.toStruct(), produceRequest.toStruct());
+    }
+
+    @Benchmark
+    public ByteBuffer produceRequestSerializeDirect() {
+        return produceRequest.serialize(produceHeader);
+    }
+
+    @Benchmark
+    public ProduceRequest produceRequestParseStruct() {
+        return new ProduceRequest(ApiKeys.PRODUCE.parseRequest(produceHeader.apiVersion(), produceBuffer.duplicate()),
+                produceHeader.apiVersion());
+    }
+
+    @Benchmark
+    public ProduceRequest produceRequestParseDirect() {
+        return ProduceRequest.parse(produceBuffer.duplicate(), produceHeader.apiVersion());
+    }
+
+    @Benchmark
+    public ByteBuffer fetchRequestSerializeStruct() {
+        return AbstractRequestResponse.serialize(fetchHeader.toStruct(), fetchRequest.toStruct());
+    }
+
+    @Benchmark
+    public ByteBuffer fetchRequestSerializeDirect() {
+        return fetchRequest.serialize(fetchHeader);
+    }
+
+    @Benchmark
+    public FetchRequest fetchRequestParseStruct() {
+        return new FetchRequest(ApiKeys.FETCH.parseRequest(fetchHeader.apiVersion(), fetchBuffer.duplicate()),
+                fetchHeader.apiVersion());
+    }
+
+    @Benchmark
+    public FetchRequest fetchRequestParseDirect() {
+        return FetchRequest.parse(fetchBuffer.duplicate(), fetchHeader.apiVersion());
+    }
+
+    @Benchmark
+    public ByteBuffer metadataResponseSerializeStruct() {
+        return AbstractRequestResponse.serialize(responseHeader.toStruct(), metadataResponse.toStruct(metadataVersion));
+    }
+
+    @Benchmark
+    public ByteBuffer metadataResponseSerializeDirect() {
+        return metadataResponse.serialize(metadataVersion, responseHeader);
+    }
+
+    @Benchmark
+    public MetadataResponse metadataResponseParseStruct() {
+        return new MetadataResponse(ApiKeys.METADATA.parseResponse(metadataVersion, metadataBuffer.duplicate()));
+    }
+
+    @Benchmark
+    public MetadataResponse metadataResponseParseDirect() {
+        return MetadataResponse.parse(metadataBuffer.duplicate(), metadataVersion);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(RequestSerializationBenchmark.class.getSimpleName())
+                .forks(2)
+                .build();
+
+        new Runner(opt).run();
+    }
+
+}
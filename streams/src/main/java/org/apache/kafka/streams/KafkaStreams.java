@@ -558,6 +558,8 @@ public class KafkaStreams {
     /**
      * Do a clean up of the local {@link StateStore} directory ({@link StreamsConfig#STATE_DIR_CONFIG}) by deleting all
      * data with regard to the {@link StreamsConfig#APPLICATION_ID_CONFIG application ID}.
+     * If {@link StreamsConfig#STATE_SNAPSHOT_DIR_CONFIG} is set, the store snapshots of the application are deleted as
+     * well, including the ones written by other instances if the snapshot directory is shared.
      * <p>
      * May only be called either before this {@code KafkaStreams} instance is {@link #start() started} or after the
      * instance is {@link #close() closed}.
@@ -565,6 +567,7 @@ public class KafkaStreams {
      * Calling this method triggers a restore of local {@link StateStore}s on the next {@link #start() application start}.
      *
      * @throws IllegalStateException if the instance is currently running
+     * @throws StreamsException if the store snapshots cannot be deleted
      */
     public void cleanUp() {
         if (state.isRunning()) {
@@ -580,8 +583,18 @@ public class KafkaStreams {
             localApplicationDir,
             appId);
 
-        final StateDirectory stateDirectory = new StateDirectory(appId, "cleanup", stateDir, Time.SYSTEM);
+        final StateDirectory stateDirectory = new StateDirectory(appId,
+                                                                 "cleanup",
+                                                                 stateDir,
+                                                                 config.getString(StreamsConfig.STATE_SNAPSHOT_DIR_CONFIG),
+                                                                 config.getLong(StreamsConfig.STATE_SNAPSHOT_INTERVAL_MS_CONFIG),
+                                                                 Time.SYSTEM);
         stateDirectory.cleanRemovedTasks(0);
+        try {
+            stateDirectory.cleanSnapshots();
+        } catch (final IOException e) {
+            throw new StreamsException(String.format("%s Failed to delete the store snapshots of application %s", logPrefix, appId), e);
+        }
     }
 
     /**
@@ -157,6 +157,11 @@ public class StreamsConfig extends AbstractConfig {
     public static final String METADATA_MAX_AGE_CONFIG = CommonClientConfigs.METADATA_MAX_AGE_CONFIG;
     private static final String METADATA_MAX_AGE_DOC = CommonClientConfigs.METADATA_MAX_AGE_DOC;
 
+    /** {@code metrics.latency.sampling.interval} */
+    public static final String METRICS_LATENCY_SAMPLING_INTERVAL_CONFIG = "metrics.latency.sampling.interval";
+    private static final String METRICS_LATENCY_SAMPLING_INTERVAL_DOC = "The number of invocations of a processor node between two measurements of its process and punctuate latency,"
+        + " when these are recorded at DEBUG level. The rates of the operations still count every invocation. With the default of 1, every invocation is measured.";
+
     /** {@code metrics.num.samples} */
     public static final String METRICS_NUM_SAMPLES_CONFIG = CommonClientConfigs.METRICS_NUM_SAMPLES_CONFIG;
 
@@ -177,6 +182,12 @@ public class StreamsConfig extends AbstractConfig {
     public static final String NUM_STREAM_THREADS_CONFIG = "num.stream.threads";
     private static final String NUM_STREAM_THREADS_DOC = "The number of threads to execute stream processing.";
 
+    /** {@code num.task.worker.threads} */
+    public static final String NUM_TASK_WORKER_THREADS_CONFIG = "num.task.worker.threads";
+    private static final String NUM_TASK_WORKER_THREADS_DOC = "The number of worker threads each stream thread dispatches its tasks to, while it keeps polling with a single consumer."
+        + " Each task is still processed by one thread at a time. With the default of 0, tasks are processed by the stream thread itself."
+        + " The stream thread waits for all the tasks it dispatched before it commits and polls again, so a slow task keeps the other tasks of the thread and its consumer waiting.";
+
     /** {@code partition.grouper} */
     public static final String PARTITION_GROUPER_CLASS_CONFIG = "partition.grouper";
     private static final String PARTITION_GROUPER_CLASS_DOC = "Partition grouper class that implements the <code>PartitionGrouper</code> interface.";
@@ -230,6 +241,16 @@ public class StreamsConfig extends AbstractConfig {
     public static final String STATE_DIR_CONFIG = "state.dir";
     private static final String STATE_DIR_DOC = "Directory location for state store.";
 
+    /** {@code state.snapshot.dir} */
+    public static final String STATE_SNAPSHOT_DIR_CONFIG = "state.snapshot.dir";
+    private static final String STATE_SNAPSHOT_DIR_DOC = "Directory location for the snapshots of the persistent key-value stores of the tasks, which can be on a shared or separate volume than " + STATE_DIR_CONFIG + ". "
+                                                        + "A store that has no local state, or older local state than its snapshot, is restored from the snapshot and only replays the changelog records written after it. "
+                                                        + "Only active tasks write snapshots, on a background thread, and each store keeps a single snapshot. The snapshots of a task are deleted once they have not been written for " + STATE_CLEANUP_DELAY_MS_CONFIG + " plus state.snapshot.interval.ms. Snapshots are disabled if not set.";
+
+    /** {@code state.snapshot.interval.ms} */
+    public static final String STATE_SNAPSHOT_INTERVAL_MS_CONFIG = "state.snapshot.interval.ms";
+    private static final String STATE_SNAPSHOT_INTERVAL_MS_DOC = "The minimum amount of time in milliseconds between two snapshots of the persistent key-value stores of a task, which are taken when the task commits. Only used if " + STATE_SNAPSHOT_DIR_CONFIG + " is set.";
+
     /** {@code timestamp.extractor} */
     @Deprecated
     public static final String TIMESTAMP_EXTRACTOR_CLASS_CONFIG = "timestamp.extractor";
@@ -334,6 +355,12 @@ public class StreamsConfig extends AbstractConfig {
                     1,
                     Importance.LOW,
                     NUM_STREAM_THREADS_DOC)
+            .define(NUM_TASK_WORKER_THREADS_CONFIG,
+                    Type.INT,
+                    0,
+                    atLeast(0),
+                    Importance.LOW,
+                    NUM_TASK_WORKER_THREADS_DOC)
             .define(NUM_STANDBY_REPLICAS_CONFIG,
                     Type.INT,
                     0,
@@ -349,6 +376,17 @@ public class StreamsConfig extends AbstractConfig {
                     10 * 60 * 1000,
                     Importance.LOW,
                     STATE_CLEANUP_DELAY_MS_DOC)
+            .define(STATE_SNAPSHOT_DIR_CONFIG,
+                    Type.STRING,
+                    null,
+                    Importance.LOW,
+                    STATE_SNAPSHOT_DIR_DOC)
+            .define(STATE_SNAPSHOT_INTERVAL_MS_CONFIG,
+                    Type.LONG,
+                    10 * 60 * 1000,
+                    atLeast(0),
+                    Importance.LOW,
+                    STATE_SNAPSHOT_INTERVAL_MS_DOC)
             .define(METRIC_REPORTER_CLASSES_CONFIG,
                     Type.LIST,
                     "",
@@ -372,6 +410,12 @@ public class StreamsConfig extends AbstractConfig {
                     in(Sensor.RecordingLevel.INFO.toString(), Sensor.RecordingLevel.DEBUG.toString()),
                     Importance.LOW,
                     CommonClientConfigs.METRICS_RECORDING_LEVEL_DOC)
+            .define(METRICS_LATENCY_SAMPLING_INTERVAL_CONFIG,
+                    Type.INT,
+                    1,
+                    atLeast(1),
+                    Importance.LOW,
+                    METRICS_LATENCY_SAMPLING_INTERVAL_DOC)
             .define(APPLICATION_SERVER_CONFIG,
                     Type.STRING,
                     "",
@@ -51,6 +51,136 @@ public class KStreamBuilder extends TopologyBuilder {
 
     private final AtomicInteger index = new AtomicInteger(0);
 
+    private boolean repartitionOptimizationEnabled = false;
+    private Serde<?> defaultKeySerde = null;
+    private Serde<?> defaultValueSerde = null;
+    private long inMemoryJoinWindowMaxRetentionMs = 0L;
+
+    /**
+     * Enable or disable the optimization of the repartition topics of the streams created afterwards.
+     * <p>
+     * By default, each join or aggregation of a {@link KStream} whose key was changed (e.g., by
+     * {@link KStream#selectKey(KeyValueMapper) selectKey} or {@link KStream#map(KeyValueMapper) map}) writes the
+     * stream to its own repartition topic.
+     * With the optimization enabled, all the joins and aggregations of a re-keyed stream, and of the streams derived
+     * from it by {@link KStream#filter(Predicate) filter}, {@link KStream#filterNot(Predicate) filterNot},
+     * {@link KStream#mapValues(ValueMapper) mapValues} or {@link KStream#flatMapValues(ValueMapper) flatMapValues},
+     * share a single repartition topic, and these key preserving operations are applied after the repartitioning.
+     * As the serdes for the values of the re-keyed stream are unknown, the operations changing the type of the values
+     * are only moved after the repartitioning if the re-keyed stream was joined or aggregated before.
+     * A repartition topic is only shared by the joins and aggregations using serdes of the same classes, so a
+     * re-keyed stream gets one repartition topic per distinct pair of key and value serdes.
+     * The joins and aggregations using the default serdes (i.e., passing {@code null} serdes) only share the
+     * repartition topic of those using the same explicit serdes if the default serdes are known, see
+     * {@link #setRepartitionOptimization(boolean, StreamsConfig)}.
+     * <p>
+     * The key preserving operations moved after the repartitioning are still applied to the re-keyed stream before
+     * it, as their result may be consumed by other operations than joins and aggregations. Hence, they are applied
+     * twice to each record, and must not have side effects.
+     * <p>
+     * As this changes the repartition topics of the topology, it should not be changed for an application which was
+     * already run without first resetting it.
+     *
+     * @param enabled whether the repartition topics are optimized
+     * @return itself
+     */
+    public synchronized final KStreamBuilder setRepartitionOptimization(final boolean enabled) {
+        this.repartitionOptimizationEnabled = enabled;
+        return this;
+    }
+
+    /**
+     * Enable or disable the optimization of the repartition topics of the streams created afterwards, with the
+     * default serdes of the given config.
+     * <p>
+     * Same as {@link #setRepartitionOptimization(boolean)}, except that the joins and aggregations using the default
+     * serdes share the repartition topic of those specifying serdes of the same classes as the
+     * {@link StreamsConfig#defaultKeySerde() default key serde} and
+     * {@link StreamsConfig#defaultValueSerde() default value serde} of {@code config}.
+     * Hence, {@code config} must be the one the application is run with.
+     *
+     * @param enabled whether the repartition topics are optimized
+     * @param config  the config the application is run with
+     * @return itself
+     */
+    public synchronized final KStreamBuilder setRepartitionOptimization(final boolean enabled,
+                                                                       final StreamsConfig config) {
+        Objects.requireNonNull(config, "config can't be null");
+        this.repartitionOptimizationEnabled = enabled;
+        this.defaultKeySerde = config.defaultKeySerde();
+        this.defaultValueSerde = config.defaultValueSerde();
+        return this;
+    }
+
+    /**
+     * <strong>This function is only for internal usage only and should not be called.</strong>
+     * <p>
+     * Whether the repartition topics are shared by the operations of a re-keyed stream.
+     *
+     * @return true if the repartition optimization is enabled
+     */
+    public synchronized boolean repartitionOptimizationEnabled() {
+        return repartitionOptimizationEnabled;
+    }
+
+    /**
+     * <strong>This function is only for internal usage only and should not be called.</strong>
+     * <p>
+     * The default key serde used by the repartition optimization.
+     *
+     * @return the default key serde, or null if unknown
+     */
+    public synchronized Serde<?> defaultKeySerde() {
+        return defaultKeySerde;
+    }
+
+    /**
+     * <strong>This function is only for internal usage only and should not be called.</strong>
+     * <p>
+     * The default value serde used by the repartition optimization.
+     *
+     * @return the default value serde, or null if unknown
+     */
+    public synchronized Serde<?> defaultValueSerde() {
+        return defaultValueSerde;
+    }
+
+    /**
+     * Set the largest retention period of the windows of the {@link KStream}-{@link KStream} joins created afterwards
+     * that are buffered in memory.
+     * <p>
+     * By default, each side of a windowed join keeps its records in a persistent window store, which is looked up by
+     * every record of the other side.
+     * The join windows whose {@link JoinWindows#maintainMs() retention period} is at most {@code maxRetentionMs} are
+     * instead buffered in memory, ordered by key and timestamp, which saves a store lookup and the deserialization of
+     * the joined values for each record.
+     * The in-memory buffers are backed by the same changelog topics as the persistent stores, but they are restored
+     * from their changelog whenever their task is created, and their size is only bounded by the records received
+     * within the retention period. Hence, this budget must be chosen with the expected input rate in mind.
+     *
+     * @param maxRetentionMs the largest retention period of the join windows buffered in memory; 0 (the default)
+     *                       means that no join window is buffered in memory
+     * @return itself
+     */
+    public synchronized final KStreamBuilder setInMemoryJoinWindowMaxRetention(final long maxRetentionMs) {
+        if (maxRetentionMs < 0) {
+            throw new IllegalArgumentException("maxRetentionMs must not be negative");
+        }
+        this.inMemoryJoinWindowMaxRetentionMs = maxRetentionMs;
+        return this;
+    }
+
+    /**
+     * <strong>This function is only for internal usage only and should not be called.</strong>
+     * <p>
+     * The largest retention period of the join windows buffered in memory.
+     *
+     * @return the retention period in milliseconds, or 0 if no join window is buffered in memory
+     */
+    public synchronized long inMemoryJoinWindowMaxRetention() {
+        return inMemoryJoinWindowMaxRetentionMs;
+    }
+
     /**
      * Create a {@link KStream} from the specified topics.
      * The default {@code "auto.offset.reset"} strategy, default {@link TimestampExtractor}, and default key and value
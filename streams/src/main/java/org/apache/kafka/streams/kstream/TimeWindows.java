@@ -66,6 +66,8 @@ public final class TimeWindows extends Windows<TimeWindow> {
      */
     public final long advanceMs;
 
+    private long finalResultsGraceMs = -1L;
+
     private TimeWindows(final long sizeMs, final long advanceMs) {
         this.sizeMs = sizeMs;
         this.advanceMs = advanceMs;
@@ -140,16 +142,60 @@ public final class TimeWindows extends Windows<TimeWindow> {
         return this;
     }
 
+    /**
+     * Emit only the final result of each window of an aggregation, instead of an update for every record.
+     * <p>
+     * The result of a window is emitted once, when the stream time, i.e., the largest record timestamp seen by the
+     * aggregation, has passed the end of the window plus the given grace period.
+     * Records arriving for a window after its grace period has elapsed are dropped.
+     * Until then, the updated windows are buffered in a state store backed by a changelog topic.
+     * <p>
+     * Note that the stream time only advances when a later record is processed, as there is no punctuation:
+     * the last windows of a partition that stops receiving records are not emitted until it receives a record again.
+     *
+     * @param graceMs the time in milliseconds after the end of a window during which out-of-order records are still
+     *                added to it
+     * @return itself
+     * @throws IllegalArgumentException if {@code graceMs} is negative
+     */
+    public TimeWindows emitFinalResults(final long graceMs) throws IllegalArgumentException {
+        if (graceMs < 0) {
+            throw new IllegalArgumentException("Grace period (graceMs) cannot be negative.");
+        }
+        finalResultsGraceMs = graceMs;
+
+        return this;
+    }
+
+    /**
+     * Return whether only the final result of each window is emitted.
+     *
+     * @return true if {@link #emitFinalResults(long)} was set
+     */
+    public boolean emitsFinalResults() {
+        return finalResultsGraceMs >= 0;
+    }
+
+    /**
+     * Return the grace period of the windows in milliseconds, if only their final result is emitted.
+     *
+     * @return the grace period, or -1 if every update of the windows is emitted
+     */
+    public long finalResultsGraceMs() {
+        return finalResultsGraceMs;
+    }
+
     /**
      * {@inheritDoc}
      * <p>
-     * For {@code TimeWindows} the maintain duration is at least as small as the window size.
+     * For {@code TimeWindows} the maintain duration is at least as small as the window size, plus the grace period
+     * if only the final results are emitted.
      *
      * @return the window maintain duration
      */
     @Override
     public long maintainMs() {
-        return Math.max(super.maintainMs(), sizeMs);
+        return Math.max(super.maintainMs(), emitsFinalResults() ? sizeMs + finalResultsGraceMs : sizeMs);
     }
 
     @Override
@@ -161,13 +207,14 @@ public final class TimeWindows extends Windows<TimeWindow> {
             return false;
         }
         final TimeWindows other = (TimeWindows) o;
-        return sizeMs == other.sizeMs && advanceMs == other.advanceMs;
+        return sizeMs == other.sizeMs && advanceMs == other.advanceMs && finalResultsGraceMs == other.finalResultsGraceMs;
     }
 
     @Override
     public int hashCode() {
         int result = (int) (sizeMs ^ (sizeMs >>> 32));
         result = 31 * result + (int) (advanceMs ^ (advanceMs >>> 32));
+        result = 31 * result + (int) (finalResultsGraceMs ^ (finalResultsGraceMs >>> 32));
         return result;
     }
 
@@ -33,31 +33,29 @@ import org.apache.kafka.streams.processor.StateStoreSupplier;
 import org.apache.kafka.streams.state.KeyValueStore;
 import org.apache.kafka.streams.state.WindowStore;
 import org.apache.kafka.streams.state.SessionStore;
+import org.apache.kafka.streams.state.Stores;
 
-import java.util.Collections;
 import java.util.Objects;
-import java.util.Set;
 
 class KGroupedStreamImpl<K, V> extends AbstractStream<K> implements KGroupedStream<K, V> {
 
     private static final String REDUCE_NAME = "KSTREAM-REDUCE-";
     private static final String AGGREGATE_NAME = "KSTREAM-AGGREGATE-";
+    private static final String FINAL_RESULTS_BUFFER_SUFFIX = "-final-results-buffer";
 
     private final Serde<K> keySerde;
     private final Serde<V> valSerde;
-    private final boolean repartitionRequired;
+    private final KStreamImpl<K, V> stream;
     private boolean isQueryable = true;
 
     KGroupedStreamImpl(final KStreamBuilder topology,
-                       final String name,
-                       final Set<String> sourceNodes,
+                       final KStreamImpl<K, V> stream,
                        final Serde<K> keySerde,
-                       final Serde<V> valSerde,
-                       final boolean repartitionRequired) {
-        super(topology, name, sourceNodes);
+                       final Serde<V> valSerde) {
+        super(topology, stream.name, stream.sourceNodes);
         this.keySerde = keySerde;
         this.valSerde = valSerde;
-        this.repartitionRequired = repartitionRequired;
+        this.stream = stream;
         this.isQueryable = true;
     }
 
@@ -116,10 +114,12 @@ class KGroupedStreamImpl<K, V> extends AbstractStream<K> implements KGroupedStre
         Objects.requireNonNull(reducer, "reducer can't be null");
         Objects.requireNonNull(windows, "windows can't be null");
         Objects.requireNonNull(storeSupplier, "storeSupplier can't be null");
+        final String bufferStoreName = finalResultsBufferName(windows, storeSupplier);
         return (KTable<Windowed<K>, V>) doAggregate(
-                new KStreamWindowReduce<K, V, W>(windows, storeSupplier.name(), reducer),
+                new KStreamWindowReduce<>(windows, storeSupplier.name(), reducer, bufferStoreName, keySerde),
                 REDUCE_NAME,
-                storeSupplier
+                storeSupplier,
+                bufferStoreName
         );
     }
 
@@ -182,10 +182,12 @@ class KGroupedStreamImpl<K, V> extends AbstractStream<K> implements KGroupedStre
         Objects.requireNonNull(aggregator, "aggregator can't be null");
         Objects.requireNonNull(windows, "windows can't be null");
         Objects.requireNonNull(storeSupplier, "storeSupplier can't be null");
+        final String bufferStoreName = finalResultsBufferName(windows, storeSupplier);
         return (KTable<Windowed<K>, T>) doAggregate(
-                new KStreamWindowAggregate<>(windows, storeSupplier.name(), initializer, aggregator),
+                new KStreamWindowAggregate<>(windows, storeSupplier.name(), initializer, aggregator, bufferStoreName, keySerde),
                 AGGREGATE_NAME,
-                storeSupplier
+                storeSupplier,
+                bufferStoreName
         );
     }
 
@@ -393,34 +395,43 @@ class KGroupedStreamImpl<K, V> extends AbstractStream<K> implements KGroupedStre
         return aggregate(initializer, aggregator, sessionMerger, sessionWindows, valSerde, storeSupplier);
     }
 
+    private static String finalResultsBufferName(final Windows<?> windows, final StateStoreSupplier<?> storeSupplier) {
+        return WindowFinalResultBuffer.finalResultsGraceMs(windows) >= 0 ? storeSupplier.name() + FINAL_RESULTS_BUFFER_SUFFIX : null;
+    }
+
     private <T> KTable<K, T> doAggregate(
             final KStreamAggProcessorSupplier<K, ?, V, T> aggregateSupplier,
             final String functionName,
             final StateStoreSupplier storeSupplier) {
+        return doAggregate(aggregateSupplier, functionName, storeSupplier, null);
+    }
+
+    private <T> KTable<K, T> doAggregate(
+            final KStreamAggProcessorSupplier<K, ?, V, T> aggregateSupplier,
+            final String functionName,
+            final StateStoreSupplier<?> storeSupplier,
+            final String finalResultsBufferName) {
 
         final String aggFunctionName = topology.newName(functionName);
 
-        final String sourceName = repartitionIfRequired(storeSupplier.name());
+        final AbstractStream<K> source = stream.repartitionIfRequired(keySerde, valSerde, storeSupplier.name());
 
-        topology.addProcessor(aggFunctionName, aggregateSupplier, sourceName);
+        topology.addProcessor(aggFunctionName, aggregateSupplier, source.name);
         topology.addStateStore(storeSupplier, aggFunctionName);
+        if (finalResultsBufferName != null) {
+            topology.addStateStore(Stores.create(finalResultsBufferName)
+                                       .withKeys(Serdes.Bytes())
+                                       .withValues(Serdes.ByteArray())
+                                       .inMemory()
+                                       .build(),
+                                   aggFunctionName);
+        }
 
         return new KTableImpl<>(topology,
                 aggFunctionName,
                 aggregateSupplier,
-                sourceName.equals(this.name) ? sourceNodes
-                        : Collections.singleton(sourceName),
+                source.sourceNodes,
                 storeSupplier.name(),
                 isQueryable);
     }
-
-    /**
-     * @return the new sourceName if repartitioned. Otherwise the name of this stream
-     */
-    private String repartitionIfRequired(final String queryableStoreName) {
-        if (!repartitionRequired) {
-            return this.name;
-        }
-        return KStreamImpl.createReparitionedSource(this, keySerde, valSerde, queryableStoreName);
-    }
 }
@@ -38,14 +38,21 @@ import org.apache.kafka.streams.processor.ProcessorSupplier;
 import org.apache.kafka.streams.processor.StateStoreSupplier;
 import org.apache.kafka.streams.processor.StreamPartitioner;
 import org.apache.kafka.streams.state.Stores;
+import org.apache.kafka.streams.state.internals.InMemoryWindowStoreSupplier;
 
 import java.io.FileNotFoundException;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Array;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
@@ -104,30 +111,76 @@ public class KStreamImpl<K, V> extends AbstractStream<K> implements KStream<K, V
 
     private final boolean repartitionRequired;
 
+    // with the repartition optimization, a stream requiring repartitioning which was derived by a stateless key
+    // preserving operation keeps its parent and the operation, to apply it again after repartitioning the parent
+    private final KStreamImpl<K, ?> parent;
+    private final KeyPreservingOperation operation;
+
+    // the streams reading this stream from a repartition topic, or applying its operation to its repartitioned
+    // parent, by the classes of the serializers and deserializers they were written with
+    private final Map<List<Class<?>>, KStreamImpl<K, V>> repartitioned = new LinkedHashMap<>();
+    // this stream's operation applied to the repartitioned stream of an ancestor, whatever its serdes
+    private KStreamImpl<K, V> derivedRepartitioned;
+
     public KStreamImpl(KStreamBuilder topology, String name, Set<String> sourceNodes,
                        boolean repartitionRequired) {
+        this(topology, name, sourceNodes, repartitionRequired, null, null);
+    }
+
+    private KStreamImpl(final KStreamBuilder topology,
+                        final String name,
+                        final Set<String> sourceNodes,
+                        final boolean repartitionRequired,
+                        final KStreamImpl<K, ?> parent,
+                        final KeyPreservingOperation operation) {
         super(topology, name, sourceNodes);
         this.repartitionRequired = repartitionRequired;
+        this.parent = parent;
+        this.operation = operation;
     }
 
-    @Override
-    public KStream<K, V> filter(Predicate<? super K, ? super V> predicate) {
-        Objects.requireNonNull(predicate, "predicate can't be null");
-        String name = topology.newName(FILTER_NAME);
+    /**
+     * A stateless operation which does not change the keys of the records, and so may be applied before or after
+     * the repartitioning of a stream.
+     */
+    private static class KeyPreservingOperation {
+        private final String namePrefix;
+        private final ProcessorSupplier<?, ?> supplier;
+        private final boolean valueTypePreserving;
+
+        private KeyPreservingOperation(final String namePrefix,
+                                       final ProcessorSupplier<?, ?> supplier,
+                                       final boolean valueTypePreserving) {
+            this.namePrefix = namePrefix;
+            this.supplier = supplier;
+            this.valueTypePreserving = valueTypePreserving;
+        }
+    }
+
+    private <V1> KStreamImpl<K, V1> keyPreserving(final String prefix,
+                                                  final ProcessorSupplier<?, ?> supplier,
+                                                  final boolean valueTypePreserving) {
+        final String name = topology.newName(prefix);
 
-        topology.addProcessor(name, new KStreamFilter<>(predicate, false), this.name);
+        topology.addProcessor(name, supplier, this.name);
 
+        if (repartitionRequired && topology.repartitionOptimizationEnabled()) {
+            return new KStreamImpl<>(topology, name, sourceNodes, true, this,
+                                     new KeyPreservingOperation(prefix, supplier, valueTypePreserving));
+        }
         return new KStreamImpl<>(topology, name, sourceNodes, this.repartitionRequired);
     }
 
     @Override
-    public KStream<K, V> filterNot(final Predicate<? super K, ? super V> predicate) {
+    public KStream<K, V> filter(Predicate<? super K, ? super V> predicate) {
         Objects.requireNonNull(predicate, "predicate can't be null");
-        String name = topology.newName(FILTER_NAME);
-
-        topology.addProcessor(name, new KStreamFilter<>(predicate, true), this.name);
+        return keyPreserving(FILTER_NAME, new KStreamFilter<>(predicate, false), true);
+    }
 
-        return new KStreamImpl<>(topology, name, sourceNodes, this.repartitionRequired);
+    @Override
+    public KStream<K, V> filterNot(final Predicate<? super K, ? super V> predicate) {
+        Objects.requireNonNull(predicate, "predicate can't be null");
+        return keyPreserving(FILTER_NAME, new KStreamFilter<>(predicate, true), true);
     }
 
     @Override
@@ -167,11 +220,7 @@ public class KStreamImpl<K, V> extends AbstractStream<K> implements KStream<K, V
     @Override
     public <V1> KStream<K, V1> mapValues(ValueMapper<? super V, ? extends V1> mapper) {
         Objects.requireNonNull(mapper, "mapper can't be null");
-        String name = topology.newName(MAPVALUES_NAME);
-
-        topology.addProcessor(name, new KStreamMapValues<>(mapper), this.name);
-
-        return new KStreamImpl<>(topology, name, sourceNodes, this.repartitionRequired);
+        return keyPreserving(MAPVALUES_NAME, new KStreamMapValues<>(mapper), false);
     }
 
     @Override
@@ -248,11 +297,7 @@ public class KStreamImpl<K, V> extends AbstractStream<K> implements KStream<K, V
     @Override
     public <V1> KStream<K, V1> flatMapValues(ValueMapper<? super V, ? extends Iterable<? extends V1>> mapper) {
         Objects.requireNonNull(mapper, "mapper can't be null");
-        String name = topology.newName(FLATMAPVALUES_NAME);
-
-        topology.addProcessor(name, new KStreamFlatMapValues<>(mapper), this.name);
-
-        return new KStreamImpl<>(topology, name, sourceNodes, this.repartitionRequired);
+        return keyPreserving(FLATMAPVALUES_NAME, new KStreamFlatMapValues<>(mapper), false);
     }
 
     @Override
@@ -461,13 +506,8 @@ public class KStreamImpl<K, V> extends AbstractStream<K> implements KStream<K, V
         KStreamImpl<K, V> joinThis = this;
         KStreamImpl<K, V1> joinOther = (KStreamImpl<K, V1>) other;
 
-        if (joinThis.repartitionRequired) {
-            joinThis = joinThis.repartitionForJoin(keySerde, thisValueSerde, null);
-        }
-
-        if (joinOther.repartitionRequired) {
-            joinOther = joinOther.repartitionForJoin(keySerde, otherValueSerde, null);
-        }
+        joinThis = joinThis.repartitionIfRequired(keySerde, thisValueSerde, null);
+        joinOther = joinOther.repartitionIfRequired(keySerde, otherValueSerde, null);
 
         joinThis.ensureJoinableWith(joinOther);
 
@@ -481,6 +521,90 @@ public class KStreamImpl<K, V> extends AbstractStream<K> implements KStream<K, V
     }
 
 
+    /**
+     * Repartition a stream if an operation changed its key, i.e, selectKey, map(..), flatMap(..). This is required
+     * on join and aggregation operations.
+     * <p>
+     * With the repartition optimization enabled in the {@link KStreamBuilder}, all the operations on this stream
+     * using the same serdes, the null serdes being resolved to the default ones if known, share a single
+     * repartition topic. A stream derived by a key preserving operation from a stream requiring
+     * repartitioning shares the repartition topic of its parent, the operation being applied after the
+     * repartitioning. Filters are always moved after the repartitioning, while operations changing the type of
+     * the values are only moved if the parent was already repartitioned, since the serdes for its values are
+     * unknown otherwise. Joining two streams derived from the same repartitioned stream does not require any
+     * other repartition topic since both are then co-partitioned. The moved operations are still applied to this
+     * stream as well, since their result may be consumed by other operations.
+     * @param keySerde      Serdes for serializing the keys
+     * @param valSerde      Serdes for serilaizing the values
+     * @param topicNamePrefix  prefix of topic name created for repartitioning, can be null,
+     *                         in which case the prefix will be auto-generated internally.
+     * @return this stream if no repartitioning is required, otherwise the repartitioned stream
+     */
+    KStreamImpl<K, V> repartitionIfRequired(final Serde<K> keySerde,
+                                            final Serde<V> valSerde,
+                                            final String topicNamePrefix) {
+        if (!repartitionRequired) {
+            return this;
+        }
+        if (!topology.repartitionOptimizationEnabled()) {
+            return repartitionForJoin(keySerde, valSerde, topicNamePrefix);
+        }
+        final List<Class<?>> serdeClasses = serdeClasses(keySerde != null ? keySerde : topology.defaultKeySerde(),
+                                                         valSerde != null ? valSerde : topology.defaultValueSerde());
+        KStreamImpl<K, V> stream = repartitioned.get(serdeClasses);
+        if (stream == null) {
+            if (parent != null && operation.valueTypePreserving) {
+                @SuppressWarnings("unchecked")
+                final KStreamImpl<K, V> sameTypeParent = (KStreamImpl<K, V>) parent;
+                stream = sameTypeParent.repartitionIfRequired(keySerde, valSerde, topicNamePrefix).applyAgain(operation);
+            } else {
+                // the serdes are for the values of this stream, so they do not matter for the topic of an ancestor
+                stream = derivedFromRepartitionedAncestor();
+            }
+            if (stream == null) {
+                stream = repartitionForJoin(keySerde, valSerde, topicNamePrefix);
+            }
+            repartitioned.put(serdeClasses, stream);
+        }
+        return stream;
+    }
+
+    /**
+     * @return a repartitioned stream, derived from an already repartitioned ancestor if needed, or null if neither
+     *         this stream nor any of the streams it is derived from was repartitioned yet
+     */
+    private KStreamImpl<K, V> repartitionedDerivation() {
+        if (!repartitioned.isEmpty()) {
+            return repartitioned.values().iterator().next();
+        }
+        return derivedFromRepartitionedAncestor();
+    }
+
+    private KStreamImpl<K, V> derivedFromRepartitionedAncestor() {
+        if (derivedRepartitioned == null && parent != null) {
+            final KStreamImpl<K, ?> repartitionedParent = parent.repartitionedDerivation();
+            if (repartitionedParent != null) {
+                derivedRepartitioned = repartitionedParent.applyAgain(operation);
+            }
+        }
+        return derivedRepartitioned;
+    }
+
+    private static List<Class<?>> serdeClasses(final Serde<?> keySerde, final Serde<?> valSerde) {
+        final List<Class<?>> classes = new ArrayList<>(4);
+        for (final Serde<?> serde : Arrays.asList(keySerde, valSerde)) {
+            classes.add(serde != null ? serde.serializer().getClass() : null);
+            classes.add(serde != null ? serde.deserializer().getClass() : null);
+        }
+        return classes;
+    }
+
+    private <V1> KStreamImpl<K, V1> applyAgain(final KeyPreservingOperation operation) {
+        final String name = topology.newName(operation.namePrefix);
+        topology.addProcessor(name, operation.supplier, this.name);
+        return new KStreamImpl<>(topology, name, sourceNodes, false);
+    }
+
     /**
      * Repartition a stream. This is required on join operations occurring after
      * an operation that changes the key, i.e, selectKey, map(..), flatMap(..).
@@ -568,13 +692,7 @@ public class KStreamImpl<K, V> extends AbstractStream<K> implements KStream<K, V
                                       final ValueJoiner<? super V, ? super V1, ? extends R> joiner,
                                       final Serde<K> keySerde,
                                       final Serde<V> valueSerde) {
-        if (repartitionRequired) {
-            final KStreamImpl<K, V> thisStreamRepartitioned = repartitionForJoin(keySerde,
-                valueSerde, null);
-            return thisStreamRepartitioned.doStreamTableJoin(other, joiner, false);
-        } else {
-            return doStreamTableJoin(other, joiner, false);
-        }
+        return repartitionIfRequired(keySerde, valueSerde, null).doStreamTableJoin(other, joiner, false);
     }
 
 
@@ -632,13 +750,7 @@ public class KStreamImpl<K, V> extends AbstractStream<K> implements KStream<K, V
                                           final ValueJoiner<? super V, ? super V1, ? extends R> joiner,
                                           final Serde<K> keySerde,
                                           final Serde<V> valueSerde) {
-        if (repartitionRequired) {
-            final KStreamImpl<K, V> thisStreamRepartitioned = this.repartitionForJoin(keySerde,
-                                                                                valueSerde, null);
-            return thisStreamRepartitioned.doStreamTableJoin(other, joiner, true);
-        } else {
-            return doStreamTableJoin(other, joiner, true);
-        }
+        return repartitionIfRequired(keySerde, valueSerde, null).doStreamTableJoin(other, joiner, true);
     }
 
     @Override
@@ -654,10 +766,9 @@ public class KStreamImpl<K, V> extends AbstractStream<K> implements KStream<K, V
         Objects.requireNonNull(selector, "selector can't be null");
         String selectName = internalSelectKey(selector);
         return new KGroupedStreamImpl<>(topology,
-                                        selectName,
-                                        sourceNodes,
+                                        new KStreamImpl<K1, V>(topology, selectName, sourceNodes, true),
                                         keySerde,
-                                        valSerde, true);
+                                        valSerde);
     }
 
     @Override
@@ -669,20 +780,28 @@ public class KStreamImpl<K, V> extends AbstractStream<K> implements KStream<K, V
     public KGroupedStream<K, V> groupByKey(Serde<K> keySerde,
                                            Serde<V> valSerde) {
         return new KGroupedStreamImpl<>(topology,
-                                        this.name,
-                                        sourceNodes,
+                                        this,
                                         keySerde,
-                                        valSerde,
-                                        this.repartitionRequired);
+                                        valSerde);
     }
 
 
 
 
-    private static <K, V> StateStoreSupplier createWindowedStateStore(final JoinWindows windows,
-                                                                     final Serde<K> keySerde,
-                                                                     final Serde<V> valueSerde,
-                                                                     final String storeName) {
+    private <K1, V1> StateStoreSupplier createWindowedStateStore(final JoinWindows windows,
+                                                                 final Serde<K1> keySerde,
+                                                                 final Serde<V1> valueSerde,
+                                                                 final String storeName) {
+        final long inMemoryMaxRetention = topology.inMemoryJoinWindowMaxRetention();
+        if (inMemoryMaxRetention > 0 && windows.maintainMs() <= inMemoryMaxRetention) {
+            return new InMemoryWindowStoreSupplier<>(storeName,
+                                                     windows.maintainMs(),
+                                                     true,
+                                                     keySerde,
+                                                     valueSerde,
+                                                     true,
+                                                     new HashMap<String, String>());
+        }
         return Stores.create(storeName)
             .withKeys(keySerde)
             .withValues(valueSerde)
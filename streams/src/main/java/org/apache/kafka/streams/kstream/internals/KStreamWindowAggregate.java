@@ -17,8 +17,10 @@
 package org.apache.kafka.streams.kstream.internals;
 
 import org.apache.kafka.streams.kstream.Aggregator;
+import org.apache.kafka.common.serialization.Serde;
 import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.kstream.Initializer;
+import org.apache.kafka.streams.kstream.TimeWindows;
 import org.apache.kafka.streams.kstream.Windows;
 import org.apache.kafka.streams.kstream.Window;
 import org.apache.kafka.streams.kstream.Windowed;
@@ -36,14 +38,28 @@ public class KStreamWindowAggregate<K, V, T, W extends Window> implements KStrea
     private final Windows<W> windows;
     private final Initializer<T> initializer;
     private final Aggregator<? super K, ? super V, T> aggregator;
+    private final String bufferStoreName;
+    private final Serde<K> keySerde;
 
     private boolean sendOldValues = false;
 
     public KStreamWindowAggregate(Windows<W> windows, String storeName, Initializer<T> initializer, Aggregator<? super K, ? super V, T> aggregator) {
+        this(windows, storeName, initializer, aggregator, null, null);
+    }
+
+    /**
+     * @param bufferStoreName the name of the store buffering the open windows if only the
+     *                        {@link TimeWindows#emitsFinalResults() final results} are emitted, or null otherwise
+     * @param keySerde        the serde of the keys, or null to use the default one
+     */
+    public KStreamWindowAggregate(Windows<W> windows, String storeName, Initializer<T> initializer, Aggregator<? super K, ? super V, T> aggregator,
+                                  String bufferStoreName, Serde<K> keySerde) {
         this.windows = windows;
         this.storeName = storeName;
         this.initializer = initializer;
         this.aggregator = aggregator;
+        this.bufferStoreName = bufferStoreName;
+        this.keySerde = keySerde;
     }
 
     @Override
@@ -60,6 +76,7 @@ public class KStreamWindowAggregate<K, V, T, W extends Window> implements KStrea
 
         private WindowStore<K, T> windowStore;
         private TupleForwarder<Windowed<K>, T> tupleForwarder;
+        private WindowFinalResultBuffer<K, W, T> finalResults;
 
         @SuppressWarnings("unchecked")
         @Override
@@ -67,7 +84,11 @@ public class KStreamWindowAggregate<K, V, T, W extends Window> implements KStrea
             super.init(context);
 
             windowStore = (WindowStore<K, T>) context.getStateStore(storeName);
-            tupleForwarder = new TupleForwarder<>(windowStore, context, new ForwardingCacheFlushListener<Windowed<K>, V>(context, sendOldValues), sendOldValues);
+            if (bufferStoreName != null) {
+                finalResults = new WindowFinalResultBuffer<>(windows, context, windowStore, bufferStoreName, keySerde);
+            } else {
+                tupleForwarder = new TupleForwarder<>(windowStore, context, new ForwardingCacheFlushListener<Windowed<K>, V>(context, sendOldValues), sendOldValues);
+            }
         }
 
         @Override
@@ -80,6 +101,12 @@ public class KStreamWindowAggregate<K, V, T, W extends Window> implements KStrea
             // first get the matching windows
             long timestamp = context().timestamp();
             Map<Long, W> matchedWindows = windows.windowsFor(timestamp);
+            if (finalResults != null) {
+                finalResults.removeClosedWindows(matchedWindows);
+                if (matchedWindows.isEmpty()) {
+                    return;
+                }
+            }
 
             long timeFrom = Long.MAX_VALUE;
             long timeTo = Long.MIN_VALUE;
@@ -109,7 +136,7 @@ public class KStreamWindowAggregate<K, V, T, W extends Window> implements KStrea
 
                         // update the store with the new value
                         windowStore.put(key, newAgg, window.start());
-                        tupleForwarder.maybeForward(new Windowed<>(key, window), newAgg, oldAgg);
+                        forward(key, window, newAgg, oldAgg);
                         matchedWindows.remove(entry.key);
                     }
                 }
@@ -120,7 +147,19 @@ public class KStreamWindowAggregate<K, V, T, W extends Window> implements KStrea
                 T oldAgg = initializer.apply();
                 T newAgg = aggregator.apply(key, value, oldAgg);
                 windowStore.put(key, newAgg, entry.getKey());
-                tupleForwarder.maybeForward(new Windowed<>(key, entry.getValue()), newAgg, oldAgg);
+                forward(key, entry.getValue(), newAgg, oldAgg);
+            }
+
+            if (finalResults != null) {
+                finalResults.advance(timestamp);
+            }
+        }
+
+        private void forward(final K key, final W window, final T newAgg, final T oldAgg) {
+            if (finalResults != null) {
+                finalResults.buffer(key, window);
+            } else {
+                tupleForwarder.maybeForward(new Windowed<>(key, window), newAgg, oldAgg);
             }
         }
     }
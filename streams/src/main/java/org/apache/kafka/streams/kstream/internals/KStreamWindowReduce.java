@@ -16,8 +16,10 @@
  */
 package org.apache.kafka.streams.kstream.internals;
 
+import org.apache.kafka.common.serialization.Serde;
 import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.kstream.Reducer;
+import org.apache.kafka.streams.kstream.TimeWindows;
 import org.apache.kafka.streams.kstream.Window;
 import org.apache.kafka.streams.kstream.Windowed;
 import org.apache.kafka.streams.kstream.Windows;
@@ -34,13 +36,26 @@ public class KStreamWindowReduce<K, V, W extends Window> implements KStreamAggPr
     private final String storeName;
     private final Windows<W> windows;
     private final Reducer<V> reducer;
+    private final String bufferStoreName;
+    private final Serde<K> keySerde;
 
     private boolean sendOldValues = false;
 
     public KStreamWindowReduce(Windows<W> windows, String storeName, Reducer<V> reducer) {
+        this(windows, storeName, reducer, null, null);
+    }
+
+    /**
+     * @param bufferStoreName the name of the store buffering the open windows if only the
+     *                        {@link TimeWindows#emitsFinalResults() final results} are emitted, or null otherwise
+     * @param keySerde        the serde of the keys, or null to use the default one
+     */
+    public KStreamWindowReduce(Windows<W> windows, String storeName, Reducer<V> reducer, String bufferStoreName, Serde<K> keySerde) {
         this.windows = windows;
         this.storeName = storeName;
         this.reducer = reducer;
+        this.bufferStoreName = bufferStoreName;
+        this.keySerde = keySerde;
     }
 
     @Override
@@ -57,13 +72,18 @@ public class KStreamWindowReduce<K, V, W extends Window> implements KStreamAggPr
 
         private WindowStore<K, V> windowStore;
         private TupleForwarder<Windowed<K>, V> tupleForwarder;
+        private WindowFinalResultBuffer<K, W, V> finalResults;
 
         @SuppressWarnings("unchecked")
         @Override
         public void init(ProcessorContext context) {
             super.init(context);
             windowStore = (WindowStore<K, V>) context.getStateStore(storeName);
-            tupleForwarder = new TupleForwarder<>(windowStore, context, new ForwardingCacheFlushListener<Windowed<K>, V>(context, sendOldValues), sendOldValues);
+            if (bufferStoreName != null) {
+                finalResults = new WindowFinalResultBuffer<>(windows, context, windowStore, bufferStoreName, keySerde);
+            } else {
+                tupleForwarder = new TupleForwarder<>(windowStore, context, new ForwardingCacheFlushListener<Windowed<K>, V>(context, sendOldValues), sendOldValues);
+            }
         }
 
         @Override
@@ -77,6 +97,12 @@ public class KStreamWindowReduce<K, V, W extends Window> implements KStreamAggPr
             long timestamp = context().timestamp();
 
             Map<Long, W> matchedWindows = windows.windowsFor(timestamp);
+            if (finalResults != null) {
+                finalResults.removeClosedWindows(matchedWindows);
+                if (matchedWindows.isEmpty()) {
+                    return;
+                }
+            }
 
             long timeFrom = Long.MAX_VALUE;
             long timeTo = Long.MIN_VALUE;
@@ -107,7 +133,7 @@ public class KStreamWindowReduce<K, V, W extends Window> implements KStreamAggPr
 
                         // update the store with the new value
                         windowStore.put(key, newAgg, window.start());
-                        tupleForwarder.maybeForward(new Windowed<>(key, window), newAgg, oldAgg);
+                        forward(key, window, newAgg, oldAgg);
                         matchedWindows.remove(entry.key);
                     }
                 }
@@ -116,7 +142,19 @@ public class KStreamWindowReduce<K, V, W extends Window> implements KStreamAggPr
             // create the new window for the rest of unmatched window that do not exist yet
             for (final Map.Entry<Long, W> entry : matchedWindows.entrySet()) {
                 windowStore.put(key, value, entry.getKey());
-                tupleForwarder.maybeForward(new Windowed<>(key, entry.getValue()), value, null);
+                forward(key, entry.getValue(), value, null);
+            }
+
+            if (finalResults != null) {
+                finalResults.advance(timestamp);
+            }
+        }
+
+        private void forward(final K key, final W window, final V newAgg, final V oldAgg) {
+            if (finalResults != null) {
+                finalResults.buffer(key, window);
+            } else {
+                tupleForwarder.maybeForward(new Windowed<>(key, window), newAgg, oldAgg);
             }
         }
     }
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.streams.kstream.internals;
+
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.kstream.TimeWindows;
+import org.apache.kafka.streams.kstream.Window;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.apache.kafka.streams.kstream.Windows;
+import org.apache.kafka.streams.processor.ProcessorContext;
+import org.apache.kafka.streams.processor.internals.ProcessorStateManager;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.StateSerdes;
+import org.apache.kafka.streams.state.WindowStore;
+import org.apache.kafka.streams.state.WindowStoreIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Buffers the windows updated by a windowed aggregation, and forwards the final result of each window once the
+ * stream time has passed the end of the window plus the {@link TimeWindows#finalResultsGraceMs() grace period}.
+ * <p>
+ * The buffer only holds the keys of the open windows, ordered by window end, while their results are read from the
+ * window store of the aggregation when they are emitted. It also holds the stream time of the last emission, so that
+ * the windows already emitted are still considered closed after the buffer is restored.
+ */
+class WindowFinalResultBuffer<K, W extends Window, T> {
+
+    private static final Logger log = LoggerFactory.getLogger(WindowFinalResultBuffer.class);
+
+    private static final int TIMESTAMP_SIZE = 8;
+    private static final byte[] BUFFERED = new byte[0];
+    // sorts before the keys of the buffered windows, whose end is not negative
+    private static final Bytes STREAM_TIME_KEY = Bytes.wrap(new byte[0]);
+    private static final Bytes FIRST_WINDOW_KEY = Bytes.wrap(new byte[TIMESTAMP_SIZE]);
+
+    private final Windows<W> windows;
+    private final long graceMs;
+    private final ProcessorContext context;
+    private final WindowStore<K, T> windowStore;
+    private final KeyValueStore<Bytes, byte[]> buffer;
+    private final StateSerdes<K, byte[]> serdes;
+
+    private long streamTime;
+
+    @SuppressWarnings("unchecked")
+    WindowFinalResultBuffer(final Windows<W> windows,
+                            final ProcessorContext context,
+                            final WindowStore<K, T> windowStore,
+                            final String bufferStoreName,
+                            final Serde<K> keySerde) {
+        this.windows = windows;
+        this.graceMs = finalResultsGraceMs(windows);
+        this.context = context;
+        this.windowStore = windowStore;
+        this.buffer = (KeyValueStore<Bytes, byte[]>) context.getStateStore(bufferStoreName);
+        this.serdes = new StateSerdes<>(ProcessorStateManager.storeChangelogTopic(context.applicationId(), bufferStoreName),
+                                        keySerde == null ? (Serde<K>) context.keySerde() : keySerde,
+                                        Serdes.ByteArray());
+        final byte[] emittedStreamTime = buffer.get(STREAM_TIME_KEY);
+        this.streamTime = emittedStreamTime == null ? -1L : ByteBuffer.wrap(emittedStreamTime).getLong();
+    }
+
+    /**
+     * Return the grace period of the given windows if only their final results are emitted, which only
+     * {@link TimeWindows} support, or -1 otherwise.
+     */
+    static long finalResultsGraceMs(final Windows<?> windows) {
+        return windows instanceof TimeWindows ? ((TimeWindows) windows).finalResultsGraceMs() : -1L;
+    }
+
+    /**
+     * Remove the windows whose grace period has elapsed, as their final result was already emitted.
+     */
+    void removeClosedWindows(final Map<Long, W> matchedWindows) {
+        final Iterator<W> iterator = matchedWindows.values().iterator();
+        while (iterator.hasNext()) {
+            final W window = iterator.next();
+            if (window.end() <= streamTime - graceMs) {
+                log.debug("Dropping record for closed window {} at stream time {}", window, streamTime);
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Remember that the given window was updated, so that its result is emitted once it closes.
+     */
+    void buffer(final K key, final W window) {
+        final byte[] rawKey = serdes.rawKey(key);
+        final ByteBuffer bufferKey = ByteBuffer.allocate(2 * TIMESTAMP_SIZE + rawKey.length);
+        bufferKey.putLong(window.end());
+        bufferKey.putLong(window.start());
+        bufferKey.put(rawKey);
+        final Bytes bufferedWindow = Bytes.wrap(bufferKey.array());
+        // only write the window to the changelog of the buffer on its first update
+        if (buffer.get(bufferedWindow) == null) {
+            buffer.put(bufferedWindow, BUFFERED);
+        }
+    }
+
+    /**
+     * Advance the stream time to the given timestamp, and emit the results of the windows it closes.
+     */
+    void advance(final long timestamp) {
+        if (timestamp <= streamTime) {
+            return;
+        }
+        streamTime = timestamp;
+
+        final long closeTime = streamTime - graceMs;
+        if (closeTime < 0) {
+            return;
+        }
+        // the window end comes first in the buffer keys, so the closed windows are the ones before the next end
+        final Bytes firstOpenWindowKey = Bytes.wrap(ByteBuffer.allocate(TIMESTAMP_SIZE).putLong(closeTime + 1).array());
+        final List<Bytes> closed = new ArrayList<>();
+        try (final KeyValueIterator<Bytes, byte[]> iterator = buffer.range(FIRST_WINDOW_KEY, firstOpenWindowKey)) {
+            while (iterator.hasNext()) {
+                closed.add(iterator.next().key);
+            }
+        }
+        if (closed.isEmpty()) {
+            return;
+        }
+
+        for (final Bytes bufferKey : closed) {
+            emit(bufferKey.get());
+            buffer.delete(bufferKey);
+        }
+        buffer.put(STREAM_TIME_KEY, ByteBuffer.allocate(TIMESTAMP_SIZE).putLong(streamTime).array());
+    }
+
+    private void emit(final byte[] bufferKey) {
+        final long windowStart = ByteBuffer.wrap(bufferKey).getLong(TIMESTAMP_SIZE);
+        final K key = serdes.keyFrom(Arrays.copyOfRange(bufferKey, 2 * TIMESTAMP_SIZE, bufferKey.length));
+
+        try (final WindowStoreIterator<T> iterator = windowStore.fetch(key, windowStart, windowStart)) {
+            if (iterator.hasNext()) {
+                final W window = windows.windowsFor(windowStart).get(windowStart);
+                context.forward(new Windowed<>(key, window), new Change<>(iterator.next().value, null));
+            }
+        }
+    }
+}
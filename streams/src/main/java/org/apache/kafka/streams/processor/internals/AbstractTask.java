@@ -43,7 +43,7 @@ public abstract class AbstractTask {
     private final TaskId id;
     protected final String applicationId;
     protected final ProcessorTopology topology;
-    protected final Consumer consumer;
+    protected final Consumer<byte[], byte[]> consumer;
     protected final ProcessorStateManager stateMgr;
     protected final Set<TopicPartition> partitions;
     InternalProcessorContext processorContext;
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.streams.processor.internals;
+
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.BytesDeserializer;
+import org.apache.kafka.common.serialization.BytesSerializer;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.DoubleDeserializer;
+import org.apache.kafka.common.serialization.DoubleSerializer;
+import org.apache.kafka.common.serialization.FloatDeserializer;
+import org.apache.kafka.common.serialization.FloatSerializer;
+import org.apache.kafka.common.serialization.IntegerDeserializer;
+import org.apache.kafka.common.serialization.IntegerSerializer;
+import org.apache.kafka.common.serialization.LongDeserializer;
+import org.apache.kafka.common.serialization.LongSerializer;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The key and value of a record as deserialized by a source node, with the raw bytes they were deserialized from.
+ *
+ * A sink node sending the very same key or value object with a serializer that writes the bytes read by the
+ * deserializer of the source node reuses the raw bytes instead of serializing the object again. Only the serializers
+ * of the built-in types are known to do so. The String serdes are left out, as their encodings are configured
+ * independently, so the bytes read by a String deserializer may differ from those a String serializer would write.
+ */
+class DeserializedRecord {
+
+    private static final Map<Class<?>, Class<?>> SERIALIZER_TO_DESERIALIZER = new HashMap<>();
+
+    static {
+        SERIALIZER_TO_DESERIALIZER.put(ByteArraySerializer.class, ByteArrayDeserializer.class);
+        SERIALIZER_TO_DESERIALIZER.put(BytesSerializer.class, BytesDeserializer.class);
+        SERIALIZER_TO_DESERIALIZER.put(IntegerSerializer.class, IntegerDeserializer.class);
+        SERIALIZER_TO_DESERIALIZER.put(LongSerializer.class, LongDeserializer.class);
+        SERIALIZER_TO_DESERIALIZER.put(FloatSerializer.class, FloatDeserializer.class);
+        SERIALIZER_TO_DESERIALIZER.put(DoubleSerializer.class, DoubleDeserializer.class);
+    }
+
+    private final Object key;
+    private final Object value;
+    private final byte[] rawKey;
+    private final byte[] rawValue;
+    private final Deserializer<?> keyDeserializer;
+    private final Deserializer<?> valueDeserializer;
+
+    DeserializedRecord(final Object key,
+                       final Object value,
+                       final byte[] rawKey,
+                       final byte[] rawValue,
+                       final Deserializer<?> keyDeserializer,
+                       final Deserializer<?> valueDeserializer) {
+        this.key = key;
+        this.value = value;
+        this.rawKey = rawKey;
+        this.rawValue = rawValue;
+        this.keyDeserializer = keyDeserializer;
+        this.valueDeserializer = valueDeserializer;
+    }
+
+    /**
+     * @return the raw bytes of the key if `key` is the deserialized key and `serializer` would write them back, null
+     *         otherwise
+     */
+    byte[] rawKey(final Object key, final Serializer<?> serializer) {
+        return raw(key, serializer, this.key, rawKey, keyDeserializer);
+    }
+
+    /**
+     * @return the raw bytes of the value if `value` is the deserialized value and `serializer` would write them back,
+     *         null otherwise
+     */
+    byte[] rawValue(final Object value, final Serializer<?> serializer) {
+        return raw(value, serializer, this.value, rawValue, valueDeserializer);
+    }
+
+    private static byte[] raw(final Object object,
+                              final Serializer<?> serializer,
+                              final Object deserialized,
+                              final byte[] raw,
+                              final Deserializer<?> deserializer) {
+        if (object == null || object != deserialized || raw == null)
+            return null;
+        final Class<?> deserializerClass = SERIALIZER_TO_DESERIALIZER.get(serializer.getClass());
+        return deserializerClass != null && deserializerClass == deserializer.getClass() ? raw : null;
+    }
+}
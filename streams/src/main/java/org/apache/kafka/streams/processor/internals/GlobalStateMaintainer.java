@@ -34,4 +34,6 @@ interface GlobalStateMaintainer {
     void close() throws IOException;
 
     void update(ConsumerRecord<byte[], byte[]> record);
+
+    void recordSampledOperations();
 }
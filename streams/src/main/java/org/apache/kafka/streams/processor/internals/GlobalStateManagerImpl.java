@@ -21,9 +21,11 @@ import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.errors.LockException;
 import org.apache.kafka.streams.errors.ProcessorStateException;
 import org.apache.kafka.streams.errors.StreamsException;
+import org.apache.kafka.streams.processor.BatchingStateRestoreCallback;
 import org.apache.kafka.streams.processor.StateRestoreCallback;
 import org.apache.kafka.streams.processor.StateStore;
 import org.apache.kafka.streams.state.internals.OffsetCheckpoint;
@@ -36,6 +38,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -136,6 +139,8 @@ public class GlobalStateManagerImpl implements GlobalStateManager {
             restoreState(stateRestoreCallback, topicPartitions, highWatermarks);
             stores.put(store.name(), store);
         } finally {
+            // the global stream thread reads the same partitions with the same consumer once all stores are restored
+            consumer.resume(consumer.paused());
             consumer.assign(Collections.<TopicPartition>emptyList());
         }
 
@@ -155,31 +160,68 @@ public class GlobalStateManagerImpl implements GlobalStateManager {
         return topicPartitions;
     }
 
+    /**
+     * Restore all the partitions of a store at once, so that the consumer fetches them in parallel rather than one
+     * partition after the other, and hand the records of each poll to the store as a single batch if it supports it.
+     */
     private void restoreState(final StateRestoreCallback stateRestoreCallback,
                               final List<TopicPartition> topicPartitions,
                               final Map<TopicPartition, Long> highWatermarks) {
+        consumer.assign(topicPartitions);
+        final Map<TopicPartition, Long> offsets = new HashMap<>();
         for (final TopicPartition topicPartition : topicPartitions) {
-            consumer.assign(Collections.singletonList(topicPartition));
             final Long checkpoint = checkpointableOffsets.get(topicPartition);
             if (checkpoint != null) {
                 consumer.seek(topicPartition, checkpoint);
             } else {
                 consumer.seekToBeginning(Collections.singletonList(topicPartition));
             }
+            offsets.put(topicPartition, consumer.position(topicPartition));
+        }
 
-            long offset = consumer.position(topicPartition);
-            final Long highWatermark = highWatermarks.get(topicPartition);
-
-            while (offset < highWatermark) {
-                final ConsumerRecords<byte[], byte[]> records = consumer.poll(100);
-                for (ConsumerRecord<byte[], byte[]> record : records) {
-                    offset = record.offset() + 1;
+        final Set<TopicPartition> restoring = new HashSet<>(topicPartitions);
+        pauseRestoredPartitions(restoring, offsets, highWatermarks);
+        while (!restoring.isEmpty()) {
+            final ConsumerRecords<byte[], byte[]> records = consumer.poll(100);
+            final List<KeyValue<byte[], byte[]>> batch = new ArrayList<>(records.count());
+            for (final TopicPartition topicPartition : records.partitions()) {
+                for (final ConsumerRecord<byte[], byte[]> record : records.records(topicPartition)) {
+                    offsets.put(topicPartition, record.offset() + 1);
                     if (record.key() != null) {
-                        stateRestoreCallback.restore(record.key(), record.value());
+                        batch.add(KeyValue.pair(record.key(), record.value()));
                     }
                 }
             }
-            checkpointableOffsets.put(topicPartition, offset);
+            restoreBatch(stateRestoreCallback, batch);
+            pauseRestoredPartitions(restoring, offsets, highWatermarks);
+        }
+        checkpointableOffsets.putAll(offsets);
+    }
+
+    private void pauseRestoredPartitions(final Set<TopicPartition> restoring,
+                                         final Map<TopicPartition, Long> offsets,
+                                         final Map<TopicPartition, Long> highWatermarks) {
+        final Iterator<TopicPartition> iterator = restoring.iterator();
+        while (iterator.hasNext()) {
+            final TopicPartition topicPartition = iterator.next();
+            if (offsets.get(topicPartition) >= highWatermarks.get(topicPartition)) {
+                consumer.pause(Collections.singletonList(topicPartition));
+                iterator.remove();
+            }
+        }
+    }
+
+    private void restoreBatch(final StateRestoreCallback stateRestoreCallback,
+                              final List<KeyValue<byte[], byte[]>> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (stateRestoreCallback instanceof BatchingStateRestoreCallback) {
+            ((BatchingStateRestoreCallback) stateRestoreCallback).restoreAll(batch);
+        } else {
+            for (final KeyValue<byte[], byte[]> record : batch) {
+                stateRestoreCallback.restore(record.key, record.value);
+            }
         }
     }
 
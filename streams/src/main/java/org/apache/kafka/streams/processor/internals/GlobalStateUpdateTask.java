@@ -87,6 +87,13 @@ public class GlobalStateUpdateTask implements GlobalStateMaintainer {
         offsets.put(new TopicPartition(record.topic(), record.partition()), deserialized.offset() + 1);
     }
 
+    @Override
+    public void recordSampledOperations() {
+        for (final ProcessorNode<?, ?> node : topology.processors()) {
+            node.recordSampledOperations();
+        }
+    }
+
     public void flushState() {
         stateMgr.flush();
         stateMgr.checkpoint(offsets);
@@ -67,7 +67,8 @@ public class GlobalStreamThread extends Thread {
         this.stateDirectory = stateDirectory;
         long cacheSizeBytes = Math.max(0, config.getLong(StreamsConfig.CACHE_MAX_BYTES_BUFFERING_CONFIG) /
                 (config.getInt(StreamsConfig.NUM_STREAM_THREADS_CONFIG) + 1));
-        this.streamsMetrics = new StreamsMetricsImpl(metrics, threadClientId, Collections.singletonMap("client-id", threadClientId));
+        this.streamsMetrics = new StreamsMetricsImpl(metrics, threadClientId, Collections.singletonMap("client-id", threadClientId),
+                                                     config.getInt(StreamsConfig.METRICS_LATENCY_SAMPLING_INTERVAL_CONFIG));
         this.cache = new ThreadCache(threadClientId, cacheSizeBytes, streamsMetrics);
     }
 
@@ -106,6 +107,9 @@ public class GlobalStreamThread extends Thread {
             for (ConsumerRecord<byte[], byte[]> record : received) {
                 stateMaintainer.update(record);
             }
+            if (!received.isEmpty()) {
+                stateMaintainer.recordSampledOperations();
+            }
             final long now = time.milliseconds();
             if (flushInterval >= 0 && now >= lastFlush + flushInterval) {
                 stateMaintainer.flushState();
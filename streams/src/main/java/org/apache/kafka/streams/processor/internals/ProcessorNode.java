@@ -130,12 +130,27 @@ public class ProcessorNode<K, V> {
         this.key = key;
         this.value = value;
 
-        this.nodeMetrics.metrics.measureLatencyNs(time, processDelegate, nodeMetrics.nodeProcessTimeSensor);
+        if (nodeMetrics.sampledProcessTimeSensor != null) {
+            nodeMetrics.sampledProcessTimeSensor.measureLatencyNs(time, processDelegate);
+        } else {
+            nodeMetrics.metrics.measureLatencyNs(time, processDelegate, nodeMetrics.nodeProcessTimeSensor);
+        }
+    }
+
+    /**
+     * Record the operations of this node whose latency was not sampled, if its latencies are sampled.
+     */
+    public void recordSampledOperations() {
+        nodeMetrics.recordSampledOperations();
     }
 
     public void punctuate(long timestamp) {
         this.timestamp = timestamp;
-        this.nodeMetrics.metrics.measureLatencyNs(time, punctuateDelegate, nodeMetrics.nodePunctuateTimeSensor);
+        if (nodeMetrics.sampledPunctuateTimeSensor != null) {
+            nodeMetrics.sampledPunctuateTimeSensor.measureLatencyNs(time, punctuateDelegate);
+        } else {
+            nodeMetrics.metrics.measureLatencyNs(time, punctuateDelegate, nodeMetrics.nodePunctuateTimeSensor);
+        }
     }
 
     /**
@@ -173,6 +188,9 @@ public class ProcessorNode<K, V> {
         final Sensor sourceNodeForwardSensor;
         final Sensor nodeCreationSensor;
         final Sensor nodeDestructionSensor;
+        // only set if the latencies of process and punctuate are sampled, in which case the sensors above are null
+        final SampledLatencySensor sampledProcessTimeSensor;
+        final SampledLatencySensor sampledPunctuateTimeSensor;
 
 
         public NodeMetrics(StreamsMetrics metrics, String name, String sensorNamePrefix) {
@@ -185,20 +203,48 @@ public class ProcessorNode<K, V> {
             this.metricTags.put(tagKey, tagValue);
 
             // these are all latency metrics
-            this.nodeProcessTimeSensor = metrics.addLatencyAndThroughputSensor(scope, sensorNamePrefix + "." + name, "process", Sensor.RecordingLevel.DEBUG, tagKey, tagValue);
-            this.nodePunctuateTimeSensor = metrics.addLatencyAndThroughputSensor(scope, sensorNamePrefix + "." + name, "punctuate", Sensor.RecordingLevel.DEBUG, tagKey, tagValue);
+            if (this.metrics.latencySamplingInterval() > 1) {
+                this.nodeProcessTimeSensor = null;
+                this.nodePunctuateTimeSensor = null;
+                this.sampledProcessTimeSensor = this.metrics.addSampledLatencyAndThroughputSensor(scope, sensorNamePrefix + "." + name, "process", Sensor.RecordingLevel.DEBUG, tagKey, tagValue);
+                this.sampledPunctuateTimeSensor = this.metrics.addSampledLatencyAndThroughputSensor(scope, sensorNamePrefix + "." + name, "punctuate", Sensor.RecordingLevel.DEBUG, tagKey, tagValue);
+            } else {
+                this.nodeProcessTimeSensor = metrics.addLatencyAndThroughputSensor(scope, sensorNamePrefix + "." + name, "process", Sensor.RecordingLevel.DEBUG, tagKey, tagValue);
+                this.nodePunctuateTimeSensor = metrics.addLatencyAndThroughputSensor(scope, sensorNamePrefix + "." + name, "punctuate", Sensor.RecordingLevel.DEBUG, tagKey, tagValue);
+                this.sampledProcessTimeSensor = null;
+                this.sampledPunctuateTimeSensor = null;
+            }
             this.nodeCreationSensor = metrics.addLatencyAndThroughputSensor(scope, sensorNamePrefix + "." + name, "create", Sensor.RecordingLevel.DEBUG, tagKey, tagValue);
             this.nodeDestructionSensor = metrics.addLatencyAndThroughputSensor(scope, sensorNamePrefix + "." + name, "destroy", Sensor.RecordingLevel.DEBUG, tagKey, tagValue);
             this.sourceNodeForwardSensor = metrics.addThroughputSensor(scope, sensorNamePrefix + "." + name, "forward", Sensor.RecordingLevel.DEBUG, tagKey, tagValue);
 
         }
 
+        void recordSampledOperations() {
+            if (sampledProcessTimeSensor != null) {
+                sampledProcessTimeSensor.recordPendingOperations();
+                sampledPunctuateTimeSensor.recordPendingOperations();
+            }
+        }
+
         public void removeAllSensors() {
-            metrics.removeSensor(nodeProcessTimeSensor);
-            metrics.removeSensor(nodePunctuateTimeSensor);
+            if (sampledProcessTimeSensor != null) {
+                // reporters get the last operations before the sensors are removed
+                recordSampledOperations();
+                removeSampledSensor(sampledProcessTimeSensor);
+                removeSampledSensor(sampledPunctuateTimeSensor);
+            } else {
+                metrics.removeSensor(nodeProcessTimeSensor);
+                metrics.removeSensor(nodePunctuateTimeSensor);
+            }
             metrics.removeSensor(sourceNodeForwardSensor);
             metrics.removeSensor(nodeCreationSensor);
             metrics.removeSensor(nodeDestructionSensor);
         }
+
+        private void removeSampledSensor(final SampledLatencySensor sensor) {
+            metrics.removeSensor(sensor.latencySensor);
+            metrics.removeSensor(sensor.countSensor);
+        }
     }
 }
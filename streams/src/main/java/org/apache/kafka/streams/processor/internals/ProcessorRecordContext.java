@@ -24,16 +24,33 @@ public class ProcessorRecordContext implements RecordContext {
     private final long offset;
     private final String topic;
     private final int partition;
+    private final DeserializedRecord deserializedRecord;
 
     public ProcessorRecordContext(final long timestamp,
                                   final long offset,
                                   final int partition,
                                   final String topic) {
+        this(timestamp, offset, partition, topic, null);
+    }
+
+    ProcessorRecordContext(final long timestamp,
+                           final long offset,
+                           final int partition,
+                           final String topic,
+                           final DeserializedRecord deserializedRecord) {
 
         this.timestamp = timestamp;
         this.offset = offset;
         this.topic = topic;
         this.partition = partition;
+        this.deserializedRecord = deserializedRecord;
+    }
+
+    /**
+     * @return the record as deserialized by its source node, or null if the record was not read from a source topic
+     */
+    DeserializedRecord deserializedRecord() {
+        return deserializedRecord;
     }
 
     public long offset() {
@@ -18,6 +18,7 @@ package org.apache.kafka.streams.processor.internals;
 
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.utils.Utils;
 import org.apache.kafka.streams.errors.LockException;
 import org.apache.kafka.streams.errors.ProcessorStateException;
 import org.apache.kafka.streams.errors.StreamsException;
@@ -29,13 +30,20 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.FileFilter;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
 
 
 public class ProcessorStateManager implements StateManager {
@@ -44,6 +52,8 @@ public class ProcessorStateManager implements StateManager {
 
     public static final String STATE_CHANGELOG_TOPIC_SUFFIX = "-changelog";
     static final String CHECKPOINT_FILE_NAME = ".checkpoint";
+    static final String SNAPSHOT_DATA_DIR_NAME = "data";
+    static final String SNAPSHOT_STAGING_DIR_PREFIX = ".snapshot-";
 
     private final File baseDir;
     private final TaskId taskId;
@@ -63,6 +73,11 @@ public class ProcessorStateManager implements StateManager {
     // of the same topic can be assigned to the same topic.
     private final Map<String, TopicPartition> partitionForTopic;
     private final OffsetCheckpoint checkpoint;
+    private final File snapshotDir;
+    private final Map<String, StateSnapshotCallback> snapshotCallbacks;
+    private final Map<String, Long> snapshotOffsets; // offsets of the latest snapshots, also updated by the snapshot writer
+    private long nextSnapshotMs;
+    private Future<?> pendingSnapshots;
 
     /**
      * @throws LockException if the state directory cannot be locked because another thread holds the lock
@@ -110,6 +125,12 @@ public class ProcessorStateManager implements StateManager {
         checkpoint = new OffsetCheckpoint(new File(baseDir, CHECKPOINT_FILE_NAME));
         checkpointedOffsets = new HashMap<>(checkpoint.read());
 
+        snapshotDir = stateDirectory.snapshotDirectoryForTask(taskId);
+        snapshotCallbacks = new LinkedHashMap<>();
+        snapshotOffsets = new ConcurrentHashMap<>();
+        nextSnapshotMs = stateDirectory.time().milliseconds() + stateDirectory.snapshotIntervalMs();
+        deleteStagedSnapshots();
+
         log.info("{} Created state store manager for task {} with the acquired state dir lock", logPrefix, taskId);
     }
 
@@ -155,6 +176,15 @@ public class ProcessorStateManager implements StateManager {
         final TopicPartition storePartition = new TopicPartition(topic, getPartition(topic));
         changelogReader.validatePartitionExists(storePartition, store.name());
 
+        if (snapshotDir != null && stateRestoreCallback instanceof StateSnapshotCallback) {
+            final StateSnapshotCallback snapshotCallback = (StateSnapshotCallback) stateRestoreCallback;
+            maybeRestoreSnapshot(store.name(), storePartition, snapshotCallback);
+            // standby tasks only load snapshots, as the active task may be writing them to a shared snapshot directory
+            if (!isStandby) {
+                snapshotCallbacks.put(store.name(), snapshotCallback);
+            }
+        }
+
         if (isStandby) {
             if (store.persistent()) {
                 log.trace("{} Preparing standby replica of persistent state store {} with changelog topic {}", logPrefix, store.name(), topic);
@@ -174,6 +204,42 @@ public class ProcessorStateManager implements StateManager {
         stores.put(store.name(), store);
     }
 
+    /**
+     * Replace the content of the store by its snapshot if the snapshot is more recent than the local checkpoint of the
+     * store, so that only the changelog records after the snapshot are restored.
+     */
+    private void maybeRestoreSnapshot(final String storeName,
+                                      final TopicPartition storePartition,
+                                      final StateSnapshotCallback snapshotCallback) {
+        final File storeSnapshotDir = new File(snapshotDir, storeName);
+        final Long snapshotOffset;
+        try {
+            snapshotOffset = new OffsetCheckpoint(new File(storeSnapshotDir, CHECKPOINT_FILE_NAME)).read().get(storePartition);
+        } catch (final IOException | IllegalArgumentException e) {
+            log.warn("{} Failed to read the snapshot of state store {} from {}, restoring it from its changelog", logPrefix, storeName, storeSnapshotDir, e);
+            return;
+        }
+        if (snapshotOffset == null) {
+            return;
+        }
+        snapshotOffsets.put(storeName, snapshotOffset);
+        final Long localOffset = checkpointedOffsets.get(storePartition);
+        if (localOffset != null && localOffset >= snapshotOffset) {
+            return;
+        }
+
+        log.info("{} Restoring state store {} from its snapshot at offset {} of changelog partition {}", logPrefix, storeName, snapshotOffset, storePartition);
+        try {
+            snapshotCallback.restoreSnapshot(new File(storeSnapshotDir, SNAPSHOT_DATA_DIR_NAME));
+        } catch (final ProcessorStateException e) {
+            // the snapshot may have been replaced while it was loaded, and the local content of the store is lost
+            log.warn("{} Failed to restore state store {} from its snapshot, restoring it from its changelog", logPrefix, storeName, e);
+            checkpointedOffsets.remove(storePartition);
+            return;
+        }
+        checkpointedOffsets.put(storePartition, snapshotOffset);
+    }
+
     @Override
     public Map<TopicPartition, Long> checkpointed() {
         final Map<TopicPartition, Long> partitionsAndOffsets = new HashMap<>();
@@ -264,6 +330,10 @@ public class ProcessorStateManager implements StateManager {
     @Override
     public void close(final Map<TopicPartition, Long> ackedOffsets) throws ProcessorStateException {
         RuntimeException firstException = null;
+        if (pendingSnapshots != null) {
+            // abandon the snapshots that are still being written, the next owner of the task will take new ones
+            pendingSnapshots.cancel(true);
+        }
         try {
             // attempting to close the stores, just in case they
             // are not closed by a ProcessorNode yet
@@ -282,7 +352,7 @@ public class ProcessorStateManager implements StateManager {
                 }
 
                 if (ackedOffsets != null) {
-                    checkpoint(ackedOffsets);
+                    writeCheckpoint(ackedOffsets);
                 }
 
             }
@@ -306,6 +376,11 @@ public class ProcessorStateManager implements StateManager {
     // write the checkpoint
     @Override
     public void checkpoint(final Map<TopicPartition, Long> ackedOffsets) {
+        writeCheckpoint(ackedOffsets);
+        maybeSnapshot();
+    }
+
+    private void writeCheckpoint(final Map<TopicPartition, Long> ackedOffsets) {
         log.trace("{} Writing checkpoint: {}", logPrefix, ackedOffsets);
         checkpointedOffsets.putAll(changelogReader.restoredOffsets());
         for (final Map.Entry<String, StateStore> entry : stores.entrySet()) {
@@ -331,6 +406,170 @@ public class ProcessorStateManager implements StateManager {
         }
     }
 
+    /**
+     * Snapshot every store of an active task that supports it and has changed since its last snapshot, if the snapshot
+     * interval has elapsed since the last ones and they have been written. The stores are expected to be flushed.
+     * <p>
+     * The stores only stage their snapshots next to them in the task directory, which is cheap as RocksDB hard-links
+     * its files, and the snapshots are copied to the snapshot directory by the snapshot writer of the
+     * {@link StateDirectory}, so that the copy does not hold up the commit.
+     */
+    private void maybeSnapshot() {
+        if (snapshotCallbacks.isEmpty() || stateDirectory.time().milliseconds() < nextSnapshotMs) {
+            return;
+        }
+        if (pendingSnapshots != null && !pendingSnapshots.isDone()) {
+            log.debug("{} Skipping the snapshots of the state stores as the previous ones are still being written", logPrefix);
+            return;
+        }
+        nextSnapshotMs = stateDirectory.time().milliseconds() + stateDirectory.snapshotIntervalMs();
+
+        final File stagingDir = new File(baseDir, SNAPSHOT_STAGING_DIR_PREFIX + UUID.randomUUID());
+        final List<StagedSnapshot> stagedSnapshots = new ArrayList<>();
+        for (final Map.Entry<String, StateSnapshotCallback> entry : snapshotCallbacks.entrySet()) {
+            final String storeName = entry.getKey();
+            final String changelogTopic = storeToChangelogTopic.get(storeName);
+            final TopicPartition storePartition = new TopicPartition(changelogTopic, getPartition(changelogTopic));
+            final Long offset = checkpointedOffsets.get(storePartition);
+            if (offset == null || offset.equals(snapshotOffsets.get(storeName))) {
+                continue;
+            }
+
+            try {
+                if (!stagingDir.exists() && !stagingDir.mkdir()) {
+                    throw new IOException("Failed to create directory " + stagingDir);
+                }
+                entry.getValue().snapshot(new File(stagingDir, storeName));
+                stagedSnapshots.add(new StagedSnapshot(storeName, storePartition, offset));
+            } catch (final IOException | ProcessorStateException e) {
+                log.warn("{} Failed to stage snapshot of state store {} in {}", logPrefix, storeName, stagingDir, e);
+            }
+        }
+
+        // keep the snapshots of the unchanged stores from being deleted as obsolete
+        if (!snapshotDir.setLastModified(stateDirectory.time().milliseconds())) {
+            log.debug("{} Failed to update the modification time of snapshot directory {}", logPrefix, snapshotDir);
+        }
+        if (stagedSnapshots.isEmpty()) {
+            deleteSnapshotDir(stagingDir);
+        } else {
+            pendingSnapshots = stateDirectory.submitSnapshots(new SnapshotWriter(stagingDir, stagedSnapshots));
+        }
+    }
+
+    /**
+     * Delete the staged snapshots that were left behind by a previous owner of the task which did not write them.
+     */
+    private void deleteStagedSnapshots() {
+        final File[] stagingDirs = baseDir.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(final File pathname) {
+                return pathname.getName().startsWith(SNAPSHOT_STAGING_DIR_PREFIX);
+            }
+        });
+        if (stagingDirs != null) {
+            for (final File stagingDir : stagingDirs) {
+                deleteSnapshotDir(stagingDir);
+            }
+        }
+    }
+
+    private void deleteSnapshotDir(final File dir) {
+        try {
+            Utils.delete(dir);
+        } catch (final IOException e) {
+            log.warn("{} Failed to delete snapshot directory {}", logPrefix, dir, e);
+        }
+    }
+
+    private static class StagedSnapshot {
+        private final String storeName;
+        private final TopicPartition partition;
+        private final long offset;
+
+        StagedSnapshot(final String storeName, final TopicPartition partition, final long offset) {
+            this.storeName = storeName;
+            this.partition = partition;
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * Copies staged snapshots to the snapshot directory on the snapshot writer thread. Each snapshot is written to a
+     * temporary directory of its own, as other instances may write snapshots of the same store to a shared snapshot
+     * directory, and it only replaces the current snapshot of its store if that one is older.
+     */
+    private class SnapshotWriter implements Runnable {
+        private final File stagingDir;
+        private final List<StagedSnapshot> stagedSnapshots;
+
+        SnapshotWriter(final File stagingDir, final List<StagedSnapshot> stagedSnapshots) {
+            this.stagingDir = stagingDir;
+            this.stagedSnapshots = stagedSnapshots;
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (final StagedSnapshot stagedSnapshot : stagedSnapshots) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        log.debug("{} Abandoning the snapshots of the state stores", logPrefix);
+                        return;
+                    }
+                    write(stagedSnapshot);
+                }
+            } finally {
+                deleteSnapshotDir(stagingDir);
+            }
+        }
+
+        private void write(final StagedSnapshot stagedSnapshot) {
+            final String storeName = stagedSnapshot.storeName;
+            final File storeSnapshotDir = new File(snapshotDir, storeName);
+            final File tempSnapshotDir = new File(snapshotDir, storeName + "-" + UUID.randomUUID() + StateDirectory.SNAPSHOT_TEMP_DIR_SUFFIX);
+            try {
+                copyDirectory(new File(stagingDir, storeName), new File(tempSnapshotDir, SNAPSHOT_DATA_DIR_NAME));
+                new OffsetCheckpoint(new File(tempSnapshotDir, CHECKPOINT_FILE_NAME))
+                    .write(Collections.singletonMap(stagedSnapshot.partition, stagedSnapshot.offset));
+
+                final Long currentOffset = new OffsetCheckpoint(new File(storeSnapshotDir, CHECKPOINT_FILE_NAME)).read().get(stagedSnapshot.partition);
+                if (currentOffset != null && currentOffset >= stagedSnapshot.offset) {
+                    log.debug("{} Discarding snapshot of state store {} at offset {} as a newer one was written", logPrefix, storeName, stagedSnapshot.offset);
+                    return;
+                }
+                Utils.delete(storeSnapshotDir);
+                Utils.atomicMoveWithFallback(tempSnapshotDir.toPath(), storeSnapshotDir.toPath());
+                snapshotOffsets.put(storeName, stagedSnapshot.offset);
+                log.debug("{} Wrote snapshot of state store {} at offset {} of changelog partition {}", logPrefix, storeName, stagedSnapshot.offset, stagedSnapshot.partition);
+            } catch (final InterruptedIOException e) {
+                log.debug("{} Abandoning the snapshot of state store {}", logPrefix, storeName);
+            } catch (final IOException | IllegalArgumentException e) {
+                log.warn("{} Failed to write snapshot of state store {} to {}", logPrefix, storeName, storeSnapshotDir, e);
+            } finally {
+                // the temporary directory is gone once it replaced the current snapshot
+                deleteSnapshotDir(tempSnapshotDir);
+            }
+        }
+
+        private void copyDirectory(final File source, final File target) throws IOException {
+            final File[] files = source.listFiles();
+            if (files == null) {
+                throw new IOException("Failed to list the files of " + source);
+            }
+            Files.createDirectories(target.toPath());
+            for (final File file : files) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Interrupted while copying " + source);
+                }
+                if (file.isDirectory()) {
+                    copyDirectory(file, new File(target, file.getName()));
+                } else {
+                    Files.copy(file.toPath(), new File(target, file.getName()).toPath());
+                }
+            }
+        }
+    }
+
     private int getPartition(final String topic) {
         final TopicPartition partition = partitionForTopic.get(topic);
 
@@ -90,7 +90,7 @@ public class RecordQueue {
                 continue;
             }
 
-            StampedRecord stampedRecord = new StampedRecord(record, timestamp);
+            StampedRecord stampedRecord = new StampedRecord(record, timestamp, rawRecord.key(), rawRecord.value());
             fifoQueue.addLast(stampedRecord);
             timeTracker.addElement(stampedRecord);
         }
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.streams.processor.internals;
+
+import org.apache.kafka.common.metrics.Sensor;
+import org.apache.kafka.common.utils.Time;
+
+/**
+ * Measures the latency of one in every {@code samplingInterval} operations only, saving the other operations the cost
+ * of reading the clock and of recording into the synchronized sensors.
+ * <p>
+ * The operations which are not measured are still counted, and their number is recorded together with the next
+ * measured latency, so that the rate of the operations stays accurate. The operations counted since the last measured
+ * latency can also be recorded with {@link #recordPendingOperations()}, so that infrequent operations are not only
+ * recorded many sampling intervals later.
+ * Instances are not thread-safe, as each is used by a single processor node.
+ */
+public class SampledLatencySensor {
+    final Sensor latencySensor;
+    final Sensor countSensor;
+    private final int samplingInterval;
+    private int operations = 0;
+
+    SampledLatencySensor(final Sensor latencySensor, final Sensor countSensor, final int samplingInterval) {
+        this.latencySensor = latencySensor;
+        this.countSensor = countSensor;
+        this.samplingInterval = samplingInterval;
+    }
+
+    /**
+     * Run the action, and measure its latency if it is the one operation of the current sampling interval to be
+     * measured.
+     */
+    public void measureLatencyNs(final Time time, final Runnable action) {
+        if (!latencySensor.shouldRecord() || ++operations < samplingInterval) {
+            action.run();
+            return;
+        }
+
+        final long startNs = time.nanoseconds();
+        action.run();
+        latencySensor.record(time.nanoseconds() - startNs);
+        countSensor.record(operations);
+        operations = 0;
+    }
+
+    /**
+     * Record the number of operations counted since the last measured latency, if any.
+     */
+    public void recordPendingOperations() {
+        if (operations > 0) {
+            countSensor.record(operations);
+            operations = 0;
+        }
+    }
+}
@@ -22,12 +22,16 @@ import org.apache.kafka.streams.kstream.internals.ChangedSerializer;
 import org.apache.kafka.streams.processor.ProcessorContext;
 import org.apache.kafka.streams.processor.StreamPartitioner;
 
+import java.util.Map;
+
 public class SinkNode<K, V> extends ProcessorNode<K, V> {
 
     private final String topic;
     private Serializer<K> keySerializer;
     private Serializer<V> valSerializer;
     private final StreamPartitioner<? super K, ? super V> partitioner;
+    private final RawBytesSerializer<K> rawKeySerializer = new RawBytesSerializer<>();
+    private final RawBytesSerializer<V> rawValueSerializer = new RawBytesSerializer<>();
 
     private ProcessorContext context;
 
@@ -83,6 +87,23 @@ public class SinkNode<K, V> extends ProcessorNode<K, V> {
             throw new StreamsException("Invalid (negative) timestamp of " + timestamp + " for output record <" + key + ":" + value + ">.");
         }
 
+        // send the raw bytes of the record being processed if the key or value were forwarded untouched to the sink
+        Serializer<K> keySerializer = this.keySerializer;
+        Serializer<V> valSerializer = this.valSerializer;
+        final DeserializedRecord deserializedRecord = deserializedRecord();
+        if (deserializedRecord != null) {
+            final byte[] rawKey = deserializedRecord.rawKey(key, keySerializer);
+            if (rawKey != null) {
+                rawKeySerializer.bytes = rawKey;
+                keySerializer = rawKeySerializer;
+            }
+            final byte[] rawValue = deserializedRecord.rawValue(value, valSerializer);
+            if (rawValue != null) {
+                rawValueSerializer.bytes = rawValue;
+                valSerializer = rawValueSerializer;
+            }
+        }
+
         try {
             collector.send(topic, key, value, timestamp, keySerializer, valSerializer, partitioner);
         } catch (final ClassCastException e) {
@@ -92,14 +113,42 @@ public class SinkNode<K, V> extends ProcessorNode<K, V> {
                     String.format("A serializer (key: %s / value: %s) is not compatible to the actual key or value type " +
                                     "(key type: %s / value type: %s). Change the default Serdes in StreamConfig or " +
                                     "provide correct Serdes via method parameters.",
-                                    keySerializer.getClass().getName(),
-                                    valSerializer.getClass().getName(),
+                                    this.keySerializer.getClass().getName(),
+                                    this.valSerializer.getClass().getName(),
                                     keyClass,
                                     valueClass),
                     e);
         }
     }
 
+    private DeserializedRecord deserializedRecord() {
+        if (context instanceof InternalProcessorContext) {
+            final RecordContext recordContext = ((InternalProcessorContext) context).recordContext();
+            if (recordContext instanceof ProcessorRecordContext) {
+                return ((ProcessorRecordContext) recordContext).deserializedRecord();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A serializer returning the raw bytes of the record being sent, whatever the object to serialize.
+     */
+    private static class RawBytesSerializer<T> implements Serializer<T> {
+        private byte[] bytes;
+
+        @Override
+        public void configure(final Map<String, ?> configs, final boolean isKey) {}
+
+        @Override
+        public byte[] serialize(final String topic, final T data) {
+            return bytes;
+        }
+
+        @Override
+        public void close() {}
+    }
+
     /**
      * @return a string representation of this node, useful for debugging.
      */
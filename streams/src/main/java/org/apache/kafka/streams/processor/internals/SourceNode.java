@@ -52,6 +52,14 @@ public class SourceNode<K, V> extends ProcessorNode<K, V> {
         return valDeserializer.deserialize(topic, data);
     }
 
+    Deserializer<K> keyDeserializer() {
+        return keyDeserializer;
+    }
+
+    Deserializer<V> valueDeserializer() {
+        return valDeserializer;
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public void init(ProcessorContext context) {
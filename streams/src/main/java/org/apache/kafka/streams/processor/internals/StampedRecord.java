@@ -20,8 +20,18 @@ import org.apache.kafka.clients.consumer.ConsumerRecord;
 
 public class StampedRecord extends Stamped<ConsumerRecord<Object, Object>> {
 
+    // the bytes the key and value were deserialized from, if known
+    private final byte[] rawKey;
+    private final byte[] rawValue;
+
     public StampedRecord(ConsumerRecord<Object, Object> record, long timestamp) {
+        this(record, timestamp, null, null);
+    }
+
+    public StampedRecord(ConsumerRecord<Object, Object> record, long timestamp, byte[] rawKey, byte[] rawValue) {
         super(record, timestamp);
+        this.rawKey = rawKey;
+        this.rawValue = rawValue;
     }
 
     public String topic() {
@@ -44,6 +54,14 @@ public class StampedRecord extends Stamped<ConsumerRecord<Object, Object>> {
         return value.offset();
     }
 
+    byte[] rawKey() {
+        return rawKey;
+    }
+
+    byte[] rawValue() {
+        return rawValue;
+    }
+
     @Override
     public String toString() {
         return value.toString() + ", timestamp = " + timestamp;
@@ -16,6 +16,7 @@
  */
 package org.apache.kafka.streams.processor.internals;
 
+import org.apache.kafka.common.utils.KafkaThread;
 import org.apache.kafka.common.utils.Time;
 import org.apache.kafka.common.utils.Utils;
 import org.apache.kafka.streams.errors.ProcessorStateException;
@@ -33,18 +34,26 @@ import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * Manages the directories where the state of Tasks owned by a {@link StreamThread} are
  * stored. Handles creation/locking/unlocking/cleaning of the Task Directories. This class is not
- * thread-safe.
+ * thread-safe, except for the store snapshots that it writes on a background thread.
  */
 public class StateDirectory {
 
     static final String LOCK_FILE_NAME = ".lock";
+    static final String SNAPSHOT_TEMP_DIR_SUFFIX = ".tmp";
     private static final Logger log = LoggerFactory.getLogger(StateDirectory.class);
 
     private final File stateDir;
+    private final File snapshotDir;
+    private final long snapshotIntervalMs;
+    private final String snapshotWriterName;
     private final String logPrefix;
     private final HashMap<TaskId, FileChannel> channels = new HashMap<>();
     private final HashMap<TaskId, FileLock> locks = new HashMap<>();
@@ -52,13 +61,31 @@ public class StateDirectory {
 
     private FileChannel globalStateChannel;
     private FileLock globalStateLock;
+    private ExecutorService snapshotWriter;
 
     public StateDirectory(final String applicationId, final String stateDirConfig, final Time time) {
         this(applicationId, "", stateDirConfig, time);
     }
 
     public StateDirectory(final String applicationId, final String threadId, final String stateDirConfig, final Time time) {
+        this(applicationId, threadId, stateDirConfig, null, 0L, time);
+    }
+
+    /**
+     * @param snapshotDirConfig the directory of the snapshots of the persistent stores, or {@code null} to not take
+     *                          snapshots of the stores
+     * @param snapshotIntervalMs the minimum time between two snapshots of the stores of a task
+     */
+    public StateDirectory(final String applicationId,
+                          final String threadId,
+                          final String stateDirConfig,
+                          final String snapshotDirConfig,
+                          final long snapshotIntervalMs,
+                          final Time time) {
         this.time = time;
+        this.snapshotDir = snapshotDirConfig == null ? null : new File(snapshotDirConfig, applicationId);
+        this.snapshotIntervalMs = snapshotIntervalMs;
+        this.snapshotWriterName = threadId + "-snapshot-writer";
         this.logPrefix = String.format("stream-thread [%s]", threadId);
         final File baseDir = new File(stateDirConfig);
         if (!baseDir.exists() && !baseDir.mkdirs()) {
@@ -86,6 +113,49 @@ public class StateDirectory {
         return taskDir;
     }
 
+    /**
+     * Get or create the directory of the store snapshots of the {@link TaskId}
+     * @param taskId
+     * @return directory of the store snapshots of the {@link TaskId}, or {@code null} if snapshots are disabled
+     */
+    File snapshotDirectoryForTask(final TaskId taskId) {
+        if (snapshotDir == null) {
+            return null;
+        }
+        final File taskDir = new File(snapshotDir, taskId.toString());
+        if (!taskDir.exists() && !taskDir.mkdirs()) {
+            throw new ProcessorStateException(String.format("snapshot directory [%s] doesn't exist and couldn't be created",
+                                                            taskDir.getPath()));
+        }
+        return taskDir;
+    }
+
+    long snapshotIntervalMs() {
+        return snapshotIntervalMs;
+    }
+
+    /**
+     * Write store snapshots on the background thread of this state directory, so that copying them to the snapshot
+     * directory does not hold up the stream thread. The snapshots are written one at a time, in submission order.
+     * @param writeSnapshots the task writing the snapshots
+     * @return the future of the snapshot task
+     */
+    Future<?> submitSnapshots(final Runnable writeSnapshots) {
+        if (snapshotWriter == null) {
+            snapshotWriter = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    return new KafkaThread(snapshotWriterName, runnable, true);
+                }
+            });
+        }
+        return snapshotWriter.submit(writeSnapshots);
+    }
+
+    Time time() {
+        return time;
+    }
+
     File globalStateDir() {
         final File dir = new File(stateDir, "global");
         if (!dir.exists() && !dir.mkdir()) {
@@ -235,6 +305,74 @@ public class StateDirectory {
             }
         }
 
+        cleanRemovedSnapshots(cleanupDelayMs);
+    }
+
+    /**
+     * Remove the store snapshots of the {@link TaskId}s that are not owned by this {@link StreamThread} and have not
+     * been written for at least the cleanup delay and snapshot interval, which means that no instance owns them any
+     * more, as well as the temporary directories of snapshots that were never completed.
+     * The snapshot directory may be shared with other instances, which keep their snapshots recent.
+     */
+    private void cleanRemovedSnapshots(final long cleanupDelayMs) {
+        if (snapshotDir == null) {
+            return;
+        }
+        final File[] taskDirs = listTaskDirectories(snapshotDir);
+        if (taskDirs == null) {
+            return;
+        }
+
+        final long obsoleteMs = time.milliseconds() - cleanupDelayMs - snapshotIntervalMs;
+        for (File taskDir : taskDirs) {
+            final TaskId id = TaskId.parse(taskDir.getName());
+            if (locks.containsKey(id)) {
+                continue;
+            }
+            try {
+                if (taskDir.lastModified() < obsoleteMs) {
+                    log.info("{} Deleting obsolete snapshot directory {} for task {} as cleanup delay of {} ms has passed", logPrefix, taskDir, id, cleanupDelayMs);
+                    Utils.delete(taskDir);
+                    continue;
+                }
+                final File[] tempDirs = taskDir.listFiles(new FileFilter() {
+                    @Override
+                    public boolean accept(final File pathname) {
+                        return pathname.getName().endsWith(SNAPSHOT_TEMP_DIR_SUFFIX);
+                    }
+                });
+                if (tempDirs != null) {
+                    for (File tempDir : tempDirs) {
+                        if (tempDir.lastModified() < obsoleteMs) {
+                            Utils.delete(tempDir);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                log.error("{} Failed to delete the obsolete snapshot directory {}", logPrefix, taskDir, e);
+            }
+        }
+    }
+
+    /**
+     * Remove the store snapshots of all the tasks of the application, as the local state is being wiped.
+     * @throws IOException if the snapshots cannot be deleted
+     */
+    public void cleanSnapshots() throws IOException {
+        if (snapshotDir != null) {
+            log.info("{} Deleting snapshot directory {}", logPrefix, snapshotDir);
+            Utils.delete(snapshotDir);
+        }
+    }
+
+    /**
+     * Stop writing store snapshots. A snapshot that is being written is abandoned, and kept from replacing the
+     * previous one.
+     */
+    public void close() {
+        if (snapshotWriter != null) {
+            snapshotWriter.shutdownNow();
+        }
     }
 
     /**
@@ -242,7 +380,11 @@ public class StateDirectory {
      * @return The list of all the existing local directories for stream tasks
      */
     File[] listTaskDirectories() {
-        return stateDir.listFiles(new FileFilter() {
+        return listTaskDirectories(stateDir);
+    }
+
+    private static File[] listTaskDirectories(final File dir) {
+        return dir.listFiles(new FileFilter() {
             @Override
             public boolean accept(final File pathname) {
                 final String name = pathname.getName();
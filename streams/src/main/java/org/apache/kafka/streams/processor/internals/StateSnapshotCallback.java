@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.streams.processor.internals;
+
+import org.apache.kafka.streams.processor.StateRestoreCallback;
+
+import java.io.File;
+
+/**
+ * Restoration logic of a persistent store that can also write and load consistent snapshots of its content, so that
+ * it can be restored from its newest snapshot and the changelog records written after it, rather than from its whole
+ * changelog.
+ */
+public interface StateSnapshotCallback extends StateRestoreCallback {
+
+    /**
+     * Write a snapshot of the current content of the store, which is expected to be flushed, to the given directory.
+     * It is called on the stream thread when the task commits, so it should be cheap, for example by hard-linking the
+     * files of the store. The snapshot is copied to the snapshot directory afterwards, on another thread.
+     *
+     * @param snapshotDir the directory to write the snapshot to, which does not exist yet
+     */
+    void snapshot(File snapshotDir);
+
+    /**
+     * Replace the content of the store by the snapshot in the given directory.
+     *
+     * @param snapshotDir the directory of a snapshot written by {@link #snapshot(File)}
+     */
+    void restoreSnapshot(File snapshotDir);
+}
@@ -36,7 +36,9 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import static java.lang.String.format;
 import static java.util.Collections.singleton;
@@ -55,12 +57,14 @@ public class StreamTask extends AbstractTask implements Punctuator {
     private final PunctuationQueue punctuationQueue;
 
     private final Map<TopicPartition, Long> consumedOffsets;
+    private final Set<TopicPartition> partitionsToResume = new HashSet<>();
     private final RecordCollector recordCollector;
     private final int maxBufferedSize;
     private final boolean exactlyOnceEnabled;
 
     private boolean commitRequested = false;
     private boolean commitOffsetNeeded = false;
+    private boolean deferResume = false;
     private final Time time;
     private final TaskMetrics metrics;
 
@@ -183,7 +187,11 @@ public class StreamTask extends AbstractTask implements Punctuator {
             // after processing this record, if its partition queue's buffered size has been
             // decreased to the threshold, we can then resume the consumption on this partition
             if (recordInfo.queue().size() == maxBufferedSize) {
-                consumer.resume(singleton(partition));
+                if (deferResume) {
+                    partitionsToResume.add(partition);
+                } else {
+                    consumer.resume(singleton(partition));
+                }
             }
         } catch (final KafkaException e) {
             throw new StreamsException(format("Exception caught in process. taskId=%s, processor=%s, topic=%s, partition=%d, offset=%d",
@@ -200,6 +208,36 @@ public class StreamTask extends AbstractTask implements Punctuator {
         return true;
     }
 
+    /**
+     * Defer resuming the consumption of the partitions whose buffer has been drained until
+     * {@link #resumeDrainedPartitions()} is called, so that the task can be processed by a
+     * thread other than the one owning the consumer.
+     */
+    void deferResume(final boolean deferResume) {
+        this.deferResume = deferResume;
+    }
+
+    /**
+     * Resume the consumption of the partitions whose buffer has been drained while resuming was deferred.
+     * Must be called by the thread owning the consumer.
+     */
+    void resumeDrainedPartitions() {
+        if (!partitionsToResume.isEmpty()) {
+            consumer.resume(partitionsToResume);
+            partitionsToResume.clear();
+        }
+    }
+
+    /**
+     * Record the operations of the processor nodes whose latency was not sampled, so that their rate does not wait
+     * for the next sampled operation.
+     */
+    void recordSampledOperations() {
+        for (final ProcessorNode<?, ?> node : topology.processors()) {
+            node.recordSampledOperations();
+        }
+    }
+
     /**
      * @throws IllegalStateException if the current node is not null
      */
@@ -223,7 +261,14 @@ public class StreamTask extends AbstractTask implements Punctuator {
     }
 
     private void updateProcessorContext(final StampedRecord record, final ProcessorNode currNode) {
-        processorContext.setRecordContext(new ProcessorRecordContext(record.timestamp, record.offset(), record.partition(), record.topic()));
+        DeserializedRecord deserializedRecord = null;
+        if (currNode instanceof SourceNode && (record.rawKey() != null || record.rawValue() != null)) {
+            final SourceNode<?, ?> sourceNode = (SourceNode<?, ?>) currNode;
+            deserializedRecord = new DeserializedRecord(record.key(), record.value(), record.rawKey(), record.rawValue(),
+                                                        sourceNode.keyDeserializer(), sourceNode.valueDeserializer());
+        }
+        processorContext.setRecordContext(new ProcessorRecordContext(record.timestamp, record.offset(), record.partition(),
+                                                                     record.topic(), deserializedRecord));
         processorContext.setCurrentNode(currNode);
     }
 
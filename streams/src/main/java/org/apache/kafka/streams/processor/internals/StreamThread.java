@@ -34,6 +34,7 @@ import org.apache.kafka.common.metrics.stats.Avg;
 import org.apache.kafka.common.metrics.stats.Count;
 import org.apache.kafka.common.metrics.stats.Max;
 import org.apache.kafka.common.metrics.stats.Rate;
+import org.apache.kafka.common.utils.KafkaThread;
 import org.apache.kafka.common.utils.Time;
 import org.apache.kafka.streams.KafkaClientSupplier;
 import org.apache.kafka.streams.StreamsConfig;
@@ -60,7 +61,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
@@ -282,6 +289,8 @@ public class StreamThread extends Thread {
         @Override
         void createTask(final TaskId taskId, final Set<TopicPartition> partitions) {
             final StreamTask task = createStreamTask(taskId, partitions);
+            // the task workers must not touch the consumer, so this thread resumes the drained partitions
+            task.deferResume(taskWorkers != null);
 
             activeTasks.put(taskId, task);
 
@@ -318,8 +327,8 @@ public class StreamThread extends Thread {
         final Sensor tasksClosedSensor;
         final Sensor skippedRecordsSensor;
 
-        StreamsMetricsThreadImpl(final Metrics metrics, final String groupName, final String prefix, final Map<String, String> tags) {
-            super(metrics, groupName, tags);
+        StreamsMetricsThreadImpl(final Metrics metrics, final String groupName, final String prefix, final Map<String, String> tags, final int latencySamplingInterval) {
+            super(metrics, groupName, tags, latencySamplingInterval);
             commitTimeSensor = metrics.sensor(prefix + ".commit-latency", Sensor.RecordingLevel.INFO);
             commitTimeSensor.add(metrics.metricName("commit-latency-avg", this.groupName, "The average commit time in ms", this.tags), new Avg());
             commitTimeSensor.add(metrics.metricName("commit-latency-max", this.groupName, "The maximum commit time in ms", this.tags), new Max());
@@ -415,6 +424,8 @@ public class StreamThread extends Thread {
     private boolean processStandbyRecords = false;
 
     private final ThreadCache cache;
+    // processes the active tasks on behalf of this thread, or null if this thread processes them itself
+    private final ExecutorService taskWorkers;
     private StoreChangelogReader storeChangelogReader;
 
     private final TaskCreator taskCreator = new TaskCreator();
@@ -446,13 +457,13 @@ public class StreamThread extends Thread {
         logPrefix = String.format("stream-thread [%s]", threadClientId);
 
         streamsMetrics = new StreamsMetricsThreadImpl(metrics, "stream-metrics", "thread." + threadClientId,
-            Collections.singletonMap("client-id", threadClientId));
+            Collections.singletonMap("client-id", threadClientId), config.getInt(StreamsConfig.METRICS_LATENCY_SAMPLING_INTERVAL_CONFIG));
         if (config.getLong(StreamsConfig.CACHE_MAX_BYTES_BUFFERING_CONFIG) < 0) {
             log.warn("{} Negative cache size passed in thread. Reverting to cache size of 0 bytes.", logPrefix);
         }
         cache = new ThreadCache(threadClientId, cacheSizeBytes, streamsMetrics);
         exactlyOnceEnabled = config.getString(StreamsConfig.PROCESSING_GUARANTEE_CONFIG).equals(StreamsConfig.EXACTLY_ONCE);
-
+        taskWorkers = createTaskWorkers(config.getInt(StreamsConfig.NUM_TASK_WORKER_THREADS_CONFIG));
 
         // set the consumer clients
         log.info("{} Creating consumer client", logPrefix);
@@ -481,7 +492,12 @@ public class StreamThread extends Thread {
         // standby ktables
         standbyRecords = new HashMap<>();
 
-        stateDirectory = new StateDirectory(applicationId, threadClientId, config.getString(StreamsConfig.STATE_DIR_CONFIG), time);
+        stateDirectory = new StateDirectory(applicationId,
+                                            threadClientId,
+                                            config.getString(StreamsConfig.STATE_DIR_CONFIG),
+                                            config.getString(StreamsConfig.STATE_SNAPSHOT_DIR_CONFIG),
+                                            config.getLong(StreamsConfig.STATE_SNAPSHOT_INTERVAL_MS_CONFIG),
+                                            time);
         final Object maxPollInterval = consumerConfigs.get(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG);
         rebalanceTimeoutMs =  (Integer) ConfigDef.parseType(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, maxPollInterval, Type.INT);
         pollTimeMs = config.getLong(StreamsConfig.POLL_MS_CONFIG);
@@ -537,7 +553,9 @@ public class StreamThread extends Thread {
             if (records != null && !records.isEmpty() && !activeTasks.isEmpty()) {
                 streamsMetrics.pollTimeSensor.record(computeLatency(), timerStartedMs);
                 addRecordsToTasks(records);
-                final long totalProcessed = processAndPunctuate(activeTasks, recordsProcessedBeforeCommit);
+                final long totalProcessed = taskWorkers == null
+                    ? processAndPunctuate(activeTasks, recordsProcessedBeforeCommit)
+                    : processAndPunctuateInWorkers(activeTasks, recordsProcessedBeforeCommit);
                 if (totalProcessed > 0) {
                     final long processLatency = computeLatency();
                     streamsMetrics.processTimeSensor.record(processLatency / (double) totalProcessed,
@@ -545,6 +563,9 @@ public class StreamThread extends Thread {
                     recordsProcessedBeforeCommit = adjustRecordsProcessedBeforeCommit(recordsProcessedBeforeCommit, totalProcessed,
                         processLatency, commitTimeMs);
                 }
+                for (final StreamTask task : activeTasks.values()) {
+                    task.recordSampledOperations();
+                }
             }
 
             maybeCommit(timerStartedMs);
@@ -680,6 +701,145 @@ public class StreamThread extends Thread {
         return totalProcessedSinceLastMaybeCommit;
     }
 
+    private ExecutorService createTaskWorkers(final int numTaskWorkers) {
+        if (numTaskWorkers == 0) {
+            return null;
+        }
+        log.info("{} Creating {} task worker threads", logPrefix, numTaskWorkers);
+        return Executors.newFixedThreadPool(numTaskWorkers, new ThreadFactory() {
+            private final AtomicInteger workerId = new AtomicInteger(1);
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                return new KafkaThread(threadClientId + "-Worker-" + workerId.getAndIncrement(), runnable, true);
+            }
+        });
+    }
+
+    /**
+     * Same as {@link #processAndPunctuate(Map, long)}, but hands each task with buffered records over to
+     * the task workers, which process the tasks in parallel while each task stays single-threaded. This
+     * thread keeps the sole ownership of the consumer: it waits for all the tasks of a round to be
+     * processed before committing or resuming the partitions whose buffer has been drained. Hence the slowest
+     * task of a round delays the other tasks, as well as the next poll.
+     * @param tasks The tasks that have records.
+     * @param recordsProcessedBeforeCommit number of records to be processed before commit is called.
+     *                                     if UNLIMITED_RECORDS, then commit is never called
+     * @return Number of records processed since last commit.
+     */
+    private long processAndPunctuateInWorkers(final Map<TaskId, StreamTask> tasks,
+                                              final long recordsProcessedBeforeCommit) {
+        // with a commit limit, spread it over the tasks and run rounds until all the buffered records are processed
+        final long recordsPerTask = recordsProcessedBeforeCommit == UNLIMITED_RECORDS || tasks.isEmpty()
+            ? UNLIMITED_RECORDS
+            : Math.max(1, recordsProcessedBeforeCommit / tasks.size());
+
+        long totalProcessedEachRound;
+        long totalProcessedSinceLastMaybeCommit = 0;
+        do {
+            final List<Future<Long>> processed = new ArrayList<>(tasks.size());
+            for (final StreamTask task : tasks.values()) {
+                processed.add(taskWorkers.submit(new TaskProcessor(task, recordsPerTask)));
+            }
+            totalProcessedEachRound = awaitTaskWorkers(processed);
+            totalProcessedSinceLastMaybeCommit += totalProcessedEachRound;
+
+            for (final StreamTask task : tasks.values()) {
+                task.resumeDrainedPartitions();
+            }
+            if (recordsProcessedBeforeCommit != UNLIMITED_RECORDS &&
+                totalProcessedSinceLastMaybeCommit >= recordsProcessedBeforeCommit) {
+                final long processLatency = computeLatency();
+                streamsMetrics.processTimeSensor.record(processLatency / (double) totalProcessedSinceLastMaybeCommit,
+                    timerStartedMs);
+                totalProcessedSinceLastMaybeCommit = 0;
+                maybeCommit(timerStartedMs);
+            }
+        } while (recordsPerTask != UNLIMITED_RECORDS && totalProcessedEachRound != 0);
+
+        for (final StreamTask task : tasks.values()) {
+            if (task.commitNeeded()) {
+                commitOne(task);
+            }
+        }
+
+        return totalProcessedSinceLastMaybeCommit;
+    }
+
+    /**
+     * Wait for all the dispatched tasks, even if one of them failed, so that no task is still being
+     * processed when this thread commits or closes it.
+     * @return Number of records processed by the tasks.
+     */
+    private long awaitTaskWorkers(final List<Future<Long>> processed) {
+        long totalProcessed = 0;
+        RuntimeException exception = null;
+        for (final Future<Long> future : processed) {
+            try {
+                totalProcessed += getUninterruptibly(future);
+            } catch (final ExecutionException e) {
+                if (exception == null) {
+                    exception = e.getCause() instanceof RuntimeException
+                        ? (RuntimeException) e.getCause()
+                        : new StreamsException(logPrefix + " Failed to process a task.", e.getCause());
+                }
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+        return totalProcessed;
+    }
+
+    private static <T> T getUninterruptibly(final Future<T> future) throws ExecutionException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (final InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Processes the buffered records of a task then punctuates it, on a task worker.
+     */
+    private class TaskProcessor implements Callable<Long> {
+        private final StreamTask task;
+        private final long maxRecords;
+
+        TaskProcessor(final StreamTask task, final long maxRecords) {
+            this.task = task;
+            this.maxRecords = maxRecords;
+        }
+
+        @Override
+        public Long call() {
+            long processed = 0;
+            while ((maxRecords == UNLIMITED_RECORDS || processed < maxRecords) && task.process()) {
+                processed++;
+            }
+
+            final long punctuateStartMs = time.milliseconds();
+            try {
+                if (task.maybePunctuate()) {
+                    streamsMetrics.punctuateTimeSensor.record(time.milliseconds() - punctuateStartMs, punctuateStartMs);
+                }
+            } catch (final KafkaException e) {
+                log.error("{} Failed to punctuate active task {}: {}", logPrefix, task.id(), e);
+                throw e;
+            }
+            return processed;
+        }
+    }
+
     private void maybePunctuate(final StreamTask task) {
         try {
             // check whether we should punctuate based on the task's partition group timestamp;
@@ -986,6 +1146,11 @@ public class StreamThread extends Thread {
     private void shutdown() {
         log.info("{} Shutting down", logPrefix);
         shutdownTasksAndState();
+        stateDirectory.close();
+
+        if (taskWorkers != null) {
+            taskWorkers.shutdownNow();
+        }
 
         // close all embedded clients
         if (threadProducer != null) {
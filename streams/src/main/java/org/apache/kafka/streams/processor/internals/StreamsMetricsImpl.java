@@ -42,14 +42,28 @@ public class StreamsMetricsImpl implements StreamsMetrics {
     final String groupName;
     final Map<String, String> tags;
     final Map<Sensor, Sensor> parentSensors;
+    private final int latencySamplingInterval;
 
     public StreamsMetricsImpl(Metrics metrics, String groupName,  Map<String, String> tags) {
+        this(metrics, groupName, tags, 1);
+    }
+
+    public StreamsMetricsImpl(Metrics metrics, String groupName,  Map<String, String> tags, int latencySamplingInterval) {
         Objects.requireNonNull(metrics, "Metrics cannot be null");
 
         this.metrics = metrics;
         this.groupName = groupName;
         this.tags = tags;
         this.parentSensors = new HashMap<>();
+        this.latencySamplingInterval = latencySamplingInterval;
+    }
+
+    /**
+     * @return the number of operations between two latency measurements of the sensors added with
+     *         {@link #addSampledLatencyAndThroughputSensor(String, String, String, Sensor.RecordingLevel, String...)}
+     */
+    public int latencySamplingInterval() {
+        return latencySamplingInterval;
     }
 
     public Metrics registry() {
@@ -148,11 +162,49 @@ public class StreamsMetricsImpl implements StreamsMetrics {
         return sensor;
     }
 
-    private void addLatencyMetrics(String scopeName, Sensor sensor, String entityName, String opName, Map<String, String> tags) {
+    /**
+     * Add a latency sensor which only measures one in every {@link #latencySamplingInterval()} operations, while its
+     * rate still counts all of them. It has the same metrics as a sensor added with
+     * {@link #addLatencyAndThroughputSensor(String, String, String, Sensor.RecordingLevel, String...)}.
+     *
+     * @throws IllegalArgumentException if tags is not constructed in key-value pairs
+     */
+    public SampledLatencySensor addSampledLatencyAndThroughputSensor(String scopeName, String entityName, String operationName, Sensor.RecordingLevel recordingLevel, String... tags) {
+        Map<String, String> tagMap = tagMap(tags);
+
+        // the latencies and the number of operations are recorded into different sensors, as only the latter
+        // are recorded for all the operations
+        Sensor latencyParent = metrics.sensor(sensorName(operationName, null), recordingLevel);
+        addLatencyOnlyMetrics(scopeName, latencyParent, "all", operationName, tagMap);
+        Sensor countParent = metrics.sensor(sensorName(operationName, null) + "-count", recordingLevel);
+        addCountMetrics(scopeName, countParent, "all", operationName, tagMap);
+
+        Sensor latencySensor = metrics.sensor(sensorName(operationName, entityName), recordingLevel, latencyParent);
+        addLatencyOnlyMetrics(scopeName, latencySensor, entityName, operationName, tagMap);
+        Sensor countSensor = metrics.sensor(sensorName(operationName, entityName) + "-count", recordingLevel, countParent);
+        addCountMetrics(scopeName, countSensor, entityName, operationName, tagMap);
+
+        parentSensors.put(latencySensor, latencyParent);
+        parentSensors.put(countSensor, countParent);
+
+        return new SampledLatencySensor(latencySensor, countSensor, latencySamplingInterval);
+    }
+
+    private void addLatencyOnlyMetrics(String scopeName, Sensor sensor, String entityName, String opName, Map<String, String> tags) {
         maybeAddMetric(sensor, metrics.metricName(entityName + "-" + opName + "-latency-avg", groupNameFromScope(scopeName),
             "The average latency of " + entityName + " " + opName + " operation.", tags), new Avg());
         maybeAddMetric(sensor, metrics.metricName(entityName + "-" + opName + "-latency-max", groupNameFromScope(scopeName),
             "The max latency of " + entityName + " " + opName + " operation.", tags), new Max());
+    }
+
+    private void addCountMetrics(String scopeName, Sensor sensor, String entityName, String opName, Map<String, String> tags) {
+        // the recorded values are numbers of operations, which are summed up rather than counted
+        maybeAddMetric(sensor, metrics.metricName(entityName + "-" + opName + "-rate", groupNameFromScope(scopeName),
+            "The average number of occurrence of " + entityName + " " + opName + " operation per second.", tags), new Rate());
+    }
+
+    private void addLatencyMetrics(String scopeName, Sensor sensor, String entityName, String opName, Map<String, String> tags) {
+        addLatencyOnlyMetrics(scopeName, sensor, entityName, opName, tags);
         addThroughputMetrics(scopeName, sensor, entityName, opName, tags);
     }
 
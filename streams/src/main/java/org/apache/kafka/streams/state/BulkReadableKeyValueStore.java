@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.streams.state;
+
+import org.apache.kafka.common.annotation.InterfaceStability;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A read-only key value store that can also fetch several keys at once and scan the keys with a given prefix.
+ * <p>
+ * The built-in key value stores implement this interface, as do the stores returned by
+ * {@link org.apache.kafka.streams.KafkaStreams#store(String, QueryableStoreType)} for
+ * {@link QueryableStoreTypes#keyValueStore()}. When they wrap a store that does not implement it, they fetch its keys
+ * one by one and reject prefix scans.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+@InterfaceStability.Unstable
+public interface BulkReadableKeyValueStore<K, V> extends ReadOnlyKeyValueStore<K, V> {
+
+    /**
+     * Get the values corresponding to the given keys, with a single lookup where the store supports it rather than
+     * one lookup per key.
+     *
+     * @param keys The keys to fetch
+     * @return A map from the given keys that have a value to their value; keys without a value are not contained.
+     * @throws NullPointerException If null is used for keys or any key.
+     * @throws InvalidStateStoreException if the store is not initialized
+     */
+    Map<K, V> multiGet(Collection<K> keys);
+
+    /**
+     * Return an iterator over all keys whose serialized form starts with the serialized prefix. This iterator MUST be
+     * closed after use.
+     * The returned iterator must be safe from {@link java.util.ConcurrentModificationException}s
+     * and must not return null values. Stores ordered by serialized key, such as RocksDB stores, return the keys in
+     * that order, other stores provide no ordering guarantees.
+     * @param prefix The prefix of the keys
+     * @param prefixKeySerializer The serializer of the prefix, which must serialize it like the prefix of a
+     *                            serialized key
+     * @param <P> The type of the prefix
+     * @return The iterator for the keys with this prefix.
+     * @throws NullPointerException If null is used for prefix or prefixKeySerializer.
+     * @throws InvalidStateStoreException if the store is not initialized
+     * @throws UnsupportedOperationException if the store wraps a store that does not support prefix scans
+     */
+    <P> KeyValueIterator<K, V> prefixScan(P prefix, Serializer<P> prefixKeySerializer);
+}
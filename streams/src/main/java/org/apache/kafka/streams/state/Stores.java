@@ -101,6 +101,7 @@ public class Stores {
                             public PersistentKeyValueFactory<K, V> persistent() {
                                 return new PersistentKeyValueFactory<K, V>() {
                                     public boolean cachingEnabled;
+                                    private boolean skipUnchangedWrites = false;
                                     private long windowSize;
                                     private final Map<String, String> logConfig = new HashMap<>();
                                     private int numSegments = 0;
@@ -147,6 +148,12 @@ public class Stores {
                                         return this;
                                     }
 
+                                    @Override
+                                    public PersistentKeyValueFactory<K, V> skipUnchangedWrites() {
+                                        skipUnchangedWrites = true;
+                                        return this;
+                                    }
+
                                     @Override
                                     public StateStoreSupplier build() {
                                         log.trace("Creating RocksDb Store name={} numSegments={} logged={}", name, numSegments, logged);
@@ -155,7 +162,7 @@ public class Stores {
                                         } else if (numSegments > 0) {
                                             return new RocksDBWindowStoreSupplier<>(name, retentionPeriod, numSegments, retainDuplicates, keySerde, valueSerde, windowSize, logged, logConfig, cachingEnabled);
                                         }
-                                        return new RocksDBKeyValueStoreSupplier<>(name, keySerde, valueSerde, logged, logConfig, cachingEnabled);
+                                        return new RocksDBKeyValueStoreSupplier<>(name, keySerde, valueSerde, logged, logConfig, cachingEnabled, skipUnchangedWrites);
                                     }
 
                                 };
@@ -427,6 +434,19 @@ public class Stores {
          * @return the factory to create a persistent key-value store
          */
         PersistentKeyValueFactory<K, V> enableCaching();
+
+        /**
+         * Indicates that a put of a value that is byte-identical to the current value of the key should neither be
+         * written to the store and its changelog, nor, when caching is enabled, be forwarded downstream on flush.
+         * Without caching, the current value is read from the store on every write to compare against, so this is
+         * only worthwhile when such no-op updates are frequent. With caching, the writes are only compared when the
+         * cache is flushed or evicts the key, against the value read from the underlying store at that time, which is
+         * also the old value forwarded downstream. Hence, the updates overwritten in the cache before are never
+         * compared. It has no effect on windowed and session stores.
+         * @return the factory to create a persistent key-value store
+         */
+        PersistentKeyValueFactory<K, V> skipUnchangedWrites();
+
         /**
          * Return the instance of StateStoreSupplier of new key-value store.
          * @return the key-value store; never null
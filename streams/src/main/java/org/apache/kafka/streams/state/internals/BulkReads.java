@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.streams.state.internals;
+
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.streams.state.BulkReadableKeyValueStore;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.ReadOnlyKeyValueStore;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Delegates the bulk reads of {@link BulkReadableKeyValueStore}s to the stores they wrap, which may be user-defined
+ * stores that only implement {@link ReadOnlyKeyValueStore}.
+ */
+final class BulkReads {
+
+    private BulkReads() {
+    }
+
+    static <K, V> Map<K, V> multiGet(final ReadOnlyKeyValueStore<K, V> store, final Collection<K> keys) {
+        if (store instanceof BulkReadableKeyValueStore) {
+            return ((BulkReadableKeyValueStore<K, V>) store).multiGet(keys);
+        }
+        final Map<K, V> result = new HashMap<>();
+        for (final K key : keys) {
+            final V value = store.get(Objects.requireNonNull(key, "key cannot be null"));
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    static <K, V, P> KeyValueIterator<K, V> prefixScan(final ReadOnlyKeyValueStore<K, V> store,
+                                                       final P prefix,
+                                                       final Serializer<P> prefixKeySerializer) {
+        if (store instanceof BulkReadableKeyValueStore) {
+            return ((BulkReadableKeyValueStore<K, V>) store).prefixScan(prefix, prefixKeySerializer);
+        }
+        throw new UnsupportedOperationException("Store " + store.getClass().getName() + " does not support prefix scans");
+    }
+}
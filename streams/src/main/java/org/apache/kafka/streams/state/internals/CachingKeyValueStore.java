@@ -16,7 +16,9 @@
  */
 package org.apache.kafka.streams.state.internals;
 
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.utils.Bytes;
 import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.kstream.internals.CacheFlushListener;
@@ -25,17 +27,24 @@ import org.apache.kafka.streams.processor.StateStore;
 import org.apache.kafka.streams.processor.internals.InternalProcessorContext;
 import org.apache.kafka.streams.processor.internals.ProcessorStateManager;
 import org.apache.kafka.streams.processor.internals.RecordContext;
+import org.apache.kafka.streams.state.BulkReadableKeyValueStore;
 import org.apache.kafka.streams.state.KeyValueIterator;
 import org.apache.kafka.streams.state.KeyValueStore;
 import org.apache.kafka.streams.state.StateSerdes;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
-class CachingKeyValueStore<K, V> extends WrappedStateStore.AbstractStateStore implements KeyValueStore<K, V>, CachedStateStore<K, V> {
+class CachingKeyValueStore<K, V> extends WrappedStateStore.AbstractStateStore implements KeyValueStore<K, V>, BulkReadableKeyValueStore<K, V>, CachedStateStore<K, V> {
 
     private final KeyValueStore<Bytes, byte[]> underlying;
     private final Serde<K> keySerde;
     private final Serde<V> valueSerde;
+    private final boolean skipUnchangedWrites;
     private CacheFlushListener<K, V> flushListener;
     private String cacheName;
     private ThreadCache cache;
@@ -46,10 +55,18 @@ class CachingKeyValueStore<K, V> extends WrappedStateStore.AbstractStateStore im
     CachingKeyValueStore(final KeyValueStore<Bytes, byte[]> underlying,
                          final Serde<K> keySerde,
                          final Serde<V> valueSerde) {
+        this(underlying, keySerde, valueSerde, false);
+    }
+
+    CachingKeyValueStore(final KeyValueStore<Bytes, byte[]> underlying,
+                         final Serde<K> keySerde,
+                         final Serde<V> valueSerde,
+                         final boolean skipUnchangedWrites) {
         super(underlying);
         this.underlying = underlying;
         this.keySerde = keySerde;
         this.valueSerde = valueSerde;
+        this.skipUnchangedWrites = skipUnchangedWrites;
     }
 
     @SuppressWarnings("unchecked")
@@ -85,11 +102,16 @@ class CachingKeyValueStore<K, V> extends WrappedStateStore.AbstractStateStore im
         final RecordContext current = context.recordContext();
         try {
             context.setRecordContext(entry.recordContext());
+            final byte[] oldValue = flushListener != null || skipUnchangedWrites ? underlying.get(entry.key()) : null;
+            // neither write nor forward a value that is byte-identical to the one already in the store
+            if (skipUnchangedWrites && Arrays.equals(oldValue, entry.newValue())) {
+                return;
+            }
             if (flushListener != null) {
 
                 flushListener.apply(serdes.keyFrom(entry.key().get()),
                                     serdes.valueFrom(entry.newValue()),
-                                    serdes.valueFrom(underlying.get(entry.key())));
+                                    serdes.valueFrom(oldValue));
 
             }
             underlying.put(entry.key(), entry.newValue());
@@ -158,6 +180,37 @@ class CachingKeyValueStore<K, V> extends WrappedStateStore.AbstractStateStore im
         return serdes.valueFrom(entry.value);
     }
 
+    @Override
+    public synchronized Map<K, V> multiGet(final Collection<K> keys) {
+        validateStoreOpen();
+        final Map<K, V> result = new HashMap<>();
+        // the keys missing from the cache, which are fetched from the underlying store at once
+        final Map<Bytes, K> misses = new HashMap<>();
+        for (final K key : keys) {
+            final Bytes rawKey = Bytes.wrap(serdes.rawKey(Objects.requireNonNull(key, "key cannot be null")));
+            final LRUCacheEntry entry = cache.get(cacheName, rawKey);
+            if (entry == null) {
+                misses.put(rawKey, key);
+            } else if (entry.value != null) {
+                result.put(key, serdes.valueFrom(entry.value));
+            }
+        }
+        if (misses.isEmpty()) {
+            return result;
+        }
+
+        final boolean onStreamThread = Thread.currentThread().equals(streamThread);
+        for (final Map.Entry<Bytes, byte[]> found : BulkReads.multiGet(underlying, misses.keySet()).entrySet()) {
+            // only update the cache if this call is on the streamThread
+            // as we don't want other threads to trigger an eviction/flush
+            if (onStreamThread) {
+                cache.put(cacheName, found.getKey(), new LRUCacheEntry(found.getValue()));
+            }
+            result.put(misses.get(found.getKey()), serdes.valueFrom(found.getValue()));
+        }
+        return result;
+    }
+
     @Override
     public KeyValueIterator<K, V> range(final K from, final K to) {
         validateStoreOpen();
@@ -176,6 +229,17 @@ class CachingKeyValueStore<K, V> extends WrappedStateStore.AbstractStateStore im
         return new MergedSortedCacheKeyValueStoreIterator<>(cacheIterator, storeIterator, serdes);
     }
 
+    @Override
+    public <P> KeyValueIterator<K, V> prefixScan(final P prefix, final Serializer<P> prefixKeySerializer) {
+        validateStoreOpen();
+        // serialize the prefix once, so that the cache and the underlying store scan for the same bytes
+        final byte[] rawPrefix = PrefixScanUtils.rawPrefix(serdes.topic(), prefix, prefixKeySerializer);
+        final KeyValueIterator<Bytes, byte[]> storeIterator = new DelegatingPeekingKeyValueIterator<>(this.name(),
+            BulkReads.prefixScan(underlying, rawPrefix, new ByteArraySerializer()));
+        final ThreadCache.MemoryLRUCacheBytesIterator cacheIterator = cache.prefixScan(cacheName, Bytes.wrap(rawPrefix));
+        return new MergedSortedCacheKeyValueStoreIterator<>(cacheIterator, storeIterator, serdes);
+    }
+
     @Override
     public synchronized long approximateNumEntries() {
         validateStoreOpen();
@@ -16,23 +16,34 @@
  */
 package org.apache.kafka.streams.state.internals;
 
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.utils.Bytes;
 import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.processor.ProcessorContext;
 import org.apache.kafka.streams.processor.StateStore;
 import org.apache.kafka.streams.processor.internals.ProcessorStateManager;
+import org.apache.kafka.streams.state.BulkReadableKeyValueStore;
 import org.apache.kafka.streams.state.KeyValueIterator;
 import org.apache.kafka.streams.state.KeyValueStore;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
-public class ChangeLoggingKeyValueBytesStore extends WrappedStateStore.AbstractStateStore implements KeyValueStore<Bytes, byte[]> {
+public class ChangeLoggingKeyValueBytesStore extends WrappedStateStore.AbstractStateStore implements KeyValueStore<Bytes, byte[]>, BulkReadableKeyValueStore<Bytes, byte[]> {
     private final KeyValueStore<Bytes, byte[]> inner;
+    private final boolean skipUnchangedWrites;
     private StoreChangeLogger<Bytes, byte[]> changeLogger;
 
     ChangeLoggingKeyValueBytesStore(final KeyValueStore<Bytes, byte[]> inner) {
+        this(inner, false);
+    }
+
+    ChangeLoggingKeyValueBytesStore(final KeyValueStore<Bytes, byte[]> inner, final boolean skipUnchangedWrites) {
         super(inner);
         this.inner = inner;
+        this.skipUnchangedWrites = skipUnchangedWrites;
     }
 
     @Override
@@ -54,6 +65,9 @@ public class ChangeLoggingKeyValueBytesStore extends WrappedStateStore.AbstractS
 
     @Override
     public void put(final Bytes key, final byte[] value) {
+        if (skipUnchangedWrites && Arrays.equals(inner.get(key), value)) {
+            return;
+        }
         inner.put(key, value);
         changeLogger.logChange(key, value);
     }
@@ -69,6 +83,12 @@ public class ChangeLoggingKeyValueBytesStore extends WrappedStateStore.AbstractS
 
     @Override
     public void putAll(final List<KeyValue<Bytes, byte[]>> entries) {
+        if (skipUnchangedWrites) {
+            for (KeyValue<Bytes, byte[]> entry : entries) {
+                put(entry.key, entry.value);
+            }
+            return;
+        }
         inner.putAll(entries);
         for (KeyValue<Bytes, byte[]> entry : entries) {
             changeLogger.logChange(entry.key, entry.value);
@@ -87,6 +107,11 @@ public class ChangeLoggingKeyValueBytesStore extends WrappedStateStore.AbstractS
         return inner.get(key);
     }
 
+    @Override
+    public Map<Bytes, byte[]> multiGet(final Collection<Bytes> keys) {
+        return BulkReads.multiGet(inner, keys);
+    }
+
     @Override
     public KeyValueIterator<Bytes, byte[]> range(final Bytes from, final Bytes to) {
         return inner.range(from, to);
@@ -96,4 +121,9 @@ public class ChangeLoggingKeyValueBytesStore extends WrappedStateStore.AbstractS
     public KeyValueIterator<Bytes, byte[]> all() {
         return inner.all();
     }
+
+    @Override
+    public <P> KeyValueIterator<Bytes, byte[]> prefixScan(final P prefix, final Serializer<P> prefixKeySerializer) {
+        return BulkReads.prefixScan(inner, prefix, prefixKeySerializer);
+    }
 }
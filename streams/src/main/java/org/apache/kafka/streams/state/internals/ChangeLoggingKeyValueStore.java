@@ -17,34 +17,47 @@
 package org.apache.kafka.streams.state.internals;
 
 import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.utils.Bytes;
 import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.processor.ProcessorContext;
 import org.apache.kafka.streams.processor.StateStore;
 import org.apache.kafka.streams.processor.internals.ProcessorStateManager;
+import org.apache.kafka.streams.state.BulkReadableKeyValueStore;
 import org.apache.kafka.streams.state.KeyValueIterator;
 import org.apache.kafka.streams.state.KeyValueStore;
 import org.apache.kafka.streams.state.StateSerdes;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
-class ChangeLoggingKeyValueStore<K, V> extends WrappedStateStore.AbstractStateStore implements KeyValueStore<K, V> {
+class ChangeLoggingKeyValueStore<K, V> extends WrappedStateStore.AbstractStateStore implements KeyValueStore<K, V>, BulkReadableKeyValueStore<K, V> {
     private final ChangeLoggingKeyValueBytesStore innerBytes;
-    private final Serde keySerde;
-    private final Serde valueSerde;
+    private final Serde<K> keySerde;
+    private final Serde<V> valueSerde;
     private StateSerdes<K, V> serdes;
 
 
     ChangeLoggingKeyValueStore(final KeyValueStore<Bytes, byte[]> bytesStore,
-                               final Serde keySerde,
-                               final Serde valueSerde) {
-        this(new ChangeLoggingKeyValueBytesStore(bytesStore), keySerde, valueSerde);
+                               final Serde<K> keySerde,
+                               final Serde<V> valueSerde) {
+        this(bytesStore, keySerde, valueSerde, false);
+    }
+
+    ChangeLoggingKeyValueStore(final KeyValueStore<Bytes, byte[]> bytesStore,
+                               final Serde<K> keySerde,
+                               final Serde<V> valueSerde,
+                               final boolean skipUnchangedWrites) {
+        this(new ChangeLoggingKeyValueBytesStore(bytesStore, skipUnchangedWrites), keySerde, valueSerde);
     }
 
     private ChangeLoggingKeyValueStore(final ChangeLoggingKeyValueBytesStore bytesStore,
-                                       final Serde keySerde,
-                                       final Serde valueSerde) {
+                                       final Serde<K> keySerde,
+                                       final Serde<V> valueSerde) {
         super(bytesStore);
         this.innerBytes = bytesStore;
         this.keySerde = keySerde;
@@ -109,6 +122,25 @@ class ChangeLoggingKeyValueStore<K, V> extends WrappedStateStore.AbstractStateSt
         return serdes.valueFrom(rawValue);
     }
 
+    @Override
+    public Map<K, V> multiGet(final Collection<K> keys) {
+        final List<K> keyList = new ArrayList<>(keys.size());
+        final List<Bytes> rawKeys = new ArrayList<>(keys.size());
+        for (final K key : keys) {
+            keyList.add(key);
+            rawKeys.add(Bytes.wrap(serdes.rawKey(Objects.requireNonNull(key, "key cannot be null"))));
+        }
+        final Map<Bytes, byte[]> rawValues = innerBytes.multiGet(rawKeys);
+        final Map<K, V> result = new HashMap<>();
+        for (int i = 0; i < rawKeys.size(); i++) {
+            final byte[] rawValue = rawValues.get(rawKeys.get(i));
+            if (rawValue != null) {
+                result.put(keyList.get(i), serdes.valueFrom(rawValue));
+            }
+        }
+        return result;
+    }
+
     @Override
     public KeyValueIterator<K, V> range(final K from, final K to) {
         return new SerializedKeyValueIterator<>(innerBytes.range(Bytes.wrap(serdes.rawKey(from)),
@@ -120,4 +152,9 @@ class ChangeLoggingKeyValueStore<K, V> extends WrappedStateStore.AbstractStateSt
     public KeyValueIterator<K, V> all() {
         return new SerializedKeyValueIterator<>(innerBytes.all(), serdes);
     }
+
+    @Override
+    public <P> KeyValueIterator<K, V> prefixScan(final P prefix, final Serializer<P> prefixKeySerializer) {
+        return new SerializedKeyValueIterator<>(innerBytes.prefixScan(prefix, prefixKeySerializer), serdes);
+    }
 }
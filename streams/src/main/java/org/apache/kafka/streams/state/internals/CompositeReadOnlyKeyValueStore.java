@@ -16,14 +16,20 @@
  */
 package org.apache.kafka.streams.state.internals;
 
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.apache.kafka.streams.state.BulkReadableKeyValueStore;
 import org.apache.kafka.streams.state.KeyValueIterator;
 import org.apache.kafka.streams.state.QueryableStoreType;
 import org.apache.kafka.streams.state.ReadOnlyKeyValueStore;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 /**
@@ -33,7 +39,7 @@ import java.util.NoSuchElementException;
  * @param <K> key type
  * @param <V> value type
  */
-public class CompositeReadOnlyKeyValueStore<K, V> implements ReadOnlyKeyValueStore<K, V> {
+public class CompositeReadOnlyKeyValueStore<K, V> implements BulkReadableKeyValueStore<K, V> {
 
     private final StateStoreProvider storeProvider;
     private final QueryableStoreType<ReadOnlyKeyValueStore<K, V>> storeType;
@@ -64,6 +70,34 @@ public class CompositeReadOnlyKeyValueStore<K, V> implements ReadOnlyKeyValueSto
         return null;
     }
 
+    @Override
+    public Map<K, V> multiGet(final Collection<K> keys) {
+        final List<ReadOnlyKeyValueStore<K, V>> stores = storeProvider.stores(storeName, storeType);
+        final Map<K, V> result = new HashMap<>();
+        // only look up the keys not found in the previous stores
+        Collection<K> remaining = keys;
+        for (ReadOnlyKeyValueStore<K, V> store : stores) {
+            if (remaining.isEmpty()) {
+                break;
+            }
+            try {
+                result.putAll(BulkReads.multiGet(store, remaining));
+            } catch (InvalidStateStoreException e) {
+                throw new InvalidStateStoreException("State store is not available anymore and may have been migrated to another instance; please re-discover its location from the state metadata.");
+            }
+            if (!result.isEmpty()) {
+                final List<K> notFound = new ArrayList<>(remaining.size());
+                for (final K key : remaining) {
+                    if (!result.containsKey(key)) {
+                        notFound.add(key);
+                    }
+                }
+                remaining = notFound;
+            }
+        }
+        return result;
+    }
+
     @Override
     public KeyValueIterator<K, V> range(final K from, final K to) {
         final NextIteratorFunction<K, V> nextIteratorFunction = new NextIteratorFunction<K, V>() {
@@ -96,6 +130,22 @@ public class CompositeReadOnlyKeyValueStore<K, V> implements ReadOnlyKeyValueSto
         return new DelegatingPeekingKeyValueIterator<>(storeName, new CompositeKeyValueIterator(stores.iterator(), nextIteratorFunction));
     }
 
+    @Override
+    public <P> KeyValueIterator<K, V> prefixScan(final P prefix, final Serializer<P> prefixKeySerializer) {
+        final NextIteratorFunction<K, V> nextIteratorFunction = new NextIteratorFunction<K, V>() {
+            @Override
+            public KeyValueIterator<K, V> apply(final ReadOnlyKeyValueStore<K, V> store) {
+                try {
+                    return BulkReads.prefixScan(store, prefix, prefixKeySerializer);
+                } catch (InvalidStateStoreException e) {
+                    throw new InvalidStateStoreException("State store is not available anymore and may have been migrated to another instance; please re-discover its location from the state metadata.");
+                }
+            }
+        };
+        final List<ReadOnlyKeyValueStore<K, V>> stores = storeProvider.stores(storeName, storeType);
+        return new DelegatingPeekingKeyValueIterator<>(storeName, new CompositeKeyValueIterator(stores.iterator(), nextIteratorFunction));
+    }
+
     @Override
     public long approximateNumEntries() {
         final List<ReadOnlyKeyValueStore<K, V>> stores = storeProvider.stores(storeName, storeType);
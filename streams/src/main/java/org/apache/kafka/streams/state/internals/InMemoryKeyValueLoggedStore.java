@@ -17,17 +17,21 @@
 package org.apache.kafka.streams.state.internals;
 
 import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.processor.ProcessorContext;
 import org.apache.kafka.streams.processor.StateStore;
 import org.apache.kafka.streams.processor.internals.ProcessorStateManager;
+import org.apache.kafka.streams.state.BulkReadableKeyValueStore;
 import org.apache.kafka.streams.state.KeyValueIterator;
 import org.apache.kafka.streams.state.KeyValueStore;
 import org.apache.kafka.streams.state.StateSerdes;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
-public class InMemoryKeyValueLoggedStore<K, V> extends WrappedStateStore.AbstractStateStore implements KeyValueStore<K, V> {
+public class InMemoryKeyValueLoggedStore<K, V> extends WrappedStateStore.AbstractStateStore implements KeyValueStore<K, V>, BulkReadableKeyValueStore<K, V> {
 
     private final KeyValueStore<K, V> inner;
     private final Serde<K> keySerde;
@@ -76,6 +80,11 @@ public class InMemoryKeyValueLoggedStore<K, V> extends WrappedStateStore.Abstrac
         return this.inner.get(key);
     }
 
+    @Override
+    public Map<K, V> multiGet(Collection<K> keys) {
+        return BulkReads.multiGet(this.inner, keys);
+    }
+
     @Override
     public void put(K key, V value) {
         this.inner.put(key, value);
@@ -130,4 +139,9 @@ public class InMemoryKeyValueLoggedStore<K, V> extends WrappedStateStore.Abstrac
     public KeyValueIterator<K, V> all() {
         return this.inner.all();
     }
+
+    @Override
+    public <P> KeyValueIterator<K, V> prefixScan(P prefix, Serializer<P> prefixKeySerializer) {
+        return BulkReads.prefixScan(this.inner, prefix, prefixKeySerializer);
+    }
 }
@@ -17,23 +17,28 @@
 package org.apache.kafka.streams.state.internals;
 
 import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.processor.ProcessorContext;
 import org.apache.kafka.streams.processor.StateRestoreCallback;
 import org.apache.kafka.streams.processor.StateStore;
 import org.apache.kafka.streams.processor.internals.ProcessorStateManager;
+import org.apache.kafka.streams.state.BulkReadableKeyValueStore;
 import org.apache.kafka.streams.state.KeyValueIterator;
 import org.apache.kafka.streams.state.KeyValueStore;
 import org.apache.kafka.streams.state.StateSerdes;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
+import java.util.Objects;
 import java.util.TreeMap;
 
 
-public class InMemoryKeyValueStore<K, V> implements KeyValueStore<K, V> {
+public class InMemoryKeyValueStore<K, V> implements KeyValueStore<K, V>, BulkReadableKeyValueStore<K, V> {
     private final String name;
     private final Serde<K> keySerde;
     private final Serde<V> valueSerde;
@@ -103,6 +108,18 @@ public class InMemoryKeyValueStore<K, V> implements KeyValueStore<K, V> {
         return this.map.get(key);
     }
 
+    @Override
+    public synchronized Map<K, V> multiGet(Collection<K> keys) {
+        final Map<K, V> result = new HashMap<>();
+        for (K key : keys) {
+            final V value = this.map.get(Objects.requireNonNull(key, "key cannot be null"));
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
     @Override
     public synchronized void put(K key, V value) {
         this.map.put(key, value);
@@ -139,6 +156,16 @@ public class InMemoryKeyValueStore<K, V> implements KeyValueStore<K, V> {
         return new DelegatingPeekingKeyValueIterator<>(name, new InMemoryKeyValueIterator<>(copy.entrySet().iterator()));
     }
 
+    /**
+     * As the keys are not ordered by their serialized form, all of them are serialized to find the ones with the prefix.
+     */
+    @Override
+    public synchronized <P> KeyValueIterator<K, V> prefixScan(P prefix, Serializer<P> prefixKeySerializer) {
+        final byte[] rawPrefix = PrefixScanUtils.rawPrefix(serdes.topic(), prefix, prefixKeySerializer);
+        final TreeMap<K, V> copy = PrefixScanUtils.entriesWithPrefix(this.map, serdes, rawPrefix);
+        return new DelegatingPeekingKeyValueIterator<>(name, new InMemoryKeyValueIterator<>(copy.entrySet().iterator()));
+    }
+
     @Override
     public long approximateNumEntries() {
         return this.map.size();
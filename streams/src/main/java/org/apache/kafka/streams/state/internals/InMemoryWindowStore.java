@@ -0,0 +1,297 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.streams.state.internals;
+
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.processor.ProcessorContext;
+import org.apache.kafka.streams.processor.StateRestoreCallback;
+import org.apache.kafka.streams.processor.StateStore;
+import org.apache.kafka.streams.processor.internals.ProcessorStateManager;
+import org.apache.kafka.streams.state.StateSerdes;
+import org.apache.kafka.streams.state.WindowStore;
+import org.apache.kafka.streams.state.WindowStoreIterator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+/**
+ * An in-memory {@link WindowStore} which keeps the records of each key ordered by timestamp, and returns the
+ * fetched values without deserializing them.
+ * <p>
+ * When logged, it writes the same changelog records as a {@link RocksDBWindowStore}, i.e., the key, timestamp and
+ * sequence number of each record are combined in a binary key, and restores itself from them.
+ * Records older than the retention period, relative to the largest timestamp put so far, are dropped periodically.
+ *
+ * @param <K> The key type
+ * @param <V> The value type
+ */
+class InMemoryWindowStore<K, V> implements WindowStore<K, V> {
+
+    private final String name;
+    private final Serde<K> keySerde;
+    private final Serde<V> valueSerde;
+    private final long retentionPeriod;
+    private final boolean retainDuplicates;
+    private final boolean logged;
+    // the records of each serialized key, as byte array keys can not be compared by their deserialized value
+    private final Map<Bytes, NavigableMap<WindowEntryKey, V>> records = new HashMap<>();
+
+    private ProcessorContext context;
+    private StateSerdes<K, V> serdes;
+    private StoreChangeLogger<Bytes, byte[]> changeLogger;
+    private volatile boolean open = false;
+    private int seqnum = 0;
+    private long observedStreamTime = -1L;
+    private long nextPurgeTime = -1L;
+
+    InMemoryWindowStore(final String name,
+                        final long retentionPeriod,
+                        final boolean retainDuplicates,
+                        final Serde<K> keySerde,
+                        final Serde<V> valueSerde,
+                        final boolean logged) {
+        this.name = name;
+        this.retentionPeriod = retentionPeriod;
+        this.retainDuplicates = retainDuplicates;
+        this.keySerde = keySerde;
+        this.valueSerde = valueSerde;
+        this.logged = logged;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void init(final ProcessorContext context, final StateStore root) {
+        this.context = context;
+        final String topic = ProcessorStateManager.storeChangelogTopic(context.applicationId(), name);
+        serdes = new StateSerdes<>(topic,
+                                   keySerde == null ? (Serde<K>) context.keySerde() : keySerde,
+                                   valueSerde == null ? (Serde<V>) context.valueSerde() : valueSerde);
+        if (logged) {
+            changeLogger = new StoreChangeLogger<>(name, context, WindowStoreUtils.getInnerStateSerde(topic));
+        }
+
+        context.register(root, logged, new StateRestoreCallback() {
+            @Override
+            public void restore(final byte[] key, final byte[] value) {
+                final Bytes rawKey = WindowStoreUtils.bytesKeyFromBinaryKey(key);
+                final WindowEntryKey entryKey = new WindowEntryKey(
+                    WindowStoreUtils.timestampFromBinaryKey(key),
+                    WindowStoreUtils.sequenceNumberFromBinaryKey(key));
+                if (value == null) {
+                    remove(rawKey, entryKey);
+                } else {
+                    putInternal(rawKey, entryKey, serdes.valueFrom(value));
+                }
+            }
+        });
+
+        open = true;
+    }
+
+    @Override
+    public void put(final K key, final V value) {
+        put(key, value, context.timestamp());
+    }
+
+    @Override
+    public synchronized void put(final K key, final V value, final long timestamp) {
+        if (retainDuplicates) {
+            seqnum = (seqnum + 1) & 0x7FFFFFFF;
+        }
+        final byte[] rawKey = serdes.rawKey(key);
+        final WindowEntryKey entryKey = new WindowEntryKey(timestamp, seqnum);
+        if (value == null) {
+            remove(Bytes.wrap(rawKey), entryKey);
+        } else {
+            putInternal(Bytes.wrap(rawKey), entryKey, value);
+        }
+        if (changeLogger != null) {
+            changeLogger.logChange(WindowStoreUtils.toBinaryKey(rawKey, timestamp, seqnum), serdes.rawValue(value));
+        }
+    }
+
+    @Override
+    public synchronized WindowStoreIterator<V> fetch(final K key, final long timeFrom, final long timeTo) {
+        final NavigableMap<WindowEntryKey, V> keyRecords = records.get(Bytes.wrap(serdes.rawKey(key)));
+        if (keyRecords == null || timeFrom > timeTo) {
+            return new InMemoryWindowStoreIterator<>(new ArrayList<KeyValue<Long, V>>(0));
+        }
+
+        // copy the fetched records, as the store may be updated while the caller forwards them
+        final NavigableMap<WindowEntryKey, V> fetched = keyRecords.subMap(
+            new WindowEntryKey(timeFrom, 0), true, new WindowEntryKey(timeTo, Integer.MAX_VALUE), true);
+        final List<KeyValue<Long, V>> result = new ArrayList<>(fetched.size());
+        for (final Map.Entry<WindowEntryKey, V> entry : fetched.entrySet()) {
+            result.add(KeyValue.pair(entry.getKey().timestamp, entry.getValue()));
+        }
+        return new InMemoryWindowStoreIterator<>(result);
+    }
+
+    @Override
+    public void flush() {
+        // do-nothing since it is in-memory
+    }
+
+    @Override
+    public synchronized void close() {
+        records.clear();
+        open = false;
+    }
+
+    @Override
+    public boolean persistent() {
+        return false;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    private synchronized void putInternal(final Bytes rawKey, final WindowEntryKey entryKey, final V value) {
+        NavigableMap<WindowEntryKey, V> keyRecords = records.get(rawKey);
+        if (keyRecords == null) {
+            keyRecords = new TreeMap<>();
+            records.put(rawKey, keyRecords);
+        }
+        keyRecords.put(entryKey, value);
+
+        if (entryKey.timestamp > observedStreamTime) {
+            observedStreamTime = entryKey.timestamp;
+            maybePurge();
+        }
+    }
+
+    private synchronized void remove(final Bytes rawKey, final WindowEntryKey entryKey) {
+        final NavigableMap<WindowEntryKey, V> keyRecords = records.get(rawKey);
+        if (keyRecords != null) {
+            keyRecords.remove(entryKey);
+            if (keyRecords.isEmpty()) {
+                records.remove(rawKey);
+            }
+        }
+    }
+
+    /**
+     * Drop the expired records of all the keys once the stream time has advanced by half of the retention period
+     * since the last purge, so that at most one and a half retention periods of records are kept in memory.
+     */
+    private void maybePurge() {
+        if (observedStreamTime < nextPurgeTime) {
+            return;
+        }
+        nextPurgeTime = observedStreamTime + Math.max(1L, retentionPeriod / 2);
+
+        final WindowEntryKey oldestRetained = new WindowEntryKey(observedStreamTime - retentionPeriod, 0);
+        final Iterator<NavigableMap<WindowEntryKey, V>> iterator = records.values().iterator();
+        while (iterator.hasNext()) {
+            final NavigableMap<WindowEntryKey, V> keyRecords = iterator.next();
+            keyRecords.headMap(oldestRetained, false).clear();
+            if (keyRecords.isEmpty()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static final class WindowEntryKey implements Comparable<WindowEntryKey> {
+        private final long timestamp;
+        private final int seqnum;
+
+        WindowEntryKey(final long timestamp, final int seqnum) {
+            this.timestamp = timestamp;
+            this.seqnum = seqnum;
+        }
+
+        @Override
+        public int compareTo(final WindowEntryKey other) {
+            if (timestamp != other.timestamp) {
+                return timestamp < other.timestamp ? -1 : 1;
+            }
+            return seqnum < other.seqnum ? -1 : (seqnum == other.seqnum ? 0 : 1);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final WindowEntryKey other = (WindowEntryKey) o;
+            return timestamp == other.timestamp && seqnum == other.seqnum;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (int) (timestamp ^ (timestamp >>> 32)) + seqnum;
+        }
+    }
+
+    private static class InMemoryWindowStoreIterator<V> implements WindowStoreIterator<V> {
+        private final List<KeyValue<Long, V>> records;
+        private int index = 0;
+
+        InMemoryWindowStoreIterator(final List<KeyValue<Long, V>> records) {
+            this.records = records;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < records.size();
+        }
+
+        @Override
+        public KeyValue<Long, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return records.get(index++);
+        }
+
+        @Override
+        public Long peekNextKey() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return records.get(index).key;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove() is not supported in " + getClass().getName());
+        }
+
+        @Override
+        public void close() {
+            // nothing to release
+        }
+    }
+}
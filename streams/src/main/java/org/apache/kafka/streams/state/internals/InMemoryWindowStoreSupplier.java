@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.streams.state.internals;
+
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.streams.state.WindowStore;
+
+import java.util.Map;
+
+/**
+ * A {@link WindowStore} that keeps all entries in memory, backed by the same changelog as a
+ * {@link RocksDBWindowStoreSupplier RocksDB window store}.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+public class InMemoryWindowStoreSupplier<K, V> extends AbstractStoreSupplier<K, V, WindowStore<K, V>> implements WindowStoreSupplier<WindowStore<K, V>> {
+
+    private final long retentionPeriod;
+    private final boolean retainDuplicates;
+
+    public InMemoryWindowStoreSupplier(String name, long retentionPeriod, boolean retainDuplicates, Serde<K> keySerde, Serde<V> valueSerde, boolean logged, Map<String, String> logConfig) {
+        super(name, keySerde, valueSerde, null, logged, logConfig);
+        this.retentionPeriod = retentionPeriod;
+        this.retainDuplicates = retainDuplicates;
+    }
+
+    public WindowStore<K, V> get() {
+        final InMemoryWindowStore<K, V> store = new InMemoryWindowStore<>(name, retentionPeriod, retainDuplicates, keySerde, valueSerde, logged);
+        return new MeteredWindowStore<>(store, "in-memory-window", time);
+    }
+
+    @Override
+    public long retentionPeriod() {
+        return retentionPeriod;
+    }
+}
@@ -17,18 +17,23 @@
 package org.apache.kafka.streams.state.internals;
 
 import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.processor.ProcessorContext;
 import org.apache.kafka.streams.processor.StateRestoreCallback;
 import org.apache.kafka.streams.processor.StateStore;
 import org.apache.kafka.streams.processor.internals.ProcessorStateManager;
+import org.apache.kafka.streams.state.BulkReadableKeyValueStore;
 import org.apache.kafka.streams.state.KeyValueIterator;
 import org.apache.kafka.streams.state.KeyValueStore;
 import org.apache.kafka.streams.state.StateSerdes;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * An in-memory LRU cache store based on HashSet and HashMap.
@@ -43,7 +48,7 @@ import java.util.Map;
  *
  * @see org.apache.kafka.streams.state.Stores#create(String)
  */
-public class MemoryLRUCache<K, V> implements KeyValueStore<K, V> {
+public class MemoryLRUCache<K, V> implements KeyValueStore<K, V>, BulkReadableKeyValueStore<K, V> {
 
     public interface EldestEntryRemovalListener<K, V> {
 
@@ -55,7 +60,7 @@ public class MemoryLRUCache<K, V> implements KeyValueStore<K, V> {
     private final String name;
     protected final Map<K, V> map;
 
-    private StateSerdes<K, V> serdes;
+    protected StateSerdes<K, V> serdes;
     private boolean restoring = false;      // TODO: this is a sub-optimal solution to avoid logging during restoration.
                                             // in the future we should augment the StateRestoreCallback with onComplete etc to better resolve this.
     private volatile boolean open = true;
@@ -137,6 +142,18 @@ public class MemoryLRUCache<K, V> implements KeyValueStore<K, V> {
         return this.map.get(key);
     }
 
+    @Override
+    public synchronized Map<K, V> multiGet(Collection<K> keys) {
+        final Map<K, V> result = new HashMap<>();
+        for (K key : keys) {
+            final V value = this.map.get(Objects.requireNonNull(key, "key cannot be null"));
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
     @Override
     public synchronized void put(K key, V value) {
         this.map.put(key, value);
@@ -179,6 +196,14 @@ public class MemoryLRUCache<K, V> implements KeyValueStore<K, V> {
         throw new UnsupportedOperationException("MemoryLRUCache does not support all() function.");
     }
 
+    /**
+     * @throws UnsupportedOperationException
+     */
+    @Override
+    public <P> KeyValueIterator<K, V> prefixScan(P prefix, Serializer<P> prefixKeySerializer) {
+        throw new UnsupportedOperationException("MemoryLRUCache does not support prefixScan() function.");
+    }
+
     @Override
     public long approximateNumEntries() {
         return this.map.size();
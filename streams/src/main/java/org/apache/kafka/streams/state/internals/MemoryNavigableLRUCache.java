@@ -17,6 +17,7 @@
 package org.apache.kafka.streams.state.internals;
 
 import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.state.KeyValueIterator;
 
@@ -50,6 +51,16 @@ public class MemoryNavigableLRUCache<K, V> extends MemoryLRUCache<K, V> {
         return new MemoryNavigableLRUCache.CacheIterator<>(treeMap.navigableKeySet().iterator(), treeMap);
     }
 
+    /**
+     * As the keys are not ordered by their serialized form, all of them are serialized to find the ones with the prefix.
+     */
+    @Override
+    public synchronized <P> KeyValueIterator<K, V> prefixScan(P prefix, Serializer<P> prefixKeySerializer) {
+        final byte[] rawPrefix = PrefixScanUtils.rawPrefix(serdes.topic(), prefix, prefixKeySerializer);
+        final TreeMap<K, V> treeMap = PrefixScanUtils.entriesWithPrefix(this.map, serdes, rawPrefix);
+        return new DelegatingPeekingKeyValueIterator<>(name(), new MemoryNavigableLRUCache.CacheIterator<>(treeMap.navigableKeySet().iterator(), treeMap));
+    }
+
     private synchronized TreeMap<K, V> toTreeMap() {
         return new TreeMap<>(this.map);
     }
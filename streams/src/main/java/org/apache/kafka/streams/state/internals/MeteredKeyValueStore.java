@@ -17,15 +17,19 @@
 package org.apache.kafka.streams.state.internals;
 
 import org.apache.kafka.common.metrics.Sensor;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.utils.Time;
 import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.processor.ProcessorContext;
 import org.apache.kafka.streams.processor.StateStore;
 import org.apache.kafka.streams.processor.internals.StreamsMetricsImpl;
+import org.apache.kafka.streams.state.BulkReadableKeyValueStore;
 import org.apache.kafka.streams.state.KeyValueIterator;
 import org.apache.kafka.streams.state.KeyValueStore;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Metered {@link KeyValueStore} wrapper is used for recording operation metrics, and hence its
@@ -34,7 +38,7 @@ import java.util.List;
  * @param <K>
  * @param <V>
  */
-public class MeteredKeyValueStore<K, V> extends WrappedStateStore.AbstractStateStore implements KeyValueStore<K, V> {
+public class MeteredKeyValueStore<K, V> extends WrappedStateStore.AbstractStateStore implements KeyValueStore<K, V>, BulkReadableKeyValueStore<K, V> {
 
     private final KeyValueStore<K, V> inner;
     private final String metricScope;
@@ -43,10 +47,12 @@ public class MeteredKeyValueStore<K, V> extends WrappedStateStore.AbstractStateS
     private Sensor putTime;
     private Sensor putIfAbsentTime;
     private Sensor getTime;
+    private Sensor multiGetTime;
     private Sensor deleteTime;
     private Sensor putAllTime;
     private Sensor allTime;
     private Sensor rangeTime;
+    private Sensor prefixScanTime;
     private Sensor flushTime;
     private Sensor restoreTime;
     private StreamsMetricsImpl metrics;
@@ -60,6 +66,14 @@ public class MeteredKeyValueStore<K, V> extends WrappedStateStore.AbstractStateS
             value = inner.get(key);
         }
     };
+    private Collection<K> keys;
+    private Map<K, V> values;
+    private Runnable multiGetDelegate = new Runnable() {
+        @Override
+        public void run() {
+            values = BulkReads.multiGet(inner, keys);
+        }
+    };
     private Runnable putDelegate = new Runnable() {
         @Override
         public void run() {
@@ -119,10 +133,12 @@ public class MeteredKeyValueStore<K, V> extends WrappedStateStore.AbstractStateS
         this.putTime = this.metrics.addLatencyAndThroughputSensor(metricScope, name, "put", Sensor.RecordingLevel.DEBUG);
         this.putIfAbsentTime = this.metrics.addLatencyAndThroughputSensor(metricScope, name, "put-if-absent", Sensor.RecordingLevel.DEBUG);
         this.getTime = this.metrics.addLatencyAndThroughputSensor(metricScope, name, "get", Sensor.RecordingLevel.DEBUG);
+        this.multiGetTime = this.metrics.addLatencyAndThroughputSensor(metricScope, name, "multi-get", Sensor.RecordingLevel.DEBUG);
         this.deleteTime = this.metrics.addLatencyAndThroughputSensor(metricScope, name, "delete", Sensor.RecordingLevel.DEBUG);
         this.putAllTime = this.metrics.addLatencyAndThroughputSensor(metricScope, name, "put-all", Sensor.RecordingLevel.DEBUG);
         this.allTime = this.metrics.addLatencyAndThroughputSensor(metricScope, name, "all", Sensor.RecordingLevel.DEBUG);
         this.rangeTime = this.metrics.addLatencyAndThroughputSensor(metricScope, name, "range", Sensor.RecordingLevel.DEBUG);
+        this.prefixScanTime = this.metrics.addLatencyAndThroughputSensor(metricScope, name, "prefix-scan", Sensor.RecordingLevel.DEBUG);
         this.flushTime = this.metrics.addLatencyAndThroughputSensor(metricScope, name, "flush", Sensor.RecordingLevel.DEBUG);
         this.restoreTime = this.metrics.addLatencyAndThroughputSensor(metricScope, name, "restore", Sensor.RecordingLevel.DEBUG);
 
@@ -142,6 +158,13 @@ public class MeteredKeyValueStore<K, V> extends WrappedStateStore.AbstractStateS
         return value;
     }
 
+    @Override
+    public Map<K, V> multiGet(Collection<K> keys) {
+        this.keys = keys;
+        metrics.measureLatencyNs(time, multiGetDelegate, this.multiGetTime);
+        return values;
+    }
+
     @Override
     public void put(K key, V value) {
         this.key = key;
@@ -180,6 +203,11 @@ public class MeteredKeyValueStore<K, V> extends WrappedStateStore.AbstractStateS
         return new MeteredKeyValueIterator<>(this.inner.all(), this.allTime);
     }
 
+    @Override
+    public <P> KeyValueIterator<K, V> prefixScan(P prefix, Serializer<P> prefixKeySerializer) {
+        return new MeteredKeyValueIterator<>(BulkReads.prefixScan(this.inner, prefix, prefixKeySerializer), this.prefixScanTime);
+    }
+
     @Override
     public void flush() {
         metrics.measureLatencyNs(time, flushDelegate, this.flushTime);
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.streams.state.internals;
+
+import org.apache.kafka.common.metrics.Sensor;
+import org.apache.kafka.common.utils.Time;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsMetrics;
+import org.apache.kafka.streams.processor.ProcessorContext;
+import org.apache.kafka.streams.processor.StateStore;
+import org.apache.kafka.streams.state.WindowStore;
+import org.apache.kafka.streams.state.WindowStoreIterator;
+
+/**
+ * Metered {@link WindowStore} wrapper, for window stores which are not built on top of a
+ * {@link MeteredSegmentedBytesStore}.
+ *
+ * @param <K>
+ * @param <V>
+ */
+class MeteredWindowStore<K, V> extends WrappedStateStore.AbstractStateStore implements WindowStore<K, V> {
+
+    private final WindowStore<K, V> inner;
+    private final String metricScope;
+    private final Time time;
+
+    private Sensor putTime;
+    private Sensor fetchTime;
+    private Sensor flushTime;
+    private StreamsMetrics metrics;
+
+    MeteredWindowStore(final WindowStore<K, V> inner,
+                       final String metricScope,
+                       final Time time) {
+        super(inner);
+        this.inner = inner;
+        this.metricScope = metricScope;
+        this.time = time != null ? time : Time.SYSTEM;
+    }
+
+    @Override
+    public void init(final ProcessorContext context, final StateStore root) {
+        final String name = name();
+        this.metrics = context.metrics();
+        this.putTime = this.metrics.addLatencyAndThroughputSensor(metricScope, name, "put", Sensor.RecordingLevel.DEBUG);
+        this.fetchTime = this.metrics.addLatencyAndThroughputSensor(metricScope, name, "fetch", Sensor.RecordingLevel.DEBUG);
+        this.flushTime = this.metrics.addLatencyAndThroughputSensor(metricScope, name, "flush", Sensor.RecordingLevel.DEBUG);
+
+        final Sensor restoreTime = this.metrics.addLatencyAndThroughputSensor(metricScope, name, "restore", Sensor.RecordingLevel.DEBUG);
+        // register and possibly restore the state from the logs
+        final long startNs = time.nanoseconds();
+        try {
+            inner.init(context, root);
+        } finally {
+            this.metrics.recordLatency(restoreTime, startNs, time.nanoseconds());
+        }
+    }
+
+    @Override
+    public void put(final K key, final V value) {
+        final long startNs = time.nanoseconds();
+        try {
+            inner.put(key, value);
+        } finally {
+            this.metrics.recordLatency(this.putTime, startNs, time.nanoseconds());
+        }
+    }
+
+    @Override
+    public void put(final K key, final V value, final long timestamp) {
+        final long startNs = time.nanoseconds();
+        try {
+            inner.put(key, value, timestamp);
+        } finally {
+            this.metrics.recordLatency(this.putTime, startNs, time.nanoseconds());
+        }
+    }
+
+    @Override
+    public WindowStoreIterator<V> fetch(final K key, final long timeFrom, final long timeTo) {
+        return new MeteredWindowStoreIterator(inner.fetch(key, timeFrom, timeTo), this.fetchTime);
+    }
+
+    @Override
+    public void flush() {
+        final long startNs = time.nanoseconds();
+        try {
+            inner.flush();
+        } finally {
+            this.metrics.recordLatency(this.flushTime, startNs, time.nanoseconds());
+        }
+    }
+
+    private class MeteredWindowStoreIterator implements WindowStoreIterator<V> {
+
+        private final WindowStoreIterator<V> iter;
+        private final Sensor sensor;
+        private final long startNs;
+
+        MeteredWindowStoreIterator(final WindowStoreIterator<V> iter, final Sensor sensor) {
+            this.iter = iter;
+            this.sensor = sensor;
+            this.startNs = time.nanoseconds();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iter.hasNext();
+        }
+
+        @Override
+        public KeyValue<Long, V> next() {
+            return iter.next();
+        }
+
+        @Override
+        public void remove() {
+            iter.remove();
+        }
+
+        @Override
+        public void close() {
+            try {
+                iter.close();
+            } finally {
+                metrics.recordLatency(this.sensor, this.startNs, time.nanoseconds());
+            }
+        }
+
+        @Override
+        public Long peekNextKey() {
+            return iter.peekNextKey();
+        }
+    }
+}
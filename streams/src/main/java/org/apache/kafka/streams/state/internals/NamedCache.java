@@ -276,6 +276,18 @@ class NamedCache {
         return keySetIterator(cache.navigableKeySet().subSet(from, true, to, true));
     }
 
+    synchronized Iterator<Bytes> keysWithPrefix(final Bytes prefix) {
+        final TreeSet<Bytes> keys = new TreeSet<>();
+        // the keys with the prefix are contiguous and start at the prefix itself, as the keys are ordered lexicographically
+        for (final Bytes key : cache.navigableKeySet().tailSet(prefix, true)) {
+            if (!PrefixScanUtils.hasPrefix(key.get(), prefix.get())) {
+                break;
+            }
+            keys.add(key);
+        }
+        return keys.iterator();
+    }
+
     private Iterator<Bytes> keySetIterator(final Set<Bytes> keySet) {
         final TreeSet<Bytes> copy = new TreeSet<>();
         copy.addAll(keySet);
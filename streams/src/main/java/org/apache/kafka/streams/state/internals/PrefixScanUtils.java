@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.streams.state.internals;
+
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.streams.state.StateSerdes;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Helpers for the {@link org.apache.kafka.streams.state.BulkReadableKeyValueStore#prefixScan(Object, Serializer) prefix scans}
+ * of key-value stores, which match the prefix against the serialized keys.
+ */
+final class PrefixScanUtils {
+
+    private PrefixScanUtils() {
+    }
+
+    static <P> byte[] rawPrefix(final String topic, final P prefix, final Serializer<P> prefixKeySerializer) {
+        Objects.requireNonNull(prefix, "prefix cannot be null");
+        Objects.requireNonNull(prefixKeySerializer, "prefixKeySerializer cannot be null");
+        return prefixKeySerializer.serialize(topic, prefix);
+    }
+
+    static boolean hasPrefix(final byte[] rawKey, final byte[] rawPrefix) {
+        if (rawKey.length < rawPrefix.length) {
+            return false;
+        }
+        for (int i = 0; i < rawPrefix.length; i++) {
+            if (rawKey[i] != rawPrefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copy the entries of a store which is not ordered by serialized key, and whose keys thus all have to be
+     * serialized to find the ones with the prefix.
+     */
+    static <K, V> TreeMap<K, V> entriesWithPrefix(final Map<K, V> entries,
+                                                  final StateSerdes<K, V> serdes,
+                                                  final byte[] rawPrefix) {
+        final TreeMap<K, V> result = new TreeMap<>();
+        for (final Map.Entry<K, V> entry : entries.entrySet()) {
+            if (hasPrefix(serdes.rawKey(entry.getKey()), rawPrefix)) {
+                result.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return result;
+    }
+}
@@ -36,14 +36,24 @@ public class RocksDBKeyValueStoreSupplier<K, V> extends AbstractStoreSupplier<K,
 
     private static final String METRICS_SCOPE = "rocksdb-state";
     private final boolean cached;
+    private final boolean skipUnchangedWrites;
 
     public RocksDBKeyValueStoreSupplier(String name, Serde<K> keySerde, Serde<V> valueSerde, boolean logged, Map<String, String> logConfig, boolean cached) {
         this(name, keySerde, valueSerde, null, logged, logConfig, cached);
     }
 
+    public RocksDBKeyValueStoreSupplier(String name, Serde<K> keySerde, Serde<V> valueSerde, boolean logged, Map<String, String> logConfig, boolean cached, boolean skipUnchangedWrites) {
+        this(name, keySerde, valueSerde, null, logged, logConfig, cached, skipUnchangedWrites);
+    }
+
     public RocksDBKeyValueStoreSupplier(String name, Serde<K> keySerde, Serde<V> valueSerde, Time time, boolean logged, Map<String, String> logConfig, boolean cached) {
+        this(name, keySerde, valueSerde, time, logged, logConfig, cached, false);
+    }
+
+    public RocksDBKeyValueStoreSupplier(String name, Serde<K> keySerde, Serde<V> valueSerde, Time time, boolean logged, Map<String, String> logConfig, boolean cached, boolean skipUnchangedWrites) {
         super(name, keySerde, valueSerde, time, logged, logConfig);
         this.cached = cached;
+        this.skipUnchangedWrites = skipUnchangedWrites;
     }
 
     public KeyValueStore get() {
@@ -57,6 +67,7 @@ public class RocksDBKeyValueStoreSupplier<K, V> extends AbstractStoreSupplier<K,
                                                                      Serdes.Bytes(),
                                                                      Serdes.ByteArray());
 
+        // when cached, unchanged values are already dropped by the cache on flush, before they reach the changelog
         if (cached && logged) {
             return new CachingKeyValueStore<>(
                     new MeteredKeyValueStore<>(
@@ -64,19 +75,21 @@ public class RocksDBKeyValueStoreSupplier<K, V> extends AbstractStoreSupplier<K,
                             METRICS_SCOPE,
                             time),
                     keySerde,
-                    valueSerde);
+                    valueSerde,
+                    skipUnchangedWrites);
         }
 
         if (cached) {
             return new CachingKeyValueStore<>(
                     new MeteredKeyValueStore<>(rocks, METRICS_SCOPE, time),
                     keySerde,
-                    valueSerde);
+                    valueSerde,
+                    skipUnchangedWrites);
 
         } else {
             // logged
             return new MeteredKeyValueStore<>(
-                    new ChangeLoggingKeyValueStore<>(rocks, keySerde, valueSerde),
+                    new ChangeLoggingKeyValueStore<>(rocks, keySerde, valueSerde, skipUnchangedWrites),
                     METRICS_SCOPE,
                     time);
         }
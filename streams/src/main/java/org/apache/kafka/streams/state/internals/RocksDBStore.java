@@ -17,6 +17,7 @@
 package org.apache.kafka.streams.state.internals;
 
 import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.utils.Bytes;
 import org.apache.kafka.common.utils.Utils;
 import org.apache.kafka.streams.KeyValue;
@@ -24,15 +25,18 @@ import org.apache.kafka.streams.StreamsConfig;
 import org.apache.kafka.streams.errors.InvalidStateStoreException;
 import org.apache.kafka.streams.errors.ProcessorStateException;
 import org.apache.kafka.streams.errors.StreamsException;
+import org.apache.kafka.streams.processor.BatchingStateRestoreCallback;
 import org.apache.kafka.streams.processor.ProcessorContext;
-import org.apache.kafka.streams.processor.StateRestoreCallback;
 import org.apache.kafka.streams.processor.StateStore;
 import org.apache.kafka.streams.processor.internals.ProcessorStateManager;
+import org.apache.kafka.streams.processor.internals.StateSnapshotCallback;
+import org.apache.kafka.streams.state.BulkReadableKeyValueStore;
 import org.apache.kafka.streams.state.KeyValueIterator;
 import org.apache.kafka.streams.state.KeyValueStore;
 import org.apache.kafka.streams.state.RocksDBConfigSetter;
 import org.apache.kafka.streams.state.StateSerdes;
 import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.Checkpoint;
 import org.rocksdb.CompactionStyle;
 import org.rocksdb.CompressionType;
 import org.rocksdb.FlushOptions;
@@ -47,12 +51,16 @@ import org.rocksdb.WriteOptions;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -67,7 +75,7 @@ import java.util.Set;
  *
  * @see org.apache.kafka.streams.state.Stores#create(String)
  */
-public class RocksDBStore<K, V> implements KeyValueStore<K, V> {
+public class RocksDBStore<K, V> implements KeyValueStore<K, V>, BulkReadableKeyValueStore<K, V> {
 
     private static final int TTL_NOT_USED = -1;
 
@@ -168,16 +176,48 @@ public class RocksDBStore<K, V> implements KeyValueStore<K, V> {
 
         // value getter should always read directly from rocksDB
         // since it is only for values that are already flushed
-        context.register(root, false, new StateRestoreCallback() {
-            @Override
-            public void restore(byte[] key, byte[] value) {
-                putInternal(key, value);
-            }
-        });
+        context.register(root, false, new RocksDBRestoreCallback());
 
         open = true;
     }
 
+    /**
+     * Write a consistent snapshot of the DB to the given directory, by hard-linking its SST files where possible.
+     */
+    private synchronized void snapshotInternal(File snapshotDir) {
+        try (Checkpoint checkpoint = Checkpoint.create(db)) {
+            checkpoint.createCheckpoint(snapshotDir.getAbsolutePath());
+        } catch (RocksDBException e) {
+            throw new ProcessorStateException("Error while writing snapshot of store " + this.name + " to " + snapshotDir, e);
+        }
+    }
+
+    /**
+     * Replace the DB by a copy of the snapshot in the given directory, which is left untouched as it may be shared.
+     */
+    private synchronized void restoreSnapshotInternal(File snapshotDir) {
+        db.close();
+        try {
+            Utils.delete(dbDir);
+            Files.createDirectories(dbDir.toPath());
+            final File[] snapshotFiles = snapshotDir.listFiles();
+            if (snapshotFiles == null) {
+                throw new IOException("Failed to list the files of " + snapshotDir);
+            }
+            for (File snapshotFile : snapshotFiles) {
+                Files.copy(snapshotFile.toPath(), new File(dbDir, snapshotFile.getName()).toPath());
+            }
+        } catch (IOException e) {
+            throw new ProcessorStateException("Error while restoring store " + this.name + " from snapshot " + snapshotDir, e);
+        } finally {
+            try {
+                this.db = openDB(this.dbDir, this.options, TTL_SECONDS);
+            } catch (IOException e) {
+                throw new StreamsException(e);
+            }
+        }
+    }
+
     private RocksDB openDB(File dir, Options options, int ttl) throws IOException {
         try {
             if (ttl == TTL_NOT_USED) {
@@ -225,6 +265,37 @@ public class RocksDBStore<K, V> implements KeyValueStore<K, V> {
         }
     }
 
+    @Override
+    public synchronized Map<K, V> multiGet(Collection<K> keys) {
+        validateStoreOpen();
+        final Map<K, V> result = new HashMap<>();
+        if (keys.isEmpty()) {
+            return result;
+        }
+        final List<K> keyList = new ArrayList<>(keys.size());
+        final List<byte[]> rawKeys = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            Objects.requireNonNull(key, "key cannot be null");
+            keyList.add(key);
+            rawKeys.add(serdes.rawKey(key));
+        }
+
+        final Map<byte[], byte[]> rawValues;
+        try {
+            rawValues = db.multiGet(rawKeys);
+        } catch (RocksDBException e) {
+            throw new ProcessorStateException("Error while getting values for " + keys.size() + " keys from store " + this.name, e);
+        }
+        // the values are mapped to the very same key arrays that were passed in, so they can be looked up by identity
+        for (int i = 0; i < rawKeys.size(); i++) {
+            final byte[] rawValue = rawValues.get(rawKeys.get(i));
+            if (rawValue != null) {
+                result.put(keyList.get(i), serdes.valueFrom(rawValue));
+            }
+        }
+        return result;
+    }
+
     private byte[] getInternal(byte[] rawKey) {
         try {
             return this.db.get(rawKey);
@@ -270,6 +341,21 @@ public class RocksDBStore<K, V> implements KeyValueStore<K, V> {
         }
     }
 
+    private void restoreAllInternal(Collection<KeyValue<byte[], byte[]>> records) {
+        try (WriteBatch batch = new WriteBatch()) {
+            for (KeyValue<byte[], byte[]> record : records) {
+                if (record.value == null) {
+                    batch.remove(record.key);
+                } else {
+                    batch.put(record.key, record.value);
+                }
+            }
+            db.write(wOptions, batch);
+        } catch (RocksDBException e) {
+            throw new ProcessorStateException("Error while batch restoring store " + this.name, e);
+        }
+    }
+
     @Override
     public void putAll(List<KeyValue<K, V>> entries) {
         try (WriteBatch batch = new WriteBatch()) {
@@ -316,6 +402,15 @@ public class RocksDBStore<K, V> implements KeyValueStore<K, V> {
         return rocksDbIterator;
     }
 
+    @Override
+    public synchronized <P> KeyValueIterator<K, V> prefixScan(P prefix, Serializer<P> prefixKeySerializer) {
+        validateStoreOpen();
+        final byte[] rawPrefix = PrefixScanUtils.rawPrefix(serdes.topic(), prefix, prefixKeySerializer);
+        final RocksDBPrefixIterator rocksDBPrefixIterator = new RocksDBPrefixIterator(name, db.newIterator(), serdes, rawPrefix);
+        openIterators.add(rocksDBPrefixIterator);
+        return rocksDBPrefixIterator;
+    }
+
     /**
      * Return an approximate count of key-value mappings in this store.
      *
@@ -396,6 +491,29 @@ public class RocksDBStore<K, V> implements KeyValueStore<K, V> {
         }
     }
 
+    private class RocksDBRestoreCallback implements BatchingStateRestoreCallback, StateSnapshotCallback {
+
+        @Override
+        public void restore(byte[] key, byte[] value) {
+            putInternal(key, value);
+        }
+
+        @Override
+        public void restoreAll(Collection<KeyValue<byte[], byte[]>> records) {
+            restoreAllInternal(records);
+        }
+
+        @Override
+        public void snapshot(File snapshotDir) {
+            snapshotInternal(snapshotDir);
+        }
+
+        @Override
+        public void restoreSnapshot(File snapshotDir) {
+            restoreSnapshotInternal(snapshotDir);
+        }
+    }
+
     private class RocksDbIterator implements KeyValueIterator<K, V> {
         private final String storeName;
         private final RocksIterator iter;
@@ -478,4 +596,20 @@ public class RocksDBStore<K, V> implements KeyValueStore<K, V> {
             return super.hasNext() && comparator.compare(super.peekRawKey(), this.rawToKey) <= 0;
         }
     }
+
+    private class RocksDBPrefixIterator extends RocksDbIterator {
+        private final byte[] rawPrefix;
+
+        RocksDBPrefixIterator(String storeName, RocksIterator iter, StateSerdes<K, V> serdes, byte[] rawPrefix) {
+            super(storeName, iter, serdes);
+            // the keys with the prefix are contiguous and start at the prefix itself, as the keys are ordered lexicographically
+            iter.seek(rawPrefix);
+            this.rawPrefix = rawPrefix;
+        }
+
+        @Override
+        public synchronized boolean hasNext() {
+            return super.hasNext() && PrefixScanUtils.hasPrefix(super.peekRawKey(), this.rawPrefix);
+        }
+    }
 }
@@ -24,11 +24,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * An in-memory LRU cache store similar to {@link MemoryLRUCache} but byte-based, not
@@ -42,13 +43,15 @@ public class ThreadCache {
     private final String name;
     private final long maxCacheSizeBytes;
     private final StreamsMetrics metrics;
-    private final Map<String, NamedCache> caches = new HashMap<>();
+    // the tasks of a stream thread may be processed by its task workers, which put into their own
+    // named caches but iterate over all of them to compute the total size
+    private final Map<String, NamedCache> caches = new ConcurrentHashMap<>();
 
-    // internal stats
-    private long numPuts = 0;
-    private long numGets = 0;
-    private long numEvicts = 0;
-    private long numFlushes = 0;
+    // internal stats, updated by the task workers concurrently
+    private final AtomicLong numPuts = new AtomicLong();
+    private final AtomicLong numGets = new AtomicLong();
+    private final AtomicLong numEvicts = new AtomicLong();
+    private final AtomicLong numFlushes = new AtomicLong();
 
     public interface DirtyEntryFlushListener {
         void apply(final List<DirtyEntry> dirty);
@@ -61,19 +64,19 @@ public class ThreadCache {
     }
 
     public long puts() {
-        return numPuts;
+        return numPuts.get();
     }
 
     public long gets() {
-        return numGets;
+        return numGets.get();
     }
 
     public long evicts() {
-        return numEvicts;
+        return numEvicts.get();
     }
 
     public long flushes() {
-        return numFlushes;
+        return numFlushes.get();
     }
 
     /**
@@ -88,7 +91,7 @@ public class ThreadCache {
     }
 
     public void flush(final String namespace) {
-        numFlushes++;
+        numFlushes.incrementAndGet();
 
         final NamedCache cache = getCache(namespace);
         if (cache == null) {
@@ -101,7 +104,7 @@ public class ThreadCache {
     }
 
     public LRUCacheEntry get(final String namespace, Bytes key) {
-        numGets++;
+        numGets.incrementAndGet();
 
         if (key == null) {
             return null;
@@ -115,7 +118,7 @@ public class ThreadCache {
     }
 
     public void put(final String namespace, Bytes key, LRUCacheEntry value) {
-        numPuts++;
+        numPuts.incrementAndGet();
 
         final NamedCache cache = getOrCreateCache(namespace);
         cache.put(key, value);
@@ -129,7 +132,7 @@ public class ThreadCache {
         maybeEvict(namespace);
 
         if (result == null) {
-            numPuts++;
+            numPuts.incrementAndGet();
         }
         return result;
     }
@@ -157,6 +160,14 @@ public class ThreadCache {
         return new MemoryLRUCacheBytesIterator(cache.keyRange(from, to), cache);
     }
 
+    public MemoryLRUCacheBytesIterator prefixScan(final String namespace, final Bytes prefix) {
+        final NamedCache cache = getCache(namespace);
+        if (cache == null) {
+            return new MemoryLRUCacheBytesIterator(Collections.<Bytes>emptyIterator(), new NamedCache(namespace, this.metrics));
+        }
+        return new MemoryLRUCacheBytesIterator(cache.keysWithPrefix(prefix), cache);
+    }
+
     public MemoryLRUCacheBytesIterator all(final String namespace) {
         final NamedCache cache = getCache(namespace);
         if (cache == null) {
@@ -212,7 +223,7 @@ public class ThreadCache {
             }
             log.trace("Thread {} evicting cache {}", name, namespace);
             cache.evict();
-            numEvicts++;
+            numEvicts.incrementAndGet();
         }
     }
 
@@ -37,6 +37,7 @@ import org.junit.ClassRule;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import java.io.File;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -269,6 +270,23 @@ public class KafkaStreamsTest {
         streams.cleanUp();
     }
 
+    @Test
+    public void shouldDeleteStoreSnapshotsOnCleanup() throws Exception {
+        final File snapshotDir = TestUtils.tempDirectory();
+        final Properties props = new Properties();
+        props.setProperty(StreamsConfig.APPLICATION_ID_CONFIG, "testSnapshotCleanup");
+        props.setProperty(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, CLUSTER.bootstrapServers());
+        props.setProperty(StreamsConfig.STATE_SNAPSHOT_DIR_CONFIG, snapshotDir.getPath());
+        final File applicationSnapshotDir = new File(snapshotDir, "testSnapshotCleanup");
+        assertTrue(new File(applicationSnapshotDir, "0_0").mkdirs());
+
+        final KStreamBuilder builder = new KStreamBuilder();
+        final KafkaStreams streams = new KafkaStreams(builder, props);
+
+        streams.cleanUp();
+        assertFalse(applicationSnapshotDir.exists());
+    }
+
     @Test(expected = IllegalStateException.class)
     public void testCannotCleanupWhileRunning() throws Exception {
         final Properties props = new Properties();
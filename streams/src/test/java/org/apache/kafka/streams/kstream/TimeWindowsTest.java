@@ -22,7 +22,9 @@ import org.junit.Test;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class TimeWindowsTest {
@@ -51,6 +53,19 @@ public class TimeWindowsTest {
         assertEquals(windowSize, TimeWindows.of(windowSize).maintainMs());
     }
 
+    @Test
+    public void shouldExtendRetentionTimeByGracePeriodIfOnlyFinalResultsAreEmitted() {
+        final TimeWindows windows = TimeWindows.of(ANY_SIZE).until(ANY_SIZE).emitFinalResults(10L);
+        assertTrue(windows.emitsFinalResults());
+        assertEquals(ANY_SIZE + 10L, windows.maintainMs());
+        assertFalse(TimeWindows.of(ANY_SIZE).emitsFinalResults());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void gracePeriodMustNotBeNegative() {
+        TimeWindows.of(ANY_SIZE).emitFinalResults(-1L);
+    }
+
     @Test
     public void shouldHaveSaneEqualsAndHashCode() {
         TimeWindows w1 = TimeWindows.of(ANY_SIZE);
@@ -18,6 +18,8 @@ package org.apache.kafka.streams.kstream.internals;
 
 import org.apache.kafka.common.serialization.Serde;
 import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Utils;
+import org.apache.kafka.streams.StreamsConfig;
 import org.apache.kafka.streams.errors.TopologyBuilderException;
 import org.apache.kafka.streams.kstream.GlobalKTable;
 import org.apache.kafka.streams.kstream.JoinWindows;
@@ -27,13 +29,18 @@ import org.apache.kafka.streams.kstream.KTable;
 import org.apache.kafka.streams.kstream.Predicate;
 import org.apache.kafka.streams.kstream.ValueJoiner;
 import org.apache.kafka.streams.kstream.ValueMapper;
+import org.apache.kafka.test.KStreamTestDriver;
 import org.apache.kafka.test.MockKeyValueMapper;
 import org.apache.kafka.test.MockProcessorSupplier;
 import org.apache.kafka.test.MockValueJoiner;
+import org.apache.kafka.test.TestUtils;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
 
@@ -148,6 +155,86 @@ public class KStreamImplTest {
             builder.setApplicationId("X").build(null).processors().size());
     }
 
+    @Test
+    public void shouldCreateRepartitionTopicPerOperationByDefault() {
+        buildRekeyedTopology(builder);
+        assertEquals(6, repartitionTopics(builder).size());
+    }
+
+    @Test
+    public void shouldShareRepartitionTopicWithRepartitionOptimization() {
+        builder.setRepartitionOptimization(true);
+        buildRekeyedTopology(builder);
+        assertEquals(Collections.singleton("X-count-1-repartition"), repartitionTopics(builder));
+    }
+
+    @Test
+    public void shouldShareRepartitionTopicOnlyBetweenOperationsWithSameSerdes() {
+        builder.setRepartitionOptimization(true);
+        final KStream<String, String> rekeyed = builder.<String, String>stream("topic-1")
+            .selectKey(MockKeyValueMapper.<String, String>SelectValueMapper());
+        rekeyed.groupByKey().count("defaults");
+        rekeyed.groupByKey(Serdes.String(), Serdes.String()).count("strings-1");
+        rekeyed.groupByKey(Serdes.String(), Serdes.String()).count("strings-2");
+        rekeyed.filter(new Predicate<String, String>() {
+            @Override
+            public boolean test(final String key, final String value) {
+                return !value.isEmpty();
+            }
+        }).groupByKey(stringSerde, stringSerde).count("strings-3");
+        assertEquals(Utils.mkSet("X-defaults-repartition", "X-strings-1-repartition"), repartitionTopics(builder));
+    }
+
+    @Test
+    public void shouldShareRepartitionTopicBetweenDefaultAndSameExplicitSerdes() {
+        final Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "X");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9091");
+        props.put(StreamsConfig.DEFAULT_KEY_SERDE_CLASS_CONFIG, Serdes.String().getClass());
+        props.put(StreamsConfig.DEFAULT_VALUE_SERDE_CLASS_CONFIG, Serdes.String().getClass());
+        builder.setRepartitionOptimization(true, new StreamsConfig(props));
+        final KStream<String, String> rekeyed = builder.<String, String>stream("topic-1")
+            .selectKey(MockKeyValueMapper.<String, String>SelectValueMapper());
+        rekeyed.groupByKey().count("defaults");
+        rekeyed.groupByKey(Serdes.String(), Serdes.String()).count("strings");
+        assertEquals(Collections.singleton("X-defaults-repartition"), repartitionTopics(builder));
+    }
+
+    @Test
+    public void shouldApplyKeyPreservingOperationsAfterSharedRepartitioning() {
+        builder.setRepartitionOptimization(true);
+        final MockProcessorSupplier<String, Long> all = new MockProcessorSupplier<>();
+        final MockProcessorSupplier<String, Long> filtered = new MockProcessorSupplier<>();
+        final MockProcessorSupplier<String, Long> mapped = new MockProcessorSupplier<>();
+        final KStream<String, String> rekeyed = testStream.selectKey(MockKeyValueMapper.<String, String>SelectValueMapper());
+        rekeyed.groupByKey(stringSerde, stringSerde).count("all").toStream().process(all);
+        rekeyed.filterNot(new Predicate<String, String>() {
+            @Override
+            public boolean test(final String key, final String value) {
+                return value.equals("B");
+            }
+        }).groupByKey(stringSerde, stringSerde).count("filtered").toStream().process(filtered);
+        rekeyed.mapValues(new ValueMapper<String, Integer>() {
+            @Override
+            public Integer apply(final String value) {
+                return value.length();
+            }
+        }).groupByKey(stringSerde, intSerde).count("mapped").toStream().process(mapped);
+        assertEquals(Collections.singleton("X-all-repartition"), repartitionTopics(builder));
+
+        final KStreamTestDriver driver = new KStreamTestDriver(builder, TestUtils.tempDirectory(), 0);
+        try {
+            driver.process("source", "1", "A");
+            driver.process("source", "2", "B");
+            driver.process("source", "3", "A");
+        } finally {
+            driver.close();
+        }
+        all.checkAndClearProcessResult("A:1", "B:1", "A:2");
+        filtered.checkAndClearProcessResult("A:1", "A:2");
+        mapped.checkAndClearProcessResult("A:1", "B:1", "A:2");
+    }
+
     @Test
     public void testToWithNullValueSerdeDoesntNPE() {
         final KStreamBuilder builder = new KStreamBuilder();
@@ -312,4 +399,36 @@ public class KStreamImplTest {
                         null);
     }
 
+    private static void buildRekeyedTopology(final KStreamBuilder builder) {
+        final KStream<String, String> rekeyed = builder.<String, String>stream("topic-1")
+            .selectKey(MockKeyValueMapper.<String, String>SelectValueMapper());
+        final Predicate<String, String> notEmpty = new Predicate<String, String>() {
+            @Override
+            public boolean test(final String key, final String value) {
+                return !value.isEmpty();
+            }
+        };
+        rekeyed.groupByKey().count("count-1");
+        rekeyed.groupByKey().count("count-2");
+        rekeyed.filter(notEmpty).groupByKey().count("count-3");
+        rekeyed.mapValues(new ValueMapper<String, Integer>() {
+            @Override
+            public Integer apply(final String value) {
+                return value.length();
+            }
+        }).groupByKey(Serdes.String(), Serdes.Integer()).count("count-4");
+        // both sides are derived from the same re-keyed stream, so they are co-partitioned once it is repartitioned
+        rekeyed.join(rekeyed.filter(notEmpty), MockValueJoiner.TOSTRING_JOINER, JoinWindows.of(1));
+    }
+
+    private static Set<String> repartitionTopics(final KStreamBuilder builder) {
+        final Set<String> topics = new HashSet<>();
+        for (final String topic : builder.setApplicationId("X").build(null).sinkTopics()) {
+            if (topic.endsWith(KStreamImpl.REPARTITION_TOPIC_SUFFIX)) {
+                topics.add(topic);
+            }
+        }
+        return topics;
+    }
+
 }
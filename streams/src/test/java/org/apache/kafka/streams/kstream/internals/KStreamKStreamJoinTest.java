@@ -21,6 +21,7 @@ import org.apache.kafka.common.serialization.Serdes;
 import org.apache.kafka.streams.kstream.JoinWindows;
 import org.apache.kafka.streams.kstream.KStream;
 import org.apache.kafka.streams.kstream.KStreamBuilder;
+import org.apache.kafka.streams.processor.StateStore;
 import org.apache.kafka.streams.processor.internals.ProcessorRecordContext;
 import org.apache.kafka.test.KStreamTestDriver;
 import org.apache.kafka.test.MockProcessorContext;
@@ -39,6 +40,8 @@ import java.util.HashSet;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class KStreamKStreamJoinTest {
 
@@ -162,6 +165,54 @@ public class KStreamKStreamJoinTest {
         processor.checkAndClearProcessResult("0:X0+YYY0", "0:X0+YYY0", "0:XX0+YYY0", "1:X1+YYY1", "1:X1+YYY1", "1:XX1+YYY1");
     }
 
+    @Test
+    public void shouldNotUseInMemoryWindowsWithoutBudget() throws Exception {
+        final KStreamBuilder builder = new KStreamBuilder();
+        final KStream<Integer, String> stream1 = builder.stream(intSerde, stringSerde, topic1);
+        final KStream<Integer, String> stream2 = builder.stream(intSerde, stringSerde, topic2);
+        stream1.join(stream2, MockValueJoiner.TOSTRING_JOINER, JoinWindows.of(0).until(1), intSerde, stringSerde, stringSerde);
+
+        driver = new KStreamTestDriver(builder, stateDir);
+        for (final StateStore store : driver.allStateStores().values()) {
+            assertTrue(store.persistent());
+        }
+    }
+
+    @Test
+    public void shouldJoinWithInMemoryWindowsIfRetentionFitsBudget() throws Exception {
+        final KStreamBuilder builder = new KStreamBuilder();
+        final JoinWindows windows = JoinWindows.of(100);
+        builder.setInMemoryJoinWindowMaxRetention(windows.maintainMs());
+
+        final MockProcessorSupplier<Integer, String> processor = new MockProcessorSupplier<>();
+        final KStream<Integer, String> stream1 = builder.stream(intSerde, stringSerde, topic1);
+        final KStream<Integer, String> stream2 = builder.stream(intSerde, stringSerde, topic2);
+        stream1.join(stream2, MockValueJoiner.TOSTRING_JOINER, windows, intSerde, stringSerde, stringSerde).process(processor);
+
+        driver = new KStreamTestDriver(builder, stateDir);
+        driver.setTime(0L);
+
+        for (final StateStore store : driver.allStateStores().values()) {
+            assertFalse(store.persistent());
+        }
+
+        driver.process(topic1, 0, "X0");
+        driver.process(topic1, 1, "X1");
+        processor.checkAndClearProcessResult();
+
+        driver.process(topic2, 0, "Y0");
+        driver.process(topic2, 0, "YY0");
+        processor.checkAndClearProcessResult("0:X0+Y0", "0:X0+YY0");
+
+        driver.process(topic1, 0, "XX0");
+        processor.checkAndClearProcessResult("0:XX0+Y0", "0:XX0+YY0");
+
+        // the records of the other stream are out of the join window
+        driver.setTime(101L);
+        driver.process(topic1, 0, "XXX0");
+        processor.checkAndClearProcessResult();
+    }
+
     @Test
     public void testOuterJoin() throws Exception {
         KStreamBuilder builder = new KStreamBuilder();
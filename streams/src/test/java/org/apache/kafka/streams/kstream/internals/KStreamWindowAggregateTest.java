@@ -19,12 +19,15 @@ package org.apache.kafka.streams.kstream.internals;
 import org.apache.kafka.common.serialization.Serde;
 import org.apache.kafka.common.serialization.Serdes;
 import org.apache.kafka.common.utils.Utils;
+import org.apache.kafka.streams.kstream.JoinWindows;
 import org.apache.kafka.streams.kstream.KStream;
 import org.apache.kafka.streams.kstream.KStreamBuilder;
 import org.apache.kafka.streams.kstream.KTable;
 import org.apache.kafka.streams.kstream.TimeWindows;
+import org.apache.kafka.streams.kstream.UnlimitedWindows;
 import org.apache.kafka.streams.kstream.ValueJoiner;
 import org.apache.kafka.streams.kstream.Windowed;
+import org.apache.kafka.streams.processor.internals.ProcessorNode;
 import org.apache.kafka.streams.processor.internals.ProcessorRecordContext;
 import org.apache.kafka.test.KStreamTestDriver;
 import org.apache.kafka.test.MockAggregator;
@@ -38,6 +41,8 @@ import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 
 import static org.junit.Assert.assertEquals;
 
@@ -150,6 +155,121 @@ public class KStreamWindowAggregateTest {
                 "[C@5]:0+3+3", "[C@10]:0+3"), proc2.processed);
     }
 
+    @Test
+    public void shouldOnlyEmitFinalResultsOfWindowsAfterGracePeriod() throws Exception {
+        final KStreamBuilder builder = new KStreamBuilder();
+        final String topic1 = "topic1";
+
+        final KTable<Windowed<String>, String> table = builder.stream(strSerde, strSerde, topic1)
+            .groupByKey(strSerde, strSerde)
+            .aggregate(MockInitializer.STRING_INIT,
+                       MockAggregator.TOSTRING_ADDER,
+                       TimeWindows.of(10).emitFinalResults(5),
+                       strSerde, "topic1-Canonized");
+
+        final MockProcessorSupplier<Windowed<String>, String> proc = new MockProcessorSupplier<>();
+        table.toStream().process(proc);
+
+        driver = new KStreamTestDriver(builder, stateDir);
+
+        setRecordContext(0, topic1);
+        driver.process(topic1, "A", "1");
+        setRecordContext(3, topic1);
+        driver.process(topic1, "A", "1");
+        setRecordContext(4, topic1);
+        driver.process(topic1, "B", "2");
+        driver.flushState();
+        // the first windows are still within their grace period
+        setRecordContext(12, topic1);
+        driver.process(topic1, "A", "1");
+        driver.flushState();
+        proc.checkAndClearProcessResult();
+
+        setRecordContext(15, topic1);
+        driver.process(topic1, "B", "2");
+        proc.checkAndClearProcessResult("[A@0]:0+1+1", "[B@0]:0+2");
+
+        // too late for the closed window
+        setRecordContext(8, topic1);
+        driver.process(topic1, "A", "1");
+        driver.flushState();
+        proc.checkAndClearProcessResult();
+
+        setRecordContext(26, topic1);
+        driver.process(topic1, "C", "3");
+        proc.checkAndClearProcessResult("[A@10]:0+1", "[B@10]:0+2");
+    }
+
+    @Test
+    public void shouldEmitEveryUpdateOfWindowsOtherThanTimeWindows() throws Exception {
+        assertEquals(-1L, WindowFinalResultBuffer.finalResultsGraceMs(JoinWindows.of(10)));
+        assertEquals(-1L, WindowFinalResultBuffer.finalResultsGraceMs(UnlimitedWindows.of()));
+
+        final KStreamBuilder builder = new KStreamBuilder();
+        final String topic1 = "topic1";
+
+        final KTable<Windowed<String>, String> table = builder.stream(strSerde, strSerde, topic1)
+            .groupByKey(strSerde, strSerde)
+            .aggregate(MockInitializer.STRING_INIT,
+                       MockAggregator.TOSTRING_ADDER,
+                       UnlimitedWindows.of(),
+                       strSerde, "topic1-Canonized");
+
+        final MockProcessorSupplier<Windowed<String>, String> proc = new MockProcessorSupplier<>();
+        table.toStream().process(proc);
+
+        driver = new KStreamTestDriver(builder, stateDir);
+        assertEquals(Collections.singletonList("topic1-Canonized"), new ArrayList<>(builder.build(null).storeToChangelogTopic().keySet()));
+
+        setRecordContext(0, topic1);
+        driver.process(topic1, "A", "1");
+        driver.flushState();
+        setRecordContext(5, topic1);
+        driver.process(topic1, "A", "1");
+        driver.flushState();
+        proc.checkAndClearProcessResult("[A@0]:0+1", "[A@0]:0+1+1");
+    }
+
+    @Test
+    public void shouldNotEmitClosedWindowsAgainAfterRestoringBuffer() throws Exception {
+        final KStreamBuilder builder = new KStreamBuilder();
+        final String topic1 = "topic1";
+
+        final KTable<Windowed<String>, String> table = builder.stream(strSerde, strSerde, topic1)
+            .groupByKey(strSerde, strSerde)
+            .aggregate(MockInitializer.STRING_INIT,
+                       MockAggregator.TOSTRING_ADDER,
+                       TimeWindows.of(10).emitFinalResults(5),
+                       strSerde, "topic1-Canonized");
+
+        final MockProcessorSupplier<Windowed<String>, String> proc = new MockProcessorSupplier<>();
+        table.toStream().process(proc);
+
+        driver = new KStreamTestDriver(builder, stateDir);
+
+        setRecordContext(0, topic1);
+        driver.process(topic1, "A", "1");
+        setRecordContext(15, topic1);
+        driver.process(topic1, "B", "2");
+        proc.checkAndClearProcessResult("[A@0]:0+1");
+
+        // initialize the aggregation again on top of its stores, as after restoring them
+        for (final String name : driver.allProcessorNames()) {
+            if (name.startsWith("KSTREAM-AGGREGATE-")) {
+                final ProcessorNode node = driver.processor(name);
+                node.close();
+                node.init(driver.context());
+            }
+        }
+
+        // the window was closed and emitted before the aggregation was initialized again
+        setRecordContext(8, topic1);
+        driver.process(topic1, "A", "1");
+        setRecordContext(26, topic1);
+        driver.process(topic1, "C", "3");
+        proc.checkAndClearProcessResult("[B@10]:0+2");
+    }
+
     private void setRecordContext(final long time, final String topic) {
         ((MockProcessorContext) driver.context()).setRecordContext(new ProcessorRecordContext(time, 0, 0, topic));
     }
@@ -27,6 +27,7 @@ import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.errors.LockException;
 import org.apache.kafka.streams.errors.ProcessorStateException;
 import org.apache.kafka.streams.errors.StreamsException;
+import org.apache.kafka.streams.processor.BatchingStateRestoreCallback;
 import org.apache.kafka.streams.processor.StateRestoreCallback;
 import org.apache.kafka.streams.processor.StateStore;
 import org.apache.kafka.streams.state.internals.OffsetCheckpoint;
@@ -43,6 +44,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -427,6 +429,46 @@ public class GlobalStateManagerImplTest {
     }
 
 
+    @Test
+    public void shouldRestoreAllPartitionsOfStoreInBatchesIfCallbackSupportsIt() throws Exception {
+        final TopicPartition t1p0 = new TopicPartition(t1.topic(), 0);
+        consumer.updatePartitions(t1.topic(), Arrays.asList(
+            new PartitionInfo(t1.topic(), t1p0.partition(), null, null, null),
+            new PartitionInfo(t1.topic(), t1.partition(), null, null, null)));
+        consumer.assign(Arrays.asList(t1p0, t1));
+        final HashMap<TopicPartition, Long> startOffsets = new HashMap<>();
+        startOffsets.put(t1p0, 0L);
+        startOffsets.put(t1, 0L);
+        final HashMap<TopicPartition, Long> endOffsets = new HashMap<>();
+        endOffsets.put(t1p0, 2L);
+        endOffsets.put(t1, 1L);
+        consumer.updateBeginningOffsets(startOffsets);
+        consumer.updateEndOffsets(endOffsets);
+        consumer.addRecord(new ConsumerRecord<>(t1p0.topic(), t1p0.partition(), 0, "a".getBytes(), "1".getBytes()));
+        consumer.addRecord(new ConsumerRecord<>(t1p0.topic(), t1p0.partition(), 1, "b".getBytes(), "2".getBytes()));
+        consumer.addRecord(new ConsumerRecord<>(t1.topic(), t1.partition(), 0, "c".getBytes(), "3".getBytes()));
+
+        stateManager.initialize(context);
+        final List<Collection<KeyValue<byte[], byte[]>>> batches = new ArrayList<>();
+        stateManager.register(store1, false, new BatchingStateRestoreCallback() {
+            @Override
+            public void restoreAll(final Collection<KeyValue<byte[], byte[]>> records) {
+                batches.add(records);
+            }
+
+            @Override
+            public void restore(final byte[] key, final byte[] value) {
+                fail("should have restored the records in a batch");
+            }
+        });
+
+        assertEquals(1, batches.size());
+        assertEquals(3, batches.get(0).size());
+        assertThat(stateManager.checkpointed().get(t1p0), equalTo(2L));
+        assertThat(stateManager.checkpointed().get(t1), equalTo(1L));
+    }
+
+
     private Map<TopicPartition, Long> readOffsetsCheckpoint() throws IOException {
         final OffsetCheckpoint offsetCheckpoint = new OffsetCheckpoint(new File(stateManager.baseDir(),
                                                                                 ProcessorStateManager.CHECKPOINT_FILE_NAME));
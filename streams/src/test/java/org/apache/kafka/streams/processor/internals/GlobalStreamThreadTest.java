@@ -16,6 +16,7 @@
  */
 package org.apache.kafka.streams.processor.internals;
 
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.MockConsumer;
 import org.apache.kafka.clients.consumer.OffsetResetStrategy;
 import org.apache.kafka.common.Node;
@@ -27,6 +28,8 @@ import org.apache.kafka.streams.StreamsConfig;
 import org.apache.kafka.streams.errors.StreamsException;
 import org.apache.kafka.streams.kstream.KStreamBuilder;
 import org.apache.kafka.streams.processor.StateStore;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.test.TestCondition;
 import org.apache.kafka.test.TestUtils;
 import org.junit.Before;
 import org.junit.Test;
@@ -34,10 +37,14 @@ import org.junit.Test;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -132,6 +139,44 @@ public class GlobalStreamThreadTest {
         assertFalse(globalStore.isOpen());
     }
 
+    @Test(timeout = 30000)
+    public void shouldUpdateStoreWithRecordsProducedAfterStartup() throws Exception {
+        initializeConsumer();
+        globalStreamThread.start();
+
+        final TopicPartition topicPartition = new TopicPartition("foo", 0);
+        final byte[] key = "key".getBytes();
+        mockConsumer.schedulePollTask(new Runnable() {
+            @Override
+            public void run() {
+                mockConsumer.addRecord(new ConsumerRecord<>("foo", 0, 0L, key, "value".getBytes()));
+            }
+        });
+        // poll tasks run on the global stream thread, after the records of the previous poll were processed
+        final AtomicReference<Object> value = new AtomicReference<>();
+        final AtomicBoolean read = new AtomicBoolean();
+        mockConsumer.schedulePollTask(new Runnable() {
+            @SuppressWarnings("unchecked")
+            @Override
+            public void run() {
+                value.set(((KeyValueStore<byte[], byte[]>) builder.globalStateStores().get("bar")).get(key));
+                read.set(true);
+            }
+        });
+        TestUtils.waitForCondition(new TestCondition() {
+            @Override
+            public boolean conditionMet() {
+                return read.get();
+            }
+        }, "Global store was not read");
+
+        assertTrue(mockConsumer.paused().isEmpty());
+        assertEquals(1L, mockConsumer.position(topicPartition));
+        assertArrayEquals("value".getBytes(), (byte[]) value.get());
+        globalStreamThread.close();
+        globalStreamThread.join();
+    }
+
     private void initializeConsumer() {
         mockConsumer.updatePartitions("foo", Collections.singletonList(new PartitionInfo("foo",
                                                                                          0,
@@ -16,8 +16,13 @@
  */
 package org.apache.kafka.streams.processor.internals;
 
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.metrics.MetricConfig;
 import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.common.metrics.Sensor;
 import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.common.utils.MockTime;
+import org.apache.kafka.streams.StreamsMetrics;
 import org.apache.kafka.streams.errors.StreamsException;
 import org.apache.kafka.streams.processor.Processor;
 import org.apache.kafka.streams.processor.ProcessorContext;
@@ -28,7 +33,9 @@ import org.junit.Test;
 import java.util.Collections;
 import java.util.Map;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 public class ProcessorNodeTest {
 
@@ -128,4 +135,49 @@ public class ProcessorNodeTest {
         context.close();
     }
 
-}
\ No newline at end of file
+    @SuppressWarnings("unchecked")
+    @Test
+    public void shouldCountAllOperationsInRateIfLatencyIsSampled() {
+        final Metrics metrics = new Metrics(new MetricConfig().recordLevel(Sensor.RecordingLevel.DEBUG), new MockTime());
+        final StreamsMetricsImpl streamsMetrics = new StreamsMetricsImpl(metrics, "test", Collections.<String, String>emptyMap(), 3);
+        final StateSerdes anyStateSerde = StateSerdes.withBuiltinTypes("anyName", Bytes.class, Bytes.class);
+        final MockProcessorContext context = new MockProcessorContext(anyStateSerde, new RecordCollectorImpl(null, null)) {
+            @Override
+            public StreamsMetrics metrics() {
+                return streamsMetrics;
+            }
+        };
+        final ProcessorNode node = new ProcessorNode("name", new NoOpProcessor(), Collections.emptySet());
+        node.init(context);
+
+        final String groupName = "stream-processor-node-metrics";
+        final Map<String, String> tags = Collections.singletonMap("processor-node-id", node.name());
+        final String entity = "task." + context.taskId() + "." + node.name();
+        final MetricName processRate = metrics.metricName(entity + "-process-rate", groupName, "", tags);
+        final MetricName allProcessRate = metrics.metricName("all-process-rate", groupName, "", tags);
+        assertNotNull(metrics.metrics().get(metrics.metricName(entity + "-process-latency-avg", groupName, "", tags)));
+        assertNotNull(metrics.metrics().get(metrics.metricName(entity + "-process-latency-max", groupName, "", tags)));
+
+        for (int i = 0; i < 7; i++) {
+            node.process(null, null);
+        }
+        // the operations are recorded with every third latency measurement, over the default window of 30 seconds
+        assertEquals(6 / 30.0, metrics.metrics().get(processRate).value(), 0.0);
+        assertEquals(6 / 30.0, metrics.metrics().get(allProcessRate).value(), 0.0);
+
+        node.process(null, null);
+        node.process(null, null);
+        assertEquals(9 / 30.0, metrics.metrics().get(processRate).value(), 0.0);
+
+        // the operations since the last measured latency can be recorded without waiting for the next measurement
+        node.process(null, null);
+        node.recordSampledOperations();
+        assertEquals(10 / 30.0, metrics.metrics().get(processRate).value(), 0.0);
+        assertEquals(10 / 30.0, metrics.metrics().get(allProcessRate).value(), 0.0);
+
+        node.close();
+        assertNull(metrics.metrics().get(processRate));
+        metrics.close();
+    }
+
+}
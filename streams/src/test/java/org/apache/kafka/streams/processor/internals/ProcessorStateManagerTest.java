@@ -27,6 +27,7 @@ import org.apache.kafka.streams.processor.TaskId;
 import org.apache.kafka.streams.state.internals.OffsetCheckpoint;
 import org.apache.kafka.test.MockChangelogReader;
 import org.apache.kafka.test.MockStateStoreSupplier;
+import org.apache.kafka.test.TestCondition;
 import org.apache.kafka.test.TestUtils;
 import org.junit.After;
 import org.junit.Before;
@@ -45,6 +46,7 @@ import java.util.Set;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -269,6 +271,194 @@ public class ProcessorStateManagerTest {
         assertThat(read, equalTo(Collections.singletonMap(persistentStorePartition, 11L)));
     }
 
+    @Test
+    public void shouldSnapshotStoresOnCheckpointOnceSnapshotIntervalHasElapsed() throws Exception {
+        final MockTime time = new MockTime();
+        final File snapshotBaseDir = TestUtils.tempDirectory();
+        final StateDirectory stateDirectory = new StateDirectory(applicationId, "", baseDir.getPath(), snapshotBaseDir.getPath(), 100L, time);
+        final ProcessorStateManager stateMgr = new ProcessorStateManager(taskId,
+                                                                         noPartitions,
+                                                                         false,
+                                                                         stateDirectory,
+                                                                         Collections.singletonMap(persistentStore.name(),
+                                                                                                  persistentStoreTopicName),
+                                                                         changelogReader);
+        final MockSnapshotCallback snapshotCallback = new MockSnapshotCallback();
+        stateMgr.register(persistentStore, true, snapshotCallback);
+
+        final File storeSnapshotDir = new File(stateDirectory.snapshotDirectoryForTask(taskId), persistentStoreName);
+        stateMgr.checkpoint(Collections.singletonMap(persistentStorePartition, 10L));
+        assertFalse(storeSnapshotDir.exists());
+
+        time.sleep(100L);
+        stateMgr.checkpoint(Collections.singletonMap(persistentStorePartition, 20L));
+        assertEquals(1, snapshotCallback.snapshots);
+        waitForStagedSnapshotsToBeWritten();
+        assertTrue(new File(storeSnapshotDir, ProcessorStateManager.SNAPSHOT_DATA_DIR_NAME).exists());
+        assertThat(new OffsetCheckpoint(new File(storeSnapshotDir, ProcessorStateManager.CHECKPOINT_FILE_NAME)).read(),
+                   equalTo(Collections.singletonMap(persistentStorePartition, 21L)));
+
+        // the store has not changed since its snapshot
+        time.sleep(100L);
+        stateMgr.checkpoint(Collections.singletonMap(persistentStorePartition, 20L));
+        assertEquals(1, snapshotCallback.snapshots);
+        stateMgr.close(null);
+        stateDirectory.close();
+    }
+
+    @Test
+    public void shouldNotReplaceSnapshotWrittenAtNewerOffset() throws Exception {
+        final MockTime time = new MockTime();
+        final File snapshotBaseDir = TestUtils.tempDirectory();
+        final StateDirectory stateDirectory = new StateDirectory(applicationId, "", baseDir.getPath(), snapshotBaseDir.getPath(), 100L, time);
+        final ProcessorStateManager stateMgr = new ProcessorStateManager(taskId,
+                                                                         noPartitions,
+                                                                         false,
+                                                                         stateDirectory,
+                                                                         Collections.singletonMap(persistentStore.name(),
+                                                                                                  persistentStoreTopicName),
+                                                                         changelogReader);
+        final MockSnapshotCallback snapshotCallback = new MockSnapshotCallback();
+        stateMgr.register(persistentStore, true, snapshotCallback);
+
+        // another instance wrote a newer snapshot to the shared snapshot directory
+        writeSnapshot(stateDirectory, 30L);
+        time.sleep(100L);
+        stateMgr.checkpoint(Collections.singletonMap(persistentStorePartition, 20L));
+        assertEquals(1, snapshotCallback.snapshots);
+        waitForStagedSnapshotsToBeWritten();
+
+        final File storeSnapshotDir = new File(stateDirectory.snapshotDirectoryForTask(taskId), persistentStoreName);
+        assertThat(new OffsetCheckpoint(new File(storeSnapshotDir, ProcessorStateManager.CHECKPOINT_FILE_NAME)).read(),
+                   equalTo(Collections.singletonMap(persistentStorePartition, 30L)));
+        assertEquals(1, storeSnapshotDir.getParentFile().list().length);
+        stateMgr.close(null);
+        stateDirectory.close();
+    }
+
+    @Test
+    public void shouldNotSnapshotStoresOfStandbyTasks() throws Exception {
+        final MockTime time = new MockTime();
+        final File snapshotBaseDir = TestUtils.tempDirectory();
+        final StateDirectory stateDirectory = new StateDirectory(applicationId, "", baseDir.getPath(), snapshotBaseDir.getPath(), 100L, time);
+        final ProcessorStateManager stateMgr = new ProcessorStateManager(taskId,
+                                                                         noPartitions,
+                                                                         true,
+                                                                         stateDirectory,
+                                                                         Collections.singletonMap(persistentStore.name(),
+                                                                                                  persistentStoreTopicName),
+                                                                         changelogReader);
+        final MockSnapshotCallback snapshotCallback = new MockSnapshotCallback();
+        stateMgr.register(persistentStore, true, snapshotCallback);
+
+        time.sleep(100L);
+        stateMgr.checkpoint(Collections.singletonMap(persistentStorePartition, 20L));
+        assertEquals(0, snapshotCallback.snapshots);
+        stateMgr.close(null);
+    }
+
+    @Test
+    public void shouldDeleteSnapshotsStagedByPreviousOwnerOfTask() throws Exception {
+        final File stagingDir = new File(stateDirectory.directoryForTask(taskId), ProcessorStateManager.SNAPSHOT_STAGING_DIR_PREFIX + "abandoned");
+        assertTrue(new File(stagingDir, persistentStoreName).mkdirs());
+
+        final ProcessorStateManager stateMgr = new ProcessorStateManager(taskId,
+                                                                         noPartitions,
+                                                                         false,
+                                                                         stateDirectory,
+                                                                         Collections.<String, String>emptyMap(),
+                                                                         changelogReader);
+        assertFalse(stagingDir.exists());
+        stateMgr.close(null);
+    }
+
+    @Test
+    public void shouldRestoreStoreFromSnapshotIfNewerThanLocalCheckpoint() throws Exception {
+        checkpoint.write(Collections.singletonMap(persistentStorePartition, 5L));
+        final File snapshotBaseDir = TestUtils.tempDirectory();
+        final StateDirectory stateDirectory = new StateDirectory(applicationId, "", baseDir.getPath(), snapshotBaseDir.getPath(), 100L, new MockTime());
+        writeSnapshot(stateDirectory, 11L);
+
+        final ProcessorStateManager stateMgr = new ProcessorStateManager(taskId,
+                                                                         noPartitions,
+                                                                         false,
+                                                                         stateDirectory,
+                                                                         Collections.singletonMap(persistentStore.name(),
+                                                                                                  persistentStoreTopicName),
+                                                                         changelogReader);
+        final MockSnapshotCallback snapshotCallback = new MockSnapshotCallback();
+        stateMgr.register(persistentStore, true, snapshotCallback);
+        stateMgr.close(Collections.<TopicPartition, Long>emptyMap());
+
+        assertEquals(1, snapshotCallback.restoredSnapshots);
+        assertThat(checkpoint.read(), equalTo(Collections.singletonMap(persistentStorePartition, 11L)));
+    }
+
+    @Test
+    public void shouldNotRestoreStoreFromSnapshotIfOlderThanLocalCheckpoint() throws Exception {
+        checkpoint.write(Collections.singletonMap(persistentStorePartition, 20L));
+        final File snapshotBaseDir = TestUtils.tempDirectory();
+        final StateDirectory stateDirectory = new StateDirectory(applicationId, "", baseDir.getPath(), snapshotBaseDir.getPath(), 100L, new MockTime());
+        writeSnapshot(stateDirectory, 11L);
+
+        final ProcessorStateManager stateMgr = new ProcessorStateManager(taskId,
+                                                                         noPartitions,
+                                                                         false,
+                                                                         stateDirectory,
+                                                                         Collections.singletonMap(persistentStore.name(),
+                                                                                                  persistentStoreTopicName),
+                                                                         changelogReader);
+        final MockSnapshotCallback snapshotCallback = new MockSnapshotCallback();
+        stateMgr.register(persistentStore, true, snapshotCallback);
+        stateMgr.close(Collections.<TopicPartition, Long>emptyMap());
+
+        assertEquals(0, snapshotCallback.restoredSnapshots);
+        assertThat(checkpoint.read(), equalTo(Collections.singletonMap(persistentStorePartition, 20L)));
+    }
+
+    private void waitForStagedSnapshotsToBeWritten() throws InterruptedException {
+        final File taskDir = stateDirectory.directoryForTask(taskId);
+        TestUtils.waitForCondition(new TestCondition() {
+            @Override
+            public boolean conditionMet() {
+                for (final String name : taskDir.list()) {
+                    if (name.startsWith(ProcessorStateManager.SNAPSHOT_STAGING_DIR_PREFIX)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }, "staged snapshots were not written");
+    }
+
+    private void writeSnapshot(final StateDirectory stateDirectory, final long offset) throws IOException {
+        final File storeSnapshotDir = new File(stateDirectory.snapshotDirectoryForTask(taskId), persistentStoreName);
+        assertTrue(new File(storeSnapshotDir, ProcessorStateManager.SNAPSHOT_DATA_DIR_NAME).mkdirs());
+        new OffsetCheckpoint(new File(storeSnapshotDir, ProcessorStateManager.CHECKPOINT_FILE_NAME))
+            .write(Collections.singletonMap(persistentStorePartition, offset));
+    }
+
+    private static class MockSnapshotCallback implements StateSnapshotCallback {
+        private int snapshots = 0;
+        private int restoredSnapshots = 0;
+
+        @Override
+        public void restore(final byte[] key, final byte[] value) {
+        }
+
+        @Override
+        public void snapshot(final File snapshotDir) {
+            assertTrue(snapshotDir.mkdir());
+            snapshots++;
+        }
+
+        @Override
+        public void restoreSnapshot(final File snapshotDir) {
+            assertTrue(snapshotDir.exists());
+            restoredSnapshots++;
+        }
+    }
+
     @Test
     public void shouldWriteCheckpointForStandbyReplica() throws Exception {
         final ProcessorStateManager stateMgr = new ProcessorStateManager(taskId,
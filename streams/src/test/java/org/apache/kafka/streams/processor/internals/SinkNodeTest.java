@@ -17,6 +17,7 @@
 package org.apache.kafka.streams.processor.internals;
 
 import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.Deserializer;
 import org.apache.kafka.common.serialization.Serdes;
 import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.utils.Bytes;
@@ -27,16 +28,21 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Collections;
+
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 
 public class SinkNodeTest {
     private final Serializer anySerializer = Serdes.Bytes().serializer();
     private final StateSerdes anyStateSerde = StateSerdes.withBuiltinTypes("anyName", Bytes.class, Bytes.class);
+    private final MockProducer<byte[], byte[]> producer = new MockProducer<>(true, anySerializer, anySerializer);
     private final MockProcessorContext context = new MockProcessorContext(anyStateSerde,
-        new RecordCollectorImpl(new MockProducer<byte[], byte[]>(true, anySerializer, anySerializer), null));
+        new RecordCollectorImpl(producer, null));
     private final SinkNode sink = new SinkNode<>("anyNodeName", "any-output-topic", anySerializer, anySerializer, null);
 
     @Before
@@ -65,6 +71,60 @@ public class SinkNodeTest {
         }
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldReuseRawBytesOfUntouchedSourceKeyAndValue() {
+        final Bytes key = new Bytes("key".getBytes());
+        final Bytes value = new Bytes("value".getBytes());
+        final byte[] rawKey = "key".getBytes();
+        final byte[] rawValue = "value".getBytes();
+        final Deserializer<Bytes> deserializer = Serdes.Bytes().deserializer();
+        context.setRecordContext(new ProcessorRecordContext(0, 0, 0, "source",
+            new DeserializedRecord(key, value, rawKey, rawValue, deserializer, deserializer)));
+
+        sink.process(key, value);
+        assertSame(rawKey, producer.history().get(0).key());
+        assertSame(rawValue, producer.history().get(0).value());
+
+        // a new value object is serialized
+        final Bytes newValue = new Bytes("value".getBytes());
+        sink.process(key, newValue);
+        assertSame(rawKey, producer.history().get(1).key());
+        assertSame(newValue.get(), producer.history().get(1).value());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldNotReuseRawBytesReadByStringDeserializerWithDifferentEncoding() throws Exception {
+        final Deserializer<String> deserializer = Serdes.String().deserializer();
+        deserializer.configure(Collections.singletonMap("key.deserializer.encoding", "UTF-16"), true);
+        final Serializer<String> serializer = Serdes.String().serializer();
+        serializer.configure(Collections.singletonMap("key.serializer.encoding", "UTF-8"), true);
+        final SinkNode<String, byte[]> stringSink =
+            new SinkNode<>("stringNodeName", "any-output-topic", serializer, anySerializer, null);
+        stringSink.init(context);
+
+        final byte[] rawKey = "key".getBytes("UTF-16");
+        final String key = deserializer.deserialize("any-input-topic", rawKey);
+        context.setRecordContext(new ProcessorRecordContext(0, 0, 0, "source",
+            new DeserializedRecord(key, null, rawKey, null, deserializer, null)));
+
+        stringSink.process(key, null);
+        assertArrayEquals("key".getBytes("UTF-8"), producer.history().get(0).key());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldNotReuseRawBytesReadByDifferentDeserializer() {
+        final Bytes key = new Bytes("key".getBytes());
+        final byte[] rawKey = "key".getBytes();
+        context.setRecordContext(new ProcessorRecordContext(0, 0, 0, "source",
+            new DeserializedRecord(key, null, rawKey, null, Serdes.String().deserializer(), null)));
+
+        sink.process(key, null);
+        assertSame(key.get(), producer.history().get(0).key());
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     public void shouldThrowStreamsExceptionOnKeyValueTypeSerializerMismatch() {
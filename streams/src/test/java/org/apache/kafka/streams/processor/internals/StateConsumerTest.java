@@ -159,6 +159,9 @@ public class StateConsumerTest {
             updatedPartitions.put(tp, updatedPartitions.get(tp) + 1);
         }
 
+        @Override
+        public void recordSampledOperations() {}
+
     }
 
 }
\ No newline at end of file
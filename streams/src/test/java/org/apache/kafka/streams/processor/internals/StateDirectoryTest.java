@@ -205,6 +205,47 @@ public class StateDirectoryTest {
         assertFalse(dir.exists());
     }
 
+    @Test
+    public void shouldCleanupSnapshotsOfTasksThatHaveNotBeenWrittenForCleanupDelayAndSnapshotInterval() throws Exception {
+        final File snapshotBaseDir = TestUtils.tempDirectory();
+        final StateDirectory stateDirectory = new StateDirectory(applicationId, "", stateDir.getPath(), snapshotBaseDir.getPath(), 30000L, time);
+        final TaskId ownedTask = new TaskId(0, 0);
+        final File ownedSnapshotDir = stateDirectory.snapshotDirectoryForTask(ownedTask);
+        final File removedSnapshotDir = stateDirectory.snapshotDirectoryForTask(new TaskId(1, 0));
+        final File recentSnapshotDir = stateDirectory.snapshotDirectoryForTask(new TaskId(2, 0));
+        final File abandonedTempDir = new File(recentSnapshotDir, "store-0" + StateDirectory.SNAPSHOT_TEMP_DIR_SUFFIX);
+        assertTrue(abandonedTempDir.mkdir());
+
+        final int cleanupDelayMs = 60000;
+        time.sleep(cleanupDelayMs + 30000L + 1000);
+        assertTrue(recentSnapshotDir.setLastModified(time.milliseconds()));
+        try {
+            stateDirectory.lock(ownedTask, 0);
+            stateDirectory.cleanRemovedTasks(cleanupDelayMs);
+            assertTrue(ownedSnapshotDir.exists());
+            assertFalse(removedSnapshotDir.exists());
+            assertTrue(recentSnapshotDir.exists());
+            assertFalse(abandonedTempDir.exists());
+        } finally {
+            stateDirectory.unlock(ownedTask);
+            Utils.delete(snapshotBaseDir);
+        }
+    }
+
+    @Test
+    public void shouldDeleteAllSnapshotsOfApplication() throws Exception {
+        final File snapshotBaseDir = TestUtils.tempDirectory();
+        final StateDirectory stateDirectory = new StateDirectory(applicationId, "", stateDir.getPath(), snapshotBaseDir.getPath(), 30000L, time);
+        stateDirectory.snapshotDirectoryForTask(new TaskId(0, 0));
+        final File otherApplicationDir = new File(snapshotBaseDir, "otherApplicationId");
+        assertTrue(otherApplicationDir.mkdir());
+
+        stateDirectory.cleanSnapshots();
+        assertFalse(new File(snapshotBaseDir, applicationId).exists());
+        assertTrue(otherApplicationDir.exists());
+        Utils.delete(snapshotBaseDir);
+    }
+
     @Test
     public void shouldNotRemoveNonTaskDirectoriesAndFiles() throws Exception {
         final File otherDir = TestUtils.tempDirectory(stateDir.toPath(), "foo");
@@ -279,6 +279,32 @@ public class StreamTaskTest {
         assertEquals(0, consumer.paused().size());
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void shouldOnlyResumeDrainedPartitionsWhenAskedIfResumeIsDeferred() throws Exception {
+        task.deferResume(true);
+        task.addRecords(partition1, records(
+                new ConsumerRecord<>(partition1.topic(), partition1.partition(), 10, 0L, TimestampType.CREATE_TIME, 0L, 0, 0, recordKey, recordValue)
+        ));
+        task.addRecords(partition2, records(
+                new ConsumerRecord<>(partition2.topic(), partition2.partition(), 35, 0L, TimestampType.CREATE_TIME, 0L, 0, 0, recordKey, recordValue),
+                new ConsumerRecord<>(partition2.topic(), partition2.partition(), 45, 0L, TimestampType.CREATE_TIME, 0L, 0, 0, recordKey, recordValue),
+                new ConsumerRecord<>(partition2.topic(), partition2.partition(), 55, 0L, TimestampType.CREATE_TIME, 0L, 0, 0, recordKey, recordValue),
+                new ConsumerRecord<>(partition2.topic(), partition2.partition(), 65, 0L, TimestampType.CREATE_TIME, 0L, 0, 0, recordKey, recordValue)
+        ));
+        assertEquals(Collections.singleton(partition2), consumer.paused());
+
+        assertTrue(task.process());
+        assertTrue(task.process());
+        assertEquals(1, source1.numReceived);
+        assertEquals(1, source2.numReceived);
+
+        // the buffer of partition2 has been drained to the threshold, but it is resumed by the owner of the consumer only
+        assertEquals(Collections.singleton(partition2), consumer.paused());
+        task.resumeDrainedPartitions();
+        assertEquals(0, consumer.paused().size());
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void testMaybePunctuate() throws Exception {
@@ -17,8 +17,10 @@
 package org.apache.kafka.streams.processor.internals;
 
 import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
 import org.apache.kafka.clients.consumer.internals.PartitionAssignor;
 import org.apache.kafka.clients.producer.MockProducer;
 import org.apache.kafka.clients.producer.Producer;
@@ -33,6 +35,9 @@ import org.apache.kafka.common.utils.Utils;
 import org.apache.kafka.streams.StreamsConfig;
 import org.apache.kafka.streams.StreamsMetrics;
 import org.apache.kafka.streams.kstream.KStreamBuilder;
+import org.apache.kafka.streams.processor.AbstractProcessor;
+import org.apache.kafka.streams.processor.Processor;
+import org.apache.kafka.streams.processor.ProcessorSupplier;
 import org.apache.kafka.streams.processor.TaskId;
 import org.apache.kafka.streams.processor.TopologyBuilder;
 import org.apache.kafka.streams.state.Stores;
@@ -41,6 +46,7 @@ import org.apache.kafka.test.MockInternalTopicManager;
 import org.apache.kafka.test.MockProcessorSupplier;
 import org.apache.kafka.test.MockStateStoreSupplier;
 import org.apache.kafka.test.MockTimestampExtractor;
+import org.apache.kafka.test.TestCondition;
 import org.apache.kafka.test.TestUtils;
 import org.junit.Assert;
 import org.junit.Before;
@@ -50,6 +56,7 @@ import java.io.File;
 import java.lang.reflect.Field;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -61,11 +68,17 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
 
 import static java.util.Collections.EMPTY_SET;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.startsWith;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -1231,6 +1244,213 @@ public class StreamThreadTest {
     }
 
 
+    @Test
+    public void shouldProcessRecordsOnTaskWorkers() throws Exception {
+        final List<String> processedBy = Collections.synchronizedList(new ArrayList<String>());
+        final TopologyBuilder builder = topologyWithProcessor(new AbstractProcessor<byte[], byte[]>() {
+            @Override
+            public void process(final byte[] key, final byte[] value) {
+                processedBy.add(Thread.currentThread().getName());
+            }
+        });
+        final MockClientSupplier clientSupplier = new MockClientSupplier();
+        final StreamThread thread = startThreadWithTaskWorkers(builder, clientSupplier, clientSupplier.consumer, 2, 2);
+
+        TestUtils.waitForCondition(new TestCondition() {
+            @Override
+            public boolean conditionMet() {
+                return processedBy.size() == 4;
+            }
+        }, "Expected all the records to be processed");
+        for (final String name : processedBy) {
+            assertThat(name, startsWith(thread.getName() + "-Worker-"));
+        }
+
+        thread.close();
+        thread.join(30000);
+        assertFalse(thread.isAlive());
+        TestUtils.waitForCondition(new TestCondition() {
+            @Override
+            public boolean conditionMet() {
+                return liveThreadNamesStartingWith(thread.getName() + "-Worker-").isEmpty();
+            }
+        }, "Expected the task workers to be shut down");
+    }
+
+    @Test
+    public void shouldRethrowExceptionOfTaskWorkerOnStreamThread() throws Exception {
+        final TopologyBuilder builder = topologyWithProcessor(new AbstractProcessor<byte[], byte[]>() {
+            @Override
+            public void process(final byte[] key, final byte[] value) {
+                throw new IllegalStateException("KABOOM!");
+            }
+        });
+        final MockClientSupplier clientSupplier = new MockClientSupplier();
+        final AtomicReference<Throwable> uncaught = new AtomicReference<>();
+        final StreamThread thread = createThreadWithTaskWorkers(builder, clientSupplier);
+        thread.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+            @Override
+            public void uncaughtException(final Thread t, final Throwable e) {
+                uncaught.set(e);
+            }
+        });
+        startWithRecords(thread, clientSupplier.consumer, 2, 1);
+
+        thread.join(30000);
+        assertFalse(thread.isAlive());
+        assertThat(uncaught.get(), instanceOf(IllegalStateException.class));
+        assertEquals("KABOOM!", uncaught.get().getMessage());
+    }
+
+    @Test
+    public void shouldWaitForTaskWorkersWhenInterruptedOrClosed() throws Exception {
+        final CountDownLatch processing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger processed = new AtomicInteger();
+        final TopologyBuilder builder = topologyWithProcessor(new AbstractProcessor<byte[], byte[]>() {
+            @Override
+            public void process(final byte[] key, final byte[] value) {
+                processing.countDown();
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                processed.incrementAndGet();
+            }
+        });
+        final MockClientSupplier clientSupplier = new MockClientSupplier();
+        final StreamThread thread = startThreadWithTaskWorkers(builder, clientSupplier, clientSupplier.consumer, 1, 1);
+        assertTrue(processing.await(30, TimeUnit.SECONDS));
+
+        // the stream thread keeps waiting for the task it dispatched, so that it is not closed while being processed
+        thread.interrupt();
+        thread.close();
+        thread.join(100);
+        assertTrue(thread.isAlive());
+        assertEquals(0, processed.get());
+
+        release.countDown();
+        thread.join(30000);
+        assertFalse(thread.isAlive());
+        assertEquals(1, processed.get());
+    }
+
+    @Test
+    public void shouldResumeDrainedPartitionsOnStreamThread() throws Exception {
+        final AtomicInteger processed = new AtomicInteger();
+        final TopologyBuilder builder = topologyWithProcessor(new AbstractProcessor<byte[], byte[]>() {
+            @Override
+            public void process(final byte[] key, final byte[] value) {
+                processed.incrementAndGet();
+            }
+        });
+        final List<String> resumedBy = Collections.synchronizedList(new ArrayList<String>());
+        final MockConsumer<byte[], byte[]> resumeRecordingConsumer = new MockConsumer<byte[], byte[]>(OffsetResetStrategy.EARLIEST) {
+            @Override
+            public void resume(final Collection<TopicPartition> partitions) {
+                resumedBy.add(Thread.currentThread().getName());
+                super.resume(partitions);
+            }
+        };
+        final MockClientSupplier clientSupplier = new MockClientSupplier() {
+            @Override
+            public Consumer<byte[], byte[]> getConsumer(final Map<String, Object> config) {
+                return resumeRecordingConsumer;
+            }
+        };
+        // more records than the buffer of a partition, which is paused when they are added to its task
+        final StreamThread thread = startThreadWithTaskWorkers(builder, clientSupplier, resumeRecordingConsumer, 1, 5);
+
+        TestUtils.waitForCondition(new TestCondition() {
+            @Override
+            public boolean conditionMet() {
+                return processed.get() == 5 && !resumedBy.isEmpty();
+            }
+        }, "Expected the drained partition to be resumed");
+        thread.close();
+        thread.join(30000);
+        assertEquals(Collections.singletonList(thread.getName()), new ArrayList<>(resumedBy));
+    }
+
+    private TopologyBuilder topologyWithProcessor(final Processor<byte[], byte[]> processor) {
+        final TopologyBuilder builder = new TopologyBuilder().setApplicationId(applicationId);
+        builder.addSource("source", TOPIC);
+        builder.addProcessor("processor", new ProcessorSupplier<byte[], byte[]>() {
+            @Override
+            public Processor<byte[], byte[]> get() {
+                return processor;
+            }
+        }, "source");
+        return builder;
+    }
+
+    private StreamThread createThreadWithTaskWorkers(final TopologyBuilder builder, final MockClientSupplier clientSupplier) {
+        final Properties props = configProps();
+        props.setProperty(StreamsConfig.NUM_TASK_WORKER_THREADS_CONFIG, "2");
+        return new StreamThread(builder, new StreamsConfig(props), clientSupplier, applicationId, clientId, processId,
+            new Metrics(), new MockTime(), new StreamsMetadataState(builder, StreamsMetadataState.UNKNOWN_HOST), 0);
+    }
+
+    private StreamThread startThreadWithTaskWorkers(final TopologyBuilder builder,
+                                                    final MockClientSupplier clientSupplier,
+                                                    final MockConsumer<byte[], byte[]> consumer,
+                                                    final int numPartitions,
+                                                    final int recordsPerPartition) {
+        final StreamThread thread = createThreadWithTaskWorkers(builder, clientSupplier);
+        startWithRecords(thread, consumer, numPartitions, recordsPerPartition);
+        return thread;
+    }
+
+    /**
+     * Start the thread, then assign it a task per partition and add the records from its first polls, as the
+     * consumer must only be used by the stream thread.
+     */
+    private void startWithRecords(final StreamThread thread,
+                                  final MockConsumer<byte[], byte[]> consumer,
+                                  final int numPartitions,
+                                  final int recordsPerPartition) {
+        final Map<TaskId, Set<TopicPartition>> assignment = new HashMap<>();
+        final Map<TopicPartition, Long> beginningOffsets = new HashMap<>();
+        for (int partition = 0; partition < numPartitions; partition++) {
+            final TopicPartition topicPartition = new TopicPartition(TOPIC, partition);
+            assignment.put(new TaskId(0, partition), Collections.singleton(topicPartition));
+            beginningOffsets.put(topicPartition, 0L);
+        }
+        final Set<TopicPartition> partitions = new HashSet<>(beginningOffsets.keySet());
+        thread.setPartitionAssignor(new MockStreamsPartitionAssignor(assignment));
+        consumer.updateBeginningOffsets(beginningOffsets);
+        consumer.schedulePollTask(new Runnable() {
+            @Override
+            public void run() {
+                consumer.rebalance(partitions);
+                thread.rebalanceListener.onPartitionsRevoked(Collections.<TopicPartition>emptySet());
+                thread.rebalanceListener.onPartitionsAssigned(partitions);
+            }
+        });
+        consumer.schedulePollTask(new Runnable() {
+            @Override
+            public void run() {
+                for (final TopicPartition partition : partitions) {
+                    for (long offset = 0; offset < recordsPerPartition; offset++) {
+                        consumer.addRecord(new ConsumerRecord<>(TOPIC, partition.partition(), offset, new byte[0], new byte[0]));
+                    }
+                }
+            }
+        });
+        thread.start();
+    }
+
+    private static Set<String> liveThreadNamesStartingWith(final String prefix) {
+        final Set<String> names = new HashSet<>();
+        for (final Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && thread.getName().startsWith(prefix)) {
+                names.add(thread.getName());
+            }
+        }
+        return names;
+    }
+
     private void initPartitionGrouper(final StreamsConfig config, final StreamThread thread, final MockClientSupplier clientSupplier) {
         final StreamPartitionAssignor partitionAssignor = new StreamPartitionAssignor();
 
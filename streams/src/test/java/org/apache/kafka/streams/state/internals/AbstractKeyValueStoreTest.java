@@ -16,8 +16,10 @@
  */
 package org.apache.kafka.streams.state.internals;
 
+import org.apache.kafka.common.serialization.Serdes;
 import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.processor.ProcessorContext;
+import org.apache.kafka.streams.state.BulkReadableKeyValueStore;
 import org.apache.kafka.streams.state.KeyValueIterator;
 import org.apache.kafka.streams.state.KeyValueStore;
 import org.apache.kafka.streams.state.KeyValueStoreTestDriver;
@@ -26,8 +28,16 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public abstract class AbstractKeyValueStoreTest {
@@ -227,4 +237,41 @@ public abstract class AbstractKeyValueStoreTest {
         store.put(5, "five");
         assertEquals(5, store.approximateNumEntries());
     }
+
+    private BulkReadableKeyValueStore<Integer, String> bulkReadableStore() {
+        assertTrue(store instanceof BulkReadableKeyValueStore);
+        return (BulkReadableKeyValueStore<Integer, String>) store;
+    }
+
+    @Test
+    public void shouldGetValuesOfAllKeysWithAValue() {
+        store.put(0, "zero");
+        store.put(1, "one");
+        store.put(2, "two");
+        store.delete(2);
+
+        final Map<Integer, String> expected = new HashMap<>();
+        expected.put(0, "zero");
+        expected.put(1, "one");
+        assertEquals(expected, bulkReadableStore().multiGet(Arrays.asList(0, 1, 2, 3)));
+        assertEquals(Collections.emptyMap(), bulkReadableStore().multiGet(Collections.<Integer>emptyList()));
+    }
+
+    @Test
+    public void shouldScanKeysWithSerializedPrefix() {
+        store.put(1, "one");
+        store.put(256, "256");
+        store.put(300, "300");
+        store.put(511, "511");
+        store.put(512, "512");
+
+        // the keys from 256 to 511 are serialized as four big-endian bytes starting with 0, 0, 1
+        final List<KeyValue<Integer, String>> scanned = new ArrayList<>();
+        try (KeyValueIterator<Integer, String> iter = bulkReadableStore().prefixScan(new byte[] {0, 0, 1}, Serdes.ByteArray().serializer())) {
+            while (iter.hasNext()) {
+                scanned.add(iter.next());
+            }
+        }
+        assertEquals(Arrays.asList(KeyValue.pair(256, "256"), KeyValue.pair(300, "300"), KeyValue.pair(511, "511")), scanned);
+    }
 }
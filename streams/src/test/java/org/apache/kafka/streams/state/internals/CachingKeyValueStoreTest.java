@@ -34,6 +34,7 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -44,6 +45,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class CachingKeyValueStoreTest {
 
@@ -118,6 +120,36 @@ public class CachingKeyValueStoreTest {
         assertEquals("a", cacheFlushListener.forwarded.get("1").oldValue);
     }
 
+    @Test
+    public void shouldNotForwardOrWriteUnchangedValuesWhenSkippingUnchangedWrites() throws Exception {
+        final InMemoryKeyValueStore<Bytes, byte[]> skipUnderlying = new InMemoryKeyValueStore<Bytes, byte[]>("skip", Serdes.Bytes(), Serdes.ByteArray()) {
+            @Override
+            public void put(final Bytes key, final byte[] value) {
+                super.put(key, value);
+                cacheFlushListener.forwarded.put("underlying-" + new String(key.get()), null);
+            }
+        };
+        final CachingKeyValueStore<String, String> skipping = new CachingKeyValueStore<>(skipUnderlying, Serdes.String(), Serdes.String(), true);
+        skipping.setFlushListener(cacheFlushListener);
+        skipping.init(context, null);
+
+        skipping.put("1", "a");
+        skipping.flush();
+        assertEquals(2, cacheFlushListener.forwarded.size());
+
+        cacheFlushListener.forwarded.clear();
+        skipping.put("1", "b");
+        skipping.put("1", "a");
+        skipping.flush();
+        assertEquals(0, cacheFlushListener.forwarded.size());
+
+        skipping.put("1", "c");
+        skipping.flush();
+        assertEquals("c", cacheFlushListener.forwarded.get("1").newValue);
+        assertEquals("a", cacheFlushListener.forwarded.get("1").oldValue);
+        assertTrue(cacheFlushListener.forwarded.containsKey("underlying-1"));
+    }
+
     @Test
     public void shouldIterateAllStoredItems() throws Exception {
         int items = addItemsToCache();
@@ -129,6 +161,39 @@ public class CachingKeyValueStoreTest {
         assertEquals(items, results.size());
     }
 
+    @Test
+    public void shouldGetValuesOfMultipleKeysFromCacheAndUnderlyingStore() throws Exception {
+        underlyingStore.put(Bytes.wrap("a".getBytes()), "1".getBytes());
+        underlyingStore.put(Bytes.wrap("c".getBytes()), "3".getBytes());
+        store.put("b", "2");
+        store.put("c", null);
+
+        final Map<String, String> expected = new HashMap<>();
+        expected.put("a", "1");
+        expected.put("b", "2");
+        assertEquals(expected, store.multiGet(Arrays.asList("a", "b", "c", "d")));
+        // the value fetched from the underlying store is cached
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void shouldScanKeysWithPrefixInCacheAndUnderlyingStore() throws Exception {
+        underlyingStore.put(Bytes.wrap("ab".getBytes()), "1".getBytes());
+        underlyingStore.put(Bytes.wrap("ac".getBytes()), "3".getBytes());
+        underlyingStore.put(Bytes.wrap("b".getBytes()), "4".getBytes());
+        store.put("aa", "2");
+        store.delete("ac");
+        store.put("ba", "5");
+
+        final List<KeyValue<String, String>> results = new ArrayList<>();
+        try (final KeyValueIterator<String, String> iterator = store.prefixScan("a", Serdes.String().serializer())) {
+            while (iterator.hasNext()) {
+                results.add(iterator.next());
+            }
+        }
+        assertEquals(Arrays.asList(KeyValue.pair("aa", "2"), KeyValue.pair("ab", "1")), results);
+    }
+
     @Test
     public void shouldIterateOverRange() throws Exception {
         int items = addItemsToCache();
@@ -44,6 +44,7 @@ public class ChangeLoggingKeyValueBytesStoreTest {
     private final InMemoryKeyValueStore<Bytes, byte[]> inner = new InMemoryKeyValueStore<>("kv", Serdes.Bytes(), Serdes.ByteArray());
     private final ChangeLoggingKeyValueBytesStore store = new ChangeLoggingKeyValueBytesStore(inner);
     private final Map sent = new HashMap<>();
+    private int numSent = 0;
     private final Bytes hi = Bytes.wrap("hi".getBytes());
     private final Bytes hello = Bytes.wrap("hello".getBytes());
     private final byte[] there = "there".getBytes();
@@ -61,6 +62,7 @@ public class ChangeLoggingKeyValueBytesStoreTest {
                                     Serializer<K> keySerializer,
                                     Serializer<V> valueSerializer) {
                 sent.put(key, value);
+                numSent++;
             }
         };
         context = new MockProcessorContext(
@@ -174,4 +176,24 @@ public class ChangeLoggingKeyValueBytesStoreTest {
     public void shouldReturnNullOnGetWhenDoesntExist() throws Exception {
         assertThat(store.get(hello), is(nullValue()));
     }
+
+    @Test
+    public void shouldNotWriteOrLogUnchangedValuesWhenSkippingUnchangedWrites() throws Exception {
+        final InMemoryKeyValueStore<Bytes, byte[]> skipInner = new InMemoryKeyValueStore<>("skip", Serdes.Bytes(), Serdes.ByteArray());
+        final ChangeLoggingKeyValueBytesStore skipping = new ChangeLoggingKeyValueBytesStore(skipInner, true);
+        skipping.init(context, skipping);
+
+        skipping.put(hi, there);
+        skipping.put(hi, "there".getBytes());
+        skipping.putAll(Arrays.asList(KeyValue.pair(hi, there),
+                                      KeyValue.pair(hello, world)));
+        skipping.delete(Bytes.wrap("absent".getBytes()));
+        assertThat(numSent, equalTo(2));
+
+        skipping.put(hi, world);
+        assertThat(numSent, equalTo(3));
+        assertThat((byte[]) sent.get(hi), equalTo(world));
+        assertThat(skipInner.get(hi), equalTo(world));
+        skipping.close();
+    }
 }
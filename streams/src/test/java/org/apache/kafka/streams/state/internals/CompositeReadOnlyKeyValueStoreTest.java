@@ -16,6 +16,7 @@
  */
 package org.apache.kafka.streams.state.internals;
 
+import org.apache.kafka.common.serialization.Serdes;
 import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.errors.InvalidStateStoreException;
 import org.apache.kafka.streams.state.KeyValueStore;
@@ -27,7 +28,9 @@ import org.junit.Test;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.apache.kafka.test.StreamsTestUtils.toList;
 import static org.junit.Assert.assertEquals;
@@ -94,6 +97,39 @@ public class CompositeReadOnlyKeyValueStoreTest {
         assertEquals("key-one-value", theStore.get("key-one"));
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void shouldGetValuesOfMultipleKeysAcrossMultipleKVStores() throws Exception {
+        final KeyValueStore<String, String> cache = newStoreInstance();
+        stubProviderTwo.addStore(storeName, cache);
+
+        stubOneUnderlying.put("key-one", "key-one-value");
+        cache.put("key-two", "key-two-value");
+        otherUnderlyingStore.put("other-key", "other-value");
+
+        final Map<String, String> expected = new HashMap<>();
+        expected.put("key-one", "key-one-value");
+        expected.put("key-two", "key-two-value");
+        assertEquals(expected, theStore.multiGet(Arrays.asList("key-one", "key-two", "other-key", "missing")));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void shouldSupportPrefixScanAcrossMultipleKVStores() throws Exception {
+        final KeyValueStore<String, String> cache = newStoreInstance();
+        stubProviderTwo.addStore(storeName, cache);
+
+        stubOneUnderlying.put("aa", "aa");
+        stubOneUnderlying.put("b", "b");
+        cache.put("ab", "ab");
+        cache.put("ba", "ba");
+
+        final List<KeyValue<String, String>> results = toList(theStore.prefixScan("a", Serdes.String().serializer()));
+        assertTrue(results.contains(new KeyValue<>("aa", "aa")));
+        assertTrue(results.contains(new KeyValue<>("ab", "ab")));
+        assertEquals(2, results.size());
+    }
+
     @Test
     public void shouldSupportRange() throws Exception {
         stubOneUnderlying.put("a", "a");
@@ -183,6 +219,29 @@ public class CompositeReadOnlyKeyValueStoreTest {
         assertEquals(6, theStore.approximateNumEntries());
     }
 
+    @Test
+    public void shouldGetValuesOfMultipleKeysOneByOneFromStoresWithoutBulkReads() throws Exception {
+        stubProviderTwo.addStore(storeName, new NoOpReadOnlyStore<String, String>() {
+            @Override
+            public String get(final String key) {
+                return key.equals("key-two") ? "key-two-value" : null;
+            }
+        });
+        stubOneUnderlying.put("key-one", "key-one-value");
+
+        final Map<String, String> expected = new HashMap<>();
+        expected.put("key-one", "key-one-value");
+        expected.put("key-two", "key-two-value");
+        assertEquals(expected, theStore.multiGet(Arrays.asList("key-one", "key-two", "missing")));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotSupportPrefixScanOfStoresWithoutBulkReads() throws Exception {
+        stubProviderTwo.addStore(storeName, new NoOpReadOnlyStore<String, String>());
+
+        toList(theStore.prefixScan("a", Serdes.String().serializer()));
+    }
+
     @Test
     public void shouldReturnLongMaxValueOnOverflow() throws Exception {
         stubProviderTwo.addStore(storeName, new NoOpReadOnlyStore<Object, Object>() {
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kafka.streams.state.internals;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.utils.Utils;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.processor.internals.MockStreamsMetrics;
+import org.apache.kafka.streams.processor.internals.ProcessorRecordContext;
+import org.apache.kafka.streams.processor.internals.RecordCollector;
+import org.apache.kafka.streams.processor.internals.RecordCollectorImpl;
+import org.apache.kafka.streams.state.StateSerdes;
+import org.apache.kafka.streams.state.WindowStore;
+import org.apache.kafka.streams.state.WindowStoreIterator;
+import org.apache.kafka.test.MockProcessorContext;
+import org.apache.kafka.test.TestUtils;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class InMemoryWindowStoreTest {
+
+    private final String storeName = "window";
+    private final long retentionPeriod = 100L;
+    private final StateSerdes<Integer, String> serdes = new StateSerdes<>("", Serdes.Integer(), Serdes.String());
+    private final List<KeyValue<byte[], byte[]>> changeLog = new ArrayList<>();
+
+    private final RecordCollector recordCollector = new RecordCollectorImpl(
+        new MockProducer<>(true, Serdes.ByteArray().serializer(), Serdes.ByteArray().serializer()),
+        "InMemoryWindowStoreTestTask") {
+        @Override
+        public <K1, V1> void send(final String topic,
+                                  final K1 key,
+                                  final V1 value,
+                                  final Integer partition,
+                                  final Long timestamp,
+                                  final Serializer<K1> keySerializer,
+                                  final Serializer<V1> valueSerializer) {
+            changeLog.add(new KeyValue<>(keySerializer.serialize(topic, key), valueSerializer.serialize(topic, value)));
+        }
+    };
+    private final MockProcessorContext context = new MockProcessorContext(TestUtils.tempDirectory("test"),
+        Serdes.ByteArray(), Serdes.ByteArray(), recordCollector,
+        new ThreadCache("testCache", 0, new MockStreamsMetrics(new Metrics())));
+    private WindowStore<Integer, String> windowStore = createWindowStore();
+
+    @SuppressWarnings("unchecked")
+    private WindowStore<Integer, String> createWindowStore() {
+        final WindowStore<Integer, String> store = new InMemoryWindowStoreSupplier<>(storeName, retentionPeriod, true,
+            Serdes.Integer(), Serdes.String(), true, Collections.<String, String>emptyMap()).get();
+        store.init(context, store);
+        return store;
+    }
+
+    @After
+    public void after() {
+        context.close();
+        windowStore.close();
+    }
+
+    @Test
+    public void shouldFetchRecordsOfKeyWithinTimeRangeInTimestampOrder() {
+        put(1, "b", 20L);
+        put(1, "a", 10L);
+        put(2, "c", 15L);
+        put(1, "c", 30L);
+
+        assertEquals(Utils.mkList(KeyValue.pair(10L, "a"), KeyValue.pair(20L, "b")), toList(windowStore.fetch(1, 5L, 25L)));
+        assertEquals(Utils.mkList(KeyValue.pair(15L, "c")), toList(windowStore.fetch(2, 0L, 100L)));
+        assertEquals(Collections.emptyList(), toList(windowStore.fetch(1, 11L, 19L)));
+        assertEquals(Collections.emptyList(), toList(windowStore.fetch(3, 0L, 100L)));
+    }
+
+    @Test
+    public void shouldRetainDuplicatesInInsertionOrder() {
+        put(0, "zero", 10L);
+        put(0, "zero+", 10L);
+        put(0, "zero", 10L);
+
+        assertEquals(Utils.mkList(KeyValue.pair(10L, "zero"), KeyValue.pair(10L, "zero+"), KeyValue.pair(10L, "zero")),
+            toList(windowStore.fetch(0, 10L, 10L)));
+    }
+
+    @Test
+    public void shouldDropRecordsOlderThanRetentionPeriod() {
+        put(0, "zero", 0L);
+        put(1, "one", 60L);
+        put(2, "two", 120L);
+
+        assertEquals(Collections.emptyList(), toList(windowStore.fetch(0, 0L, 200L)));
+        assertEquals(Utils.mkList(KeyValue.pair(60L, "one")), toList(windowStore.fetch(1, 0L, 200L)));
+        assertEquals(Utils.mkList(KeyValue.pair(120L, "two")), toList(windowStore.fetch(2, 0L, 200L)));
+    }
+
+    @Test
+    public void shouldNotSeeRecordsPutAfterFetch() {
+        put(0, "zero", 0L);
+        final WindowStoreIterator<String> iterator = windowStore.fetch(0, 0L, 10L);
+        put(0, "zero+", 1L);
+
+        assertEquals(KeyValue.pair(0L, "zero"), iterator.next());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void shouldWriteSameChangelogAsRocksDBWindowStore() {
+        put(1, "one", 10L);
+        put(1, "one+", 10L);
+
+        assertEquals(2, changeLog.size());
+        assertArrayEquals(WindowStoreUtils.toBinaryKey(1, 10L, 1, serdes).get(), changeLog.get(0).key);
+        assertArrayEquals(serdes.rawValue("one"), changeLog.get(0).value);
+        assertArrayEquals(WindowStoreUtils.toBinaryKey(1, 10L, 2, serdes).get(), changeLog.get(1).key);
+        assertArrayEquals(serdes.rawValue("one+"), changeLog.get(1).value);
+    }
+
+    @Test
+    public void shouldRestoreFromChangelog() {
+        put(0, "zero", 0L);
+        put(1, "one", 60L);
+        put(1, "one+", 60L);
+        put(2, "two", 120L);
+        windowStore.close();
+
+        windowStore = createWindowStore();
+        assertEquals(Collections.emptyList(), toList(windowStore.fetch(1, 0L, 200L)));
+
+        context.restore(storeName, changeLog);
+
+        assertEquals(Collections.emptyList(), toList(windowStore.fetch(0, 0L, 200L)));
+        assertEquals(Utils.mkList(KeyValue.pair(60L, "one"), KeyValue.pair(60L, "one+")), toList(windowStore.fetch(1, 0L, 200L)));
+        assertEquals(Utils.mkList(KeyValue.pair(120L, "two")), toList(windowStore.fetch(2, 0L, 200L)));
+    }
+
+    private void put(final int key, final String value, final long timestamp) {
+        context.setRecordContext(new ProcessorRecordContext(timestamp, 0, 0, "topic"));
+        windowStore.put(key, value);
+    }
+
+    private static <V> List<KeyValue<Long, V>> toList(final WindowStoreIterator<V> iterator) {
+        final List<KeyValue<Long, V>> list = new ArrayList<>();
+        while (iterator.hasNext()) {
+            list.add(iterator.next());
+        }
+        iterator.close();
+        return list;
+    }
+}
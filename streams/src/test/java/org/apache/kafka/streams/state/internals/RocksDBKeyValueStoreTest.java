@@ -16,19 +16,34 @@
  */
 package org.apache.kafka.streams.state.internals;
 
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KeyValue;
 import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.apache.kafka.streams.processor.BatchingStateRestoreCallback;
 import org.apache.kafka.streams.processor.ProcessorContext;
+import org.apache.kafka.streams.processor.StateRestoreCallback;
+import org.apache.kafka.streams.processor.StateStore;
+import org.apache.kafka.streams.processor.internals.RecordCollector;
+import org.apache.kafka.streams.processor.internals.StateSnapshotCallback;
 import org.apache.kafka.streams.state.KeyValueIterator;
 import org.apache.kafka.streams.state.KeyValueStore;
 import org.apache.kafka.streams.state.RocksDBConfigSetter;
+import org.apache.kafka.streams.state.StateSerdes;
 import org.apache.kafka.streams.state.Stores;
+import org.apache.kafka.test.MockProcessorContext;
+import org.apache.kafka.test.TestUtils;
 import org.junit.Test;
 import org.rocksdb.Options;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -98,6 +113,68 @@ public class RocksDBKeyValueStoreTest extends AbstractKeyValueStoreTest {
         assertFalse(range.hasNext());
     }
 
+    @Test
+    public void shouldRestoreAllRecordsOfBatchInOrder() throws Exception {
+        final StateSerdes<Integer, String> serdes = new StateSerdes<>("", Serdes.Integer(), Serdes.String());
+        final List<StateRestoreCallback> callbacks = new ArrayList<>();
+        final MockProcessorContext context = new MockProcessorContext(TestUtils.tempDirectory(), Serdes.Integer(), Serdes.String(),
+                                                                      (RecordCollector) null, null) {
+            @Override
+            public void register(final StateStore store, final boolean loggingEnabled, final StateRestoreCallback func) {
+                callbacks.add(func);
+            }
+        };
+        final RocksDBStore<Integer, String> rocksStore = new RocksDBStore<>("batch-store", Serdes.Integer(), Serdes.String());
+        rocksStore.init(context, rocksStore);
+        try {
+            assertTrue(callbacks.get(0) instanceof BatchingStateRestoreCallback);
+            ((BatchingStateRestoreCallback) callbacks.get(0)).restoreAll(Arrays.asList(
+                KeyValue.pair(serdes.rawKey(1), serdes.rawValue("one")),
+                KeyValue.pair(serdes.rawKey(2), serdes.rawValue("two")),
+                KeyValue.pair(serdes.rawKey(1), (byte[]) null),
+                KeyValue.pair(serdes.rawKey(2), serdes.rawValue("two+"))));
+
+            assertNull(rocksStore.get(1));
+            assertEquals("two+", rocksStore.get(2));
+        } finally {
+            rocksStore.close();
+        }
+    }
+
+    @Test
+    public void shouldRestoreContentOfStoreFromItsSnapshot() throws Exception {
+        final List<StateRestoreCallback> callbacks = new ArrayList<>();
+        final MockProcessorContext context = new MockProcessorContext(TestUtils.tempDirectory(), Serdes.Integer(), Serdes.String(),
+                                                                      (RecordCollector) null, null) {
+            @Override
+            public void register(final StateStore store, final boolean loggingEnabled, final StateRestoreCallback func) {
+                callbacks.add(func);
+            }
+        };
+        final RocksDBStore<Integer, String> rocksStore = new RocksDBStore<>("snapshot-store", Serdes.Integer(), Serdes.String());
+        rocksStore.init(context, rocksStore);
+        try {
+            assertTrue(callbacks.get(0) instanceof StateSnapshotCallback);
+            final StateSnapshotCallback snapshotCallback = (StateSnapshotCallback) callbacks.get(0);
+            rocksStore.put(1, "one");
+            rocksStore.put(2, "two");
+            rocksStore.flush();
+            final File snapshotDir = new File(TestUtils.tempDirectory(), "snapshot");
+            snapshotCallback.snapshot(snapshotDir);
+
+            rocksStore.put(1, "one+");
+            rocksStore.put(3, "three");
+            snapshotCallback.restoreSnapshot(snapshotDir);
+
+            assertEquals("one", rocksStore.get(1));
+            assertEquals("two", rocksStore.get(2));
+            assertNull(rocksStore.get(3));
+            assertTrue(new File(snapshotDir, "CURRENT").exists());
+        } finally {
+            rocksStore.close();
+        }
+    }
+
     @Test
     public void shouldCloseOpenIteratorsWhenStoreClosedAndThrowInvalidStateStoreOnHasNextAndNext() throws Exception {
         context.setTime(1L);